@@ -126,6 +126,7 @@ public class Code01 {
 
 
     // 序列化对象到文件
+    // 补充：一个对象一个文件，每次都要 open/write/close；大量小对象需要持久化时，见 item01.AppendOnlyLog
     private static void serializeObject(Object obj, String fileName) {
         try {
             FileOutputStream fileOut = new FileOutputStream(fileName);
@@ -140,6 +141,8 @@ public class Code01 {
     }
 
     // 从文件中反序列化对象
+    // 补充：一次只能读一个对象，出错时返回 null，调用方分不清 "没有" 和 "坏了"；
+    //      item01.LogReader 按顺序惰性读取 AppendOnlyLog 中的所有记录，数据损坏时抛出异常
     private static Object deserializeObject(String fileName) {
         try {
             FileInputStream fileIn = new FileInputStream(fileName);
@@ -157,7 +160,10 @@ public class Code01 {
     }
 
     // 定义一个可序列化的Person类
-    static class Person implements Serializable {
+    // 补充：ObjectOutputStream 会写入类的描述信息，并通过反射读写字段，对这种很小的对象来说开销占了大头，
+    //      item01.PersonCodec 是针对 Person 手写的二进制格式
+    //      item01.PersonStore 把 Person 放在内存映射文件的固定槽位中，读取时不需要反序列化
+    public static class Person implements Serializable {
         private String name;
         private int age;
 
@@ -166,6 +172,14 @@ public class Code01 {
             this.age = age;
         }
 
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
         @Override
         public String toString() {
             return "Person{" +
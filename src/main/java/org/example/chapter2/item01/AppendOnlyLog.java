@@ -0,0 +1,301 @@
+package org.example.chapter2.item01;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 只追加写的日志文件，用来代替 Code01.serializeObject 中 "一个对象一个文件" 的写法
+    1.调用方 append 只是把对象放进一个有界队列，由一个后台线程批量取出、编码、加上长度和 CRC，
+        一批记录只调用一次 write，需要持久化时也只调用一次 force（group commit）
+    2.队列满了 append 会阻塞，写得比磁盘快的时候，调用方会被放慢（back-pressure）
+    3.持久化策略：SyncPolicy.NONE 只写到操作系统的缓存，进程崩溃不丢数据，机器掉电可能丢；
+        SyncPolicy.BATCH 每一批都 force；也可以在 append 时单独要求这一条 sync，它所在的整批会一起 force
+    4.段文件写满 segmentBytes 之后，切换到新的段文件，文件格式见 LogFormat
+ append 返回的 CompletableFuture 在记录写入（需要 sync 时是 force）之后完成，结果是这条记录的序号
+ */
+public final class AppendOnlyLog<T> implements Closeable {
+
+    public enum SyncPolicy { NONE, BATCH }
+
+    public static final class Builder<T> {
+        private final Path directory;
+        private final BinaryCodec<T> codec;
+        private long segmentBytes = 64L * 1024 * 1024;
+        private int maxBatchRecords = 1024;
+        private int queueCapacity = 8192;
+        private SyncPolicy syncPolicy = SyncPolicy.NONE;
+
+        private Builder(Path directory, BinaryCodec<T> codec) {
+            this.directory = Objects.requireNonNull(directory);
+            this.codec = Objects.requireNonNull(codec);
+        }
+
+        public Builder<T> segmentBytes(long segmentBytes) {
+            if (segmentBytes <= LogFormat.HEADER_SIZE || segmentBytes > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("segmentBytes: " + segmentBytes);
+            this.segmentBytes = segmentBytes;
+            return this;
+        }
+
+        public Builder<T> maxBatchRecords(int maxBatchRecords) {
+            if (maxBatchRecords <= 0)
+                throw new IllegalArgumentException("maxBatchRecords: " + maxBatchRecords);
+            this.maxBatchRecords = maxBatchRecords;
+            return this;
+        }
+
+        public Builder<T> queueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0)
+                throw new IllegalArgumentException("queueCapacity: " + queueCapacity);
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder<T> syncPolicy(SyncPolicy syncPolicy) {
+            this.syncPolicy = Objects.requireNonNull(syncPolicy);
+            return this;
+        }
+
+        public AppendOnlyLog<T> open() throws IOException {
+            return new AppendOnlyLog<>(this);
+        }
+    }
+
+    public static <T> Builder<T> builder(Path directory, BinaryCodec<T> codec) {
+        return new Builder<>(directory, codec);
+    }
+
+    private static final class Pending<T> {
+        final T record;
+        final boolean sync;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        Pending(T record, boolean sync) {
+            this.record = record;
+            this.sync = sync;
+        }
+    }
+
+    private final Path directory;
+    private final BinaryCodec<T> codec;
+    private final long segmentBytes;
+    private final int maxBatchRecords;
+    private final SyncPolicy syncPolicy;
+    private final BlockingQueue<Pending<T>> queue;
+    private final Thread writerThread;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    // 以下字段只在 writer 线程中使用（open 时除外）
+    private FileChannel segment;
+    private long segmentSize;
+    private long nextSequence;
+    private final BinaryWriter payload = new BinaryWriter(256);
+    private final BinaryWriter batch = new BinaryWriter(64 * 1024);
+
+    private AppendOnlyLog(Builder<T> builder) throws IOException {
+        this.directory = builder.directory;
+        this.codec = builder.codec;
+        this.segmentBytes = builder.segmentBytes;
+        this.maxBatchRecords = builder.maxBatchRecords;
+        this.syncPolicy = builder.syncPolicy;
+        this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+        Files.createDirectories(directory);
+        recover();
+        writerThread = new Thread(this::writeLoop, "append-only-log-writer-" + directory.getFileName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // 打开最后一个段文件，截掉末尾不完整的记录，并算出下一条记录的序号；规则见 LogFormat
+    private void recover() throws IOException {
+        List<Path> segments = LogFormat.segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(0);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        FileChannel channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (LogFormat.hasTornHeader(channel)) {
+                // 创建段文件之后还没写完文件头就崩溃了，重新初始化
+                channel.truncate(0);
+                LogFormat.writeHeader(channel);
+                channel.force(true);
+            }
+            LogFormat.checkHeader(channel, last);
+            LogFormat.ScanResult scan = LogFormat.scan(channel);
+            if (scan.validEnd < channel.size()) {
+                channel.truncate(scan.validEnd);
+                channel.force(true);
+            }
+            channel.position(scan.validEnd);
+            segment = channel;
+            segmentSize = scan.validEnd;
+            nextSequence = LogFormat.firstSequence(last) + scan.records;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(LogFormat.segmentName(firstSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            LogFormat.writeHeader(channel);
+            channel.force(true);
+            LogFormat.syncDirectory(directory);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        channel.position(LogFormat.HEADER_SIZE);
+        segment = channel;
+        segmentSize = LogFormat.HEADER_SIZE;
+    }
+
+    public CompletableFuture<Long> append(T record) {
+        return append(record, syncPolicy == SyncPolicy.BATCH);
+    }
+
+    /**
+     * Queues {@code record}, blocking while the queue is full.
+     *
+     * @param sync whether the returned future completes only after the record is forced to disk
+     */
+    public CompletableFuture<Long> append(T record, boolean sync) {
+        Objects.requireNonNull(record);
+        if (closed)
+            throw new IllegalStateException("log is closed");
+        IOException f = failure;
+        if (f != null)
+            throw new UncheckedIOException("log writer failed", f);
+        Pending<T> pending = new Pending<>(record, sync);
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+            return pending.future;
+        }
+        // close 或者 writer 失败发生在上面的检查和 put 之间，writer 可能已经退出，不会再处理这条记录
+        if ((closed || failure != null) && queue.remove(pending))
+            pending.future.completeExceptionally(new IllegalStateException("log is closed"));
+        return pending.future;
+    }
+
+    private void writeLoop() {
+        List<Pending<T>> pendings = new ArrayList<>(maxBatchRecords);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                // 不能用 interrupt 唤醒：FileChannel 被中断时会直接关闭，所以 close 只设置标志，这里定时检查
+                Pending<T> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                pendings.add(first);
+                queue.drainTo(pendings, maxBatchRecords - 1);
+                writeBatch(pendings);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new IOException("log writer interrupted", e);
+            } catch (IOException | RuntimeException e) {
+                failure = e instanceof IOException ? (IOException) e : new IOException(e);
+            }
+            if (failure != null) {
+                for (Pending<T> p : pendings)
+                    p.future.completeExceptionally(failure);
+                failQueued(failure);
+                return;
+            }
+            pendings.clear();
+        }
+    }
+
+    private void failQueued(Exception e) {
+        Pending<T> p;
+        while ((p = queue.poll()) != null)
+            p.future.completeExceptionally(e);
+    }
+
+    private void writeBatch(List<Pending<T>> pendings) throws IOException {
+        boolean sync = false;
+        batch.reset();
+        for (int i = 0; i < pendings.size(); i++) {
+            Pending<T> p = pendings.get(i);
+            payload.reset();
+            codec.encode(payload, p.record);
+            int length = payload.size();
+            if (segmentSize + batch.size() + LogFormat.FRAME_OVERHEAD + length > segmentBytes
+                    && segmentSize + batch.size() > LogFormat.HEADER_SIZE) {
+                // 当前段写满了，先把已经编码的部分写到当前段，再切换
+                flushBatch(sync);
+                rollSegment(nextSequence + i);
+            }
+            batch.writeIntFixed(length);
+            batch.writeIntFixed(LogFormat.crc(payload.array(), 0, length));
+            batch.writeBytes(payload.array(), 0, length);
+            sync |= p.sync;
+        }
+        flushBatch(sync);
+        for (Pending<T> p : pendings)
+            p.future.complete(nextSequence++);
+    }
+
+    private void flushBatch(boolean sync) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(batch.array(), 0, batch.size());
+        while (buffer.hasRemaining())
+            segment.write(buffer);
+        segmentSize += batch.size();
+        batch.reset();
+        if (sync)
+            segment.force(false);
+    }
+
+    private void rollSegment(long firstSequence) throws IOException {
+        if (syncPolicy == SyncPolicy.BATCH)
+            segment.force(false);
+        segment.close();
+        openSegment(firstSequence);
+    }
+
+    /**
+     * Writes everything already queued, then closes the current segment.
+     */
+    @Override public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (failure == null && syncPolicy == SyncPolicy.BATCH)
+                segment.force(false);
+        } finally {
+            segment.close();
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.chapter2.item01;
+
+import java.util.function.IntFunction;
+
+/**
+ 按字段手写的二进制编解码，用来代替 ObjectOutputStream
+    1.不写类描述信息，也不通过反射读写字段，数据里只有字段的值
+    2.数据的第一个字节是版本号：格式变化时提高 version()，read 根据数据中的版本号读取旧格式（演进）
+    3.数组：版本号 + 元素个数 + 每个元素（前面一个字节表示是否为 null），整个数组只有一个版本号
+ */
+public interface BinaryCodec<T> {
+
+    // The format version written by this codec
+    int version();
+
+    void write(BinaryWriter out, T value);
+
+    /**
+     * Reads a value written with the given format version.
+     *
+     * @throws IllegalArgumentException if the version is not supported or the data is malformed
+     */
+    T read(BinaryReader in, int version);
+
+    default void encode(BinaryWriter out, T value) {
+        out.writeByte(version());
+        write(out, value);
+    }
+
+    default byte[] encode(T value) {
+        BinaryWriter out = new BinaryWriter();
+        encode(out, value);
+        return out.toByteArray();
+    }
+
+    default T decode(BinaryReader in) {
+        return read(in, in.readByte());
+    }
+
+    default T decode(byte[] bytes) {
+        return decode(new BinaryReader(bytes));
+    }
+
+    default void encodeArray(BinaryWriter out, T[] values) {
+        out.writeByte(version());
+        out.writeVarInt(values.length);
+        for (T value : values) {
+            out.writeBoolean(value != null);
+            if (value != null)
+                write(out, value);
+        }
+    }
+
+    default byte[] encodeArray(T[] values) {
+        BinaryWriter out = new BinaryWriter(values.length * 8);
+        encodeArray(out, values);
+        return out.toByteArray();
+    }
+
+    default T[] decodeArray(BinaryReader in, IntFunction<T[]> generator) {
+        int version = in.readByte();
+        int length = in.readVarInt();
+        if (length < 0)
+            throw new IllegalArgumentException("negative array length " + length);
+        // 每个元素至少占一个字节，用来拦截错误数据导致的超大数组
+        if (length > in.remaining())
+            throw new IllegalArgumentException("array length " + length + " exceeds remaining input");
+        T[] values = generator.apply(length);
+        for (int i = 0; i < length; i++)
+            values[i] = in.readBoolean() ? read(in, version) : null;
+        return values;
+    }
+
+    default T[] decodeArray(byte[] bytes, IntFunction<T[]> generator) {
+        return decodeArray(new BinaryReader(bytes), generator);
+    }
+
+    static IllegalArgumentException unsupportedVersion(int version) {
+        return new IllegalArgumentException("unsupported version: " + version);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.chapter2.item01;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ 读取 BinaryWriter 写出的数据，直接在 byte 数组上移动下标，不做拷贝
+ 数据不完整或格式错误时抛出 IllegalArgumentException，而不是像 Code01.deserializeObject 那样返回 null
+ */
+public final class BinaryReader {
+
+    private final byte[] buf;
+    private final int limit;
+    private int pos;
+
+    public BinaryReader(byte[] buf) {
+        this(buf, 0, buf.length);
+    }
+
+    public BinaryReader(byte[] buf, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buf.length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    public int position() {
+        return pos;
+    }
+
+    public int remaining() {
+        return limit - pos;
+    }
+
+    private void require(int n) {
+        if (limit - pos < n)
+            throw new IllegalArgumentException("truncated input at " + pos);
+    }
+
+    public int readByte() {
+        require(1);
+        return buf[pos++] & 0xFF;
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return result;
+        }
+        throw new IllegalArgumentException("malformed varint at " + pos);
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return result;
+        }
+        throw new IllegalArgumentException("malformed varlong at " + pos);
+    }
+
+    public int readZigZagInt() {
+        int v = readVarInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public long readZigZagLong() {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public int readIntFixed() {
+        require(4);
+        int v = (buf[pos] & 0xFF) << 24 | (buf[pos + 1] & 0xFF) << 16
+                | (buf[pos + 2] & 0xFF) << 8 | (buf[pos + 3] & 0xFF);
+        pos += 4;
+        return v;
+    }
+
+    public String readString() {
+        int n = readVarInt();
+        if (n == 0)
+            return null;
+        int length = n - 1;
+        // 5 个字节的 varint 可以是负数
+        if (length < 0)
+            throw new IllegalArgumentException("negative string length " + length + " at " + pos);
+        require(length);
+        String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return s;
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.chapter2.item01;
+
+import java.util.Arrays;
+
+/**
+ BinaryCodec 使用的输出缓冲区，一个可以自动扩容的 byte 数组
+    1.int/long 使用 varint 编码：每个字节 7 位有效数据，最高位表示后面还有没有字节，小的数字只占 1~2 个字节
+    2.有符号的数字先做 zigzag 变换（0,-1,1,-2 -> 0,1,2,3），否则负数总是占满 5/10 个字节
+    3.字符串写成 UTF-8，前面是字节长度；长度写的是 length + 1，0 表示 null
+ 可以通过 reset 重复使用，避免每次编码都分配新的缓冲区
+ */
+public final class BinaryWriter {
+
+    private byte[] buf;
+    private int pos;
+
+    public BinaryWriter() {
+        this(64);
+    }
+
+    public BinaryWriter(int initialCapacity) {
+        buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public BinaryWriter reset() {
+        pos = 0;
+        return this;
+    }
+
+    public int size() {
+        return pos;
+    }
+
+    // The backing array, valid up to size(); it is replaced when the writer grows
+    public byte[] array() {
+        return buf;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    private void ensure(int extra) {
+        if (pos + extra > buf.length)
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+    }
+
+    public BinaryWriter writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+        return this;
+    }
+
+    public BinaryWriter writeBytes(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, pos, length);
+        pos += length;
+        return this;
+    }
+
+    public BinaryWriter writeBoolean(boolean b) {
+        return writeByte(b ? 1 : 0);
+    }
+
+    // Unsigned LEB128
+    public BinaryWriter writeVarInt(int v) {
+        ensure(5);
+        while ((v & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    public BinaryWriter writeVarLong(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    public BinaryWriter writeZigZagInt(int v) {
+        return writeVarInt((v << 1) ^ (v >> 31));
+    }
+
+    public BinaryWriter writeZigZagLong(long v) {
+        return writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    public BinaryWriter writeIntFixed(int v) {
+        ensure(4);
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    public BinaryWriter writeString(String s) {
+        if (s == null)
+            return writeVarInt(0);
+        int length = s.length();
+        if (isAscii(s)) {
+            // 全部是 ASCII，一个 char 一个字节
+            writeVarInt(length + 1);
+            ensure(length);
+            for (int i = 0; i < length; i++)
+                buf[pos++] = (byte) s.charAt(i);
+            return this;
+        }
+        int utf8Length = utf8Length(s);
+        writeVarInt(utf8Length + 1);
+        ensure(utf8Length);
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                int cp = surrogatePair(s, i);
+                if (cp < 0) {
+                    buf[pos++] = '?';
+                } else {
+                    i++;
+                    buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                }
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80)
+                return false;
+        }
+        return true;
+    }
+
+    // 和 String.getBytes(UTF_8) 一样，落单的代理字符写成 '?'
+    static int utf8Length(String s) {
+        int length = s.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isSurrogate(c)) {
+                    if (surrogatePair(s, i) >= 0) {
+                        bytes += 2;  // 2 chars -> 4 bytes
+                        i++;
+                    }
+                } else {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static int surrogatePair(String s, int i) {
+        char c = s.charAt(i);
+        if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1)))
+            return Character.toCodePoint(c, s.charAt(i + 1));
+        return -1;
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.chapter2.item01;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ 在段文件的 [start, end) 区间里逐条读取记录（格式见 LogFormat）
+    预读缓冲区的大小固定为 readAheadBytes，只有遇到比它更大的单条记录时才会扩容到这条记录的大小
+    next 之后 payload 在 array() 的 [payloadOffset, payloadOffset + payloadLength) 中，下一次调用 next 之前有效
+    区间到达文件末尾时，和 AppendOnlyLog.recover（LogFormat.scan）一样把末尾写坏的记录当作日志的结尾：
+        越过 end 的记录、正好到 end 为止但 crc 不对的记录、从这里到 end 全是 0 的区域（预分配或崩溃后的文件）；
+        后面还有数据的坏记录仍然是数据损坏，抛出 IOException
+ */
+final class FrameCursor {
+
+    private final FileChannel channel;
+    private final long end;
+    // 区间是否到达文件末尾：只有末尾的不完整记录可以被当作写到一半，其他位置都是数据损坏
+    private final boolean tail;
+    // 在末尾遇到了写坏的记录，之后的 next / skip 都返回 false
+    private boolean torn;
+    private ByteBuffer buffer;
+    private long filePos;
+    private int payloadOffset;
+    private int payloadLength;
+
+    FrameCursor(FileChannel channel, long start, long end, boolean tail, int readAheadBytes) {
+        this.channel = channel;
+        this.end = end;
+        this.tail = tail;
+        this.buffer = ByteBuffer.allocate(readAheadBytes);
+        this.buffer.limit(0);
+        this.filePos = start;
+    }
+
+    // Offset in the file of the next frame
+    long position() {
+        return filePos - buffer.remaining();
+    }
+
+    byte[] array() {
+        return buffer.array();
+    }
+
+    int payloadOffset() {
+        return payloadOffset;
+    }
+
+    int payloadLength() {
+        return payloadLength;
+    }
+
+    /**
+     * Moves to the next frame and checks its CRC.
+     *
+     * @return false at the end of the region, or at a torn frame at the end of the file
+     */
+    boolean next() throws IOException {
+        long frameStart = position();
+        int length = readLength(frameStart);
+        if (length < 0)
+            return false;
+        int crc = buffer.getInt();
+        if (!ensure(length))
+            return tornOrCorrupt(frameStart);
+        payloadOffset = buffer.position();
+        payloadLength = length;
+        buffer.position(payloadOffset + length);
+        if (LogFormat.crc(buffer.array(), payloadOffset, length) != crc) {
+            // 最后一条记录写到一半：长度已经写下，payload 还不完整
+            if (tail && frameStart + LogFormat.FRAME_OVERHEAD + length == end)
+                return endAtTornTail();
+            throw new IOException("corrupt record at " + frameStart + ": crc mismatch");
+        }
+        return true;
+    }
+
+    /**
+     * Moves past the next frame without reading its payload, used to find split points.
+     */
+    boolean skip() throws IOException {
+        long frameStart = position();
+        int length = readLength(frameStart);
+        if (length < 0)
+            return false;
+        buffer.getInt();
+        if (frameStart + LogFormat.FRAME_OVERHEAD + length > end)
+            return tornOrCorrupt(frameStart);
+        if (length <= buffer.remaining()) {
+            buffer.position(buffer.position() + length);
+        } else {
+            filePos = position() + length;
+            buffer.position(0).limit(0);
+        }
+        return true;
+    }
+
+    // -1 at the end of the region
+    private int readLength(long frameStart) throws IOException {
+        if (frameStart == end || torn)
+            return -1;
+        if (!ensure(LogFormat.FRAME_OVERHEAD)) {
+            tornOrCorrupt(frameStart);
+            return -1;
+        }
+        int length = buffer.getInt();
+        if (length <= 0) {
+            if (tail && LogFormat.zeroUntil(channel, frameStart, end)) {
+                endAtTornTail();
+                return -1;
+            }
+            throw new IOException("corrupt record at " + frameStart + ": length " + length);
+        }
+        return length;
+    }
+
+    private boolean tornOrCorrupt(long frameStart) throws IOException {
+        if (tail)
+            return endAtTornTail();
+        throw new IOException("corrupt record at " + frameStart + ": frame crosses " + end);
+    }
+
+    private boolean endAtTornTail() {
+        torn = true;
+        return false;
+    }
+
+    // 保证缓冲区中至少有 n 个字节，区间内剩余的数据不够时返回 false
+    private boolean ensure(int n) throws IOException {
+        if (buffer.remaining() >= n)
+            return true;
+        if (position() + n > end)
+            return false;
+        if (n > buffer.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(n);
+            bigger.put(buffer);
+            buffer = bigger;
+        } else {
+            buffer.compact();
+        }
+        buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + (end - filePos)));
+        while (buffer.position() < n) {
+            int read = channel.read(buffer, filePos);
+            if (read < 0) {
+                buffer.flip();
+                return false;
+            }
+            filePos += read;
+        }
+        buffer.flip();
+        return true;
+    }
+}
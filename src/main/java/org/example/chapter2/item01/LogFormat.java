@@ -0,0 +1,172 @@
+package org.example.chapter2.item01;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ AppendOnlyLog 的文件格式
+    段文件（segment）：文件名是段中第一条记录的序号，比如 00000000000000001000.log
+    文件头：magic（4 字节） + 格式版本（4 字节）
+    每条记录：payload 长度（4 字节） + payload 的 CRC32（4 字节） + payload（BinaryCodec 编码，第一个字节是 codec 的版本号）
+ 写到一半时进程退出，文件末尾会留下不完整的记录，打开时通过长度和 CRC 找到最后一条完整的记录，把后面的内容截掉
+    只有末尾写坏的记录可以截掉（torn tail）：越过文件末尾的记录、正好到文件末尾但 CRC 不对的记录、一直到文件末尾的全 0 区域；
+    坏记录后面还有数据说明是数据损坏，截掉会丢失后面完整的记录，抛出 IOException（FrameCursor 读取时的规则相同）
+    最后一个段文件的文件头不完整或全是 0，说明创建段文件之后还没写完文件头就崩溃了，也当作写到一半的末尾
+ */
+final class LogFormat {
+
+    static final int MAGIC = 0x4F4C4F47;  // "OLOG"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int FRAME_OVERHEAD = 8;
+    static final String SUFFIX = ".log";
+
+    private LogFormat() {
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SUFFIX);
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    // 按第一条记录的序号排序的段文件
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory))
+            return new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().matches("\\d{20}\\" + SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION);
+        header.flip();
+        while (header.hasRemaining())
+            channel.write(header, header.position());
+    }
+
+    static void checkHeader(FileChannel channel, Path segment) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // keep reading
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+            throw new IOException("not a log segment: " + segment);
+        int version = header.getInt();
+        if (version != FORMAT_VERSION)
+            throw new IOException("unsupported segment format " + version + ": " + segment);
+    }
+
+    // 最后一个段文件在创建之后、写完文件头之前崩溃：文件头不完整或全是 0
+    static boolean hasTornHeader(FileChannel channel) throws IOException {
+        long size = channel.size();
+        return size < HEADER_SIZE || zeroUntil(channel, 0, HEADER_SIZE);
+    }
+
+    // 新建的段文件要持久化，目录项本身也要 force，否则掉电之后文件可能不存在
+    static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // 有的平台（Windows）不能打开目录，只能依赖文件系统本身
+            if (!System.getProperty("os.name").startsWith("Windows"))
+                throw e;
+        }
+    }
+
+    // [from, end) 是否全是 0
+    static boolean zeroUntil(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate((int) Math.max(1, Math.min(8192, end - from)));
+        for (long pos = from; pos < end; ) {
+            chunk.clear().limit((int) Math.min(chunk.capacity(), end - pos));
+            int read = channel.read(chunk, pos);
+            if (read < 0)
+                return true;
+            for (int i = 0; i < read; i++) {
+                if (chunk.get(i) != 0)
+                    return false;
+            }
+            pos += read;
+        }
+        return true;
+    }
+
+    static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Result of scanning a segment: how many complete records it holds and where the last one ends.
+     */
+    static final class ScanResult {
+        final long records;
+        final long validEnd;
+
+        ScanResult(long records, long validEnd) {
+            this.records = records;
+            this.validEnd = validEnd;
+        }
+    }
+
+    // 从头检查每条记录的长度和 CRC，在末尾写坏的记录处停止；其他位置的坏记录抛出 IOException
+    static ScanResult scan(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        long records = 0;
+        ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_OVERHEAD);
+        byte[] payload = new byte[256];
+        while (position + FRAME_OVERHEAD <= size) {
+            frameHeader.clear();
+            readFully(channel, frameHeader, position);
+            frameHeader.flip();
+            int length = frameHeader.getInt();
+            int crc = frameHeader.getInt();
+            if (length <= 0) {
+                if (zeroUntil(channel, position, size))
+                    break;
+                throw new IOException("corrupt record at " + position + ": length " + length);
+            }
+            long frameEnd = position + FRAME_OVERHEAD + length;
+            if (frameEnd > size)
+                break;
+            if (payload.length < length)
+                payload = new byte[Math.max(length, payload.length * 2)];
+            readFully(channel, ByteBuffer.wrap(payload, 0, length), position + FRAME_OVERHEAD);
+            if (crc(payload, 0, length) != crc) {
+                if (frameEnd == size)
+                    break;
+                throw new IOException("corrupt record at " + position + ": crc mismatch");
+            }
+            position = frameEnd;
+            records++;
+        }
+        return new ScanResult(records, position);
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0)
+                throw new IOException("unexpected end of file at " + position);
+            position += n;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package org.example.chapter2.item01;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ 按顺序、惰性地读取 AppendOnlyLog 写下的所有记录，用来代替 Code01.deserializeObject "一次读一个文件，出错返回 null" 的写法
+    1.只在需要下一条记录时才从文件中读取，每个段文件只占用一个大小为 readAheadBytes 的预读缓冲区，和记录的总数无关
+    2.spliterator 可以分割：先按段文件对半分，只剩一个段文件时，在文件中间附近找到一条记录的边界再分，
+        所以 stream().parallel() 可以在多个线程上同时读取和解码；
+        边界来自每个段文件的稀疏索引：第一次分割这个段文件时只读一遍记录头，大约每 INDEX_INTERVAL 字节记下一个边界，
+        之后每一层分割都在索引中二分查找，不用再从区间开头读到中间（那样总的读取量是 O(n log n)）
+    3.记录的 CRC 不对、长度不合法时抛出 UncheckedIOException，不会跳过也不会返回 null；
+        只有最后一个段文件末尾的不完整记录被当作还没写完，直接结束
+ 段文件的列表和大小在 open 时确定，之后追加的记录不会被读到；codec 会被多个线程同时调用，必须是无状态的
+ */
+public final class LogReader<T> implements Iterable<T>, Closeable {
+
+    static final int DEFAULT_READ_AHEAD_BYTES = 64 * 1024;
+    // 小于这个大小的区间不再分割，找边界的开销比并行带来的收益大
+    static final long MIN_SPLIT_BYTES = 256 * 1024;
+    // 稀疏索引中相邻两个边界的最小间隔，分割点离区间中间最多差这么多
+    static final long INDEX_INTERVAL = MIN_SPLIT_BYTES / 8;
+
+    private static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        final long size;
+        final boolean last;
+        // 记录边界的稀疏索引，第一次分割时创建，见 boundaries(Segment)；由 this 保护
+        long[] boundaries;
+
+        Segment(Path path, FileChannel channel, long size, boolean last) {
+            this.path = path;
+            this.channel = channel;
+            this.size = size;
+            this.last = last;
+        }
+    }
+
+    private final BinaryCodec<T> codec;
+    private final int readAheadBytes;
+    private final List<Segment> segments;
+
+    private LogReader(BinaryCodec<T> codec, int readAheadBytes, List<Segment> segments) {
+        this.codec = codec;
+        this.readAheadBytes = readAheadBytes;
+        this.segments = segments;
+    }
+
+    public static <T> LogReader<T> open(Path directory, BinaryCodec<T> codec) throws IOException {
+        return open(directory, codec, DEFAULT_READ_AHEAD_BYTES);
+    }
+
+    public static <T> LogReader<T> open(Path directory, BinaryCodec<T> codec, int readAheadBytes) throws IOException {
+        Objects.requireNonNull(codec);
+        if (readAheadBytes < LogFormat.FRAME_OVERHEAD)
+            throw new IllegalArgumentException("readAheadBytes: " + readAheadBytes);
+        List<Path> paths = LogFormat.segments(directory);
+        List<Segment> segments = new ArrayList<>(paths.size());
+        try {
+            for (int i = 0; i < paths.size(); i++) {
+                Path path = paths.get(i);
+                FileChannel channel = FileChannel.open(path);
+                boolean last = i == paths.size() - 1;
+                // 和 AppendOnlyLog.recover 相同：最后一个段文件的文件头没写完，当作空的段
+                if (last && LogFormat.hasTornHeader(channel)) {
+                    channel.close();
+                    break;
+                }
+                segments.add(new Segment(path, channel, channel.size(), last));
+                LogFormat.checkHeader(channel, path);
+            }
+        } catch (IOException | RuntimeException e) {
+            closeAll(segments);
+            throw e;
+        }
+        return new LogReader<>(codec, readAheadBytes, segments);
+    }
+
+    @Override public Iterator<T> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override public Spliterator<T> spliterator() {
+        return new SegmentsSpliterator(0, segments.size(), null);
+    }
+
+    /**
+     * A lazy stream of every record, in sequence order. Closing the stream does not close this reader.
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override public void close() throws IOException {
+        closeAll(segments);
+    }
+
+    private static void closeAll(List<Segment> segments) throws IOException {
+        IOException failure = null;
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    private long[] boundaries(Segment segment) throws IOException {
+        synchronized (segment) {
+            if (segment.boundaries == null) {
+                FrameCursor scanner = new FrameCursor(segment.channel, LogFormat.HEADER_SIZE, segment.size,
+                        segment.last, readAheadBytes);
+                long[] found = new long[16];
+                int n = 0;
+                long previous = LogFormat.HEADER_SIZE;
+                // 末尾是还没写完的记录时 skip 返回 false，索引只到最后一条完整的记录为止
+                while (scanner.skip()) {
+                    long position = scanner.position();
+                    if (position - previous < INDEX_INTERVAL)
+                        continue;
+                    if (n == found.length)
+                        found = Arrays.copyOf(found, n * 2);
+                    found[n++] = position;
+                    previous = position;
+                }
+                segment.boundaries = Arrays.copyOf(found, n);
+            }
+            return segment.boundaries;
+        }
+    }
+
+    private RegionSpliterator whole(int index) {
+        Segment segment = segments.get(index);
+        return new RegionSpliterator(segment, LogFormat.HEADER_SIZE, segment.size);
+    }
+
+    // 覆盖 [lo, hi) 这些段文件；current 是第 lo 个段文件中还没有读的部分
+    private final class SegmentsSpliterator implements Spliterator<T> {
+        private int lo;
+        private final int hi;
+        private RegionSpliterator current;
+
+        SegmentsSpliterator(int lo, int hi, RegionSpliterator current) {
+            this.lo = lo;
+            this.hi = hi;
+            this.current = current;
+        }
+
+        @Override public boolean tryAdvance(Consumer<? super T> action) {
+            while (lo < hi) {
+                if (current == null)
+                    current = whole(lo);
+                if (current.tryAdvance(action))
+                    return true;
+                current = null;
+                lo++;
+            }
+            return false;
+        }
+
+        @Override public void forEachRemaining(Consumer<? super T> action) {
+            for (; lo < hi; lo++) {
+                if (current == null)
+                    current = whole(lo);
+                current.forEachRemaining(action);
+                current = null;
+            }
+        }
+
+        @Override public Spliterator<T> trySplit() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                Spliterator<T> prefix = new SegmentsSpliterator(lo, mid, current);
+                lo = mid;
+                current = null;
+                return prefix;
+            }
+            if (lo == hi)
+                return null;
+            if (current == null)
+                current = whole(lo);
+            return current.trySplit();
+        }
+
+        // 剩余的字节数，是剩余记录数的上界
+        @Override public long estimateSize() {
+            long bytes = current == null ? 0 : current.estimateSize();
+            for (int i = current == null ? lo : lo + 1; i < hi; i++)
+                bytes += segments.get(i).size - LogFormat.HEADER_SIZE;
+            return bytes;
+        }
+
+        @Override public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    // 一个段文件中 [start, end) 的记录，start 和 end 都在记录的边界上
+    private final class RegionSpliterator implements Spliterator<T> {
+        private final Segment segment;
+        private long start;
+        private final long end;
+        private FrameCursor cursor;
+
+        RegionSpliterator(Segment segment, long start, long end) {
+            this.segment = segment;
+            this.start = start;
+            this.end = end;
+        }
+
+        private FrameCursor cursor() {
+            if (cursor == null)
+                cursor = new FrameCursor(segment.channel, start, end, isTail(), readAheadBytes);
+            return cursor;
+        }
+
+        private boolean isTail() {
+            return segment.last && end == segment.size;
+        }
+
+        @Override public boolean tryAdvance(Consumer<? super T> action) {
+            FrameCursor c = cursor();
+            try {
+                if (!c.next())
+                    return false;
+            } catch (IOException e) {
+                throw failure(e);
+            }
+            action.accept(codec.decode(new BinaryReader(c.array(), c.payloadOffset(), c.payloadLength())));
+            return true;
+        }
+
+        @Override public void forEachRemaining(Consumer<? super T> action) {
+            FrameCursor c = cursor();
+            try {
+                while (c.next())
+                    action.accept(codec.decode(new BinaryReader(c.array(), c.payloadOffset(), c.payloadLength())));
+            } catch (IOException e) {
+                throw failure(e);
+            }
+        }
+
+        /**
+         * 在段文件的稀疏索引中找中间之后的第一个边界（没有时用中间之前的最后一个）；前一半交给新的 spliterator，这个从边界继续
+         */
+        @Override public Spliterator<T> trySplit() {
+            long from = cursor == null ? start : cursor.position();
+            if (end - from < MIN_SPLIT_BYTES)
+                return null;
+            long mid = from + (end - from) / 2;
+            long[] index;
+            try {
+                index = boundaries(segment);
+            } catch (IOException e) {
+                throw failure(e);
+            }
+            int i = Arrays.binarySearch(index, mid);
+            if (i < 0)
+                i = -i - 1;
+            long boundary;
+            if (i < index.length && index[i] < end)
+                boundary = index[i];
+            else if (i > 0 && index[i - 1] > from)
+                boundary = index[i - 1];
+            else
+                return null;
+            RegionSpliterator prefix = new RegionSpliterator(segment, from, boundary);
+            start = boundary;
+            cursor = null;
+            return prefix;
+        }
+
+        @Override public long estimateSize() {
+            return end - (cursor == null ? start : cursor.position());
+        }
+
+        @Override public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        private UncheckedIOException failure(IOException e) {
+            return new UncheckedIOException(segment.path + ": " + e.getMessage(), e);
+        }
+    }
+}
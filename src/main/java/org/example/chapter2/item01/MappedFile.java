@@ -0,0 +1,115 @@
+package org.example.chapter2.item01;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ 把一个文件分成大小为 2^regionShift 的区域（region）分别映射到内存
+    1.一个 MappedByteBuffer 最多只能映射 2GB，分成多个区域之后文件可以超过 2GB
+    2.需要更多空间时只映射新的区域，已经映射的区域不变，读线程拿到的 buffer 一直有效
+    3.以 READ_WRITE 方式映射超出文件末尾的区域时，文件会被扩展，没写过的部分是稀疏的，不占磁盘
+ 调用方要保证一次读写不跨过区域的边界
+ */
+final class MappedFile implements Closeable {
+
+    private final FileChannel channel;
+    private final int regionShift;
+    private final long regionMask;
+    private volatile MappedByteBuffer[] regions;
+
+    MappedFile(Path path, int regionShift) throws IOException {
+        if (regionShift < 12 || regionShift > 30)
+            throw new IllegalArgumentException("regionShift: " + regionShift);
+        this.regionShift = regionShift;
+        this.regionMask = (1L << regionShift) - 1;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            int count = (int) ((size + regionMask) >>> regionShift);
+            MappedByteBuffer[] mapped = new MappedByteBuffer[Math.max(count, 1)];
+            for (int i = 0; i < mapped.length; i++)
+                mapped[i] = map(i);
+            regions = mapped;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    int regionSize() {
+        return 1 << regionShift;
+    }
+
+    // 映射了的字节数
+    long capacity() {
+        return (long) regions.length << regionShift;
+    }
+
+    /**
+     * Maps more regions until {@code bytes} bytes are addressable. Only the single writer calls this.
+     */
+    void ensureCapacity(long bytes) throws IOException {
+        MappedByteBuffer[] current = regions;
+        if (current == null)
+            throw new IllegalStateException("closed");
+        long needed = (bytes + regionMask) >>> regionShift;
+        if (needed <= current.length)
+            return;
+        MappedByteBuffer[] grown = Arrays.copyOf(current, (int) needed);
+        for (int i = current.length; i < grown.length; i++)
+            grown[i] = map(i);
+        regions = grown;
+    }
+
+    MappedByteBuffer region(long address) {
+        MappedByteBuffer[] current = regions;
+        if (current == null)
+            throw new IllegalStateException("closed");
+        return current[(int) (address >>> regionShift)];
+    }
+
+    int offset(long address) {
+        return (int) (address & regionMask);
+    }
+
+    int getInt(long address) {
+        return region(address).getInt(offset(address));
+    }
+
+    long getLong(long address) {
+        return region(address).getLong(offset(address));
+    }
+
+    void putInt(long address, int value) {
+        region(address).putInt(offset(address), value);
+    }
+
+    void putLong(long address, long value) {
+        region(address).putLong(offset(address), value);
+    }
+
+    void force() {
+        MappedByteBuffer[] current = regions;
+        if (current != null) {
+            for (MappedByteBuffer region : current)
+                region.force();
+        }
+    }
+
+    /**
+     * JDK 没有公开的 unmap 方法，映射在 buffer 被 GC 回收时才会释放；close 之后再访问会抛出 IllegalStateException
+     */
+    @Override public void close() throws IOException {
+        regions = null;
+        channel.close();
+    }
+
+    private MappedByteBuffer map(int index) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, (long) index << regionShift, 1L << regionShift);
+    }
+}
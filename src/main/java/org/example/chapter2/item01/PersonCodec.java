@@ -0,0 +1,55 @@
+package org.example.chapter2.item01;
+
+import org.example.chapter2.Code01.Person;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+/**
+ Code01.Person 的二进制格式
+    version 1: name（UTF-8，可以为 null） + age（zigzag varint）
+ "John", 25 编码之后是 7 个字节，ObjectOutputStream 需要 100 个字节
+ */
+public enum PersonCodec implements BinaryCodec<Person> {
+    INSTANCE;
+
+    @Override public int version() {
+        return 1;
+    }
+
+    @Override public void write(BinaryWriter out, Person person) {
+        out.writeString(person.getName());
+        out.writeZigZagInt(person.getAge());
+    }
+
+    @Override public Person read(BinaryReader in, int version) {
+        if (version != 1)
+            throw BinaryCodec.unsupportedVersion(version);
+        String name = in.readString();
+        int age = in.readZigZagInt();
+        return new Person(name, age);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Person person = new Person("John", 25);
+        byte[] bytes = INSTANCE.encode(person);
+        System.out.println("codec: " + bytes.length + " bytes -> " + INSTANCE.decode(bytes));
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(person);
+        }
+        System.out.println("ObjectOutputStream: " + bos.size() + " bytes");
+
+        Person[] people = new Person[1000];
+        for (int i = 0; i < people.length; i++)
+            people[i] = new Person("person" + i, i % 100);
+        bos.reset();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(people);
+        }
+        System.out.println("1000 people, codec: " + INSTANCE.encodeArray(people).length
+                + " bytes, ObjectOutputStream: " + bos.size() + " bytes");
+    }
+}
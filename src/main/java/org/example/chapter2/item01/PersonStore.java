@@ -0,0 +1,255 @@
+package org.example.chapter2.item01;
+
+import org.example.chapter2.Code01.Person;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ 用内存映射文件保存 Code01.Person，读的时候直接从映射的内存中取字段，不需要反序列化，也不需要为每条记录创建 Person
+    1.persons.slots：文件头 + 固定 16 字节的槽位，第 i 个 Person 的位置可以直接算出来
+        文件头（32 字节）：magic（4） + 版本（4） + 记录数（8） + 字符串堆已用的字节数（8） + 保留（8）
+        槽位：age（4） + name 的字节数（4，-1 表示 null） + name 在字符串堆中的偏移量（8）
+    2.persons.names：字符串堆，依次存放 name 的 UTF-8 编码；一个 name 不会跨过区域的边界，放不下时从下一个区域开始
+    3.两个文件都通过 MappedFile 分区域映射，可以超过 2GB；打开时只是建立映射，没有需要读取和解析的内容，启动几乎不耗时
+    4.只有一个写线程（append 是 synchronized 的），读线程不加锁；
+        append 先写 name 和槽位，最后才更新记录数，读线程（和进程崩溃之后重新打开时）只会看到完整的记录
+    5.进程崩溃时已经写进映射内存的数据还在操作系统的页缓存中，不会丢；但是操作系统崩溃或断电时，
+        脏页写回磁盘的顺序不确定，记录数所在的页可能比槽位、name 先写回去，重新打开后最后几条记录可能是坏的。
+        只有最后一次 force() 返回之前 append 的记录保证完整；需要更强的保证时，每批 append 之后调用 force()
+ View 是可以重复使用的 flyweight：at(i) 只是记下下标，age() 等方法每次都从映射的内存中读取
+ */
+public final class PersonStore implements Closeable {
+
+    static final int MAGIC = 0x50535452;  // "PSTR"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int SLOT_SIZE = 16;
+    static final int DEFAULT_REGION_SHIFT = 28;
+
+    private static final long COUNT_OFFSET = 8;
+    private static final long HEAP_END_OFFSET = 16;
+
+    private final MappedFile slots;
+    private final MappedFile names;
+    private volatile long size;
+    private long heapEnd;
+
+    private PersonStore(MappedFile slots, MappedFile names) {
+        this.slots = slots;
+        this.names = names;
+    }
+
+    public static PersonStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_REGION_SHIFT);
+    }
+
+    // 测试时用很小的区域，让记录和 name 落在区域的边界附近
+    static PersonStore open(Path directory, int regionShift) throws IOException {
+        Files.createDirectories(directory);
+        MappedFile slots = new MappedFile(directory.resolve("persons.slots"), regionShift);
+        MappedFile names = null;
+        try {
+            names = new MappedFile(directory.resolve("persons.names"), regionShift);
+            PersonStore store = new PersonStore(slots, names);
+            store.readHeader();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            slots.close();
+            if (names != null)
+                names.close();
+            throw e;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        int magic = slots.getInt(0);
+        if (magic == 0) {
+            // 新文件
+            slots.putInt(0, MAGIC);
+            slots.putInt(4, FORMAT_VERSION);
+            return;
+        }
+        if (magic != MAGIC)
+            throw new IOException("not a person store");
+        int version = slots.getInt(4);
+        if (version != FORMAT_VERSION)
+            throw new IOException("unsupported person store format " + version);
+        heapEnd = slots.getLong(HEAP_END_OFFSET);
+        size = slots.getLong(COUNT_OFFSET);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long append(Person person) throws IOException {
+        return append(person.getName(), person.getAge());
+    }
+
+    /**
+     * @return the index of the new record
+     */
+    public synchronized long append(String name, int age) throws IOException {
+        long index = size;
+        long nameOffset = heapEnd;
+        int nameLength = -1;
+        if (name != null) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            nameLength = bytes.length;
+            if (nameLength > names.regionSize())
+                throw new IllegalArgumentException("name longer than a region: " + nameLength + " bytes");
+            int inRegion = names.offset(nameOffset);
+            if (inRegion + nameLength > names.regionSize())
+                nameOffset += names.regionSize() - inRegion;
+            names.ensureCapacity(nameOffset + nameLength);
+            // 长度为 0 且恰好在末尾时 region 还不存在，不需要写
+            if (nameLength > 0)
+                names.region(nameOffset).put(names.offset(nameOffset), bytes);
+            heapEnd = nameOffset + nameLength;
+        }
+        long slot = slotAddress(index);
+        slots.ensureCapacity(slot + SLOT_SIZE);
+        slots.putInt(slot, age);
+        slots.putInt(slot + 4, nameLength);
+        slots.putLong(slot + 8, nameOffset);
+        slots.putLong(HEAP_END_OFFSET, heapEnd);
+        slots.putLong(COUNT_OFFSET, index + 1);
+        size = index + 1;
+        return index;
+    }
+
+    public int age(long index) {
+        return slots.getInt(checkedSlot(index));
+    }
+
+    public String name(long index) {
+        long slot = checkedSlot(index);
+        return readName(slots.getInt(slot + 4), slots.getLong(slot + 8));
+    }
+
+    public Person get(long index) {
+        long slot = checkedSlot(index);
+        return new Person(readName(slots.getInt(slot + 4), slots.getLong(slot + 8)), slots.getInt(slot));
+    }
+
+    public View view() {
+        return new View();
+    }
+
+    /**
+     * Passes the same {@link View}, moved to each record in turn, to {@code action}.
+     */
+    public void forEach(Consumer<? super View> action) {
+        View view = new View();
+        long n = size;
+        for (long i = 0; i < n; i++)
+            action.accept(view.at(i));
+    }
+
+    /**
+     * Flushes both mapped files to the storage device. After an OS crash or power loss, only records
+     * appended before the last completed call are guaranteed to be intact.
+     */
+    public void force() {
+        names.force();
+        slots.force();
+    }
+
+    @Override public void close() throws IOException {
+        try {
+            names.close();
+        } finally {
+            slots.close();
+        }
+    }
+
+    private static long slotAddress(long index) {
+        return HEADER_SIZE + index * SLOT_SIZE;
+    }
+
+    private long checkedSlot(long index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        return slotAddress(index);
+    }
+
+    private String readName(int length, long offset) {
+        if (length < 0)
+            return null;
+        if (length == 0)
+            return "";
+        byte[] bytes = new byte[length];
+        names.region(offset).get(names.offset(offset), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 指向某一条记录的 flyweight，不是线程安全的，每个线程使用自己的 View
+     */
+    public final class View {
+        private long index = -1;
+        private long slot;
+
+        private View() {
+        }
+
+        public View at(long index) {
+            this.slot = checkedSlot(index);
+            this.index = index;
+            return this;
+        }
+
+        public long index() {
+            return index;
+        }
+
+        public int age() {
+            return slots.getInt(slot);
+        }
+
+        // UTF-8 字节数，name 为 null 时是 -1
+        public int nameLength() {
+            return slots.getInt(slot + 4);
+        }
+
+        public String name() {
+            return readName(nameLength(), slots.getLong(slot + 8));
+        }
+
+        /**
+         * Compares the stored name with {@code name} byte by byte in the mapped buffer, without creating a String.
+         */
+        public boolean nameEquals(String name) {
+            int length = nameLength();
+            if (name == null || length < 0)
+                return name == null && length < 0;
+            long offset = slots.getLong(slot + 8);
+            if (length != BinaryWriter.utf8Length(name))
+                return false;
+            if (length != name.length())
+                return name.equals(name());
+            // 字节数和字符数相同，只可能全是 ASCII
+            MappedByteBuffer region = names.region(offset);
+            int base = names.offset(offset);
+            for (int i = 0; i < length; i++) {
+                if (region.get(base + i) != name.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        public Person toPerson() {
+            return new Person(name(), age());
+        }
+
+        @Override public String toString() {
+            return index < 0 ? "View{}" : "View{index=" + index + ", name=" + name() + ", age=" + age() + "}";
+        }
+    }
+}
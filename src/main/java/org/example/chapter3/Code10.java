@@ -1,5 +1,8 @@
 package org.example.chapter3;
 
+import org.example.chapter3.item10.CaseFolding;
+import org.example.chapter3.item10.CaseInsensitiveSet;
+
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -67,6 +70,13 @@ final class CaseInsensitiveString {
         return o instanceof CaseInsensitiveString &&
                 ((CaseInsensitiveString) o).s.equalsIgnoreCase(s);
     }
+
+    // 补充：原来没有重写 hashCode，放进 HashSet / HashMap 时 "Hello" 和 "hello" 会落到不同的桶里，违反了第11条
+    //     CaseFolding.hashCode 的折叠规则和 equalsIgnoreCase 一致（代理对按码点折叠），equals 相等的两个对象 hashCode 一定相等
+    @Override
+    public int hashCode() {
+        return CaseFolding.hashCode(s);
+    }
     // Remainder omitted 省略其余代码
     public static void main(String[] args) {
         CaseInsensitiveString cis = new CaseInsensitiveString("Polish");
@@ -84,6 +94,13 @@ final class CaseInsensitiveString {
         System.out.println("hello1 equals hello2 =  " +hello2.equals(hello1));
         list.add(hello1);
         System.out.println("list.contains(hello2) = "+list.contains(hello2)); // true
+
+        // 补充：list.contains 是线性查找，而且每次查找都要先包装成 CaseInsensitiveString；
+        //     数量多的时候用 CaseInsensitiveSet，直接用 String 查找，不需要包装对象，也不需要 toLowerCase
+        CaseInsensitiveSet set = new CaseInsensitiveSet();
+        set.add("Polish");
+        set.add("Hello");
+        System.out.println("set.contains(\"POLISH\") = " + set.contains("POLISH")); // true
     }
 }
 
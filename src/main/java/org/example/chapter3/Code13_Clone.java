@@ -1,12 +1,20 @@
 package org.example.chapter3;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.chapter3.item13.IncrementalPoller;
+import org.example.chapter3.item13.KeywordIndex;
+import org.example.chapter3.item13.SearchWordSource;
+import org.example.chapter3.item13.SnapshotHolder;
 
 import java.io.*;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  浅拷贝和深拷贝
@@ -14,6 +22,7 @@ import java.util.Map;
     深拷贝：引用类型拷贝整个对象
             apache commons lang 中的SerializationUtils类，它的clone方法通过序列化和反序列化实现深拷贝
             这个应该是一个比较通用的方法，hutool中的ObjectUtil提供的clone方法也用到了序列化
+            补充：item13.DeepCopier 为每个类生成一次拷贝计划（MethodHandle），不经过字节流，也能处理环和不可变对象
  原型模式
     HashMap中的clone方法是浅拷贝，
 
@@ -69,23 +78,37 @@ public class Code13_Clone {
     // 实现数组的深拷贝方法1，Stu类提供一个deepCopy方法
     public static void deepCloneArray(){
         Stu[] sourceArray = {new Stu("Alice"), new Stu("Bob")};
+        Stu[] destinationArray = deepCopy(sourceArray);
+    }
+
+    public static Stu[] deepCopy(Stu[] sourceArray){
         Stu[] destinationArray = new Stu[sourceArray.length];
 
         for (int i = 0; i < sourceArray.length; i++) {
             destinationArray[i] = sourceArray[i].deepCopy();
         }
+        return destinationArray;
     }
 
     // 实现数组的深拷贝方法1，通过序列化，相对来看，序列化的效率没有 递归拷贝的方式效率高
     public static void deepCopyArraySerial(){
         Stu[] sourceArray = {new Stu("Alice"), new Stu("Bob")};
-        Stu[] destinationArray = null;
+        Stu[] destinationArray = copyBySerial(sourceArray);
+        System.out.println("克隆后的数组"+Arrays.toString(destinationArray));
+        // 修改原数组
+        sourceArray[0] = new Stu("java");
+        System.out.println("原数组："+Arrays.toString(sourceArray));
+        System.out.println("克隆后的数组是否有变化："+Arrays.toString(destinationArray));
+    }
 
+    // 通过序列化+反序列化得到一个深拷贝，失败时返回 null
+    @SuppressWarnings("unchecked")
+    public static <T extends Serializable> T copyBySerial(T source){
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         try(ObjectOutputStream oos = new ObjectOutputStream(bos)) {
 
             // 序列化
-            oos.writeObject(sourceArray);
+            oos.writeObject(source);
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -96,15 +119,11 @@ public class Code13_Clone {
             ObjectInputStream ois = new ObjectInputStream(bis)) {
 
             // 反序列化
-            destinationArray = (Stu[]) ois.readObject();
-            System.out.println("克隆后的数组"+Arrays.toString(destinationArray));
-            // 修改原数组
-            sourceArray[0] = new Stu("java");
-            System.out.println("原数组："+Arrays.toString(sourceArray));
-            System.out.println("克隆后的数组是否有变化："+Arrays.toString(destinationArray));
+            return (T) ois.readObject();
 
         } catch (IOException | ClassNotFoundException e) {
             e.printStackTrace();
+            return null;
         }
     }
 
@@ -144,41 +163,73 @@ public class Code13_Clone {
 
     // 来自极客时间-设计模式-原型模式，最佳的深拷贝：
     // 先浅拷贝。对于需要更新的元素，再使用深度拷贝的方式创建，然后替换老对象
+    // 补充：HashMap 的浅拷贝仍然要复制全部 n 个 entry，关键词有几百万个的时候，每次 refresh 都是一次 O(n) 的拷贝；
+    //      改用 PersistentHashMap 后，只拷贝被修改的 key 所在的路径，其余节点新旧版本共享，旧版本也不会被修改
+    //      多线程：读线程通过 SnapshotHolder 拿到某一个完整的版本，不加锁；refresh 通过 CAS 一次性发布新版本
+    //      数据源：SearchWordSource 按 (lastUpdateTime, keyword) 分页返回，IncrementalPoller 记录拉取到的位置
+    //      自动补全：同一个快照里还有一个 PrefixIndex，按前缀返回最近更新的 N 个关键词
     class Demo{
-        private HashMap<String, SearchWord> currentKeywords=new HashMap<>();
-        private long lastUpdateTime = -1;
+        private final SnapshotHolder<KeywordIndex> currentKeywords =
+                new SnapshotHolder<>(KeywordIndex.empty(10));
+        // 代替原来的 lastUpdateTime，只在持有 refreshLock 的线程中使用
+        private final IncrementalPoller poller;
+        // 同一时间只有一个线程刷新，其余线程直接返回，避免刷新风暴时重复查库
+        private final ReentrantLock refreshLock = new ReentrantLock();
+        // 拿不到锁的 refresh 不排队，只留下这个标记：持有锁的线程这一轮结束后看到它，就再刷新一轮
+        //     否则在它 poll 之后才写入数据库的行，要等到下一次有人调用 refresh 才能看到
+        private final AtomicBoolean refreshRequested = new AtomicBoolean();
+
+        public Demo(SearchWordSource source) {
+            this.poller = new IncrementalPoller(source, 1000);
+        }
 
         public void refresh() {
-            // Shallow copy
-            HashMap<String, SearchWord> newKeywords = (HashMap<String, SearchWord>) currentKeywords.clone();
-
-            // 从数据库中取出更新时间>lastUpdateTime的数据
-            List<SearchWord> toBeUpdatedSearchWords = getSearchWords(lastUpdateTime);
-            long maxNewUpdatedTime = lastUpdateTime;
-            for (SearchWord searchWord : toBeUpdatedSearchWords) {
-                if (searchWord.getLastUpdateTime() > maxNewUpdatedTime) {
-                    maxNewUpdatedTime = searchWord.getLastUpdateTime();
-                }
-                // 重点看这个，需要的更新
-                if (newKeywords.containsKey(searchWord.getKeyword())) {
-                    newKeywords.remove(searchWord.getKeyword());
+            refreshRequested.set(true);
+            // 先设置标记再 tryLock：锁被占用时，持有者 unlock 之后还会检查一次标记，请求不会丢失
+            while (refreshRequested.get() && refreshLock.tryLock()) {
+                try {
+                    if (refreshRequested.getAndSet(false))
+                        refreshOnce();
+                } finally {
+                    refreshLock.unlock();
                 }
-                newKeywords.put(searchWord.getKeyword(), searchWord);
             }
+        }
+
+        // 只在持有 refreshLock 时调用
+        private void refreshOnce() {
+            // 不需要 clone，每次 plusAll 都会返回一个新版本，只拷贝被修改的路径
+            SnapshotHolder.Snapshot<KeywordIndex> current = currentKeywords.snapshot();
 
-            lastUpdateTime = maxNewUpdatedTime;
-            currentKeywords = newKeywords;
+            // 从数据库中分页取出 watermark 之后的数据，一次只有一页在内存中
+            KeywordIndex newKeywords = poller.poll(current.value(), KeywordIndex::plusAll);
+
+            // 只有 refresh 会发布新版本，而且已经持有 refreshLock，所以这里的 CAS 一定成功
+            // 发布成功之后才推进 watermark；poll 中途抛出异常时什么都没有发布，下次 refresh 从原来的位置重新拉取
+            if (newKeywords == current.value()
+                    || currentKeywords.compareAndPublish(current, newKeywords) != null) {
+                poller.commit();
+            }
         }
 
-        // 模拟从数据中取数据
-        private List<SearchWord> getSearchWords(long lastUpdateTime) {
-            // TODO: 从数据库中取出更新时间>lastUpdateTime的数据
-            return null;
+        // 读线程的入口，不会被 refresh 阻塞
+        public SearchWord getSearchWord(String keyword) {
+            return currentKeywords.get().get(keyword);
+        }
+
+        public List<SearchWord> autocomplete(String prefix, int n) {
+            return currentKeywords.get().autocomplete(prefix, n);
+        }
+
+        public SnapshotHolder<KeywordIndex> getCurrentKeywords() {
+            return currentKeywords;
         }
     }
 
     @Data
-    class SearchWord{
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchWord{
         long lastUpdateTime;
         String keyword;
     }
@@ -202,8 +253,9 @@ public class Code13_Clone {
             this.name = name;
         }
 
+        // 补充：之前只拷贝了 id，name 被丢掉了；手写的拷贝方法新增字段时很容易漏掉，DeepCopier 按字段自动生成拷贝计划
         public Stu deepCopy(){
-            return new Stu(id);
+            return new Stu(id, name);
         }
 
         @Override
@@ -1,6 +1,11 @@
 package org.example.chapter3;
 
 
+import org.example.chapter3.item14.ByteKeyEncoder;
+import org.example.chapter3.item14.ComparatorCompiler;
+import org.example.chapter3.item14.HashingStrategy;
+import org.example.chapter3.item14.StrategyHashSet;
+
 import java.math.BigDecimal;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -55,6 +60,13 @@ public class Code14_Compara {
         treeSet.add(first);
         treeSet.add(sec);
         out.println(treeSet.size()); // 1
+
+        // 补充：想要按数值去重、又想要 O(1) 的查找，不需要每次 stripTrailingZeros() 或者包装，
+        //     把相等规则交给集合：HashingStrategy.numericValue() 的 equals 使用 compareTo，哈希值只取决于数值
+        StrategyHashSet<BigDecimal> strategySet = new StrategyHashSet<>(HashingStrategy.numericValue());
+        strategySet.add(first);
+        strategySet.add(sec);
+        out.println(strategySet.size()); // 1
     }
 
 
@@ -87,6 +99,12 @@ public class Code14_Compara {
             out.print("");
             return COMPARATOR.compare(this, phoneNumber);
         }
+
+        // 补充：保持 compareTo 顺序的排序键，给 RadixSort 使用：short 加上 0x8000 之后是 0~65535 的非负数，顺序不变，
+        //     三个 16 位拼成一个 long，按 long 比较就是按 areaCode、prefix、lineNum 依次比较
+        public long sortKey() {
+            return (long) (areaCode + 0x8000) << 32 | (long) (prefix + 0x8000) << 16 | (lineNum + 0x8000);
+        }
     }
 
 
@@ -116,10 +134,44 @@ public class Code14_Compara {
                 .thenComparingDouble(p -> p.weght);
     }
 
-    class Person {
+    // 补充：同样的链，用 ComparatorCompiler 编译成一个类，每次比较只有一层调用，见 ComparatorCompiler 的说明
+    //     和 JDK 的链一样应该只创建一次，这里放在静态字段中
+    static final Comparator<Person> PERSON_CHAIN = comparingInt((Person p) -> p.id)
+            .thenComparingLong(p -> p.idcard)
+            .thenComparingDouble(p -> p.weght);
+    static final Comparator<Person> PERSON_COMPILED = ComparatorCompiler.comparingInt((Person p) -> p.id)
+            .thenComparingLong(p -> p.idcard)
+            .thenComparingDouble(p -> p.weght)
+            .compile();
+
+    // 补充：同样的顺序编码成字节数组，按无符号字节比较（memcmp）的结果和 PERSON_CHAIN 相同，用于堆外排序和 mmap 的索引
+    static final ByteKeyEncoder<Person> PERSON_KEY = ByteKeyEncoder.comparingInt((Person p) -> p.id)
+            .thenComparingLong(p -> p.idcard)
+            .thenComparingFloat(p -> p.weght)
+            .build();
+
+    // 补充：改成静态的嵌套类，并添加构造器和手写的 compareTo，用来和两种比较器对比
+    static class Person implements Comparable<Person> {
         public int id;
         public long idcard;
         private float weght;
+
+        Person(int id, long idcard, float weght) {
+            this.id = id;
+            this.idcard = idcard;
+            this.weght = weght;
+        }
+
+        @Override
+        public int compareTo(Person p) {
+            int result = Integer.compare(id, p.id);
+            if (result == 0) {
+                result = Long.compare(idcard, p.idcard);
+                if (result == 0)
+                    result = Double.compare(weght, p.weght);
+            }
+            return result;
+        }
     }
 
 }
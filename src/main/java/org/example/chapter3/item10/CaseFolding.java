@@ -0,0 +1,95 @@
+package org.example.chapter3.item10;
+
+/**
+ 不区分大小写的 equals 和 hashCode，直接在原来的 CharSequence 上计算，不创建 toLowerCase 的副本
+    1.按码点折叠成 Character.toLowerCase(Character.toUpperCase(cp))，和 String.equalsIgnoreCase 的规则相同：
+        BMP 中的字符逐个 char 比较，代理对（如 U+10400 和 U+10428）合成一个码点之后再比较；
+        两个码点折叠之后相等，当且仅当 equalsIgnoreCase 认为它们相等，所以 equals 相等的两个字符串 hashCode 一定相等
+    2.ASCII 快速路径：c < 0x80 时只需要把 'A'~'Z' 变成小写，不调用 Character 的表查找
+    3.hashCode 和 String.hashCode 一样是 31 * h + c，折叠之后的增补码点按两个代理 char 计算，
+        全是 ASCII 时等于 toLowerCase() 之后的 String.hashCode()
+    4.和 toLowerCase() 的区别：toLowerCase() 使用默认 Locale（土耳其语的 I），还可能把一个 char 变成多个，这里都不会
+ */
+public final class CaseFolding {
+
+    private CaseFolding() {
+    }
+
+    public static char fold(char c) {
+        if (c < 0x80)
+            return c >= 'A' && c <= 'Z' ? (char) (c | 0x20) : c;
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    public static int fold(int codePoint) {
+        if (codePoint < 0x80)
+            return codePoint >= 'A' && codePoint <= 'Z' ? codePoint | 0x20 : codePoint;
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    // 和 Character.codePointAt 相同，但不读取 end 之后的 char；不成对的代理 char 原样返回
+    private static int codePointAt(CharSequence s, int i, int end) {
+        char c = s.charAt(i);
+        if (Character.isHighSurrogate(c) && i + 1 < end) {
+            char low = s.charAt(i + 1);
+            if (Character.isLowSurrogate(low))
+                return Character.toCodePoint(c, low);
+        }
+        return c;
+    }
+
+    public static int hashCode(CharSequence s) {
+        return hashCode(s, 0, s.length());
+    }
+
+    // s 中 [from, to) 这一段的哈希值
+    public static int hashCode(CharSequence s, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (!Character.isSurrogate(c)) {
+                h = 31 * h + fold(c);
+                continue;
+            }
+            int cp = codePointAt(s, i, to);
+            if (Character.isSupplementaryCodePoint(cp)) {
+                i++;
+                int folded = fold(cp);
+                if (Character.isSupplementaryCodePoint(folded))
+                    h = 31 * (31 * h + Character.highSurrogate(folded)) + Character.lowSurrogate(folded);
+                else
+                    h = 31 * h + folded;
+            } else {
+                h = 31 * h + c;
+            }
+        }
+        return h;
+    }
+
+    public static boolean equals(CharSequence a, CharSequence b) {
+        if (a == b)
+            return true;
+        int length = a.length();
+        return length == b.length() && regionEquals(a, 0, b, 0, length);
+    }
+
+    public static boolean regionEquals(CharSequence a, int aFrom, CharSequence b, int bFrom, int length) {
+        int aEnd = aFrom + length;
+        int bEnd = bFrom + length;
+        for (int i = 0; i < length; i++) {
+            char c1 = a.charAt(aFrom + i);
+            char c2 = b.charAt(bFrom + i);
+            if (Character.isHighSurrogate(c1) || Character.isHighSurrogate(c2)) {
+                int cp1 = codePointAt(a, aFrom + i, aEnd);
+                int cp2 = codePointAt(b, bFrom + i, bEnd);
+                int count = Character.charCount(cp1);
+                if (count != Character.charCount(cp2) || cp1 != cp2 && fold(cp1) != fold(cp2))
+                    return false;
+                i += count - 1;
+            } else if (c1 != c2 && fold(c1) != fold(c2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
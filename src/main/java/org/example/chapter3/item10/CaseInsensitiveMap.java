@@ -0,0 +1,86 @@
+package org.example.chapter3.item10;
+
+import org.example.chapter3.item14.HashingStrategy;
+import org.example.chapter3.item14.StrategyHashMap;
+import org.example.chapter4.item20.MapCursor;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ key 不区分大小写的 Map，代替 HashMap<CaseInsensitiveString, V> 和 "先 toLowerCase() 再放进 HashMap<String, V>"
+    1.get / containsKey / remove 直接接受 String、StringBuilder 等 CharSequence，不需要包装对象，也不需要转换大小写的副本，查找不创建任何对象
+    2.存储是 StrategyHashMap<CharSequence, V> + HashingStrategy.caseInsensitive()：哈希值由 CaseFolding.hashCode 计算，和 key 一起保存，
+        开放寻址 + 线性探测，删除时往前移动（backward shift）；这里只把 key 的类型限定为 String
+    3.key 保留第一次 put 时的写法，之后大小写不同的 put 只替换 value（和 TreeMap(String.CASE_INSENSITIVE_ORDER) 相同）
+    4.forEach 和 cursor() 遍历时都不创建对象，cursor 还可以修改当前元素的 value，见 chapter4.item20.MapCursor
+ key 不能是 null，不是线程安全的
+ */
+public final class CaseInsensitiveMap<V> {
+
+    // put 只接受 String，所以里面的 key 都是 String
+    private final StrategyHashMap<CharSequence, V> map;
+
+    public CaseInsensitiveMap() {
+        this(0);
+    }
+
+    public CaseInsensitiveMap(int expectedSize) {
+        map = new StrategyHashMap<>(HashingStrategy.caseInsensitive(), expectedSize);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * @return the previous value, or {@code null} if there was none
+     */
+    public V put(String key, V value) {
+        return map.put(Objects.requireNonNull(key, "key"), value);
+    }
+
+    public V get(CharSequence key) {
+        return map.get(key);
+    }
+
+    public V getOrDefault(CharSequence key, V defaultValue) {
+        return map.getOrDefault(key, defaultValue);
+    }
+
+    public boolean containsKey(CharSequence key) {
+        return map.containsKey(key);
+    }
+
+    /**
+     * Returns the key as it was first put, e.g. {@code "Polish"} for a lookup of {@code "POLISH"}.
+     */
+    public String canonicalKey(CharSequence key) {
+        return (String) map.canonicalKey(key);
+    }
+
+    public V remove(CharSequence key) {
+        return map.remove(key);
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public void forEach(BiConsumer<? super String, ? super V> action) {
+        map.forEach((k, v) -> action.accept((String) k, v));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public MapCursor<String, V> cursor() {
+        return (MapCursor) map.cursor();
+    }
+
+    @Override public String toString() {
+        return map.toString();
+    }
+}
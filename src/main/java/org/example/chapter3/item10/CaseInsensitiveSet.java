@@ -0,0 +1,64 @@
+package org.example.chapter3.item10;
+
+import java.util.function.Consumer;
+
+/**
+ 不区分大小写的 String 集合，和 HashSet 基于 HashMap 一样，基于 CaseInsensitiveMap 实现
+    contains / remove 直接接受 CharSequence，查找不创建任何对象
+ 不能放入 null，不是线程安全的
+ */
+public final class CaseInsensitiveSet {
+
+    private static final Object PRESENT = new Object();
+
+    private final CaseInsensitiveMap<Object> map;
+
+    public CaseInsensitiveSet() {
+        this(0);
+    }
+
+    public CaseInsensitiveSet(int expectedSize) {
+        map = new CaseInsensitiveMap<>(expectedSize);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * @return {@code false} if an equal string, ignoring case, was already present
+     */
+    public boolean add(String s) {
+        return map.put(s, PRESENT) == null;
+    }
+
+    public boolean contains(CharSequence s) {
+        return map.containsKey(s);
+    }
+
+    public boolean remove(CharSequence s) {
+        return map.remove(s) != null;
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public void forEach(Consumer<? super String> action) {
+        map.forEach((k, v) -> action.accept(k));
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        forEach(k -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(k);
+        });
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.chapter3.item11;
+
+/**
+ 代替 Objects.hash 的工具类：不创建可变参数数组，也不装箱
+    1.hash(h1, ..., hN)：参数是每个字段的哈希值，结果和 Objects.hash(f1, ..., fN) 完全相同，最多 8 个
+        int、short、char、byte 字段可以直接传进去（Short.hashCode(s) 就是 (int) s）；
+        long、double、float、boolean、对象要先用 of(...) 转换，直接传会编译失败，不会意外地装箱
+    2.of(...)：和包装类型的 hashCode 相同，对象为 null 时是 0
+    3.mix：31 * result 的结果低位分布不好，需要更均匀的分布时（比如自己实现的开放寻址表），再用 MurmurHash3 的 fmix 打散一次
+ 用法：return Hashing.hash(id, Hashing.of(name));
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    public static int of(Object o) {
+        return o == null ? 0 : o.hashCode();
+    }
+
+    public static int of(long value) {
+        return Long.hashCode(value);
+    }
+
+    public static int of(double value) {
+        return Double.hashCode(value);
+    }
+
+    public static int of(float value) {
+        return Float.hashCode(value);
+    }
+
+    public static int of(boolean value) {
+        return Boolean.hashCode(value);
+    }
+
+    public static int hash(int h1) {
+        return 31 + h1;
+    }
+
+    public static int hash(int h1, int h2) {
+        return 31 * (31 + h1) + h2;
+    }
+
+    public static int hash(int h1, int h2, int h3) {
+        return 31 * hash(h1, h2) + h3;
+    }
+
+    public static int hash(int h1, int h2, int h3, int h4) {
+        return 31 * hash(h1, h2, h3) + h4;
+    }
+
+    public static int hash(int h1, int h2, int h3, int h4, int h5) {
+        return 31 * hash(h1, h2, h3, h4) + h5;
+    }
+
+    public static int hash(int h1, int h2, int h3, int h4, int h5, int h6) {
+        return 31 * hash(h1, h2, h3, h4, h5) + h6;
+    }
+
+    public static int hash(int h1, int h2, int h3, int h4, int h5, int h6, int h7) {
+        return 31 * hash(h1, h2, h3, h4, h5, h6) + h7;
+    }
+
+    public static int hash(int h1, int h2, int h3, int h4, int h5, int h6, int h7, int h8) {
+        return 31 * hash(h1, h2, h3, h4, h5, h6, h7) + h8;
+    }
+
+    /**
+     * MurmurHash3 fmix32: every input bit affects every output bit, a bijection on int.
+     */
+    public static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * MurmurHash3 fmix64 folded to an int, for keys packed into a long.
+     */
+    public static int mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -22,13 +22,15 @@ public class Person {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name);
+        // 和 Objects.hash(id, name) 的结果相同，但是不创建数组，也不装箱 id
+        return Hashing.hash(id, Hashing.of(name));
     }
 
 }
 
 /*
-    补充：可变参数，可以作为数组形式传递
+    补充：可变参数，可以作为数组形式传递，所以 Objects.hash 每次调用都要创建一个数组，基本类型的参数还要装箱；
+        Hashing 为 1~8 个参数各写了一个方法，参数是每个字段的哈希值，计算方式相同
     public static int hash(Object... values) {
         return Arrays.hashCode(values);
     }
@@ -5,7 +5,7 @@ import java.util.Map;
 import java.util.Objects;
 
 // Shows the need for overriding hashcode when you override equals (Pages 50-53 )
-public final class PhoneNumber {
+public final class PhoneNumber implements Comparable<PhoneNumber> {
     private final short areaCode, prefix, lineNum;
 
     public PhoneNumber(int areaCode, int prefix, int lineNum) {
@@ -14,12 +14,80 @@ public final class PhoneNumber {
         this.lineNum  = rangeCheck(lineNum, 9999, "line num");
     }
 
+    // 已经检查过的编码，只给 PhoneNumberCache 使用
+    PhoneNumber(long packed) {
+        this.areaCode = (short) areaCode(packed);
+        this.prefix = (short) prefix(packed);
+        this.lineNum = (short) lineNum(packed);
+    }
+
+    /*
+     补充：静态工厂 + 缓存，参考 Code17_MinimizeMutable.IntegerCache
+        常用的号码只有一个实例，重复解析时不再创建对象；equals 的第一行 o == this 在这种情况下直接返回
+        缓存的容量和命中率见 PhoneNumberCache
+     */
+    public static PhoneNumber valueOf(int areaCode, int prefix, int lineNum) {
+        return PhoneNumberCache.Holder.INSTANCE.intern(pack(areaCode, prefix, lineNum));
+    }
+
+    public static PhoneNumber valueOf(long packed) {
+        return PhoneNumberCache.Holder.INSTANCE.intern(checkPacked(packed));
+    }
+
+    public static PhoneNumberCache cache() {
+        return PhoneNumberCache.Holder.INSTANCE;
+    }
+
     private static short rangeCheck(int val, int max, String arg) {
         if (val < 0 || val > max)
             throw new IllegalArgumentException(arg + ": " + val);
         return (short) val;
     }
 
+    /*
+     补充：把三个字段放进一个 long：areaCode << 32 | prefix << 16 | lineNum
+        编码后的值一定是非负数，PhoneNumberSet / PhoneNumberMap 用负数表示空的槽位，不需要为每个号码创建对象
+     */
+    public static long pack(int areaCode, int prefix, int lineNum) {
+        return (long) rangeCheck(areaCode, 999, "area code") << 32
+                | (long) rangeCheck(prefix, 999, "prefix") << 16
+                | rangeCheck(lineNum, 9999, "line num");
+    }
+
+    // 检查 packed 是不是 pack 能得到的值
+    public static long checkPacked(long packed) {
+        if (packed < 0 || packed >>> 48 != 0 || areaCode(packed) > 999 || prefix(packed) > 999 || lineNum(packed) > 9999)
+            throw new IllegalArgumentException("not a packed phone number: " + packed);
+        return packed;
+    }
+
+    public static int areaCode(long packed) {
+        return (int) (packed >>> 32) & 0xFFFF;
+    }
+
+    public static int prefix(long packed) {
+        return (int) (packed >>> 16) & 0xFFFF;
+    }
+
+    public static int lineNum(long packed) {
+        return (int) packed & 0xFFFF;
+    }
+
+    public static PhoneNumber fromLong(long packed) {
+        checkPacked(packed);
+        return new PhoneNumber(areaCode(packed), prefix(packed), lineNum(packed));
+    }
+
+    public long toLong() {
+        return (long) areaCode << 32 | (long) prefix << 16 | lineNum;
+    }
+
+    // 补充：和 Code14_Compara.PhoneNumber 的顺序相同（areaCode、prefix、lineNum），和 equals 一致
+    //     三个字段都是非负数，编码之后的 long 保持这个顺序，所以 toLong() 可以直接作为 RadixSort 的排序键
+    @Override public int compareTo(PhoneNumber pn) {
+        return Long.compare(toLong(), pn.toLong());
+    }
+
     @Override public boolean equals(Object o) {
         if (o == this)
             return true;
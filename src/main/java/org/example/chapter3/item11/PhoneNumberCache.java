@@ -0,0 +1,160 @@
+package org.example.chapter3.item11;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ PhoneNumber.valueOf 使用的缓存，参考 Code17_MinimizeMutable.IntegerCache：相同的号码返回同一个实例
+    1.IntegerCache 缓存的是固定的 -128~127，电话号码的范围太大，只能缓存最近常用的一部分，所以是有界的，需要淘汰
+    2.组相联（set-associative）：号码编码成 long 之后按哈希分到某一组，每组 WAYS 个槽位，查找只需要比较这几个槽位
+    3.读不加锁：PhoneNumber 的字段都是 final 的，读到的引用即使是其他线程刚放进去的，看到的也一定是完整的对象；
+        没找到时对这一组加锁，再查一次，然后放进空槽位或者淘汰一个
+    4.淘汰策略是 LFU：每个槽位有一个字节的访问频率，命中时加一（并发时可能少加，只是近似值），淘汰频率最低的；
+        每一组每发生 AGING_PERIOD 次未命中，这一组所有槽位的频率减半（aging），以前很热、现在不用了的号码最终也会被淘汰；
+        新放进来的号码频率是 1，大量只出现一次的号码（比如一次全量扫描）只会互相淘汰，不会把常用的号码挤出去
+    5.容量通过系统属性 org.example.chapter3.item11.PhoneNumberCache.size 配置，和 IntegerCache.high 一样只在类初始化时读取一次，
+        0 表示不缓存
+ */
+public final class PhoneNumberCache {
+
+    static final String SIZE_PROPERTY = "org.example.chapter3.item11.PhoneNumberCache.size";
+    static final int DEFAULT_SIZE = 1 << 18;
+    static final int WAYS = 8;
+    private static final int MAX_FREQUENCY = 255;
+    private static final int MAX_LOCKS = 64;
+    private static final int AGING_PERIOD = 4 * WAYS;
+
+    // 和 IntegerCache 一样，第一次调用 PhoneNumber.valueOf 时才创建
+    static final class Holder {
+        static final PhoneNumberCache INSTANCE = new PhoneNumberCache(configuredSize());
+
+        private Holder() {
+        }
+
+        private static int configuredSize() {
+            String value = System.getProperty(SIZE_PROPERTY);
+            if (value != null) {
+                try {
+                    return Math.max(0, Integer.parseInt(value.trim()));
+                } catch (NumberFormatException ignored) {
+                    // 和 IntegerCache 一样，配置错误时使用默认值
+                }
+            }
+            return DEFAULT_SIZE;
+        }
+    }
+
+    private final PhoneNumber[] entries;
+    private final byte[] frequencies;
+    private final byte[] setMisses;  // 距离上次 aging 的未命中次数，只在持有锁时访问
+    private final int setMask;
+    private final Object[] locks;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // size 向上取整到 WAYS * 2 的幂
+    PhoneNumberCache(int size) {
+        int sets = size <= 0 ? 0 : powerOfTwoAtLeast((size + WAYS - 1) / WAYS);
+        entries = new PhoneNumber[sets * WAYS];
+        frequencies = new byte[sets * WAYS];
+        setMisses = new byte[sets];
+        setMask = sets - 1;
+        locks = new Object[Math.max(1, Math.min(sets, MAX_LOCKS))];
+        for (int i = 0; i < locks.length; i++)
+            locks[i] = new Object();
+    }
+
+    private static int powerOfTwoAtLeast(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * Returns the canonical instance for {@code packed}, creating it on a miss. {@code packed} must be valid.
+     */
+    PhoneNumber intern(long packed) {
+        if (entries.length == 0) {
+            misses.increment();
+            return new PhoneNumber(packed);
+        }
+        int base = (Hashing.mix(packed) & setMask) * WAYS;
+        PhoneNumber[] e = entries;
+        for (int i = base; i < base + WAYS; i++) {
+            PhoneNumber candidate = e[i];
+            if (candidate != null && candidate.toLong() == packed) {
+                touch(i);
+                hits.increment();
+                return candidate;
+            }
+        }
+        return miss(packed, base);
+    }
+
+    private void touch(int i) {
+        int f = frequencies[i] & 0xFF;
+        if (f < MAX_FREQUENCY)
+            frequencies[i] = (byte) (f + 1);
+    }
+
+    private PhoneNumber miss(long packed, int base) {
+        synchronized (locks[(base / WAYS) % locks.length]) {
+            int victim = -1;
+            int victimFrequency = Integer.MAX_VALUE;
+            for (int i = base; i < base + WAYS; i++) {
+                PhoneNumber candidate = entries[i];
+                if (candidate == null) {
+                    if (victimFrequency > -1) {
+                        victim = i;
+                        victimFrequency = -1;
+                    }
+                    continue;
+                }
+                // 加锁之前另一个线程已经放进来了
+                if (candidate.toLong() == packed) {
+                    touch(i);
+                    hits.increment();
+                    return candidate;
+                }
+                int f = frequencies[i] & 0xFF;
+                if (f < victimFrequency) {
+                    victim = i;
+                    victimFrequency = f;
+                }
+            }
+            misses.increment();
+            if (victimFrequency >= 0)
+                evictions.increment();
+            int set = base / WAYS;
+            if (++setMisses[set] >= AGING_PERIOD) {
+                setMisses[set] = 0;
+                for (int i = base; i < base + WAYS; i++)
+                    frequencies[i] = (byte) ((frequencies[i] & 0xFF) >>> 1);
+            }
+            PhoneNumber created = new PhoneNumber(packed);
+            frequencies[victim] = 1;
+            entries[victim] = created;
+            return created;
+        }
+    }
+
+    // 槽位的总数
+    public int capacity() {
+        return entries.length;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    @Override public String toString() {
+        return "PhoneNumberCache{capacity=" + entries.length + ", hits=" + hits.sum()
+                + ", misses=" + misses.sum() + ", evictions=" + evictions.sum() + "}";
+    }
+}
@@ -0,0 +1,196 @@
+package org.example.chapter3.item11;
+
+import java.util.Arrays;
+
+/**
+ key 是 PhoneNumber.pack 编码之后的电话号码的 Map，代替 HashMap<PhoneNumber, V>
+    和 PhoneNumberSet 一样：key 放在 long[] 中，value 放在下标相同的 Object[] 中，没有 Node，也没有装箱的 key
+    value 可以是 null，containsKey 和 get 返回 null 要区分开
+ 不是线程安全的
+ */
+public final class PhoneNumberMap<V> {
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long packed, V value);
+    }
+
+    private static final long EMPTY = PhoneNumberSet.EMPTY;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeAt;
+
+    public PhoneNumberMap() {
+        this(0);
+    }
+
+    public PhoneNumberMap(int expectedSize) {
+        allocate(PhoneNumberSet.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+        resizeAt = (int) (capacity * PhoneNumberSet.LOAD_FACTOR);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V put(PhoneNumber number, V value) {
+        return put(number.toLong(), value);
+    }
+
+    /**
+     * @return the previous value, or {@code null} if there was none
+     */
+    public V put(long packed, V value) {
+        PhoneNumber.checkPacked(packed);
+        if (size >= resizeAt) {
+            if (keys.length == PhoneNumberSet.MAX_CAPACITY)
+                throw new IllegalStateException("map is full");
+            rehash(PhoneNumberSet.grownCapacity(keys.length));
+        }
+        return insert(packed, value);
+    }
+
+    /**
+     * Puts {@code keys[i] -> values[i]} for every i, growing the table at most once.
+     */
+    public void putAll(long[] packed, V[] values) {
+        if (packed.length != values.length)
+            throw new IllegalArgumentException("keys: " + packed.length + ", values: " + values.length);
+        for (long p : packed)
+            PhoneNumber.checkPacked(p);
+        ensureCapacity(size + packed.length);
+        for (int i = 0; i < packed.length; i++)
+            insert(packed[i], values[i]);
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        int capacity = PhoneNumberSet.capacityFor(expectedSize);
+        if (capacity > keys.length)
+            rehash(capacity);
+    }
+
+    public V get(PhoneNumber number) {
+        return get(number.toLong());
+    }
+
+    public V get(long packed) {
+        return getOrDefault(packed, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long packed, V defaultValue) {
+        int i = indexOf(packed);
+        return i < 0 ? defaultValue : (V) values[i];
+    }
+
+    public boolean containsKey(long packed) {
+        return indexOf(packed) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long packed) {
+        int i = indexOf(packed);
+        if (i < 0)
+            return null;
+        V old = (V) values[i];
+        shiftBack(i);
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        long[] k = keys;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != EMPTY)
+                action.accept(k[i], (V) values[i]);
+        }
+    }
+
+    private int indexOf(long packed) {
+        if (packed < 0)
+            return -1;
+        long[] k = keys;
+        int capacity = k.length;
+        for (int i = PhoneNumberSet.slot(packed, capacity); ; i = PhoneNumberSet.next(i, capacity)) {
+            long key = k[i];
+            if (key == packed)
+                return i;
+            if (key == EMPTY)
+                return -1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V insert(long packed, V value) {
+        long[] k = keys;
+        int capacity = k.length;
+        for (int i = PhoneNumberSet.slot(packed, capacity); ; i = PhoneNumberSet.next(i, capacity)) {
+            long key = k[i];
+            if (key == packed) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            if (key == EMPTY) {
+                k[i] = packed;
+                values[i] = value;
+                size++;
+                return null;
+            }
+        }
+    }
+
+    // 同 PhoneNumberSet.shiftBack，value 跟着 key 一起移动
+    private void shiftBack(int hole) {
+        long[] k = keys;
+        int capacity = k.length;
+        for (int j = PhoneNumberSet.next(hole, capacity); ; j = PhoneNumberSet.next(j, capacity)) {
+            long key = k[j];
+            if (key == EMPTY)
+                break;
+            int ideal = PhoneNumberSet.slot(key, capacity);
+            if (PhoneNumberSet.distance(ideal, j, capacity) >= PhoneNumberSet.distance(hole, j, capacity)) {
+                k[hole] = key;
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        k[hole] = EMPTY;
+        values[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY)
+                insert(oldKeys[i], uncheckedValue(oldValues[i]));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V uncheckedValue(Object value) {
+        return (V) value;
+    }
+}
@@ -0,0 +1,228 @@
+package org.example.chapter3.item11;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ 保存 PhoneNumber.pack 编码之后的电话号码的集合，代替 HashSet<PhoneNumber>
+    1.开放寻址 + 线性探测，所有号码都放在一个 long[] 中，没有 PhoneNumber 对象、HashMap.Node，也没有装箱
+        HashSet<PhoneNumber> 每个元素大约 60~70 字节（PhoneNumber 24 + Node 32 + 数组槽位），这里每个元素 8 / 装载因子 字节
+    2.编码之后的值都是非负数，EMPTY = -1 表示空槽位；删除时把后面的元素往前移（backward shift），不需要墓碑
+    3.槽位用 Hashing.mix 打散：31 * result 的低位分布很差，线性探测会产生很长的聚集；
+        容量不是 2 的幂，按 (hash * capacity) >>> 32 映射到槽位，数组正好是 size / 装载因子，不会因为取整多用一倍的内存
+    4.addAll 先一次性扩容到足够大，再逐个放入，批量插入时不会多次 rehash
+ 不是线程安全的
+ */
+public final class PhoneNumberSet {
+
+    static final long EMPTY = -1L;
+    static final float LOAD_FACTOR = 0.75f;
+    private static final int MIN_CAPACITY = 16;
+    static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private long[] table;
+    private int size;
+    private int resizeAt;
+
+    public PhoneNumberSet() {
+        this(0);
+    }
+
+    public PhoneNumberSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    // 能放下 expectedSize 个元素的容量
+    static int capacityFor(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expectedSize: " + expectedSize);
+        long needed = (long) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1;
+        if (needed > MAX_CAPACITY)
+            throw new IllegalArgumentException("too many elements: " + expectedSize);
+        return (int) Math.max(MIN_CAPACITY, needed);
+    }
+
+    static int grownCapacity(int capacity) {
+        return (int) Math.min(MAX_CAPACITY, capacity * 2L);
+    }
+
+    // 把 32 位的哈希值按比例映射到 [0, capacity)，比取模快
+    static int slot(long key, int capacity) {
+        return (int) (((Hashing.mix(key) & 0xFFFFFFFFL) * capacity) >>> 32);
+    }
+
+    static int next(int i, int capacity) {
+        return ++i == capacity ? 0 : i;
+    }
+
+    // 从 from 往后探测到 to 的距离
+    static int distance(int from, int to, int capacity) {
+        return to >= from ? to - from : to - from + capacity;
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean add(PhoneNumber number) {
+        return add(number.toLong());
+    }
+
+    public boolean add(long packed) {
+        PhoneNumber.checkPacked(packed);
+        if (size >= resizeAt) {
+            // 已经是最大容量时不能再扩容，否则之后每次 add 都重建整个表，表满之后 insert 会一直探测下去
+            if (table.length == MAX_CAPACITY)
+                throw new IllegalStateException("set is full");
+            rehash(grownCapacity(table.length));
+        }
+        return insert(packed);
+    }
+
+    /**
+     * Adds all of {@code packed}, growing the table at most once.
+     *
+     * @return how many numbers were not already present
+     */
+    public int addAll(long[] packed) {
+        for (long p : packed)
+            PhoneNumber.checkPacked(p);
+        ensureCapacity(size + packed.length);
+        int added = 0;
+        for (long p : packed) {
+            if (insert(p))
+                added++;
+        }
+        return added;
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        if (capacity > table.length)
+            rehash(capacity);
+    }
+
+    public boolean contains(PhoneNumber number) {
+        return contains(number.toLong());
+    }
+
+    public boolean contains(long packed) {
+        if (packed < 0)
+            return false;
+        long[] t = table;
+        int capacity = t.length;
+        for (int i = slot(packed, capacity); ; i = next(i, capacity)) {
+            long k = t[i];
+            if (k == packed)
+                return true;
+            if (k == EMPTY)
+                return false;
+        }
+    }
+
+    public boolean remove(PhoneNumber number) {
+        return remove(number.toLong());
+    }
+
+    public boolean remove(long packed) {
+        if (packed < 0)
+            return false;
+        long[] t = table;
+        int capacity = t.length;
+        for (int i = slot(packed, capacity); ; i = next(i, capacity)) {
+            long k = t[i];
+            if (k == EMPTY)
+                return false;
+            if (k == packed) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        for (long k : table) {
+            if (k != EMPTY)
+                action.accept(k);
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int n = 0;
+        for (long k : table) {
+            if (k != EMPTY)
+                result[n++] = k;
+        }
+        return result;
+    }
+
+    // 已经检查过 key，并且一定还有空槽位
+    private boolean insert(long key) {
+        long[] t = table;
+        int capacity = t.length;
+        for (int i = slot(key, capacity); ; i = next(i, capacity)) {
+            long k = t[i];
+            if (k == key)
+                return false;
+            if (k == EMPTY) {
+                t[i] = key;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    // 删除 hole 位置的元素：把后面 "理想位置不在 (hole, j] 中" 的元素移到 hole，直到遇到空槽位
+    private void shiftBack(int hole) {
+        long[] t = table;
+        int capacity = t.length;
+        for (int j = next(hole, capacity); ; j = next(j, capacity)) {
+            long k = t[j];
+            if (k == EMPTY)
+                break;
+            int ideal = slot(k, capacity);
+            if (distance(ideal, j, capacity) >= distance(hole, j, capacity)) {
+                t[hole] = k;
+                hole = j;
+            }
+        }
+        t[hole] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        allocate(capacity);
+        size = 0;
+        for (long k : old) {
+            if (k != EMPTY)
+                insert(k);
+        }
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        forEach(k -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(String.format("(%03d) %03d-%04d", PhoneNumber.areaCode(k), PhoneNumber.prefix(k), PhoneNumber.lineNum(k)));
+        });
+        return sb.append(']').toString();
+    }
+}
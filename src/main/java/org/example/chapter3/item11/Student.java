@@ -21,7 +21,7 @@ public class Student {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getCanonicalName());
+        return Hashing.hash(Hashing.of(getCanonicalName()));
     }
 
     // 这里用来获取 canonical representation，因为name可能需要特殊的比较规则，因此用一个方法来获取
@@ -29,4 +29,10 @@ public class Student {
         // Define your canonicalization logic here
         return name.trim().toLowerCase();
     }
+
+    // 补充：getCanonicalName() 每次 equals / hashCode 都会创建 trim() 和 toLowerCase() 两个 String；
+    //     热点路径上可以不创建副本，先从两端跳过 <= ' ' 的字符找到 trim 之后的区间（和 String.trim 的规则相同），
+    //     再用 CaseFolding.regionEquals 和 CaseFolding.hashCode(name, from, to) 比较和计算哈希值（CaseInsensitiveMap 就是这样做的）
+    //     注意这样规则变成了 equalsIgnoreCase 的折叠规则，和 toLowerCase() 不完全相同：
+    //     例如 "İ"（U+0130）折叠之后和 "i" 相等，toLowerCase() 却是 "i̇" 两个 char；规则改变时要同时改 equals 和 hashCode
 }
@@ -0,0 +1,579 @@
+package org.example.chapter3.item13;
+
+import sun.reflect.ReflectionFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ 通用的深拷贝，用来代替 Code13_Clone.copyBySerial "先序列化再反序列化" 的写法
+    1.每个类第一次被拷贝时生成一个拷贝计划（copy plan），缓存在 ClassValue 中：
+        创建对象的 MethodHandle，所有字段的复制组合成一个 (dst, src, run) -> void 的 MethodHandle，
+        调用次数多了之后 JIT 会把整个组合编译成一段代码；之后拷贝这个类的对象不再使用反射
+    2.不可变的对象直接共享，不拷贝：String、包装类型、枚举、BigInteger/BigDecimal、java.time 等，
+        以及所有字段都是 final 并且字段类型也是不可变类型的类；lambda 等隐藏类也直接共享
+    3.数组、集合：基本类型数组直接复制；对象数组逐个元素拷贝；
+        JDK 的集合尽量创建同一个类的实例（TreeMap、PriorityQueue 保留 comparator），
+        不能直接创建的（比如 List.of、Collections.unmodifiableList）换成 ArrayList 等，再包装成不可修改的
+    4.record 的字段是 final 的，只能通过规范构造方法创建，先拷贝所有组件再调用构造方法
+    5.用 IdentityHashMap 记录已经拷贝过的对象，同一个对象只拷贝一次，环也能正确地复制；
+        不用递归，而是用一个显式的栈，很长的链表也不会 StackOverflowError（序列化会）
+    6.创建对象：和反序列化一样不调用类自己的构造方法，用 sun.reflect.ReflectionFactory 生成的构造方法创建，然后覆盖所有字段；
+        构造方法可能有副作用（计数、注册、打开资源），拷贝时不应该执行。
+        ReflectionFactory 在 jdk.unsupported 模块中，是 internal API，编译时会有一个警告（这个警告不能用 @SuppressWarnings 去掉）；
+        usingConstructors() 返回的 copier 改为调用无参构造方法（MethodHandles.privateLookupIn + findConstructor），
+        没有无参构造方法的类（比如 Code13_Clone.Stu）仍然用 ReflectionFactory
+ 注意：
+    集合中的元素在所有可以到达的对象都拷贝完之后才放进集合，这样 HashSet 中元素的 hashCode 是对的；
+    如果环经过了 HashSet/HashMap 的 key，某些元素放进去的时候可能还没有拷贝完，序列化也有同样的问题
+    JDK 中其他的类（模块没有开放，无法访问字段）抛出 IllegalArgumentException，实现了 Cloneable 的调用它自己的 clone
+ */
+public final class DeepCopier {
+
+    private static final DeepCopier STANDARD = new DeepCopier(Collections.emptySet(), false);
+
+    private static final Set<Class<?>> IMMUTABLE = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+            Long.class, Float.class, Double.class, Void.class, Class.class,
+            BigInteger.class, BigDecimal.class, UUID.class, Pattern.class, Locale.class, URI.class,
+            OptionalInt.class, OptionalLong.class, OptionalDouble.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    // record 还在创建中，这时又遇到它说明环经过了 record
+    private static final Object IN_PROGRESS = new Object();
+
+    private final Set<Class<?>> shared;
+    private final boolean useConstructors;
+    private final ClassValue<Plan> plans = new ClassValue<Plan>() {
+        @Override protected Plan computeValue(Class<?> type) {
+            return createPlan(type);
+        }
+    };
+
+    private DeepCopier(Set<Class<?>> shared, boolean useConstructors) {
+        this.shared = shared;
+        this.useConstructors = useConstructors;
+    }
+
+    public static DeepCopier standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Returns a copier that also shares instances of {@code types} instead of copying them.
+     */
+    public DeepCopier sharing(Class<?>... types) {
+        Set<Class<?>> union = new HashSet<>(shared);
+        union.addAll(Arrays.asList(types));
+        return new DeepCopier(Collections.unmodifiableSet(union), useConstructors);
+    }
+
+    /**
+     * Returns a copier that creates objects through their no-arg constructor when there is one,
+     * instead of bypassing constructors like deserialization does. The constructor runs once per copied
+     * object, so it should have no side effects; all fields are overwritten afterwards.
+     */
+    public DeepCopier usingConstructors() {
+        return new DeepCopier(shared, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T copy(T source) {
+        Run run = new Run();
+        Object copy = run.copy(source);
+        run.drain(0);
+        return (T) copy;
+    }
+
+    // 一次 copy 调用的状态
+    private final class Run {
+        final IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+        // 成对压入 (src, dst)，弹出时先 dst 后 src；Deferred 单独压入
+        final ArrayDeque<Object> stack = new ArrayDeque<>();
+
+        Object copy(Object source) {
+            if (source == null)
+                return null;
+            Plan plan = plans.get(source.getClass());
+            if (plan == SharePlan.INSTANCE)
+                return source;
+            Object existing = copies.get(source);
+            if (existing != null) {
+                if (existing == IN_PROGRESS)
+                    throw new IllegalArgumentException("cycle through record " + source.getClass().getName());
+                return existing;
+            }
+            return plan.start(source, this);
+        }
+
+        void register(Object source, Object copy) {
+            copies.put(source, copy);
+        }
+
+        void push(Object source, Object copy) {
+            stack.push(source);
+            stack.push(copy);
+        }
+
+        // 处理栈上 mark 以上的所有任务
+        void drain(int mark) {
+            while (stack.size() > mark) {
+                Object top = stack.pop();
+                if (top instanceof Deferred) {
+                    ((Deferred) top).run();
+                } else {
+                    Object source = stack.pop();
+                    plans.get(source.getClass()).fill(source, top, this);
+                }
+            }
+        }
+    }
+
+    // 所有元素拷贝完之后才执行的任务
+    private interface Deferred {
+        void run();
+    }
+
+    private abstract static class Plan {
+        // 创建 source 的拷贝并登记到 run.copies 中，需要填充的内容压入栈
+        abstract Object start(Object source, Run run);
+
+        void fill(Object source, Object copy, Run run) {
+            throw new AssertionError();
+        }
+    }
+
+    private static final class SharePlan extends Plan {
+        static final SharePlan INSTANCE = new SharePlan();
+
+        @Override Object start(Object source, Run run) {
+            return source;
+        }
+    }
+
+    private Plan createPlan(Class<?> type) {
+        if (isShared(type))
+            return SharePlan.INSTANCE;
+        if (type.isArray())
+            return type.getComponentType().isPrimitive() ? new PrimitiveArrayPlan() : new ObjectArrayPlan(type.getComponentType());
+        if (isJdk(type)) {
+            if (EnumSet.class.isAssignableFrom(type))
+                return new EnumSetPlan();
+            if (Collection.class.isAssignableFrom(type))
+                return new CollectionPlan(type);
+            if (Map.class.isAssignableFrom(type))
+                return new MapPlan(type);
+            if (Cloneable.class.isAssignableFrom(type))
+                return new ClonePlan(type);
+        }
+        try {
+            if (type.isRecord())
+                return new RecordPlan(type);
+            return new ObjectPlan(type, useConstructors);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException("cannot deep copy " + type.getName() + ": " + e, e);
+        }
+    }
+
+    private boolean isShared(Class<?> type) {
+        if (IMMUTABLE.contains(type) || shared.contains(type) || Enum.class.isAssignableFrom(type) || type.isHidden())
+            return true;
+        String packageName = type.getPackageName();
+        if (packageName.equals("java.time") || packageName.startsWith("java.time."))
+            return true;
+        if (type.isArray() || isJdk(type))
+            return false;
+        // 所有字段（包括父类的）都是 final，并且字段类型本身不可变
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()))
+                    continue;
+                Class<?> fieldType = f.getType();
+                boolean immutableType = fieldType.isPrimitive() || IMMUTABLE.contains(fieldType)
+                        || shared.contains(fieldType) || fieldType.isEnum();
+                if (!Modifier.isFinal(f.getModifiers()) || !immutableType)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isJdk(Class<?> type) {
+        Module module = type.getModule();
+        return module.isNamed() && (module.getName().startsWith("java.") || module.getName().startsWith("jdk."));
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException)
+            return (RuntimeException) t;
+        if (t instanceof Error)
+            throw (Error) t;
+        return new IllegalStateException(t);
+    }
+
+    private static final class PrimitiveArrayPlan extends Plan {
+        @Override Object start(Object source, Run run) {
+            int length = Array.getLength(source);
+            Object copy = Array.newInstance(source.getClass().getComponentType(), length);
+            System.arraycopy(source, 0, copy, 0, length);
+            run.register(source, copy);
+            return copy;
+        }
+    }
+
+    private static final class ObjectArrayPlan extends Plan {
+        private final Class<?> componentType;
+
+        ObjectArrayPlan(Class<?> componentType) {
+            this.componentType = componentType;
+        }
+
+        @Override Object start(Object source, Run run) {
+            Object copy = Array.newInstance(componentType, ((Object[]) source).length);
+            run.register(source, copy);
+            run.push(source, copy);
+            return copy;
+        }
+
+        @Override void fill(Object source, Object copy, Run run) {
+            Object[] from = (Object[]) source;
+            Object[] to = (Object[]) copy;
+            for (int i = 0; i < from.length; i++)
+                to[i] = run.copy(from[i]);
+        }
+    }
+
+    // ()Object：默认和反序列化一样，不调用 type 的构造方法；useConstructors 为 true 并且有无参构造方法时调用它
+    private static MethodHandle allocator(Class<?> type, boolean useConstructors) throws ReflectiveOperationException {
+        MethodType allocate = MethodType.methodType(Object.class);
+        if (useConstructors) {
+            try {
+                return MethodHandles.privateLookupIn(type, LOOKUP)
+                        .findConstructor(type, MethodType.methodType(void.class))
+                        .asType(allocate);
+            } catch (NoSuchMethodException e) {
+                // 没有无参构造方法，和默认的 copier 一样处理
+            }
+        }
+        // 只执行 Object 的构造方法，type 和它的父类的构造方法、字段初始化都不执行
+        Constructor<?> constructor = ReflectionFactory.getReflectionFactory()
+                .newConstructorForSerialization(type, Object.class.getDeclaredConstructor());
+        constructor.setAccessible(true);
+        // 生成的构造方法的 declaringClass 是 Object，不能 unreflectConstructor，只能通过 newInstance 调用；
+        // 空的参数数组在这里绑定一次，asFixedArity 之后每次调用不再创建 varargs 数组
+        return MethodHandles.insertArguments(
+                LOOKUP.findVirtual(Constructor.class, "newInstance", MethodType.methodType(Object.class, Object[].class))
+                        .asFixedArity(),
+                0, constructor, new Object[0]).asType(allocate);
+    }
+
+    // 普通的类：创建对象（见 allocator），然后逐个字段复制
+    private static final class ObjectPlan extends Plan {
+        private static final MethodHandle RUN_COPY;
+        static {
+            try {
+                RUN_COPY = LOOKUP.findVirtual(Run.class, "copy", MethodType.methodType(Object.class, Object.class));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+        private static final MethodType FILL = MethodType.methodType(void.class, Object.class, Object.class, Run.class);
+
+        private final MethodHandle allocate;  // ()Object
+        private final MethodHandle fill;      // (dst, src, run) -> void，所有字段合并成一个 MethodHandle
+
+        ObjectPlan(Class<?> type, boolean useConstructors) throws ReflectiveOperationException {
+            allocate = allocator(type, useConstructors);
+            MethodHandle all = MethodHandles.empty(FILL);
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(f.getModifiers()))
+                        all = MethodHandles.foldArguments(all, copyField(f));
+                }
+            }
+            fill = all;
+        }
+
+        // (dst, src, run) -> dst.f = src.f，引用类型是 dst.f = run.copy(src.f)
+        private static MethodHandle copyField(Field f) throws IllegalAccessException {
+            f.setAccessible(true);
+            Class<?> valueType = f.getType().isPrimitive() ? f.getType() : Object.class;
+            MethodHandle getter = LOOKUP.unreflectGetter(f).asType(MethodType.methodType(valueType, Object.class));
+            MethodHandle setter = LOOKUP.unreflectSetter(f).asType(MethodType.methodType(void.class, Object.class, valueType));
+            if (f.getType().isPrimitive()) {
+                MethodHandle copy = MethodHandles.filterArguments(setter, 1, getter);  // (dst, src)
+                return MethodHandles.dropArguments(copy, 2, Run.class);
+            }
+            MethodHandle copiedValue = MethodHandles.filterArguments(RUN_COPY, 1, getter);         // (run, src) -> Object
+            MethodHandle copy = MethodHandles.collectArguments(setter, 1, copiedValue);            // (dst, run, src)
+            return MethodHandles.permuteArguments(copy, FILL, 0, 2, 1);
+        }
+
+        @Override Object start(Object source, Run run) {
+            Object copy;
+            try {
+                copy = (Object) allocate.invokeExact();
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            run.register(source, copy);
+            run.push(source, copy);
+            return copy;
+        }
+
+        @Override void fill(Object source, Object copy, Run run) {
+            try {
+                fill.invokeExact(copy, source, run);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class RecordPlan extends Plan {
+        private final MethodHandle[] accessors;
+        private final MethodHandle construct;  // (Object[]) -> Object
+
+        RecordPlan(Class<?> type) throws ReflectiveOperationException {
+            RecordComponent[] components = type.getRecordComponents();
+            accessors = new MethodHandle[components.length];
+            Class<?>[] types = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                types[i] = components[i].getType();
+                components[i].getAccessor().setAccessible(true);
+                accessors[i] = LOOKUP.unreflect(components[i].getAccessor()).asType(GETTER);
+            }
+            Constructor<?> canonical = type.getDeclaredConstructor(types);
+            canonical.setAccessible(true);
+            construct = LOOKUP.unreflectConstructor(canonical)
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        }
+
+        @Override Object start(Object source, Run run) {
+            run.register(source, IN_PROGRESS);
+            try {
+                Object[] args = new Object[accessors.length];
+                int mark = run.stack.size();
+                for (int i = 0; i < accessors.length; i++)
+                    args[i] = run.copy((Object) accessors[i].invokeExact(source));
+                run.drain(mark);
+                Object copy = (Object) construct.invokeExact(args);
+                run.register(source, copy);
+                return copy;
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class ClonePlan extends Plan {
+        private final MethodHandle clone;
+
+        ClonePlan(Class<?> type) {
+            try {
+                clone = MethodHandles.publicLookup().findVirtual(type, "clone", MethodType.methodType(Object.class))
+                        .asType(GETTER);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("cannot deep copy " + type.getName() + ": " + e, e);
+            }
+        }
+
+        @Override Object start(Object source, Run run) {
+            try {
+                Object copy = (Object) clone.invokeExact(source);
+                run.register(source, copy);
+                return copy;
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class EnumSetPlan extends Plan {
+        @Override Object start(Object source, Run run) {
+            Object copy = ((EnumSet<?>) source).clone();
+            run.register(source, copy);
+            return copy;
+        }
+    }
+
+    private static MethodHandle publicConstructor(Class<?> type, Class<?>... parameterTypes) {
+        if (!Modifier.isPublic(type.getModifiers()))
+            return null;
+        try {
+            return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class, parameterTypes))
+                    .asType(MethodType.methodType(Object.class, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Comparator<?> comparatorOf(Object collection) {
+        if (collection instanceof SortedSet)
+            return ((SortedSet<?>) collection).comparator();
+        if (collection instanceof SortedMap)
+            return ((SortedMap<?, ?>) collection).comparator();
+        if (collection instanceof PriorityQueue)
+            return ((PriorityQueue<?>) collection).comparator();
+        return null;
+    }
+
+    private enum Wrapper { NONE, UNMODIFIABLE, SYNCHRONIZED }
+
+    private static Wrapper wrapperOf(Class<?> type) {
+        String name = type.getName();
+        if (name.contains("Unmodifiable") || name.contains("Immutable")
+                || name.contains("$Empty") || name.contains("$Singleton"))
+            return Wrapper.UNMODIFIABLE;
+        if (name.contains("Synchronized"))
+            return Wrapper.SYNCHRONIZED;
+        return Wrapper.NONE;
+    }
+
+    private static final class CollectionPlan extends Plan {
+        private final MethodHandle noArg;        // ()Object
+        private final MethodHandle withComparator;  // (Comparator)Object
+        private final Wrapper wrapper;
+
+        CollectionPlan(Class<?> type) {
+            noArg = publicConstructor(type);
+            withComparator = publicConstructor(type, Comparator.class);
+            wrapper = noArg == null && withComparator == null ? wrapperOf(type) : Wrapper.NONE;
+        }
+
+        @Override Object start(Object source, Run run) {
+            Collection<?> from = (Collection<?>) source;
+            Collection<Object> target = create(from);
+            Object copy = wrap(target);
+            run.register(source, copy);
+            Object[] elements = new Object[from.size()];
+            run.stack.push((Deferred) () -> Collections.addAll(target, elements));
+            int i = 0;
+            for (Object e : from)
+                elements[i++] = run.copy(e);
+            return copy;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Collection<Object> create(Collection<?> from) {
+            Comparator<?> comparator = comparatorOf(from);
+            try {
+                if (comparator != null && withComparator != null)
+                    return (Collection<Object>) (Object) withComparator.invokeExact(comparator);
+                if (noArg != null)
+                    return (Collection<Object>) (Object) noArg.invokeExact();
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            if (from instanceof SortedSet)
+                return new TreeSet<>((Comparator<Object>) comparator);
+            if (from instanceof PriorityQueue)
+                return new PriorityQueue<>((Comparator<Object>) comparator);
+            if (from instanceof Set)
+                return new LinkedHashSet<>();
+            return new ArrayList<>(from.size());
+        }
+
+        private Object wrap(Collection<Object> target) {
+            switch (wrapper) {
+                case UNMODIFIABLE:
+                    if (target instanceof SortedSet)
+                        return Collections.unmodifiableSortedSet((SortedSet<Object>) target);
+                    if (target instanceof Set)
+                        return Collections.unmodifiableSet((Set<Object>) target);
+                    if (target instanceof List)
+                        return Collections.unmodifiableList((List<Object>) target);
+                    return Collections.unmodifiableCollection(target);
+                case SYNCHRONIZED:
+                    if (target instanceof SortedSet)
+                        return Collections.synchronizedSortedSet((SortedSet<Object>) target);
+                    if (target instanceof Set)
+                        return Collections.synchronizedSet((Set<Object>) target);
+                    if (target instanceof List)
+                        return Collections.synchronizedList((List<Object>) target);
+                    return Collections.synchronizedCollection(target);
+                default:
+                    return target;
+            }
+        }
+    }
+
+    private static final class MapPlan extends Plan {
+        private final MethodHandle noArg;
+        private final MethodHandle withComparator;
+        private final boolean enumMap;
+        private final Wrapper wrapper;
+
+        MapPlan(Class<?> type) {
+            noArg = publicConstructor(type);
+            withComparator = publicConstructor(type, Comparator.class);
+            enumMap = EnumMap.class.isAssignableFrom(type);
+            wrapper = noArg == null && withComparator == null && !enumMap ? wrapperOf(type) : Wrapper.NONE;
+        }
+
+        @Override Object start(Object source, Run run) {
+            Map<?, ?> from = (Map<?, ?>) source;
+            Map<Object, Object> target = create(from);
+            Object copy = wrap(target);
+            run.register(source, copy);
+            Object[] entries = new Object[from.size() * 2];
+            run.stack.push((Deferred) () -> {
+                for (int i = 0; i < entries.length; i += 2)
+                    target.put(entries[i], entries[i + 1]);
+            });
+            int i = 0;
+            for (Map.Entry<?, ?> e : from.entrySet()) {
+                entries[i++] = run.copy(e.getKey());
+                entries[i++] = run.copy(e.getValue());
+            }
+            return copy;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Map<Object, Object> create(Map<?, ?> from) {
+            // key 都是枚举，复制一份之后 value 会被替换成拷贝
+            if (enumMap)
+                return new EnumMap((EnumMap) from);
+            Comparator<?> comparator = comparatorOf(from);
+            try {
+                if (comparator != null && withComparator != null)
+                    return (Map<Object, Object>) (Object) withComparator.invokeExact(comparator);
+                if (noArg != null)
+                    return (Map<Object, Object>) (Object) noArg.invokeExact();
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+            if (from instanceof SortedMap)
+                return new TreeMap<>((Comparator<Object>) comparator);
+            return new LinkedHashMap<>();
+        }
+
+        private Object wrap(Map<Object, Object> target) {
+            switch (wrapper) {
+                case UNMODIFIABLE:
+                    return target instanceof SortedMap
+                            ? Collections.unmodifiableSortedMap((SortedMap<Object, Object>) target)
+                            : Collections.unmodifiableMap(target);
+                case SYNCHRONIZED:
+                    return target instanceof SortedMap
+                            ? Collections.synchronizedSortedMap((SortedMap<Object, Object>) target)
+                            : Collections.synchronizedMap(target);
+                default:
+                    return target;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.chapter3.item13;
+
+import org.example.chapter3.Code13_Clone.SearchWord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ 内存中的数据源，用于测试和演示，行为和一张带 (last_update_time, keyword) 索引的表一样：
+    同一个 keyword 只保留最新的一行，修改之后它会移动到排序的末尾
+ */
+public class InMemorySearchWordSource implements SearchWordSource {
+
+    private final NavigableSet<SearchWord> ordered = new TreeSet<>(Watermark.ORDER);
+    private final Map<String, SearchWord> byKeyword = new HashMap<>();
+
+    public synchronized void put(long lastUpdateTime, String keyword) {
+        SearchWord old = byKeyword.remove(keyword);
+        if (old != null)
+            ordered.remove(old);
+        SearchWord word = new SearchWord(lastUpdateTime, keyword);
+        byKeyword.put(keyword, word);
+        ordered.add(word);
+    }
+
+    public synchronized int size() {
+        return ordered.size();
+    }
+
+    @Override public synchronized List<SearchWord> fetchPage(Watermark after, int limit) {
+        List<SearchWord> page = new ArrayList<>(Math.min(limit, ordered.size()));
+        // 和数据库索引一样，直接定位到 watermark 之后的第一行
+        boolean inclusive = after.keyword() == null;
+        SearchWord from = new SearchWord(after.lastUpdateTime(), inclusive ? "" : after.keyword());
+        for (SearchWord word : ordered.tailSet(from, inclusive)) {
+            if (page.size() == limit)
+                break;
+            page.add(word);
+        }
+        return page;
+    }
+}
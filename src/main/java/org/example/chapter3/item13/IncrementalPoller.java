@@ -0,0 +1,78 @@
+package org.example.chapter3.item13;
+
+import org.example.chapter3.Code13_Clone.SearchWord;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ 按 watermark 增量拉取 SearchWord，一次处理一页
+    1.每一页交给 applyPage 处理完成之后，才拉取下一页：
+        处理得慢，拉取也会跟着变慢（back-pressure），内存中最多只有一页数据
+    2.poll 只在局部记录拉取到的位置，调用方把 poll 返回的 state 发布成功之后调用 commit，watermark 才推进；
+        第 k 页的 fetchPage 或 applyPage 抛出异常、或者发布失败时，前 k-1 页也没有发布，下次 poll 会从原来的 watermark 重新拉取
+    3.maxPagesPerPoll 限制一次 poll 最多处理几页，长时间停机之后，追数据可以分成多次 refresh 完成
+
+ 不是线程安全的，由调用方保证同一时间只有一个线程调用 poll（Demo.refresh 持有 refreshLock）
+ */
+public class IncrementalPoller {
+
+    private final SearchWordSource source;
+    private final int pageSize;
+    private final int maxPagesPerPoll;
+    private Watermark watermark;
+    // 最近一次成功的 poll 拉取到的位置，commit 之后才成为 watermark
+    private Watermark pending;
+
+    public IncrementalPoller(SearchWordSource source, int pageSize) {
+        this(source, pageSize, Integer.MAX_VALUE, Watermark.INITIAL);
+    }
+
+    public IncrementalPoller(SearchWordSource source, int pageSize, int maxPagesPerPoll, Watermark from) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize: " + pageSize);
+        if (maxPagesPerPoll <= 0)
+            throw new IllegalArgumentException("maxPagesPerPoll: " + maxPagesPerPoll);
+        this.source = source;
+        this.pageSize = pageSize;
+        this.maxPagesPerPoll = maxPagesPerPoll;
+        this.watermark = from;
+        this.pending = from;
+    }
+
+    /**
+     * Fetches pages after the committed watermark and folds each one into {@code state}.
+     * The watermark does not move until {@link #commit()} is called, so if this throws, or the
+     * returned state is never published, the next poll fetches the same pages again.
+     *
+     * @return the state after the last applied page, {@code initial} if nothing changed
+     */
+    public <S> S poll(S initial, BiFunction<S, List<SearchWord>, S> applyPage) {
+        pending = watermark;
+        Watermark position = watermark;
+        S state = initial;
+        for (int pages = 0; pages < maxPagesPerPoll; pages++) {
+            List<SearchWord> page = source.fetchPage(position, pageSize);
+            if (page.isEmpty())
+                break;
+            state = applyPage.apply(state, page);
+            position = Watermark.after(page.get(page.size() - 1));
+            if (page.size() < pageSize)
+                break;
+        }
+        pending = position;
+        return state;
+    }
+
+    /**
+     * Moves the watermark past the pages of the last successful {@link #poll}. Call it only after the
+     * state returned by that poll has been published.
+     */
+    public void commit() {
+        watermark = pending;
+    }
+
+    public Watermark watermark() {
+        return watermark;
+    }
+}
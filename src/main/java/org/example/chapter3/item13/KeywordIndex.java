@@ -0,0 +1,58 @@
+package org.example.chapter3.item13;
+
+import org.example.chapter3.Code13_Clone.SearchWord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Code13_Clone.Demo 发布的快照：精确查找用 PersistentHashMap，前缀查找（自动补全）用 PrefixIndex
+ 两个结构都是不可变的，一起修改、一起发布，所以读线程看到的两个索引总是同一个版本
+ 自动补全按 SearchWord.lastUpdateTime 排序，最近更新的关键词排在前面
+ */
+public final class KeywordIndex {
+
+    private final PersistentHashMap<String, SearchWord> words;
+    private final PrefixIndex prefixes;
+
+    private KeywordIndex(PersistentHashMap<String, SearchWord> words, PrefixIndex prefixes) {
+        this.words = words;
+        this.prefixes = prefixes;
+    }
+
+    public static KeywordIndex empty(int topN) {
+        return new KeywordIndex(PersistentHashMap.empty(), PrefixIndex.empty(topN));
+    }
+
+    public KeywordIndex plusAll(List<SearchWord> page) {
+        PersistentHashMap<String, SearchWord> newWords = words;
+        PrefixIndex newPrefixes = prefixes;
+        for (SearchWord word : page) {
+            newWords = newWords.plus(word.getKeyword(), word);
+            newPrefixes = newPrefixes.plus(word.getKeyword(), word.getLastUpdateTime());
+        }
+        if (newWords == words && newPrefixes == prefixes)
+            return this;
+        return new KeywordIndex(newWords, newPrefixes);
+    }
+
+    public SearchWord get(String keyword) {
+        return words.get(keyword);
+    }
+
+    public List<SearchWord> autocomplete(String prefix, int n) {
+        List<String> keywords = prefixes.top(prefix, n);
+        List<SearchWord> result = new ArrayList<>(keywords.size());
+        for (String keyword : keywords)
+            result.add(words.get(keyword));
+        return result;
+    }
+
+    public int size() {
+        return words.size();
+    }
+
+    public PersistentHashMap<String, SearchWord> words() {
+        return words;
+    }
+}
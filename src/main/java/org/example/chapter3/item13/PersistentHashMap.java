@@ -0,0 +1,496 @@
+package org.example.chapter3.item13;
+
+import org.example.chapter4.item20.AbstractMapCursor;
+import org.example.chapter4.item20.MapCursor;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ 不可变的哈希字典树（HAMT，节点布局参考 CHAMP），用来代替 "先 clone 整个 HashMap，再修改" 的写法
+    1.plus/minus 不修改当前对象，而是返回一个新的 map，只拷贝从根到被修改的 key 这一条路径上的节点（最多 7 层），
+        其余节点新旧两个版本共享，所以一次修改的成本是 O(log32 n)，而不是 HashMap.clone 的 O(n)
+    2.对象本身不可变，读线程拿到一个版本之后可以一直持有，不会看到后续的修改
+    3.不支持 null 的 key 和 value，和 ConcurrentHashMap 一样，这样 get 返回 null 就一定表示不存在
+    4.entrySet 的迭代器每个元素创建一个 Entry；大量遍历时用 forEach 或 cursor()，不创建对象，见 chapter4.item20.MapCursor
+
+ 每个节点用两个 bitmap 描述 32 个槽位：dataMap 表示槽位上直接存放 key/value，nodeMap 表示槽位上是子节点；
+ content 数组前半部分按顺序存放 key/value，子节点倒序放在数组末尾。
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentHashMap<?, ?> EMPTY =
+            new PersistentHashMap<>(new BitmapNode(0, 0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        PersistentHashMap<K, V> result = empty();
+        return result.plusAll(map);
+    }
+
+    /**
+     * Returns a map that contains the mapping, sharing every untouched node with this map.
+     * Returns {@code this} if the key is already mapped to the same value instance.
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Change change = new Change();
+        Node newRoot = root.updated(key, value, hash(key), 0, change);
+        if (newRoot == root)
+            return this;
+        return new PersistentHashMap<>(newRoot, change.added ? size + 1 : size);
+    }
+
+    public PersistentHashMap<K, V> plusAll(Map<? extends K, ? extends V> map) {
+        PersistentHashMap<K, V> result = this;
+        for (Map.Entry<? extends K, ? extends V> e : map.entrySet())
+            result = result.plus(e.getKey(), e.getValue());
+        return result;
+    }
+
+    public PersistentHashMap<K, V> minus(Object key) {
+        if (key == null)
+            return this;
+        Change change = new Change();
+        Node newRoot = root.removed(key, hash(key), 0, change);
+        if (newRoot == root)
+            return this;
+        return new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public V get(Object key) {
+        if (key == null)
+            return null;
+        return (V) root.find(key, hash(key), 0);
+    }
+
+    @Override public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override public int size() {
+                return size;
+            }
+        };
+    }
+
+    public MapCursor<K, V> cursor() {
+        return new Cursor<>(root);
+    }
+
+    // 和 HashMap 一样把高 16 位混到低位，否则前几层只用到了 hashCode 的低位
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int mask(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << mask(hash, shift);
+    }
+
+    // Records what an update did, so the map can keep its size without walking the trie
+    private static final class Change {
+        boolean added;
+    }
+
+    private abstract static class Node {
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node updated(Object key, Object value, int hash, int shift, Change change);
+
+        abstract Node removed(Object key, int hash, int shift, Change change);
+
+        abstract int payloadArity();
+
+        abstract int nodeArity();
+
+        abstract Object key(int index);
+
+        abstract Object value(int index);
+
+        abstract Node node(int index);
+
+        final void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < payloadArity(); i++)
+                action.accept(key(i), value(i));
+            for (int i = 0; i < nodeArity(); i++)
+                node(i).forEach(action);
+        }
+
+        final boolean isSingleEntry() {
+            return payloadArity() == 1 && nodeArity() == 0;
+        }
+    }
+
+    private static final class BitmapNode extends Node {
+        final int dataMap;
+        final int nodeMap;
+        final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeSlot(int bit) {
+            return content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        @Override Object find(Object key, int hash, int shift) {
+            int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int idx = dataIndex(bit);
+                return key.equals(content[2 * idx]) ? content[2 * idx + 1] : null;
+            }
+            if ((nodeMap & bit) != 0)
+                return ((Node) content[nodeSlot(bit)]).find(key, hash, shift + BITS);
+            return null;
+        }
+
+        @Override Node updated(Object key, Object value, int hash, int shift, Change change) {
+            int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int idx = dataIndex(bit);
+                Object currentKey = content[2 * idx];
+                if (key.equals(currentKey)) {
+                    if (content[2 * idx + 1] == value)
+                        return this;
+                    Object[] copy = content.clone();
+                    copy[2 * idx + 1] = value;
+                    return new BitmapNode(dataMap, nodeMap, copy);
+                }
+                // 两个 key 落到同一个槽位，下沉成一个子节点
+                Object currentValue = content[2 * idx + 1];
+                Node sub = mergeTwo(currentKey, currentValue, hash(currentKey),
+                        key, value, hash, shift + BITS);
+                change.added = true;
+                return migrateDataToNode(bit, idx, sub);
+            }
+            if ((nodeMap & bit) != 0) {
+                int slot = nodeSlot(bit);
+                Node sub = (Node) content[slot];
+                Node newSub = sub.updated(key, value, hash, shift + BITS, change);
+                if (newSub == sub)
+                    return this;
+                Object[] copy = content.clone();
+                copy[slot] = newSub;
+                return new BitmapNode(dataMap, nodeMap, copy);
+            }
+            change.added = true;
+            int idx = dataIndex(bit);
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, 2 * idx);
+            copy[2 * idx] = key;
+            copy[2 * idx + 1] = value;
+            System.arraycopy(content, 2 * idx, copy, 2 * idx + 2, content.length - 2 * idx);
+            return new BitmapNode(dataMap | bit, nodeMap, copy);
+        }
+
+        @Override Node removed(Object key, int hash, int shift, Change change) {
+            int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int idx = dataIndex(bit);
+                if (!key.equals(content[2 * idx]))
+                    return this;
+                if (payloadArity() == 2 && nodeArity() == 0) {
+                    // 只剩一个 entry，父节点会把它内联回去；在根节点上则需要按第 0 层重新计算位置
+                    int other = 1 - idx;
+                    int newDataMap = shift == 0 ? dataMap ^ bit : bitpos(hash, 0);
+                    return new BitmapNode(newDataMap, 0,
+                            new Object[]{content[2 * other], content[2 * other + 1]});
+                }
+                Object[] copy = new Object[content.length - 2];
+                System.arraycopy(content, 0, copy, 0, 2 * idx);
+                System.arraycopy(content, 2 * idx + 2, copy, 2 * idx, content.length - 2 * idx - 2);
+                return new BitmapNode(dataMap ^ bit, nodeMap, copy);
+            }
+            if ((nodeMap & bit) != 0) {
+                int slot = nodeSlot(bit);
+                Node sub = (Node) content[slot];
+                Node newSub = sub.removed(key, hash, shift + BITS, change);
+                if (newSub == sub)
+                    return this;
+                if (newSub.isSingleEntry()) {
+                    if (payloadArity() == 0 && nodeArity() == 1) {
+                        // 继续向上传递，直到遇到有其他内容的祖先节点
+                        return new BitmapNode(bitpos(hash, 0), 0,
+                                new Object[]{newSub.key(0), newSub.value(0)});
+                    }
+                    return migrateNodeToData(bit, slot, newSub.key(0), newSub.value(0));
+                }
+                Object[] copy = content.clone();
+                copy[slot] = newSub;
+                return new BitmapNode(dataMap, nodeMap, copy);
+            }
+            return this;
+        }
+
+        private Node migrateDataToNode(int bit, int idx, Node sub) {
+            // 删除 2 个 key/value 槽位，并在末尾的子节点区域插入一个节点
+            Object[] copy = new Object[content.length - 1];
+            int oldSlot = 2 * idx;
+            int newSlot = content.length - 2 - Integer.bitCount(nodeMap & (bit - 1));
+            System.arraycopy(content, 0, copy, 0, oldSlot);
+            System.arraycopy(content, oldSlot + 2, copy, oldSlot, newSlot - oldSlot);
+            copy[newSlot] = sub;
+            System.arraycopy(content, newSlot + 2, copy, newSlot + 1, content.length - newSlot - 2);
+            return new BitmapNode(dataMap ^ bit, nodeMap | bit, copy);
+        }
+
+        private Node migrateNodeToData(int bit, int slot, Object key, Object value) {
+            Object[] copy = new Object[content.length + 1];
+            int newIdx = 2 * dataIndex(bit);
+            System.arraycopy(content, 0, copy, 0, newIdx);
+            copy[newIdx] = key;
+            copy[newIdx + 1] = value;
+            System.arraycopy(content, newIdx, copy, newIdx + 2, slot - newIdx);
+            System.arraycopy(content, slot + 1, copy, slot + 2, content.length - slot - 1);
+            return new BitmapNode(dataMap | bit, nodeMap ^ bit, copy);
+        }
+
+        @Override int payloadArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override Object key(int index) {
+            return content[2 * index];
+        }
+
+        @Override Object value(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override Node node(int index) {
+            return (Node) content[content.length - 1 - index];
+        }
+    }
+
+    // 32 位 hash 全部相同的 key，放在同一个节点里线性查找
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Object[] entries;
+
+        CollisionNode(int hash, Object[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (key.equals(entries[i]))
+                    return i;
+            }
+            return -1;
+        }
+
+        @Override Object find(Object key, int hash, int shift) {
+            int i = indexOf(key);
+            return i < 0 ? null : entries[i + 1];
+        }
+
+        @Override Node updated(Object key, Object value, int hash, int shift, Change change) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (entries[i + 1] == value)
+                    return this;
+                Object[] copy = entries.clone();
+                copy[i + 1] = value;
+                return new CollisionNode(this.hash, copy);
+            }
+            change.added = true;
+            Object[] copy = Arrays.copyOf(entries, entries.length + 2);
+            copy[entries.length] = key;
+            copy[entries.length + 1] = value;
+            return new CollisionNode(this.hash, copy);
+        }
+
+        @Override Node removed(Object key, int hash, int shift, Change change) {
+            int i = indexOf(key);
+            if (i < 0)
+                return this;
+            Object[] copy = new Object[entries.length - 2];
+            System.arraycopy(entries, 0, copy, 0, i);
+            System.arraycopy(entries, i + 2, copy, i, entries.length - i - 2);
+            return new CollisionNode(this.hash, copy);
+        }
+
+        @Override int payloadArity() {
+            return entries.length / 2;
+        }
+
+        @Override int nodeArity() {
+            return 0;
+        }
+
+        @Override Object key(int index) {
+            return entries[2 * index];
+        }
+
+        @Override Object value(int index) {
+            return entries[2 * index + 1];
+        }
+
+        @Override Node node(int index) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+
+    private static Node mergeTwo(Object k0, Object v0, int h0, Object k1, Object v1, int h1, int shift) {
+        if (shift >= 32)
+            return new CollisionNode(h0, new Object[]{k0, v0, k1, v1});
+        int m0 = mask(h0, shift);
+        int m1 = mask(h1, shift);
+        if (m0 != m1) {
+            int dataMap = (1 << m0) | (1 << m1);
+            return m0 < m1
+                    ? new BitmapNode(dataMap, 0, new Object[]{k0, v0, k1, v1})
+                    : new BitmapNode(dataMap, 0, new Object[]{k1, v1, k0, v0});
+        }
+        Node sub = mergeTwo(k0, v0, h0, k1, v1, h1, shift + BITS);
+        return new BitmapNode(0, 1 << m0, new Object[]{sub});
+    }
+
+    // 深度最多 8 层，用一个固定大小的栈做深度优先遍历
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Node[] nodes = new Node[8];
+        private final int[] payloadCursor = new int[8];
+        private final int[] nodeCursor = new int[8];
+        private int depth;
+
+        EntryIterator(Node root) {
+            nodes[0] = root;
+        }
+
+        @Override public boolean hasNext() {
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (payloadCursor[depth] < node.payloadArity())
+                    return true;
+                if (nodeCursor[depth] < node.nodeArity()) {
+                    Node child = node.node(nodeCursor[depth]++);
+                    depth++;
+                    nodes[depth] = child;
+                    payloadCursor[depth] = 0;
+                    nodeCursor[depth] = 0;
+                } else {
+                    nodes[depth--] = null;
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public Entry<K, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Node node = nodes[depth];
+            int i = payloadCursor[depth]++;
+            return new SimpleImmutableEntry<>((K) node.key(i), (V) node.value(i));
+        }
+    }
+
+    // 和 EntryIterator 相同的遍历，只是不创建 Entry；map 不可变，setValue 抛出 UnsupportedOperationException
+    private static final class Cursor<K, V> extends AbstractMapCursor<K, V> {
+        private final Node[] nodes = new Node[8];
+        private final int[] payloadCursor = new int[8];
+        private final int[] nodeCursor = new int[8];
+        private int depth;
+        private Node current;
+        private int index;
+
+        Cursor(Node root) {
+            nodes[0] = root;
+        }
+
+        @Override public boolean advance() {
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (payloadCursor[depth] < node.payloadArity()) {
+                    current = node;
+                    index = payloadCursor[depth]++;
+                    return true;
+                }
+                if (nodeCursor[depth] < node.nodeArity()) {
+                    Node child = node.node(nodeCursor[depth]++);
+                    depth++;
+                    nodes[depth] = child;
+                    payloadCursor[depth] = 0;
+                    nodeCursor[depth] = 0;
+                } else {
+                    nodes[depth--] = null;
+                }
+            }
+            current = null;
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public K key() {
+            return (K) current().key(index);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public V value() {
+            return (V) current().value(index);
+        }
+
+        private Node current() {
+            if (current == null)
+                throw new IllegalStateException("no current entry");
+            return current;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package org.example.chapter3.item13;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ 不可变的基数树（radix tree），用于自动补全：返回某个前缀下分数最高的 N 个关键词
+    1.和 PersistentHashMap 一样，plus/minus 只拷贝从根到被修改的关键词的路径，其余节点共享，旧版本可以继续被读取
+    2.每个节点保存了它的子树中分数最高的 topN 个关键词，修改时沿着路径重新计算；
+        所以查询只需要沿着前缀走到对应的节点，直接返回它保存的结果，耗时和关键词的总数无关
+    3.排序规则：分数从高到低，分数相同按关键词的字典序；分数可以是 lastUpdateTime，也可以是其他热度值
+ */
+public final class PrefixIndex {
+
+    private final Node root;
+    private final int size;
+    private final int topN;
+
+    private PrefixIndex(Node root, int size, int topN) {
+        this.root = root;
+        this.size = size;
+        this.topN = topN;
+    }
+
+    /**
+     * @param topN how many keywords every node keeps, the maximum {@code n} accepted by {@link #top}
+     */
+    public static PrefixIndex empty(int topN) {
+        if (topN <= 0)
+            throw new IllegalArgumentException("topN: " + topN);
+        return new PrefixIndex(Node.EMPTY_ROOT, 0, topN);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int topN() {
+        return topN;
+    }
+
+    /**
+     * Adds {@code keyword} or replaces its score.
+     */
+    public PrefixIndex plus(String keyword, long score) {
+        Objects.requireNonNull(keyword);
+        boolean[] added = new boolean[1];
+        Node newRoot = insert(root, keyword, 0, score, added);
+        if (newRoot == root)
+            return this;
+        return new PrefixIndex(newRoot, added[0] ? size + 1 : size, topN);
+    }
+
+    public PrefixIndex minus(String keyword) {
+        Node newRoot = remove(root, keyword, 0, true);
+        if (newRoot == root)
+            return this;
+        return new PrefixIndex(newRoot == null ? Node.EMPTY_ROOT : newRoot, size - 1, topN);
+    }
+
+    public boolean contains(String keyword) {
+        Node node = root;
+        int pos = 0;
+        while (pos < keyword.length()) {
+            Node child = node.child(keyword.charAt(pos));
+            if (child == null || !keyword.startsWith(child.label, pos))
+                return false;
+            pos += child.label.length();
+            node = child;
+        }
+        return node.terminal;
+    }
+
+    /**
+     * Returns the {@code n} best keywords starting with {@code prefix}, best first.
+     */
+    public List<String> top(String prefix, int n) {
+        if (n > topN)
+            throw new IllegalArgumentException("n: " + n + " > topN: " + topN);
+        Node node = find(prefix);
+        if (node == null)
+            return Collections.emptyList();
+        int count = Math.min(n, node.topKeys.length);
+        return Collections.unmodifiableList(Arrays.asList(node.topKeys).subList(0, count));
+    }
+
+    // 找到覆盖 prefix 的最浅节点，prefix 可以在某条边的中间结束
+    private Node find(String prefix) {
+        Node node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            Node child = node.child(prefix.charAt(pos));
+            if (child == null)
+                return null;
+            int common = commonPrefix(child.label, prefix, pos);
+            if (pos + common == prefix.length())
+                return child;
+            if (common < child.label.length())
+                return null;
+            pos += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private Node insert(Node node, String key, int pos, long score, boolean[] added) {
+        if (pos == key.length()) {
+            if (node.terminal && node.score == score)
+                return node;
+            added[0] = !node.terminal;
+            return node.with(node.label, node.children, true, key, score, topN);
+        }
+        int i = node.childIndex(key.charAt(pos));
+        if (i < 0) {
+            added[0] = true;
+            Node leaf = Node.leaf(key.substring(pos), key, score);
+            return node.withChildInserted(-i - 1, leaf, topN);
+        }
+        Node child = node.children[i];
+        int common = commonPrefix(child.label, key, pos);
+        Node newChild;
+        if (common == child.label.length()) {
+            newChild = insert(child, key, pos + common, score, added);
+            if (newChild == child)
+                return node;
+        } else {
+            // 拆分这条边：公共部分成为新的中间节点
+            added[0] = true;
+            Node rest = child.with(child.label.substring(common), child.children,
+                    child.terminal, child.keyword, child.score, topN);
+            Node[] children;
+            boolean terminal = pos + common == key.length();
+            if (terminal) {
+                children = new Node[]{rest};
+            } else {
+                Node leaf = Node.leaf(key.substring(pos + common), key, score);
+                children = leaf.label.charAt(0) < rest.label.charAt(0)
+                        ? new Node[]{leaf, rest} : new Node[]{rest, leaf};
+            }
+            newChild = Node.create(child.label.substring(0, common), children,
+                    terminal, terminal ? key : null, terminal ? score : 0, topN);
+        }
+        return node.withChildReplaced(i, newChild, topN);
+    }
+
+    // 返回 null 表示这个节点已经没有内容，需要从父节点中删除
+    private Node remove(Node node, String key, int pos, boolean isRoot) {
+        if (pos == key.length()) {
+            if (!node.terminal)
+                return node;
+            if (node.children.length == 0)
+                return null;
+            return compact(node.with(node.label, node.children, false, null, 0, topN), isRoot);
+        }
+        int i = node.childIndex(key.charAt(pos));
+        if (i < 0)
+            return node;
+        Node child = node.children[i];
+        if (!key.startsWith(child.label, pos))
+            return node;
+        Node newChild = remove(child, key, pos + child.label.length(), false);
+        if (newChild == child)
+            return node;
+        Node result = newChild == null
+                ? node.withChildRemoved(i, topN)
+                : node.withChildReplaced(i, newChild, topN);
+        if (isRoot)
+            return result;
+        if (!result.terminal && result.children.length == 0)
+            return null;
+        return compact(result, false);
+    }
+
+    // 非终止节点只有一个子节点时，和子节点合并成一条边，保持树的紧凑
+    private Node compact(Node node, boolean isRoot) {
+        if (isRoot || node.terminal || node.children.length != 1)
+            return node;
+        Node only = node.children[0];
+        return only.with(node.label + only.label, only.children, only.terminal, only.keyword, only.score, topN);
+    }
+
+    private static int commonPrefix(String label, String key, int pos) {
+        int max = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(pos + i))
+            i++;
+        return i;
+    }
+
+    // 分数高的在前，分数相同时关键词小的在前
+    private static boolean better(long score, String key, long otherScore, String otherKey) {
+        return score != otherScore ? score > otherScore : key.compareTo(otherKey) < 0;
+    }
+
+    private static final class Node {
+        static final Node EMPTY_ROOT = new Node("", new Node[0], false, null, 0, new String[0], new long[0]);
+
+        final String label;
+        final Node[] children;  // sorted by the first char of the label
+        final boolean terminal;
+        final String keyword;
+        final long score;
+        final String[] topKeys;
+        final long[] topScores;
+
+        private Node(String label, Node[] children, boolean terminal, String keyword, long score,
+                     String[] topKeys, long[] topScores) {
+            this.label = label;
+            this.children = children;
+            this.terminal = terminal;
+            this.keyword = keyword;
+            this.score = score;
+            this.topKeys = topKeys;
+            this.topScores = topScores;
+        }
+
+        static Node leaf(String label, String keyword, long score) {
+            return new Node(label, new Node[0], true, keyword, score,
+                    new String[]{keyword}, new long[]{score});
+        }
+
+        static Node create(String label, Node[] children, boolean terminal, String keyword, long score, int topN) {
+            Node node = new Node(label, children, terminal, keyword, score, null, null);
+            return node.withTop(topN);
+        }
+
+        Node with(String label, Node[] children, boolean terminal, String keyword, long score, int topN) {
+            if (children == this.children && terminal == this.terminal && score == this.score)
+                return new Node(label, children, terminal, keyword, score, topKeys, topScores);
+            return create(label, children, terminal, keyword, score, topN);
+        }
+
+        Node withChildInserted(int index, Node child, int topN) {
+            Node[] copy = new Node[children.length + 1];
+            System.arraycopy(children, 0, copy, 0, index);
+            copy[index] = child;
+            System.arraycopy(children, index, copy, index + 1, children.length - index);
+            return create(label, copy, terminal, keyword, score, topN);
+        }
+
+        Node withChildReplaced(int index, Node child, int topN) {
+            Node[] copy = children.clone();
+            copy[index] = child;
+            return create(label, copy, terminal, keyword, score, topN);
+        }
+
+        Node withChildRemoved(int index, int topN) {
+            Node[] copy = new Node[children.length - 1];
+            System.arraycopy(children, 0, copy, 0, index);
+            System.arraycopy(children, index + 1, copy, index, children.length - index - 1);
+            return create(label, copy, terminal, keyword, score, topN);
+        }
+
+        int childIndex(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c)
+                    low = mid + 1;
+                else if (midChar > c)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+
+        Node child(char c) {
+            int i = childIndex(c);
+            return i < 0 ? null : children[i];
+        }
+
+        // 合并自身和所有子节点的 top 列表（它们都已经有序），只取前 topN 个
+        private Node withTop(int topN) {
+            int available = terminal ? 1 : 0;
+            for (Node child : children)
+                available += child.topKeys.length;
+            int count = Math.min(topN, available);
+            String[] keys = new String[count];
+            long[] scores = new long[count];
+            int[] cursors = new int[children.length];
+            boolean selfTaken = !terminal;
+            for (int k = 0; k < count; k++) {
+                int best = -1;
+                String bestKey = null;
+                long bestScore = 0;
+                if (!selfTaken) {
+                    bestKey = keyword;
+                    bestScore = score;
+                }
+                for (int c = 0; c < children.length; c++) {
+                    Node child = children[c];
+                    int cursor = cursors[c];
+                    if (cursor == child.topKeys.length)
+                        continue;
+                    String key = child.topKeys[cursor];
+                    long s = child.topScores[cursor];
+                    if (bestKey == null || better(s, key, bestScore, bestKey)) {
+                        best = c;
+                        bestKey = key;
+                        bestScore = s;
+                    }
+                }
+                if (best < 0)
+                    selfTaken = true;
+                else
+                    cursors[best]++;
+                keys[k] = bestKey;
+                scores[k] = bestScore;
+            }
+            return new Node(label, children, terminal, keyword, score, keys, scores);
+        }
+    }
+
+    /**
+     * Convenience for tests and debugging: every keyword in the index, in no particular order.
+     */
+    List<String> keywords() {
+        List<String> result = new ArrayList<>(size);
+        collect(root, result);
+        return result;
+    }
+
+    private static void collect(Node node, List<String> result) {
+        if (node.terminal)
+            result.add(node.keyword);
+        for (Node child : node.children)
+            collect(child, result);
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.chapter3.item13;
+
+import org.example.chapter3.Code13_Clone.SearchWord;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ SearchWord 的数据源，代替 Code13_Clone.Demo.getSearchWords 一次性返回全部数据的写法
+    数据按 (lastUpdateTime, keyword) 排序，每次只取一页，所以长时间停机之后的刷新也只需要一页的内存
+ 实现可以是数据库（见 Watermark 中的 SQL），测试中使用 InMemorySearchWordSource
+ */
+public interface SearchWordSource {
+
+    /**
+     * Returns at most {@code limit} words strictly after {@code after}, ordered by
+     * (lastUpdateTime, keyword). An empty list means the caller has caught up.
+     */
+    List<SearchWord> fetchPage(Watermark after, int limit);
+
+    /**
+     * Lazily streams every word after {@code from}. The next page is fetched only when the
+     * consumer has used up the current one, so a slow consumer never has more than one page in memory.
+     */
+    default Stream<SearchWord> stream(Watermark from, int pageSize) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize: " + pageSize);
+        Iterator<SearchWord> iterator = new Iterator<SearchWord>() {
+            private Watermark position = from;
+            private List<SearchWord> page = List.of();
+            private int index;
+            private boolean exhausted;
+
+            @Override public boolean hasNext() {
+                if (index < page.size())
+                    return true;
+                // 上一页不满，说明已经没有数据了，不需要再查一次
+                if (exhausted || (page.size() > 0 && page.size() < pageSize))
+                    return false;
+                page = fetchPage(position, pageSize);
+                index = 0;
+                exhausted = page.isEmpty();
+                return !exhausted;
+            }
+
+            @Override public SearchWord next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                SearchWord word = page.get(index++);
+                position = Watermark.after(word);
+                return word;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.chapter3.item13;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ 保存一个不可变对象的当前版本，用于 "一个线程刷新，很多线程读取" 的缓存
+    1.读：snapshot() 只是一次 volatile 读，不加锁，也不会被写线程阻塞；
+        读到的 Snapshot 是不可变的，可以一直持有，和之后发布的版本互不影响
+    2.写：新版本通过 CAS 整体替换旧版本，读线程要么看到旧版本，要么看到完整的新版本，不会看到一半
+    3.每个 Snapshot 带有递增的版本号和发布时间，用来观察读线程的滞后（staleness）；
+        不统计读取次数：每次读都去改同一个计数器，会让所有读线程争用同一块缓存行，读的吞吐用 SnapshotHolderBenchmark 测
+
+ value 必须是不可变的（比如 PersistentHashMap），否则发布之后再修改，读线程还是会看到中间状态
+ */
+public final class SnapshotHolder<T> {
+
+    public static final class Snapshot<T> {
+        private final long version;
+        private final T value;
+        private final long publishedNanos;
+
+        private Snapshot(long version, T value, long publishedNanos) {
+            this.version = version;
+            this.value = value;
+            this.publishedNanos = publishedNanos;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public T value() {
+            return value;
+        }
+
+        public long publishedNanos() {
+            return publishedNanos;
+        }
+
+        // How long this version has been (or was) the latest one, when compared with System.nanoTime()
+        public long ageNanos() {
+            return System.nanoTime() - publishedNanos;
+        }
+
+        @Override public String toString() {
+            return "Snapshot{version=" + version + "}";
+        }
+    }
+
+    private final AtomicReference<Snapshot<T>> current;
+    private final LongAdder failedPublishes = new LongAdder();
+
+    public SnapshotHolder(T initial) {
+        current = new AtomicReference<>(new Snapshot<>(0, initial, System.nanoTime()));
+    }
+
+    /**
+     * Returns the latest published snapshot. Never blocks.
+     */
+    public Snapshot<T> snapshot() {
+        return current.get();
+    }
+
+    public T get() {
+        return current.get().value;
+    }
+
+    public long version() {
+        return current.get().version;
+    }
+
+    /**
+     * Number of versions published after the given snapshot, 0 if it is still the latest.
+     */
+    public long lag(Snapshot<T> snapshot) {
+        return current.get().version - snapshot.version;
+    }
+
+    /**
+     * Publishes {@code value} only if {@code expected} is still the latest snapshot.
+     *
+     * @return the new snapshot, or {@code null} if another writer published first
+     */
+    public Snapshot<T> compareAndPublish(Snapshot<T> expected, T value) {
+        Snapshot<T> next = new Snapshot<>(expected.version + 1, value, System.nanoTime());
+        if (current.compareAndSet(expected, next))
+            return next;
+        failedPublishes.increment();
+        return null;
+    }
+
+    /**
+     * Applies {@code update} to the latest value and publishes the result, retrying if another
+     * writer wins the race. The function may run more than once, so it must not have side effects.
+     */
+    public Snapshot<T> update(UnaryOperator<T> update) {
+        while (true) {
+            Snapshot<T> expected = current.get();
+            T value = update.apply(expected.value);
+            if (value == expected.value)
+                return expected;
+            Snapshot<T> next = compareAndPublish(expected, value);
+            if (next != null)
+                return next;
+        }
+    }
+
+    public long failedPublishes() {
+        return failedPublishes.sum();
+    }
+
+    @Override public String toString() {
+        return "SnapshotHolder{current=" + current.get() + ", failedPublishes=" + failedPublishes.sum() + "}";
+    }
+}
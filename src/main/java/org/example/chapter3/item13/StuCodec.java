@@ -0,0 +1,35 @@
+package org.example.chapter3.item13;
+
+import org.example.chapter2.item01.BinaryCodec;
+import org.example.chapter2.item01.BinaryReader;
+import org.example.chapter2.item01.BinaryWriter;
+import org.example.chapter3.Code13_Clone.Stu;
+
+/**
+ Code13_Clone.Stu 的二进制格式，可以代替 copyBySerial 中的 ObjectOutputStream
+    version 1: id（zigzag varint） + name（UTF-8，可以为 null）
+ */
+public enum StuCodec implements BinaryCodec<Stu> {
+    INSTANCE;
+
+    @Override public int version() {
+        return 1;
+    }
+
+    @Override public void write(BinaryWriter out, Stu stu) {
+        out.writeZigZagInt(stu.getId());
+        out.writeString(stu.getName());
+    }
+
+    @Override public Stu read(BinaryReader in, int version) {
+        if (version != 1)
+            throw BinaryCodec.unsupportedVersion(version);
+        int id = in.readZigZagInt();
+        return new Stu(id, in.readString());
+    }
+
+    // 编码再解码，得到数组的深拷贝
+    public static Stu[] copy(Stu[] source) {
+        return INSTANCE.decodeArray(INSTANCE.encodeArray(source), Stu[]::new);
+    }
+}
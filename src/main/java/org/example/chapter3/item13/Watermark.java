@@ -0,0 +1,81 @@
+package org.example.chapter3.item13;
+
+import org.example.chapter3.Code13_Clone.SearchWord;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ 增量拉取的位置：已经处理到了 (lastUpdateTime, keyword) 这一行
+    只用 lastUpdateTime 做位置是不够的：同一个时间戳可能有很多行，一页正好在它们中间截断时，
+    用 "> lastUpdateTime" 会丢数据，用 ">= lastUpdateTime" 会重复，所以再加上 keyword 作为第二排序字段
+ 对应的 SQL：WHERE (last_update_time, keyword) > (?, ?) ORDER BY last_update_time, keyword LIMIT ?
+ */
+public final class Watermark implements Comparable<Watermark> {
+
+    // keyword 为 null 表示在这个时间戳的所有行之前
+    public static final Watermark INITIAL = new Watermark(Long.MIN_VALUE, null);
+
+    static final Comparator<SearchWord> ORDER = Comparator
+            .comparingLong(SearchWord::getLastUpdateTime)
+            .thenComparing(SearchWord::getKeyword);
+
+    private final long lastUpdateTime;
+    private final String keyword;
+
+    private Watermark(long lastUpdateTime, String keyword) {
+        this.lastUpdateTime = lastUpdateTime;
+        this.keyword = keyword;
+    }
+
+    public static Watermark of(long lastUpdateTime, String keyword) {
+        return new Watermark(lastUpdateTime, Objects.requireNonNull(keyword));
+    }
+
+    public static Watermark after(SearchWord word) {
+        return of(word.getLastUpdateTime(), word.getKeyword());
+    }
+
+    public long lastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    public String keyword() {
+        return keyword;
+    }
+
+    // 这一行是否在 watermark 之后，也就是还没有被处理过
+    public boolean isBefore(SearchWord word) {
+        return compareTo(word.getLastUpdateTime(), word.getKeyword()) < 0;
+    }
+
+    private int compareTo(long time, String key) {
+        int result = Long.compare(lastUpdateTime, time);
+        if (result != 0)
+            return result;
+        if (keyword == null)
+            return key == null ? 0 : -1;
+        return key == null ? 1 : keyword.compareTo(key);
+    }
+
+    @Override public int compareTo(Watermark o) {
+        return compareTo(o.lastUpdateTime, o.keyword);
+    }
+
+    @Override public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof Watermark))
+            return false;
+        Watermark w = (Watermark) o;
+        return w.lastUpdateTime == lastUpdateTime && Objects.equals(w.keyword, keyword);
+    }
+
+    @Override public int hashCode() {
+        return 31 * Long.hashCode(lastUpdateTime) + Objects.hashCode(keyword);
+    }
+
+    @Override public String toString() {
+        return "Watermark{" + lastUpdateTime + ", " + keyword + "}";
+    }
+}
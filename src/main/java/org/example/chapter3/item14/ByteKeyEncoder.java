@@ -0,0 +1,261 @@
+package org.example.chapter3.item14;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ 把比较链编码成字节数组：两个对象的编码按无符号字节逐个比较（memcmp、Arrays.compareUnsigned）的结果，和比较链的结果相同
+    用在不能调用 Comparator 的地方：堆外排序、PersonStore 这样的 mmap 索引、按字节比较的 key-value 存储
+    1.int / long：翻转符号位之后按大端序写入，负数排在正数前面
+    2.float / double：和 Float.compare / Double.compare 的顺序相同（-0.0 < 0.0，NaN 最大，所有 NaN 相等）：
+        先用 floatToIntBits 把 NaN 统一，负数把所有位取反，非负数只翻转符号位，再按大端序写入
+    3.String：和 String.compareTo 的顺序相同（按 UTF-16 的 char 比较）：每个 char 单独按 UTF-8 的规则编码成 1~3 个字节，
+        代理对的两半也分别编码，这样字节顺序就是 char 的顺序；
+        char 0 写成 0x00 0xFF，字符串结尾写 0x00 0x00，所以编码没有前缀关系，"a" 排在 "a\0" 和 "ab" 前面，后面的字段不会影响结果
+    4.descending()：把最后添加的字段的所有字节取反；每个字段的编码都没有前缀关系，所以取反之后正好是相反的顺序
+ comparator() 返回的是同样规则的 Comparator，编码和它的比较结果一致
+ */
+public final class ByteKeyEncoder<T> {
+
+    private final Field<T>[] fields;
+    private final boolean[] descending;
+    private final Comparator<T> comparator;
+
+    private ByteKeyEncoder(Field<T>[] fields, boolean[] descending, Comparator<T> comparator) {
+        this.fields = fields;
+        this.descending = descending;
+        this.comparator = comparator;
+    }
+
+    public static <T> Builder<T> comparingInt(ToIntFunction<? super T> keyExtractor) {
+        return new Builder<T>().thenComparingInt(keyExtractor);
+    }
+
+    public static <T> Builder<T> comparingLong(ToLongFunction<? super T> keyExtractor) {
+        return new Builder<T>().thenComparingLong(keyExtractor);
+    }
+
+    public static <T> Builder<T> comparingFloat(ToDoubleFunction<? super T> keyExtractor) {
+        return new Builder<T>().thenComparingFloat(keyExtractor);
+    }
+
+    public static <T> Builder<T> comparingDouble(ToDoubleFunction<? super T> keyExtractor) {
+        return new Builder<T>().thenComparingDouble(keyExtractor);
+    }
+
+    public static <T> Builder<T> comparingString(Function<? super T, String> keyExtractor) {
+        return new Builder<T>().thenComparingString(keyExtractor);
+    }
+
+    /**
+     * Compares two encoded keys the way memcmp would.
+     */
+    public static int compare(byte[] a, byte[] b) {
+        return Arrays.compareUnsigned(a, b);
+    }
+
+    public Comparator<T> comparator() {
+        return comparator;
+    }
+
+    public int encodedLength(T value) {
+        int length = 0;
+        for (Field<T> f : fields)
+            length += f.length(value);
+        return length;
+    }
+
+    public byte[] encode(T value) {
+        byte[] key = new byte[encodedLength(value)];
+        write(value, key, 0);
+        return key;
+    }
+
+    /**
+     * Writes the key of {@code value} at {@code offset} and returns the offset just past it.
+     *
+     * @throws IndexOutOfBoundsException if {@code dst} has less than {@link #encodedLength} bytes left
+     */
+    public int encode(T value, byte[] dst, int offset) {
+        Objects.checkFromIndexSize(offset, encodedLength(value), dst.length);
+        return write(value, dst, offset);
+    }
+
+    private int write(T value, byte[] dst, int offset) {
+        for (int f = 0; f < fields.length; f++) {
+            int end = fields[f].write(value, dst, offset);
+            if (descending[f]) {
+                for (int i = offset; i < end; i++)
+                    dst[i] = (byte) ~dst[i];
+            }
+            offset = end;
+        }
+        return offset;
+    }
+
+    private interface Field<T> {
+        int length(T value);
+
+        int write(T value, byte[] dst, int offset);
+    }
+
+    /**
+     按顺序添加字段，最后 build()；Builder 不是线程安全的
+     */
+    public static final class Builder<T> {
+
+        private final List<Field<T>> fields = new ArrayList<>();
+        private final List<Boolean> descending = new ArrayList<>();
+        private final List<Comparator<T>> comparators = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder<T> thenComparingInt(ToIntFunction<? super T> keyExtractor) {
+            Objects.requireNonNull(keyExtractor);
+            return add(new Field<T>() {
+                @Override public int length(T value) {
+                    return Integer.BYTES;
+                }
+
+                @Override public int write(T value, byte[] dst, int offset) {
+                    return writeInt(keyExtractor.applyAsInt(value) ^ Integer.MIN_VALUE, dst, offset);
+                }
+            }, Comparator.comparingInt(keyExtractor));
+        }
+
+        public Builder<T> thenComparingLong(ToLongFunction<? super T> keyExtractor) {
+            Objects.requireNonNull(keyExtractor);
+            return add(new Field<T>() {
+                @Override public int length(T value) {
+                    return Long.BYTES;
+                }
+
+                @Override public int write(T value, byte[] dst, int offset) {
+                    return writeLong(keyExtractor.applyAsLong(value) ^ Long.MIN_VALUE, dst, offset);
+                }
+            }, Comparator.comparingLong(keyExtractor));
+        }
+
+        // 按 float 编码，4 个字节；key 必须是 float 的值（比如 float 字段），否则会先舍入到 float
+        public Builder<T> thenComparingFloat(ToDoubleFunction<? super T> keyExtractor) {
+            Objects.requireNonNull(keyExtractor);
+            return add(new Field<T>() {
+                @Override public int length(T value) {
+                    return Float.BYTES;
+                }
+
+                @Override public int write(T value, byte[] dst, int offset) {
+                    int bits = Float.floatToIntBits((float) keyExtractor.applyAsDouble(value));
+                    return writeInt(bits < 0 ? ~bits : bits ^ Integer.MIN_VALUE, dst, offset);
+                }
+            }, Comparator.comparingDouble(v -> (float) keyExtractor.applyAsDouble(v)));
+        }
+
+        public Builder<T> thenComparingDouble(ToDoubleFunction<? super T> keyExtractor) {
+            Objects.requireNonNull(keyExtractor);
+            return add(new Field<T>() {
+                @Override public int length(T value) {
+                    return Double.BYTES;
+                }
+
+                @Override public int write(T value, byte[] dst, int offset) {
+                    long bits = Double.doubleToLongBits(keyExtractor.applyAsDouble(value));
+                    return writeLong(bits < 0 ? ~bits : bits ^ Long.MIN_VALUE, dst, offset);
+                }
+            }, Comparator.comparingDouble(keyExtractor));
+        }
+
+        // 字符串不能是 null
+        public Builder<T> thenComparingString(Function<? super T, String> keyExtractor) {
+            Objects.requireNonNull(keyExtractor);
+            return add(new Field<T>() {
+                @Override public int length(T value) {
+                    String s = keyExtractor.apply(value);
+                    int length = 2;
+                    for (int i = 0; i < s.length(); i++) {
+                        char c = s.charAt(i);
+                        if (c == 0 || (c >= 0x80 && c < 0x800))
+                            length += 2;
+                        else
+                            length += c < 0x80 ? 1 : 3;
+                    }
+                    return length;
+                }
+
+                @Override public int write(T value, byte[] dst, int offset) {
+                    String s = keyExtractor.apply(value);
+                    for (int i = 0; i < s.length(); i++) {
+                        char c = s.charAt(i);
+                        if (c == 0) {
+                            dst[offset++] = 0;
+                            dst[offset++] = (byte) 0xFF;
+                        } else if (c < 0x80) {
+                            dst[offset++] = (byte) c;
+                        } else if (c < 0x800) {
+                            dst[offset++] = (byte) (0xC0 | c >> 6);
+                            dst[offset++] = (byte) (0x80 | c & 0x3F);
+                        } else {
+                            dst[offset++] = (byte) (0xE0 | c >> 12);
+                            dst[offset++] = (byte) (0x80 | c >> 6 & 0x3F);
+                            dst[offset++] = (byte) (0x80 | c & 0x3F);
+                        }
+                    }
+                    dst[offset++] = 0;
+                    dst[offset++] = 0;
+                    return offset;
+                }
+            }, Comparator.comparing(keyExtractor));
+        }
+
+        // 最后添加的字段按相反的顺序
+        public Builder<T> descending() {
+            if (fields.isEmpty())
+                throw new IllegalStateException("no field to reverse");
+            int last = fields.size() - 1;
+            descending.set(last, !descending.get(last));
+            comparators.set(last, comparators.get(last).reversed());
+            return this;
+        }
+
+        private Builder<T> add(Field<T> field, Comparator<T> comparator) {
+            fields.add(field);
+            descending.add(false);
+            comparators.add(comparator);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public ByteKeyEncoder<T> build() {
+            if (fields.isEmpty())
+                throw new IllegalStateException("no fields");
+            Comparator<T> comparator = comparators.get(0);
+            for (int i = 1; i < comparators.size(); i++)
+                comparator = comparator.thenComparing(comparators.get(i));
+            boolean[] reversed = new boolean[descending.size()];
+            for (int i = 0; i < reversed.length; i++)
+                reversed[i] = descending.get(i);
+            return new ByteKeyEncoder<>(fields.toArray(new Field[0]), reversed, comparator);
+        }
+    }
+
+    private static int writeInt(int v, byte[] dst, int offset) {
+        dst[offset] = (byte) (v >>> 24);
+        dst[offset + 1] = (byte) (v >>> 16);
+        dst[offset + 2] = (byte) (v >>> 8);
+        dst[offset + 3] = (byte) v;
+        return offset + 4;
+    }
+
+    private static int writeLong(long v, byte[] dst, int offset) {
+        writeInt((int) (v >>> 32), dst, offset);
+        return writeInt((int) v, dst, offset + 4);
+    }
+}
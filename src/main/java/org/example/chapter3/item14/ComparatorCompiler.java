@@ -0,0 +1,218 @@
+package org.example.chapter3.item14;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import static org.example.chapter3.item14.ClassFileAssembler.*;
+
+/**
+ 把 comparingInt(...).thenComparingLong(...).thenComparingDouble(...) 这样的比较链编译成一个类，代替 Comparator 的链式构造器
+    1.JDK 的链是一层套一层的 lambda：每比较一次要经过 "thenComparing 的 lambda -> 前一个比较器 -> keyExtractor" 好几层调用；
+        而且所有 comparingInt 返回的比较器是同一个 lambda 类，里面调用 keyExtractor.applyAsInt 的位置被所有的比较链共用，
+        程序里用过三种以上的 keyExtractor 之后这个调用点就是 megamorphic 的，JIT 不再内联，大量排序时每次比较都是虚调用
+    2.compile() 为每条链生成一个 hidden class（Lookup.defineHiddenClassWithClassData）：
+        keyExtractor 通过 class data 放进这个类的 static final 字段，JIT 把它们当作常量；
+        compare 方法中按顺序直接调用每个 keyExtractor，比较完一个 key 不相等就返回，调用点只属于这一个类，总是 monomorphic，可以全部内联
+    3.生成的类在 ComparatorCompiler 所在的包中，compare 的参数按 Object 传给 keyExtractor，不需要访问被比较的类型，private 的内部类也可以
+    4.hidden class 不被任何 ClassLoader 引用，比较器不再使用之后整个类可以被卸载；编译的开销大约是一次类加载，应该编译一次之后重复使用
+ 用法：
+    Comparator<Person> c = ComparatorCompiler.comparingInt((Person p) -> p.id)
+            .thenComparingLong(p -> p.idcard)
+            .thenComparingDouble(p -> p.weght)
+            .compile();
+ */
+public final class ComparatorCompiler {
+
+    private ComparatorCompiler() {
+    }
+
+    public static <T> Builder<T> comparingInt(ToIntFunction<? super T> keyExtractor) {
+        return new Builder<T>().thenComparingInt(keyExtractor);
+    }
+
+    public static <T> Builder<T> comparingLong(ToLongFunction<? super T> keyExtractor) {
+        return new Builder<T>().thenComparingLong(keyExtractor);
+    }
+
+    public static <T> Builder<T> comparingDouble(ToDoubleFunction<? super T> keyExtractor) {
+        return new Builder<T>().thenComparingDouble(keyExtractor);
+    }
+
+    public static <T, U extends Comparable<? super U>> Builder<T> comparing(Function<? super T, ? extends U> keyExtractor) {
+        return new Builder<T>().thenComparing(keyExtractor);
+    }
+
+    // 每个 key 怎么比较：生成的字节码不同
+    private enum Kind {
+        INT("java/util/function/ToIntFunction", "applyAsInt", "(Ljava/lang/Object;)I", "java/lang/Integer", "(II)I"),
+        LONG("java/util/function/ToLongFunction", "applyAsLong", "(Ljava/lang/Object;)J", "java/lang/Long", "(JJ)I"),
+        DOUBLE("java/util/function/ToDoubleFunction", "applyAsDouble", "(Ljava/lang/Object;)D", "java/lang/Double", "(DD)I"),
+        COMPARABLE("java/util/function/Function", "apply", "(Ljava/lang/Object;)Ljava/lang/Object;", null, null),
+        COMPARATOR("java/util/Comparator", "compare", "(Ljava/lang/Object;Ljava/lang/Object;)I", null, null);
+
+        final String type;
+        final String method;
+        final String descriptor;
+        final String compareOwner;
+        final String compareDescriptor;
+
+        Kind(String type, String method, String descriptor, String compareOwner, String compareDescriptor) {
+            this.type = type;
+            this.method = method;
+            this.descriptor = descriptor;
+            this.compareOwner = compareOwner;
+            this.compareDescriptor = compareDescriptor;
+        }
+    }
+
+    /**
+     和 Comparator 的链式构造器一样按顺序添加 key，最后 compile() 生成比较器；Builder 不是线程安全的
+     */
+    public static final class Builder<T> {
+
+        private final List<Kind> kinds = new ArrayList<>();
+        private final List<Object> keys = new ArrayList<>();
+        // 每个 key 是否反过来比较
+        private final List<Boolean> reversed = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder<T> thenComparingInt(ToIntFunction<? super T> keyExtractor) {
+            return add(Kind.INT, keyExtractor);
+        }
+
+        public Builder<T> thenComparingLong(ToLongFunction<? super T> keyExtractor) {
+            return add(Kind.LONG, keyExtractor);
+        }
+
+        // 和 Double.compare 相同：-0.0 < 0.0，NaN 最大
+        public Builder<T> thenComparingDouble(ToDoubleFunction<? super T> keyExtractor) {
+            return add(Kind.DOUBLE, keyExtractor);
+        }
+
+        public <U extends Comparable<? super U>> Builder<T> thenComparing(Function<? super T, ? extends U> keyExtractor) {
+            return add(Kind.COMPARABLE, keyExtractor);
+        }
+
+        public Builder<T> thenComparing(Comparator<? super T> other) {
+            return add(Kind.COMPARATOR, other);
+        }
+
+        // 把到目前为止的链反过来，和 Comparator.reversed() 相同：之后再 thenComparing 的 key 仍然是正序
+        public Builder<T> reversed() {
+            for (int i = 0; i < reversed.size(); i++)
+                reversed.set(i, !reversed.get(i));
+            return this;
+        }
+
+        private Builder<T> add(Kind kind, Object key) {
+            kinds.add(kind);
+            keys.add(Objects.requireNonNull(key));
+            reversed.add(false);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Comparator<T> compile() {
+            byte[] bytes = generate(kinds, reversed);
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup()
+                        .defineHiddenClassWithClassData(bytes, keys.toArray(), true);
+                return (Comparator<T>) lookup.findConstructor(lookup.lookupClass(),
+                        MethodType.methodType(void.class)).invoke();
+            } catch (Throwable e) {
+                throw new IllegalStateException("cannot compile comparator " + kinds, e);
+            }
+        }
+    }
+
+    private static final String NAME = ComparatorCompiler.class.getName().replace('.', '/') + "$Compiled";
+
+    /*
+     生成的类相当于：
+        final class ComparatorCompiler$Compiled implements Comparator {
+            private static final ToIntFunction K0;
+            private static final ToLongFunction K1;
+            static {
+                Object[] keys = MethodHandles.classData(MethodHandles.lookup(), "_", Object[].class);
+                K0 = (ToIntFunction) keys[0];
+                K1 = (ToLongFunction) keys[1];
+            }
+            public int compare(Object a, Object b) {
+                int r = Integer.compare(K0.applyAsInt(a), K0.applyAsInt(b));
+                if (r != 0) return r;
+                r = Long.compare(K1.applyAsLong(a), K1.applyAsLong(b));
+                if (r != 0) return r;
+                return 0;
+            }
+        }
+     反过来比较的 key 把 a 和 b 交换
+     */
+    private static byte[] generate(List<Kind> kinds, List<Boolean> reversed) {
+        ClassFileAssembler cf = new ClassFileAssembler(NAME, "java/util/Comparator");
+        for (int i = 0; i < kinds.size(); i++)
+            cf.field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "K" + i, "L" + kinds.get(i).type + ";");
+
+        ClassFileAssembler.Code clinit = cf.method(ACC_STATIC, "<clinit>", "()V", 3, 1);
+        clinit.op(INVOKESTATIC).u2(cf.methodRef("java/lang/invoke/MethodHandles", "lookup",
+                        "()Ljava/lang/invoke/MethodHandles$Lookup;"))
+                .op(LDC_W).u2(cf.string("_"))
+                .op(LDC_W).u2(cf.classRef("[Ljava/lang/Object;"))
+                .op(INVOKESTATIC).u2(cf.methodRef("java/lang/invoke/MethodHandles", "classData",
+                        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;"))
+                .op(CHECKCAST).u2(cf.classRef("[Ljava/lang/Object;"))
+                .op(ASTORE_0);
+        for (int i = 0; i < kinds.size(); i++) {
+            Kind kind = kinds.get(i);
+            clinit.op(ALOAD_0).op(SIPUSH).u2(i).op(AALOAD)
+                    .op(CHECKCAST).u2(cf.classRef(kind.type))
+                    .op(PUTSTATIC).u2(cf.fieldRef(NAME, "K" + i, "L" + kind.type + ";"));
+        }
+        clinit.op(RETURN).end();
+
+        cf.method(ACC_PUBLIC, "<init>", "()V", 1, 1)
+                .op(ALOAD_0).op(INVOKESPECIAL).u2(cf.methodRef("java/lang/Object", "<init>", "()V"))
+                .op(RETURN).end();
+
+        ClassFileAssembler.Code compare = cf.method(ACC_PUBLIC, "compare",
+                "(Ljava/lang/Object;Ljava/lang/Object;)I", 5, 3);
+        for (int i = 0; i < kinds.size(); i++) {
+            Kind kind = kinds.get(i);
+            int first = reversed.get(i) ? ALOAD_2 : ALOAD_1;
+            int second = reversed.get(i) ? ALOAD_1 : ALOAD_2;
+            int key = cf.fieldRef(NAME, "K" + i, "L" + kind.type + ";");
+            if (kind == Kind.COMPARATOR) {
+                compare.op(GETSTATIC).u2(key).op(first).op(second)
+                        .op(INVOKEINTERFACE).u2(cf.interfaceMethodRef(kind.type, kind.method, kind.descriptor)).u1(3).u1(0);
+            } else {
+                int extract = cf.interfaceMethodRef(kind.type, kind.method, kind.descriptor);
+                compare.op(GETSTATIC).u2(key).op(first).op(INVOKEINTERFACE).u2(extract).u1(2).u1(0);
+                if (kind == Kind.COMPARABLE)
+                    compare.op(CHECKCAST).u2(cf.classRef("java/lang/Comparable"));
+                compare.op(GETSTATIC).u2(key).op(second).op(INVOKEINTERFACE).u2(extract).u1(2).u1(0);
+                if (kind == Kind.COMPARABLE) {
+                    compare.op(INVOKEINTERFACE).u2(cf.interfaceMethodRef("java/lang/Comparable", "compareTo",
+                            "(Ljava/lang/Object;)I")).u1(2).u1(0);
+                } else {
+                    compare.op(INVOKESTATIC).u2(cf.methodRef(kind.compareOwner, "compare", kind.compareDescriptor));
+                }
+            }
+            // 不相等就返回，相等时弹出 0 继续比较下一个 key
+            compare.op(DUP);
+            int branch = compare.position();
+            compare.op(IFEQ).u2(0).op(IRETURN);
+            compare.bindIntOnStackTarget(branch).op(POP);
+        }
+        compare.op(ICONST_0).op(IRETURN).end();
+        return cf.toByteArray();
+    }
+}
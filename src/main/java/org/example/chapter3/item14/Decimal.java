@@ -0,0 +1,352 @@
+package org.example.chapter3.item14;
+
+import org.example.chapter3.item11.Hashing;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ 不可变的十进制数：unscaled value 放在 long 中，值 = unscaled * 10^-scale，代替金额计算中的 BigDecimal
+    1.紧凑表示：0 <= scale <= MAX_SCALE，unscaled 不等于 Long.MIN_VALUE（和 BigDecimal 的 INFLATED 一样，用来表示溢出）
+        加减乘、比较、hashCode 都只做 long 运算，手动检查溢出，不创建 BigInteger
+    2.溢出或者 scale 超出范围时，透明地改用 BigDecimal 计算，结果能放回紧凑表示时再放回去；调用方看不到区别
+    3.equals 和 compareTo 一致（第14条）：按数值比较，1.0 和 1.00 相等，hashCode 先去掉末尾的 0 再计算，所以也相等
+        这一点和 BigDecimal 不同，Decimal 可以直接放进 HashSet，结果和 TreeSet 一样
+    4.为了保证 hashCode 的规则，不能放回紧凑表示的 BigDecimal 一律保存 stripTrailingZeros() 之后的形式，所以这类值的 scale() 可能和输入不同
+    5.add / multiply 返回新对象，结果不逃逸时（比如 a.multiply(b).add(c).compareTo(limit)）JIT 的逃逸分析可以把中间对象消除；
+        循环中累加时结果会逃逸到下一次循环，使用可变的伙伴类 Accumulator（第17条：StringBuilder 之于 String）
+ */
+public final class Decimal implements Comparable<Decimal> {
+
+    public static final int MAX_SCALE = 18;
+
+    public static final Decimal ZERO = new Decimal(0, 0, null);
+    public static final Decimal ONE = new Decimal(1, 0, null);
+
+    private static final long INFLATED = Long.MIN_VALUE;
+
+    private static final long[] POW10 = new long[MAX_SCALE + 1];
+    private static final double[] DOUBLE_POW10 = new double[MAX_SCALE + 1];
+
+    static {
+        long p = 1;
+        for (int i = 0; i <= MAX_SCALE; i++) {
+            POW10[i] = p;
+            DOUBLE_POW10[i] = p;
+            p *= 10;
+        }
+    }
+
+    private final long unscaled;
+    private final int scale;
+    private final BigDecimal big;  // 不为 null 时表示不能用紧凑表示，unscaled 和 scale 没有意义
+
+    private Decimal(long unscaled, int scale, BigDecimal big) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.big = big;
+    }
+
+    /**
+     * Returns {@code unscaled * 10^-scale}, e.g. {@code valueOf(1999, 2)} is 19.99.
+     */
+    public static Decimal valueOf(long unscaled, int scale) {
+        if (scale >= 0 && scale <= MAX_SCALE && unscaled != INFLATED)
+            return new Decimal(unscaled, scale, null);
+        return valueOf(BigDecimal.valueOf(unscaled, scale));
+    }
+
+    public static Decimal valueOf(long value) {
+        return valueOf(value, 0);
+    }
+
+    public static Decimal valueOf(BigDecimal value) {
+        Objects.requireNonNull(value);
+        Decimal compact = compactOrNull(value);
+        if (compact != null)
+            return compact;
+        BigDecimal stripped = value.stripTrailingZeros();
+        // 负的 scale 表示整数，先试试能不能放回 scale = 0
+        if (stripped.scale() < 0 && stripped.precision() - stripped.scale() <= 19)
+            stripped = stripped.setScale(0);
+        compact = compactOrNull(stripped);
+        return compact != null ? compact : new Decimal(0, 0, stripped);
+    }
+
+    /**
+     * Parses the same syntax as {@link BigDecimal#BigDecimal(String)}.
+     */
+    public static Decimal parse(String s) {
+        return valueOf(new BigDecimal(s));
+    }
+
+    private static Decimal compactOrNull(BigDecimal value) {
+        int s = value.scale();
+        if (s < 0 || s > MAX_SCALE)
+            return null;
+        BigInteger u = value.unscaledValue();
+        if (u.bitLength() > 63 || u.longValue() == INFLATED)
+            return null;
+        return new Decimal(u.longValue(), s, null);
+    }
+
+    public int scale() {
+        return big == null ? scale : big.scale();
+    }
+
+    public int signum() {
+        return big == null ? Long.signum(unscaled) : big.signum();
+    }
+
+    public Decimal negate() {
+        return big == null ? new Decimal(-unscaled, scale, null) : valueOf(big.negate());
+    }
+
+    public Decimal add(Decimal other) {
+        if (big == null && other.big == null) {
+            int s = Math.max(scale, other.scale);
+            long a = scaleUp(unscaled, s - scale);
+            long b = scaleUp(other.unscaled, s - other.scale);
+            if (a != INFLATED && b != INFLATED) {
+                long r = a + b;
+                if (((a ^ r) & (b ^ r)) >= 0 && r != INFLATED)
+                    return new Decimal(r, s, null);
+            }
+        }
+        return valueOf(toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    public Decimal subtract(Decimal other) {
+        if (big == null && other.big == null) {
+            int s = Math.max(scale, other.scale);
+            long a = scaleUp(unscaled, s - scale);
+            long b = scaleUp(other.unscaled, s - other.scale);
+            if (a != INFLATED && b != INFLATED) {
+                long r = a - b;
+                if (((a ^ b) & (a ^ r)) >= 0 && r != INFLATED)
+                    return new Decimal(r, s, null);
+            }
+        }
+        return valueOf(toBigDecimal().subtract(other.toBigDecimal()));
+    }
+
+    // 结果的 scale 是两个 scale 之和，和 BigDecimal.multiply 相同
+    public Decimal multiply(Decimal other) {
+        if (big == null && other.big == null && scale + other.scale <= MAX_SCALE) {
+            long r = multiply(unscaled, other.unscaled);
+            if (r != INFLATED)
+                return new Decimal(r, scale + other.scale, null);
+        }
+        return valueOf(toBigDecimal().multiply(other.toBigDecimal()));
+    }
+
+    public Decimal setScale(int newScale, RoundingMode mode) {
+        if (big == null && newScale >= 0 && newScale <= MAX_SCALE) {
+            long r = newScale >= scale
+                    ? scaleUp(unscaled, newScale - scale)
+                    : divideAndRound(unscaled, POW10[scale - newScale], mode);
+            if (r != INFLATED)
+                return new Decimal(r, newScale, null);
+        }
+        return valueOf(toBigDecimal().setScale(newScale, mode));
+    }
+
+    /**
+     * Returns {@code this / divisor} rounded to {@code scale} digits, like
+     * {@link BigDecimal#divide(BigDecimal, int, RoundingMode)}.
+     */
+    public Decimal divide(Decimal divisor, int scale, RoundingMode mode) {
+        if (divisor.signum() == 0)
+            throw new ArithmeticException("Division by zero");
+        // this / divisor = (a * 10^e / b) * 10^-scale，其中 e = scale + divisor.scale - this.scale
+        int e = scale + divisor.scale - this.scale;
+        if (big == null && divisor.big == null && scale >= 0 && scale <= MAX_SCALE && e >= 0 && e <= MAX_SCALE) {
+            long a = scaleUp(unscaled, e);
+            if (a != INFLATED) {
+                long r = divideAndRound(a, divisor.unscaled, mode);
+                if (r != INFLATED)
+                    return new Decimal(r, scale, null);
+            }
+        }
+        return valueOf(toBigDecimal().divide(divisor.toBigDecimal(), scale, mode));
+    }
+
+    @Override public int compareTo(Decimal other) {
+        if (big == null && other.big == null) {
+            if (scale == other.scale)
+                return Long.compare(unscaled, other.unscaled);
+            int sign = Long.signum(unscaled);
+            int otherSign = Long.signum(other.unscaled);
+            if (sign != otherSign)
+                return Integer.compare(sign, otherSign);
+            int s = Math.max(scale, other.scale);
+            long a = scaleUp(unscaled, s - scale);
+            long b = scaleUp(other.unscaled, s - other.scale);
+            if (a != INFLATED && b != INFLATED)
+                return Long.compare(a, b);
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    @Override public boolean equals(Object o) {
+        return o == this || o instanceof Decimal && compareTo((Decimal) o) == 0;
+    }
+
+    // 紧凑表示和 BigDecimal 表示的值不会相等（能放回紧凑表示的都放回去了），所以两种表示各自计算即可
+    @Override public int hashCode() {
+        if (big != null)
+            return big.hashCode();
+        long u = unscaled;
+        int s = scale;
+        if (u == 0)
+            return 0;
+        while (s > 0 && u % 10 == 0) {
+            u /= 10;
+            s--;
+        }
+        return Hashing.hash(Hashing.of(u), s);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return big != null ? big : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    public double doubleValue() {
+        if (big == null && Math.abs(unscaled) < 1L << 52)
+            return unscaled / DOUBLE_POW10[scale];
+        return toBigDecimal().doubleValue();
+    }
+
+    @Override public String toString() {
+        return toBigDecimal().toString();
+    }
+
+    // v * 10^n，溢出时返回 INFLATED
+    private static long scaleUp(long v, int n) {
+        if (n == 0 || v == 0)
+            return v;
+        return n > MAX_SCALE ? INFLATED : multiply(v, POW10[n]);
+    }
+
+    // 溢出时返回 INFLATED
+    private static long multiply(long a, long b) {
+        long lo = a * b;
+        // 两个数都小于 2^31 时乘积一定不会溢出，金额计算中几乎都是这种情况
+        if (((Math.abs(a) | Math.abs(b)) >>> 31) == 0)
+            return lo;
+        long hi = Math.multiplyHigh(a, b);
+        return (hi == 0 && lo >= 0) || (hi == -1 && lo < 0) ? lo : INFLATED;
+    }
+
+    // n / d 按 mode 舍入，和 BigDecimal 的规则相同；d 不是 0 也不是 INFLATED
+    private static long divideAndRound(long n, long d, RoundingMode mode) {
+        long q = n / d;
+        long r = n % d;
+        if (r == 0)
+            return q;
+        int sign = Long.signum(n) * Long.signum(d);
+        boolean increment;
+        switch (mode) {
+            case UNNECESSARY:
+                throw new ArithmeticException("Rounding necessary");
+            case UP:
+                increment = true;
+                break;
+            case DOWN:
+                increment = false;
+                break;
+            case CEILING:
+                increment = sign > 0;
+                break;
+            case FLOOR:
+                increment = sign < 0;
+                break;
+            default:
+                // |r| 和 |d| - |r| 比较，就是余数和一半比较，不会溢出
+                long absR = Math.abs(r);
+                int half = Long.compare(absR, Math.abs(d) - absR);
+                if (mode == RoundingMode.HALF_UP)
+                    increment = half >= 0;
+                else if (mode == RoundingMode.HALF_DOWN)
+                    increment = half > 0;
+                else
+                    increment = half > 0 || (half == 0 && (q & 1) != 0);
+        }
+        return increment ? q + sign : q;
+    }
+
+    /**
+     可变的累加器，循环中求和时不为每一次加法创建 Decimal
+        溢出之后改用 BigDecimal 继续累加，toDecimal() 的结果和逐个 add 完全相同
+     不是线程安全的
+     */
+    public static final class Accumulator {
+
+        private long unscaled;
+        private int scale;
+        private BigDecimal big;
+
+        public Accumulator add(Decimal value) {
+            if (big == null && value.big == null && addCompact(value.unscaled, value.scale))
+                return this;
+            spill();
+            big = big.add(value.toBigDecimal());
+            return this;
+        }
+
+        // 加上 a * b，不创建乘积的 Decimal（比如 单价 * 数量）
+        public Accumulator addProduct(Decimal a, Decimal b) {
+            if (big == null && a.big == null && b.big == null && a.scale + b.scale <= MAX_SCALE) {
+                long p = multiply(a.unscaled, b.unscaled);
+                if (p != INFLATED && addCompact(p, a.scale + b.scale))
+                    return this;
+            }
+            spill();
+            big = big.add(a.toBigDecimal().multiply(b.toBigDecimal()));
+            return this;
+        }
+
+        private boolean addCompact(long v, int s) {
+            if (s == scale) {
+                long r = unscaled + v;
+                if (((unscaled ^ r) & (v ^ r)) < 0 || r == INFLATED)
+                    return false;
+                unscaled = r;
+                return true;
+            }
+            int target = Math.max(scale, s);
+            long a = scaleUp(unscaled, target - scale);
+            long b = scaleUp(v, target - s);
+            if (a == INFLATED || b == INFLATED)
+                return false;
+            long r = a + b;
+            if (((a ^ r) & (b ^ r)) < 0 || r == INFLATED)
+                return false;
+            unscaled = r;
+            scale = target;
+            return true;
+        }
+
+        private void spill() {
+            if (big == null)
+                big = BigDecimal.valueOf(unscaled, scale);
+        }
+
+        public Decimal toDecimal() {
+            return big != null ? valueOf(big) : new Decimal(unscaled, scale, null);
+        }
+
+        public Accumulator reset() {
+            unscaled = 0;
+            scale = 0;
+            big = null;
+            return this;
+        }
+
+        @Override public String toString() {
+            return toDecimal().toString();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.chapter3.item14;
+
+import org.example.chapter3.item10.CaseFolding;
+
+import java.math.BigDecimal;
+
+/**
+ StrategyHashMap / StrategyHashSet 使用的相等规则：由集合决定 key 怎么比较，而不是由 key 的 equals 和 hashCode 决定
+    1.和 Comparator 对 TreeMap 的作用一样，不需要为了换一种相等规则而包装 key，也不需要在放入之前把 key 转换成标准形式
+    2.实现必须满足：equals(a, b) 为 true 时 hashCode(a) == hashCode(b)，并且 equals 是等价关系（第10条、第11条的约定）
+    3.内置的规则：natural（key 自己的 equals）、identity（==）、caseInsensitive、numericValue（BigDecimal 按 compareTo）
+ */
+public interface HashingStrategy<T> {
+
+    int hashCode(T value);
+
+    boolean equals(T a, T b);
+
+    // 和 HashMap 相同的规则
+    @SuppressWarnings("unchecked")
+    static <T> HashingStrategy<T> natural() {
+        return (HashingStrategy<T>) Strategies.NATURAL;
+    }
+
+    // 和 IdentityHashMap 相同的规则
+    @SuppressWarnings("unchecked")
+    static <T> HashingStrategy<T> identity() {
+        return (HashingStrategy<T>) Strategies.IDENTITY;
+    }
+
+    // 和 String.equalsIgnoreCase 相同的规则，见 CaseFolding
+    static HashingStrategy<CharSequence> caseInsensitive() {
+        return Strategies.CASE_INSENSITIVE;
+    }
+
+    // 和 BigDecimal.compareTo 相同的规则：1.0 和 1.00 相等，和 TreeSet<BigDecimal> 的结果一致
+    static HashingStrategy<BigDecimal> numericValue() {
+        return Strategies.NUMERIC_VALUE;
+    }
+}
+
+final class Strategies {
+
+    private Strategies() {
+    }
+
+    static final HashingStrategy<Object> NATURAL = new HashingStrategy<Object>() {
+        @Override public int hashCode(Object value) {
+            return value.hashCode();
+        }
+
+        @Override public boolean equals(Object a, Object b) {
+            return a.equals(b);
+        }
+
+        @Override public String toString() {
+            return "natural";
+        }
+    };
+
+    static final HashingStrategy<Object> IDENTITY = new HashingStrategy<Object>() {
+        @Override public int hashCode(Object value) {
+            return System.identityHashCode(value);
+        }
+
+        @Override public boolean equals(Object a, Object b) {
+            return a == b;
+        }
+
+        @Override public String toString() {
+            return "identity";
+        }
+    };
+
+    static final HashingStrategy<CharSequence> CASE_INSENSITIVE = new HashingStrategy<CharSequence>() {
+        @Override public int hashCode(CharSequence value) {
+            return CaseFolding.hashCode(value);
+        }
+
+        @Override public boolean equals(CharSequence a, CharSequence b) {
+            return CaseFolding.equals(a, b);
+        }
+
+        @Override public String toString() {
+            return "caseInsensitive";
+        }
+    };
+
+    /*
+     BigDecimal.hashCode 包含 scale，1.0 和 1.00 的哈希值不同，所以要按数值重新计算
+        stripTrailingZeros() 之后再 hashCode 可以得到和 compareTo 一致的结果，但是每次都创建新对象，unscaledValue() 也会创建 BigInteger
+        这里用 doubleValue()：值是正确舍入的，只取决于数值，与 scale 无关，所以 compareTo 相等的两个值 doubleValue() 一定相等；
+        unscaled value 能放进 long（|unscaled| < 2^52）并且 scale 不超过 22 时，JDK 直接计算 unscaled / 10^scale，不创建任何对象，
+        其他情况（很大的数、很大的 scale）才通过 toString 解析，这部分值很少
+        不同的数值可能得到相同的 double（有效数字超过 15~17 位时），只是哈希冲突，equals 仍然用 compareTo 区分
+     */
+    static final HashingStrategy<BigDecimal> NUMERIC_VALUE = new HashingStrategy<BigDecimal>() {
+        @Override public int hashCode(BigDecimal value) {
+            // 0.0 + x 把 -0.0 变成 0.0（BigDecimal 没有负零，这里只是防御）
+            return Double.hashCode(0.0 + value.doubleValue());
+        }
+
+        @Override public boolean equals(BigDecimal a, BigDecimal b) {
+            return a.compareTo(b) == 0;
+        }
+
+        @Override public String toString() {
+            return "numericValue";
+        }
+    };
+}
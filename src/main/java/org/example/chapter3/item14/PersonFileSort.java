@@ -0,0 +1,498 @@
+package org.example.chapter3.item14;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ 外部排序：对比堆内存大得多的 Person 记录文件排序，顺序和 Code14_Compara.PERSON_CHAIN 相同（id、idcard、weght）
+    文件格式：每条记录 16 字节，大端序的 int id、long idcard、float weight，没有文件头
+    1.每条记录读进来之后转换成两个 long（hi, lo），按无符号比较 (hi, lo) 就是比较链的顺序，转换规则和 ByteKeyEncoder 相同：
+        int / long 翻转符号位，float 按 Float.compare 的全序（NaN 统一成 Float.NaN）；16 个字节正好放下，转换可逆
+    2.生成顺串（run）：threads 个线程各自从输入文件的不同位置读一块（FileChannel 的按位置读，线程之间不共享状态），
+        用 LSD 基数排序排序 (hi, lo)，写到临时文件；每个线程的数组只分配一次，重复使用
+    3.合并：败者树（loser tree）k 路归并，每一步只比较 log2(k) 次；每个顺串一个读缓冲区，当前记录放在 long[] 中，
+        合并过程中没有任何按记录的对象分配；顺串太多、每个缓冲区会小于 MIN_MERGE_BUFFER 时，先按组并行合并成更少的顺串
+    4.内存预算 memoryBudget 由所有线程平分：每条记录在排序时占 32 字节（两份 hi / lo），合并时全部用作读缓冲区
+ 排序不是稳定的，但完全相同的记录没有区别，所以结果是确定的
+ */
+public final class PersonFileSort {
+
+    public static final int RECORD_BYTES = 16;
+
+    static final int MIN_MERGE_BUFFER = 64 * 1024;
+    private static final int IO_BUFFER = 1 << 20;
+    // 排序时每条记录占用的堆内存：hi、lo 和两份缓冲
+    private static final int SORT_BYTES_PER_RECORD = 32;
+
+    private final long memoryBudget;
+    private final int threads;
+    private final Path tempDirectory;
+
+    private PersonFileSort(Builder builder) {
+        this.memoryBudget = builder.memoryBudget;
+        this.threads = builder.threads;
+        this.tempDirectory = builder.tempDirectory;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private long memoryBudget = 256L << 20;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private Path tempDirectory;
+
+        private Builder() {
+        }
+
+        // 排序和合并时最多使用的堆内存（字节），不包括 JVM 本身
+        public Builder memoryBudget(long bytes) {
+            if (bytes < 4L * MIN_MERGE_BUFFER)
+                throw new IllegalArgumentException("memory budget too small: " + bytes);
+            this.memoryBudget = bytes;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            if (threads < 1)
+                throw new IllegalArgumentException("threads: " + threads);
+            this.threads = threads;
+            return this;
+        }
+
+        // 临时文件的目录，默认和输出文件在同一个目录
+        public Builder tempDirectory(Path directory) {
+            this.tempDirectory = Objects.requireNonNull(directory);
+            return this;
+        }
+
+        public PersonFileSort build() {
+            return new PersonFileSort(this);
+        }
+    }
+
+    /**
+     * Writes one record in the input format.
+     */
+    public static void put(ByteBuffer buffer, int id, long idcard, float weight) {
+        buffer.putInt(id).putLong(idcard).putFloat(weight);
+    }
+
+    /**
+     * Sorts the records of {@code input} into {@code output}.
+     *
+     * @return the number of records
+     */
+    public long sort(Path input, Path output) throws IOException {
+        long size = Files.size(input);
+        if (size % RECORD_BYTES != 0)
+            throw new IOException("truncated record in " + input + ": size " + size);
+        long records = size / RECORD_BYTES;
+        Path directory = tempDirectory != null ? tempDirectory : output.toAbsolutePath().getParent();
+        List<Path> runs = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "person-sort");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            runs.addAll(createRuns(input, records, directory, pool));
+            int fanIn = fanIn(memoryBudget);
+            while (runs.size() > fanIn)
+                runs = mergePass(runs, fanIn, directory, pool);
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                merge(runs, out, memoryBudget, true);
+            }
+            return records;
+        } finally {
+            pool.shutdownNow();
+            for (Path run : runs)
+                Files.deleteIfExists(run);
+        }
+    }
+
+    // 每个顺串至少 MIN_MERGE_BUFFER 的缓冲区，另外留一份给输出
+    static int fanIn(long memoryBudget) {
+        return (int) Math.max(2, Math.min(Integer.MAX_VALUE, memoryBudget / MIN_MERGE_BUFFER - 1));
+    }
+
+    // ---- 生成顺串 ----
+
+    private List<Path> createRuns(Path input, long records, Path directory, ExecutorService pool) throws IOException {
+        long perThread = memoryBudget / threads - IO_BUFFER;
+        int runRecords = (int) Math.max(1024, Math.min(Integer.MAX_VALUE - 8, perThread / SORT_BYTES_PER_RECORD));
+        int runCount = (int) ((records + runRecords - 1) / runRecords);
+        Path[] runs = new Path[runCount];
+        AtomicInteger nextRun = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            for (int t = 0; t < Math.min(threads, runCount); t++) {
+                workers.add(pool.submit(() -> {
+                    RunWriter writer = new RunWriter((int) Math.min(runRecords, records));
+                    for (int r; (r = nextRun.getAndIncrement()) < runCount; ) {
+                        long first = (long) r * runRecords;
+                        int n = (int) Math.min(runRecords, records - first);
+                        runs[r] = writer.sortRun(in, first, n, directory);
+                    }
+                    return null;
+                }));
+            }
+            await(workers, pool);
+        } catch (IOException | RuntimeException e) {
+            for (Path run : runs) {
+                if (run != null)
+                    Files.deleteIfExists(run);
+            }
+            throw e;
+        }
+        return List.of(runs);
+    }
+
+    // 每个线程一个，数组重复使用
+    private static final class RunWriter {
+        private long[] hi;
+        private long[] lo;
+        private long[] hiBuffer;
+        private long[] loBuffer;
+        private final ByteBuffer io = ByteBuffer.allocate(IO_BUFFER);
+
+        RunWriter(int capacity) {
+            hi = new long[capacity];
+            lo = new long[capacity];
+            hiBuffer = new long[capacity];
+            loBuffer = new long[capacity];
+        }
+
+        Path sortRun(FileChannel in, long firstRecord, int n, Path directory) throws IOException {
+            long position = firstRecord * RECORD_BYTES;
+            int i = 0;
+            while (i < n) {
+                io.clear().limit((int) Math.min(io.capacity(), (long) (n - i) * RECORD_BYTES));
+                while (io.hasRemaining()) {
+                    int read = in.read(io, position);
+                    if (read < 0)
+                        throw new IOException("unexpected end of input at " + position);
+                    position += read;
+                }
+                io.flip();
+                while (io.hasRemaining()) {
+                    int id = io.getInt();
+                    long idcard = io.getLong();
+                    float weight = io.getFloat();
+                    hi[i] = hi(id, idcard);
+                    lo[i] = lo(idcard, weight);
+                    i++;
+                }
+            }
+            sort(n);
+            Path run = Files.createTempFile(directory, "person-run", ".bin");
+            try (FileChannel out = FileChannel.open(run, StandardOpenOption.WRITE)) {
+                io.clear();
+                for (int j = 0; j < n; j++) {
+                    if (io.remaining() < RECORD_BYTES)
+                        flush(io, out);
+                    io.putLong(hi[j]).putLong(lo[j]);
+                }
+                flush(io, out);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(run);
+                throw e;
+            }
+            return run;
+        }
+
+        // LSD 基数排序 (hi, lo)：先 lo 的 8 个字节，再 hi 的 8 个字节，所有记录都相同的字节跳过
+        private void sort(int n) {
+            int[][] counts = new int[16][256];
+            for (int i = 0; i < n; i++) {
+                long h = hi[i];
+                long l = lo[i];
+                for (int b = 0; b < 8; b++) {
+                    counts[b][(int) (l >>> (b * 8)) & 0xFF]++;
+                    counts[b + 8][(int) (h >>> (b * 8)) & 0xFF]++;
+                }
+            }
+            for (int pass = 0; pass < 16; pass++) {
+                int[] count = counts[pass];
+                boolean inHi = pass >= 8;
+                int shift = (pass & 7) * 8;
+                long firstKey = inHi ? hi[0] : lo[0];
+                if (count[(int) (firstKey >>> shift) & 0xFF] == n)
+                    continue;
+                int offset = 0;
+                for (int d = 0; d < 256; d++) {
+                    int c = count[d];
+                    count[d] = offset;
+                    offset += c;
+                }
+                long[] keys = inHi ? hi : lo;
+                for (int i = 0; i < n; i++) {
+                    int to = count[(int) (keys[i] >>> shift) & 0xFF]++;
+                    hiBuffer[to] = hi[i];
+                    loBuffer[to] = lo[i];
+                }
+                long[] x = hi;
+                hi = hiBuffer;
+                hiBuffer = x;
+                x = lo;
+                lo = loBuffer;
+                loBuffer = x;
+            }
+        }
+    }
+
+    // ---- 合并 ----
+
+    private List<Path> mergePass(List<Path> runs, int fanIn, Path directory, ExecutorService pool) throws IOException {
+        // 同时进行的合并平分内存预算
+        int parallel = Math.min(threads, (runs.size() + fanIn - 1) / fanIn);
+        long budgetPerMerge = memoryBudget / parallel;
+        int groupFanIn = Math.min(fanIn, fanIn(budgetPerMerge));
+        int groups = (runs.size() + groupFanIn - 1) / groupFanIn;
+        Path[] merged = new Path[groups];
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int g = 0; g < groups; g++) {
+            int group = g;
+            List<Path> part = runs.subList(g * groupFanIn, Math.min(runs.size(), (g + 1) * groupFanIn));
+            tasks.add(pool.submit(() -> {
+                Path run = Files.createTempFile(directory, "person-run", ".bin");
+                merged[group] = run;
+                try (FileChannel out = FileChannel.open(run, StandardOpenOption.WRITE)) {
+                    merge(part, out, budgetPerMerge, false);
+                }
+                return null;
+            }));
+        }
+        try {
+            await(tasks, pool);
+        } catch (IOException | RuntimeException e) {
+            for (Path run : merged) {
+                if (run != null)
+                    Files.deleteIfExists(run);
+            }
+            throw e;
+        }
+        for (Path run : runs)
+            Files.deleteIfExists(run);
+        return List.of(merged);
+    }
+
+    // 合并 runs 写到 out；decode 为 true 时写成输入格式，否则写成 (hi, lo) 的顺串格式
+    static void merge(List<Path> runs, FileChannel out, long budget, boolean decode) throws IOException {
+        int k = runs.size();
+        int bufferSize = (int) Math.max(RECORD_BYTES, Math.min(IO_BUFFER * 8L, budget / (k + 1)) / RECORD_BYTES * RECORD_BYTES);
+        ByteBuffer output = ByteBuffer.allocate(bufferSize);
+        RunReader[] readers = new RunReader[k];
+        try {
+            for (int i = 0; i < k; i++)
+                readers[i] = new RunReader(runs.get(i), bufferSize);
+            LoserTree tree = new LoserTree(readers);
+            for (int w; (w = tree.winner()) >= 0; ) {
+                if (output.remaining() < RECORD_BYTES)
+                    flush(output, out);
+                long h = tree.hi[w];
+                long l = tree.lo[w];
+                if (decode)
+                    put(output, id(h), idcard(h, l), weight(l));
+                else
+                    output.putLong(h).putLong(l);
+                tree.advance(w);
+            }
+            flush(output, out);
+        } finally {
+            for (RunReader reader : readers) {
+                if (reader != null)
+                    reader.close();
+            }
+        }
+    }
+
+    private static final class RunReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        RunReader(Path run, int bufferSize) throws IOException {
+            channel = FileChannel.open(run, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocate(bufferSize);
+            buffer.flip();
+        }
+
+        // 把下一条记录放进 hi[i] / lo[i]，没有记录时返回 false
+        boolean next(long[] hi, long[] lo, int i) throws IOException {
+            if (buffer.remaining() < RECORD_BYTES) {
+                buffer.compact();
+                while (buffer.position() < RECORD_BYTES && channel.read(buffer) >= 0) {
+                    // 读满一条记录为止
+                }
+                buffer.flip();
+                if (buffer.remaining() < RECORD_BYTES)
+                    return false;
+            }
+            hi[i] = buffer.getLong();
+            lo[i] = buffer.getLong();
+            return true;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /*
+     败者树：内部节点保存比赛的败者，tree[0] 是总的胜者（最小的记录）
+        取走胜者之后，只需要从它的叶子到根重新比赛一次，比较 log2(k) 次；每个节点只和它保存的败者比较，不需要和兄弟节点比较
+        初始化时所有内部节点先放一个 "负无穷" 的虚拟选手 k，再依次加入每个叶子
+     */
+    static final class LoserTree {
+        final long[] hi;
+        final long[] lo;
+        private final boolean[] exhausted;
+        private final int[] tree;
+        private final RunReader[] readers;
+        private final int k;
+
+        LoserTree(RunReader[] readers) throws IOException {
+            this.readers = readers;
+            k = readers.length;
+            hi = new long[k];
+            lo = new long[k];
+            exhausted = new boolean[k];
+            tree = new int[Math.max(1, k)];
+            Arrays.fill(tree, k);
+            for (int i = 0; i < k; i++)
+                exhausted[i] = !readers[i].next(hi, lo, i);
+            for (int i = k - 1; i >= 0; i--)
+                replay(i);
+        }
+
+        // 最小的记录所在的顺串，全部读完时返回 -1
+        int winner() {
+            int w = tree[0];
+            return k == 0 || exhausted[w] ? -1 : w;
+        }
+
+        void advance(int w) throws IOException {
+            exhausted[w] = !readers[w].next(hi, lo, w);
+            replay(w);
+        }
+
+        private void replay(int leaf) {
+            int winner = leaf;
+            for (int t = (leaf + k) >>> 1; t > 0; t >>>= 1) {
+                if (greater(winner, tree[t])) {
+                    int loser = winner;
+                    winner = tree[t];
+                    tree[t] = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        // a 是否排在 b 后面；k 是负无穷，读完的顺串是正无穷
+        private boolean greater(int a, int b) {
+            if (a == k)
+                return false;
+            if (b == k)
+                return true;
+            if (exhausted[a])
+                return !exhausted[b];
+            if (exhausted[b])
+                return false;
+            int c = Long.compareUnsigned(hi[a], hi[b]);
+            return c > 0 || (c == 0 && Long.compareUnsigned(lo[a], lo[b]) > 0);
+        }
+    }
+
+    // ---- 记录和 (hi, lo) 的转换 ----
+
+    static long hi(int id, long idcard) {
+        return (long) (id ^ Integer.MIN_VALUE) << 32 | (idcard ^ Long.MIN_VALUE) >>> 32;
+    }
+
+    static long lo(long idcard, float weight) {
+        int bits = Float.floatToIntBits(weight);
+        int key = bits < 0 ? ~bits : bits ^ Integer.MIN_VALUE;
+        return (idcard ^ Long.MIN_VALUE) << 32 | (key & 0xFFFFFFFFL);
+    }
+
+    static int id(long hi) {
+        return (int) (hi >>> 32) ^ Integer.MIN_VALUE;
+    }
+
+    static long idcard(long hi, long lo) {
+        return (hi << 32 | lo >>> 32) ^ Long.MIN_VALUE;
+    }
+
+    static float weight(long lo) {
+        int key = (int) lo;
+        return Float.intBitsToFloat(key < 0 ? key ^ Integer.MIN_VALUE : ~key);
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            out.write(buffer);
+        buffer.clear();
+    }
+
+    // 有一个任务失败时停止整个线程池，并且等所有任务都结束之后才返回：调用者接着要删除已经生成的顺串，
+    // 如果只是 cancel，还在运行的任务可能在删除之后才创建出文件（Files.createTempFile / sortRun），这些文件就泄漏了
+    private static void await(List<Future<?>> futures, ExecutorService pool) throws IOException {
+        boolean completed = false;
+        try {
+            for (Future<?> f : futures)
+                f.get();
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof UncheckedIOException)
+                throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        } finally {
+            if (!completed)
+                stop(pool);
+        }
+    }
+
+    private static void stop(ExecutorService pool) {
+        pool.shutdownNow();
+        // 调用者可能正是因为被中断才停下来的，先清除中断标记，等待结束后再恢复
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.SECONDS))
+                    break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.chapter3.item14;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ 按 long 排序键对对象数组排序，代替 Arrays.sort(a, comparator)：每个元素只计算一次排序键，之后不再访问对象
+    1.排序键必须保持顺序：compare(x, y) 的符号和 Long.compare(key(x), key(y)) 相同，比如 PhoneNumber.toLong()
+    2.LSD 基数排序：每次按一个字节（8 位）把 (key, 下标) 稳定地分配到 256 个桶，最多 8 趟；
+        所有元素这个字节都相同的趟直接跳过，比如电话号码只用了 48 位，最高两个字节不需要排序
+    3.排序的是 long[] 和 int[]，连续内存，没有指针跳转，也没有比较；最后按下标的排列把对象放回原数组
+    4.和 Arrays.sort 一样是稳定的，key 相等的元素保持原来的顺序
+    5.parallelSort：数组很大时，提取排序键、每一趟的计数和分配、最后的重新排列都按块在 ForkJoinPool.commonPool 中并行执行，
+        每一块有自己的计数，分配时每一块写入自己的区间，结果和 sort 完全相同
+ 额外的内存：大约每个元素 24 字节（两份 long[] 和 int[]）加上一份对象数组的拷贝
+ */
+public final class RadixSort {
+
+    private static final int RADIX_BITS = 8;
+    private static final int BUCKETS = 1 << RADIX_BITS;
+    private static final int PASSES = Long.SIZE / RADIX_BITS;
+    // 小于这个长度时比较排序更快
+    private static final int SMALL = 64;
+    // 小于这个长度时并行没有收益
+    private static final int PARALLEL_THRESHOLD = 1 << 17;
+
+    private RadixSort() {
+    }
+
+    public static <T> void sort(T[] a, ToLongFunction<? super T> key) {
+        int n = a.length;
+        if (n < SMALL) {
+            Arrays.sort(a, Comparator.comparingLong(key));
+            return;
+        }
+        long[] keys = new long[n];
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++) {
+            // 翻转符号位，按无符号字节排序的结果就是有符号 long 的顺序
+            keys[i] = key.applyAsLong(a[i]) ^ Long.MIN_VALUE;
+            index[i] = i;
+        }
+        // 每个字节的计数只和元素的集合有关，和顺序无关，一次全部算出来
+        int[][] counts = new int[PASSES][BUCKETS];
+        for (long k : keys) {
+            for (int pass = 0; pass < PASSES; pass++)
+                counts[pass][digit(k, pass)]++;
+        }
+        long[] keyBuffer = new long[n];
+        int[] indexBuffer = new int[n];
+        for (int pass = 0; pass < PASSES; pass++) {
+            int[] count = counts[pass];
+            if (count[digit(keys[0], pass)] == n)
+                continue;
+            int offset = 0;
+            for (int d = 0; d < BUCKETS; d++) {
+                int c = count[d];
+                count[d] = offset;
+                offset += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int to = count[digit(keys[i], pass)]++;
+                keyBuffer[to] = keys[i];
+                indexBuffer[to] = index[i];
+            }
+            long[] k = keys;
+            keys = keyBuffer;
+            keyBuffer = k;
+            int[] x = index;
+            index = indexBuffer;
+            indexBuffer = x;
+        }
+        Object[] copy = a.clone();
+        for (int i = 0; i < n; i++)
+            a[i] = cast(copy[index[i]]);
+    }
+
+    public static <T> void parallelSort(T[] a, ToLongFunction<? super T> key) {
+        int n = a.length;
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (n < PARALLEL_THRESHOLD || parallelism < 2) {
+            sort(a, key);
+            return;
+        }
+        parallelSort(a, key, parallelism * 4);
+    }
+
+    // 分成大约 chunks 块并行排序；测试中直接调用，在单核的机器上也能覆盖并行的代码
+    static <T> void parallelSort(T[] a, ToLongFunction<? super T> key, int chunks) {
+        int n = a.length;
+        if (n < SMALL) {
+            sort(a, key);
+            return;
+        }
+        int chunkSize = (n + chunks - 1) / chunks;
+        // 向上取整之后，最后几块可能是空的
+        chunks = (n + chunkSize - 1) / chunkSize;
+        long[][] keys = {new long[n], new long[n]};
+        int[][] index = {new int[n], new int[n]};
+        forEachChunk(chunks, chunkSize, n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                keys[0][i] = key.applyAsLong(a[i]) ^ Long.MIN_VALUE;
+                index[0][i] = i;
+            }
+        });
+        int current = 0;
+        int[][] counts = new int[chunks][];
+        for (int pass = 0; pass < PASSES; pass++) {
+            final int p = pass;
+            final long[] sourceKeys = keys[current];
+            final int[] sourceIndex = index[current];
+            final long[] targetKeys = keys[current ^ 1];
+            final int[] targetIndex = index[current ^ 1];
+            // 分配之后每一块中的元素变了，所以每一趟都要重新计数
+            forEachChunk(chunks, chunkSize, n, (from, to) -> {
+                int[] count = new int[BUCKETS];
+                for (int i = from; i < to; i++)
+                    count[digit(sourceKeys[i], p)]++;
+                counts[from / chunkSize] = count;
+            });
+            int first = digit(sourceKeys[0], pass);
+            int same = 0;
+            for (int[] count : counts)
+                same += count[first];
+            if (same == n)
+                continue;
+            // 桶 d 中，前面的块排在后面的块之前，保证稳定
+            int offset = 0;
+            for (int d = 0; d < BUCKETS; d++) {
+                for (int[] count : counts) {
+                    int c = count[d];
+                    count[d] = offset;
+                    offset += c;
+                }
+            }
+            forEachChunk(chunks, chunkSize, n, (from, to) -> {
+                int[] next = counts[from / chunkSize];
+                for (int i = from; i < to; i++) {
+                    int at = next[digit(sourceKeys[i], p)]++;
+                    targetKeys[at] = sourceKeys[i];
+                    targetIndex[at] = sourceIndex[i];
+                }
+            });
+            current ^= 1;
+        }
+        Object[] copy = a.clone();
+        int[] order = index[current];
+        forEachChunk(chunks, chunkSize, n, (from, to) -> {
+            for (int i = from; i < to; i++)
+                a[i] = cast(copy[order[i]]);
+        });
+    }
+
+    private static int digit(long key, int pass) {
+        return (int) (key >>> (pass * RADIX_BITS)) & (BUCKETS - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object o) {
+        return (T) o;
+    }
+
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    // 把 [0, n) 按 chunkSize 分块，在 commonPool 中并行处理，全部完成后返回
+    private static void forEachChunk(int chunks, int chunkSize, int n, RangeAction action) {
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int from = c * chunkSize;
+            action.run(from, Math.min(n, from + chunkSize));
+        });
+    }
+}
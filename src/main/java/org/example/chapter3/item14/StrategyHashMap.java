@@ -0,0 +1,269 @@
+package org.example.chapter3.item14;
+
+import org.example.chapter3.item11.Hashing;
+import org.example.chapter4.item20.AbstractMapCursor;
+import org.example.chapter4.item20.MapCursor;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ 相等规则由 HashingStrategy 决定的 Map，比如 key 是 BigDecimal 时按数值比较，不需要包装，也不需要 stripTrailingZeros()
+    1.开放寻址 + 线性探测，key、哈希值、value 放在下标相同的三个数组中，删除时往前移动（backward shift），CaseInsensitiveMap 也是基于这个类实现的
+    2.strategy 计算的哈希值和 key 一起保存：探测时先比较哈希值，相等才调用 strategy.equals；扩容时不用重新计算
+    3.strategy.hashCode 的低位可能分布很差（比如 Double.hashCode），放入槽位之前再用 Hashing.mix 打散
+    4.key 保留第一次 put 时的对象，之后等价的 key 再 put 只替换 value
+    5.forEach 和 cursor() 遍历时都不创建对象，cursor 还可以修改当前元素的 value，见 chapter4.item20.MapCursor
+ key 不能是 null，不是线程安全的
+ */
+public final class StrategyHashMap<K, V> {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final HashingStrategy<? super K> strategy;
+    private Object[] keys;
+    private int[] hashes;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public StrategyHashMap(HashingStrategy<? super K> strategy) {
+        this(strategy, 0);
+    }
+
+    public StrategyHashMap(HashingStrategy<? super K> strategy, int expectedSize) {
+        this.strategy = Objects.requireNonNull(strategy, "strategy");
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expectedSize: " + expectedSize);
+        long needed = (long) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1;
+        if (needed > MAX_CAPACITY)
+            throw new IllegalArgumentException("too many elements: " + expectedSize);
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    public HashingStrategy<? super K> strategy() {
+        return strategy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the previous value, or {@code null} if there was none
+     */
+    public V put(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        if (size >= resizeAt) {
+            if (keys.length == MAX_CAPACITY)
+                throw new IllegalStateException("map is full");
+            rehash(keys.length << 1);
+        }
+        return insert(key, strategy.hashCode(key), value);
+    }
+
+    public V get(K key) {
+        return getOrDefault(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(K key, V defaultValue) {
+        int i = indexOf(key);
+        return i < 0 ? defaultValue : (V) values[i];
+    }
+
+    public boolean containsKey(K key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the stored key equivalent to {@code key}, e.g. {@code 1.0} for a lookup of {@code 1.00}.
+     */
+    @SuppressWarnings("unchecked")
+    public K canonicalKey(K key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (K) keys[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int i = indexOf(key);
+        if (i < 0)
+            return null;
+        V old = (V) values[i];
+        shiftBack(i);
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Object[] k = keys;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != null)
+                action.accept((K) k[i], (V) values[i]);
+        }
+    }
+
+    public MapCursor<K, V> cursor() {
+        return new Cursor();
+    }
+
+    private final class Cursor extends AbstractMapCursor<K, V> {
+        // 扩容会换掉数组，遍历中 put 新的 key 导致扩容时可以检查出来
+        private final Object[] k = keys;
+        private int index = -1;
+
+        @Override public boolean advance() {
+            if (keys != k)
+                throw new ConcurrentModificationException();
+            while (++index < k.length) {
+                if (k[index] != null)
+                    return true;
+            }
+            index = k.length;
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public K key() {
+            return (K) k[current()];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public V value() {
+            return (V) values[current()];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public V setValue(V value) {
+            int i = current();
+            V old = (V) values[i];
+            values[i] = value;
+            return old;
+        }
+
+        private int current() {
+            if (index < 0 || index >= k.length)
+                throw new IllegalStateException("no current entry");
+            return index;
+        }
+    }
+
+    private int slot(int hash) {
+        return Hashing.mix(hash) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int indexOf(K key) {
+        int hash = strategy.hashCode(key);
+        Object[] k = keys;
+        int[] h = hashes;
+        for (int i = slot(hash); ; i = (i + 1) & mask) {
+            Object candidate = k[i];
+            if (candidate == null)
+                return -1;
+            if (h[i] == hash && (candidate == key || strategy.equals((K) candidate, key)))
+                return i;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V insert(K key, int hash, V value) {
+        Object[] k = keys;
+        int[] h = hashes;
+        for (int i = slot(hash); ; i = (i + 1) & mask) {
+            Object candidate = k[i];
+            if (candidate == null) {
+                k[i] = key;
+                h[i] = hash;
+                values[i] = value;
+                size++;
+                return null;
+            }
+            if (h[i] == hash && (candidate == key || strategy.equals((K) candidate, key))) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+    }
+
+    // 同 PhoneNumberSet.shiftBack：把后面 "理想位置不在 (hole, j] 中" 的元素移到 hole
+    private void shiftBack(int hole) {
+        Object[] k = keys;
+        int[] h = hashes;
+        for (int j = (hole + 1) & mask; k[j] != null; j = (j + 1) & mask) {
+            int ideal = slot(h[j]);
+            if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+                k[hole] = k[j];
+                h[hole] = h[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        k[hole] = null;
+        values[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null)
+                place(oldKeys[i], oldHashes[i], oldValues[i]);
+        }
+    }
+
+    // 扩容时使用：key 一定不重复，直接放到第一个空槽位
+    private void place(Object key, int hash, Object value) {
+        int i = slot(hash);
+        while (keys[i] != null)
+            i = (i + 1) & mask;
+        keys[i] = key;
+        hashes[i] = hash;
+        values[i] = value;
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+}
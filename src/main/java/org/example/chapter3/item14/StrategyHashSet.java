@@ -0,0 +1,64 @@
+package org.example.chapter3.item14;
+
+import java.util.function.Consumer;
+
+/**
+ 相等规则由 HashingStrategy 决定的集合，和 HashSet 基于 HashMap 一样，基于 StrategyHashMap 实现
+    new StrategyHashSet<>(HashingStrategy.numericValue()) 和 TreeSet<BigDecimal> 一样认为 1.0 和 1.00 是同一个元素，查找是 O(1)
+ 不能放入 null，不是线程安全的
+ */
+public final class StrategyHashSet<E> {
+
+    private static final Object PRESENT = new Object();
+
+    private final StrategyHashMap<E, Object> map;
+
+    public StrategyHashSet(HashingStrategy<? super E> strategy) {
+        this(strategy, 0);
+    }
+
+    public StrategyHashSet(HashingStrategy<? super E> strategy, int expectedSize) {
+        map = new StrategyHashMap<>(strategy, expectedSize);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * @return {@code false} if an equivalent element was already present
+     */
+    public boolean add(E e) {
+        return map.put(e, PRESENT) == null;
+    }
+
+    public boolean contains(E e) {
+        return map.containsKey(e);
+    }
+
+    public boolean remove(E e) {
+        return map.remove(e) != null;
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public void forEach(Consumer<? super E> action) {
+        map.forEach((k, v) -> action.accept(k));
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        forEach(e -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(e);
+        });
+        return sb.append(']').toString();
+    }
+}
@@ -40,8 +40,9 @@ public class Code17_MinimizeMutable {
         static {
             int h = 127;
             // 表示可以从JVM的配置中获取high的值，或者使用默认值
+            // JDK 9 以后 sun.misc.VM 移到了 jdk.internal.misc.VM，外部无法访问，这里用 System.getProperty 代替
             String integerCacheHighPropValue =
-                    sun.misc.VM.getSavedProperty("java.lang.Integer.IntegerCache.high");
+                    System.getProperty("java.lang.Integer.IntegerCache.high");
             if (integerCacheHighPropValue != null) {
                 try {
                     // .... 省略
@@ -29,6 +29,8 @@ public class Code18 {
 
     // Wrapper class - uses composition in place of inheritance
     // be careful, the class it extended is Forwarding class, not Set
+    // 补充：addCount++ 不是原子操作，多个线程同时 add 时会丢失计数，而且只统计了 add；
+    //     线程安全、统计 add / remove / contains 的版本见 item18.InstrumentedSet（还有 InstrumentedMap、InstrumentedList）
      class InstrumentedSet<E> extends ForwardingSet<E> {
         private int addCount = 0;
         public InstrumentedSet(Set<E> s) {
@@ -49,6 +51,7 @@ public class Code18 {
 
 
     // 转发类的实例
+    // 补充：转发类可以在编译时生成，见 item18.processor.Forwarding（生成 SetForwarder 等）
      class ForwardingSet<E> implements Set<E> {
         private final Set<E> s;
 
@@ -0,0 +1,18 @@
+package org.example.chapter4.item18;
+
+import org.example.chapter4.item18.processor.Forwarding;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ 编译时生成的转发类，代替手写的 ForwardingSet / ForwardingList / ForwardingMap
+    1.生成 SetForwarder、ListForwarder、MapForwarder、QueueForwarder，都是 final 的，只能组合使用
+    2.和计数的 InstrumentedSetForwarder 等，每个方法一个 LongAdder；需要命中率、延迟时仍然用 InstrumentedSet
+    3.和 Proxy、手写 ForwardingSet 的对比见 ForwardingBenchmark
+ */
+@Forwarding(value = {Set.class, List.class, Map.class, Queue.class}, instrumented = true)
+interface Forwarders {
+}
@@ -0,0 +1,119 @@
+package org.example.chapter4.item18;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+// 和 ForwardingSet 一样，List 的所有方法都转发给被包装的 List
+public class ForwardingList<E> implements List<E> {
+    private final List<E> l;
+
+    public ForwardingList(List<E> l) {
+        this.l = l;
+    }
+
+    public void clear() {
+        l.clear();
+    }
+
+    public boolean contains(Object o) {
+        return l.contains(o);
+    }
+
+    public boolean isEmpty() {
+        return l.isEmpty();
+    }
+
+    public int size() {
+        return l.size();
+    }
+
+    public Iterator<E> iterator() {
+        return l.iterator();
+    }
+
+    public ListIterator<E> listIterator() {
+        return l.listIterator();
+    }
+
+    public ListIterator<E> listIterator(int index) {
+        return l.listIterator(index);
+    }
+
+    public boolean add(E e) {
+        return l.add(e);
+    }
+
+    public void add(int index, E element) {
+        l.add(index, element);
+    }
+
+    public boolean remove(Object o) {
+        return l.remove(o);
+    }
+
+    public E remove(int index) {
+        return l.remove(index);
+    }
+
+    public E get(int index) {
+        return l.get(index);
+    }
+
+    public E set(int index, E element) {
+        return l.set(index, element);
+    }
+
+    public int indexOf(Object o) {
+        return l.indexOf(o);
+    }
+
+    public int lastIndexOf(Object o) {
+        return l.lastIndexOf(o);
+    }
+
+    public List<E> subList(int fromIndex, int toIndex) {
+        return l.subList(fromIndex, toIndex);
+    }
+
+    public boolean containsAll(Collection<?> c) {
+        return l.containsAll(c);
+    }
+
+    public boolean addAll(Collection<? extends E> c) {
+        return l.addAll(c);
+    }
+
+    public boolean addAll(int index, Collection<? extends E> c) {
+        return l.addAll(index, c);
+    }
+
+    public boolean removeAll(Collection<?> c) {
+        return l.removeAll(c);
+    }
+
+    public boolean retainAll(Collection<?> c) {
+        return l.retainAll(c);
+    }
+
+    public Object[] toArray() {
+        return l.toArray();
+    }
+
+    public <T> T[] toArray(T[] a) {
+        return l.toArray(a);
+    }
+
+    @Override public boolean equals(Object o) {
+        return l.equals(o);
+    }
+
+    @Override public int hashCode() {
+        return l.hashCode();
+    }
+
+    @Override public String toString() {
+        return l.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.chapter4.item18;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ 和 ForwardingSet 一样，Map 的所有方法都转发给被包装的 Map
+    putIfAbsent、computeIfAbsent、merge 这些默认方法也要转发：Map 接口中的默认实现是 "先 get 再 put"，
+    不转发的话，包装 ConcurrentHashMap 之后这些操作就不再是原子的
+ */
+public class ForwardingMap<K, V> implements Map<K, V> {
+    private final Map<K, V> m;
+
+    public ForwardingMap(Map<K, V> m) {
+        this.m = m;
+    }
+
+    public int size() {
+        return m.size();
+    }
+
+    public boolean isEmpty() {
+        return m.isEmpty();
+    }
+
+    public boolean containsKey(Object key) {
+        return m.containsKey(key);
+    }
+
+    public boolean containsValue(Object value) {
+        return m.containsValue(value);
+    }
+
+    public V get(Object key) {
+        return m.get(key);
+    }
+
+    public V put(K key, V value) {
+        return m.put(key, value);
+    }
+
+    public V remove(Object key) {
+        return m.remove(key);
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map) {
+        m.putAll(map);
+    }
+
+    public void clear() {
+        m.clear();
+    }
+
+    public Set<K> keySet() {
+        return m.keySet();
+    }
+
+    public Collection<V> values() {
+        return m.values();
+    }
+
+    public Set<Entry<K, V>> entrySet() {
+        return m.entrySet();
+    }
+
+    @Override public V getOrDefault(Object key, V defaultValue) {
+        return m.getOrDefault(key, defaultValue);
+    }
+
+    @Override public void forEach(BiConsumer<? super K, ? super V> action) {
+        m.forEach(action);
+    }
+
+    @Override public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        m.replaceAll(function);
+    }
+
+    @Override public V putIfAbsent(K key, V value) {
+        return m.putIfAbsent(key, value);
+    }
+
+    @Override public boolean remove(Object key, Object value) {
+        return m.remove(key, value);
+    }
+
+    @Override public boolean replace(K key, V oldValue, V newValue) {
+        return m.replace(key, oldValue, newValue);
+    }
+
+    @Override public V replace(K key, V value) {
+        return m.replace(key, value);
+    }
+
+    @Override public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return m.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return m.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return m.compute(key, remappingFunction);
+    }
+
+    @Override public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return m.merge(key, value, remappingFunction);
+    }
+
+    @Override public boolean equals(Object o) {
+        return m.equals(o);
+    }
+
+    @Override public int hashCode() {
+        return m.hashCode();
+    }
+
+    @Override public String toString() {
+        return m.toString();
+    }
+}
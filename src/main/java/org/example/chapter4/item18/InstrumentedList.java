@@ -0,0 +1,97 @@
+package org.example.chapter4.item18;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import static org.example.chapter4.item18.OperationStats.Operation.ADD;
+import static org.example.chapter4.item18.OperationStats.Operation.LOOKUP;
+import static org.example.chapter4.item18.OperationStats.Operation.REMOVE;
+
+/**
+ 和 InstrumentedSet 相同的统计，包装 List：add、remove 按元素个数计数，contains / indexOf / lastIndexOf 是 lookup
+ get(int) 不计数，按下标读是 List 最频繁的操作，计数的开销不值得
+ */
+public class InstrumentedList<E> extends ForwardingList<E> {
+    private final OperationStats stats;
+
+    public InstrumentedList(List<E> l) {
+        this(l, new OperationStats());
+    }
+
+    public InstrumentedList(List<E> l, OperationStats stats) {
+        super(l);
+        this.stats = Objects.requireNonNull(stats);
+    }
+
+    @Override public boolean add(E e) {
+        stats.increment(ADD);
+        long start = stats.startSample();
+        boolean added = super.add(e);
+        stats.endSample(ADD, start);
+        return added;
+    }
+
+    @Override public void add(int index, E element) {
+        stats.increment(ADD);
+        long start = stats.startSample();
+        super.add(index, element);
+        stats.endSample(ADD, start);
+    }
+
+    @Override public boolean addAll(Collection<? extends E> c) {
+        stats.add(ADD, c.size());
+        long start = stats.startSample();
+        boolean changed = super.addAll(c);
+        stats.endSample(ADD, start);
+        return changed;
+    }
+
+    @Override public boolean addAll(int index, Collection<? extends E> c) {
+        stats.add(ADD, c.size());
+        long start = stats.startSample();
+        boolean changed = super.addAll(index, c);
+        stats.endSample(ADD, start);
+        return changed;
+    }
+
+    @Override public boolean remove(Object o) {
+        stats.increment(REMOVE);
+        long start = stats.startSample();
+        boolean removed = super.remove(o);
+        stats.endSample(REMOVE, start);
+        return removed;
+    }
+
+    @Override public E remove(int index) {
+        stats.increment(REMOVE);
+        long start = stats.startSample();
+        E removed = super.remove(index);
+        stats.endSample(REMOVE, start);
+        return removed;
+    }
+
+    @Override public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override public int indexOf(Object o) {
+        long start = stats.startSample();
+        int index = super.indexOf(o);
+        stats.endSample(LOOKUP, start);
+        stats.lookup(index >= 0);
+        return index;
+    }
+
+    @Override public int lastIndexOf(Object o) {
+        long start = stats.startSample();
+        int index = super.lastIndexOf(o);
+        stats.endSample(LOOKUP, start);
+        stats.lookup(index >= 0);
+        return index;
+    }
+
+    public OperationStats stats() {
+        return stats;
+    }
+}
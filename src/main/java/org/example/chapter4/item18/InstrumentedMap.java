@@ -0,0 +1,99 @@
+package org.example.chapter4.item18;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static org.example.chapter4.item18.OperationStats.Operation.ADD;
+import static org.example.chapter4.item18.OperationStats.Operation.LOOKUP;
+import static org.example.chapter4.item18.OperationStats.Operation.REMOVE;
+
+/**
+ 和 InstrumentedSet 相同的统计，包装 Map
+    1.put、putIfAbsent、computeIfAbsent 是 add，putAll 按元素个数计数；remove 是 remove；get、getOrDefault、containsKey 是 lookup
+    2.get 返回 null 算未命中，value 是 null 的 key 也算未命中；getOrDefault 用一个内部的哨兵对象查找，命中的判断是准确的
+    3.其余的方法（compute、merge 等）只转发，不计数
+ */
+public class InstrumentedMap<K, V> extends ForwardingMap<K, V> {
+    private static final Object MISSING = new Object();
+
+    private final OperationStats stats;
+
+    public InstrumentedMap(Map<K, V> m) {
+        this(m, new OperationStats());
+    }
+
+    public InstrumentedMap(Map<K, V> m, OperationStats stats) {
+        super(m);
+        this.stats = Objects.requireNonNull(stats);
+    }
+
+    @Override public V put(K key, V value) {
+        stats.increment(ADD);
+        long start = stats.startSample();
+        V old = super.put(key, value);
+        stats.endSample(ADD, start);
+        return old;
+    }
+
+    @Override public V putIfAbsent(K key, V value) {
+        stats.increment(ADD);
+        long start = stats.startSample();
+        V old = super.putIfAbsent(key, value);
+        stats.endSample(ADD, start);
+        return old;
+    }
+
+    @Override public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        stats.increment(ADD);
+        long start = stats.startSample();
+        V value = super.computeIfAbsent(key, mappingFunction);
+        stats.endSample(ADD, start);
+        return value;
+    }
+
+    @Override public void putAll(Map<? extends K, ? extends V> map) {
+        stats.add(ADD, map.size());
+        long start = stats.startSample();
+        super.putAll(map);
+        stats.endSample(ADD, start);
+    }
+
+    @Override public V remove(Object key) {
+        stats.increment(REMOVE);
+        long start = stats.startSample();
+        V old = super.remove(key);
+        stats.endSample(REMOVE, start);
+        return old;
+    }
+
+    @Override public V get(Object key) {
+        long start = stats.startSample();
+        V value = super.get(key);
+        stats.endSample(LOOKUP, start);
+        stats.lookup(value != null);
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public V getOrDefault(Object key, V defaultValue) {
+        long start = stats.startSample();
+        Object value = super.getOrDefault(key, (V) MISSING);
+        stats.endSample(LOOKUP, start);
+        boolean hit = value != MISSING;
+        stats.lookup(hit);
+        return hit ? (V) value : defaultValue;
+    }
+
+    @Override public boolean containsKey(Object key) {
+        long start = stats.startSample();
+        boolean found = super.containsKey(key);
+        stats.endSample(LOOKUP, start);
+        stats.lookup(found);
+        return found;
+    }
+
+    public OperationStats stats() {
+        return stats;
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.chapter4.item18;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.example.chapter4.item18.OperationStats.Operation.ADD;
+import static org.example.chapter4.item18.OperationStats.Operation.LOOKUP;
+import static org.example.chapter4.item18.OperationStats.Operation.REMOVE;
+
+/**
+ Code18.InstrumentedSet 的线程安全版本：继承转发类，不继承具体的 Set，统计 add、remove、contains
+    1.计数在 OperationStats 中，用 LongAdder，多个线程同时 add 不会丢失计数
+    2.add 按元素个数计数（和 Code18 相同，addAll 加 c.size()），不管元素是否已经存在；contains 记录命中和未命中
+    3.是否线程安全取决于被包装的 Set，比如 ConcurrentHashMap.newKeySet()
+ */
+public class InstrumentedSet<E> extends ForwardingSet<E> {
+    private final OperationStats stats;
+
+    public InstrumentedSet(Set<E> s) {
+        this(s, new OperationStats());
+    }
+
+    public InstrumentedSet(Set<E> s, OperationStats stats) {
+        super(s);
+        this.stats = Objects.requireNonNull(stats);
+    }
+
+    @Override public boolean add(E e) {
+        stats.increment(ADD);
+        long start = stats.startSample();
+        boolean added = super.add(e);
+        stats.endSample(ADD, start);
+        return added;
+    }
+
+    @Override public boolean addAll(Collection<? extends E> c) {
+        stats.add(ADD, c.size());
+        long start = stats.startSample();
+        boolean changed = super.addAll(c);
+        stats.endSample(ADD, start);
+        return changed;
+    }
+
+    @Override public boolean remove(Object o) {
+        stats.increment(REMOVE);
+        long start = stats.startSample();
+        boolean removed = super.remove(o);
+        stats.endSample(REMOVE, start);
+        return removed;
+    }
+
+    @Override public boolean removeAll(Collection<?> c) {
+        stats.add(REMOVE, c.size());
+        long start = stats.startSample();
+        boolean changed = super.removeAll(c);
+        stats.endSample(REMOVE, start);
+        return changed;
+    }
+
+    @Override public boolean contains(Object o) {
+        long start = stats.startSample();
+        boolean found = super.contains(o);
+        stats.endSample(LOOKUP, start);
+        stats.lookup(found);
+        return found;
+    }
+
+    public long getAddCount() {
+        return stats.count(ADD);
+    }
+
+    public OperationStats stats() {
+        return stats;
+    }
+}
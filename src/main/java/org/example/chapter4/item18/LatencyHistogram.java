@@ -0,0 +1,75 @@
+package org.example.chapter4.item18;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ 按 2 的幂分桶的延迟直方图：桶 i 是 [2^(i-1), 2^i) 纳秒，桶 0 是 0 纳秒
+    1.每个桶是一个 LongAdder，多个线程同时记录时不竞争同一个变量
+    2.分位数只能精确到桶：percentile 返回所在桶的上界，误差最多是 2 倍，用来看量级和长尾足够了
+    3.读取时不加锁，记录和读取同时进行时结果是近似的
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        buckets[bucket(nanos)].increment();
+    }
+
+    static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(nanos);
+    }
+
+    // 桶 i 中最大的值
+    static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder b : buckets)
+            count += b.sum();
+        return count;
+    }
+
+    /**
+     * Returns an upper bound for the given percentile (0..100), or 0 if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile: " + percentile);
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0)
+            return 0;
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0)
+                return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    public void reset() {
+        for (LongAdder b : buckets)
+            b.reset();
+    }
+
+    @Override public String toString() {
+        return "count=" + count() + " p50<=" + percentile(50) + "ns p99<=" + percentile(99)
+                + "ns p99.9<=" + percentile(99.9) + "ns";
+    }
+}
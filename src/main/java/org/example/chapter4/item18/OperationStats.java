@@ -0,0 +1,127 @@
+package org.example.chapter4.item18;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ Instrumented 集合的计数器：add、remove、lookup 的次数，lookup 的命中和未命中，可选的延迟直方图
+    1.Code18.InstrumentedSet 的 addCount++ 不是原子的，多个线程同时 add 会丢失计数；这里都用 LongAdder：
+        每个线程更新自己的 cell（按线程的探针值分散），竞争时不在同一个缓存行上 CAS，sum() 时再加起来
+    2.延迟按 sampleRate 采样：是否采样由 ThreadLocalRandom 决定，没有共享的状态；没被采样的操作不调用 System.nanoTime，
+        sampleRate 为 0 时完全不记录延迟
+    3.几个 Instrumented 集合可以共用一个 OperationStats，统计合在一起
+ */
+public final class OperationStats {
+
+    public enum Operation {ADD, REMOVE, LOOKUP}
+
+    static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final LongAdder[] counts = new LongAdder[Operation.values().length];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // 不采样时是 null
+    private final LatencyHistogram[] latencies;
+    private final int sampleMask;
+
+    public OperationStats() {
+        this(0);
+    }
+
+    /**
+     * @param sampleRate records the latency of about one in {@code sampleRate} operations; a power of two,
+     *                   or 0 to record no latencies
+     */
+    public OperationStats(int sampleRate) {
+        if (sampleRate < 0 || Integer.bitCount(sampleRate) > 1)
+            throw new IllegalArgumentException("sampleRate must be 0 or a power of two: " + sampleRate);
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = new LongAdder();
+        if (sampleRate == 0) {
+            latencies = null;
+            sampleMask = 0;
+        } else {
+            latencies = new LatencyHistogram[counts.length];
+            for (int i = 0; i < latencies.length; i++)
+                latencies[i] = new LatencyHistogram();
+            sampleMask = sampleRate - 1;
+        }
+    }
+
+    // ---- 记录，Instrumented 集合调用 ----
+
+    void increment(Operation op) {
+        counts[op.ordinal()].increment();
+    }
+
+    void add(Operation op, long n) {
+        counts[op.ordinal()].add(n);
+    }
+
+    void lookup(boolean hit) {
+        counts[Operation.LOOKUP.ordinal()].increment();
+        (hit ? hits : misses).increment();
+    }
+
+    // 这次操作被采样时返回开始的时间，否则返回 NOT_SAMPLED
+    long startSample() {
+        if (latencies == null || (ThreadLocalRandom.current().nextInt() & sampleMask) != 0)
+            return NOT_SAMPLED;
+        return System.nanoTime();
+    }
+
+    void endSample(Operation op, long start) {
+        if (start != NOT_SAMPLED)
+            latencies[op.ordinal()].record(System.nanoTime() - start);
+    }
+
+    // ---- 读取 ----
+
+    public long count(Operation op) {
+        return counts[op.ordinal()].sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the sampled latencies of {@code op}, or {@code null} if sampling is off.
+     */
+    public LatencyHistogram latency(Operation op) {
+        return latencies == null ? null : latencies[op.ordinal()];
+    }
+
+    public Map<Operation, Long> counts() {
+        Map<Operation, Long> result = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values())
+            result.put(op, count(op));
+        return result;
+    }
+
+    public void reset() {
+        for (LongAdder c : counts)
+            c.reset();
+        hits.reset();
+        misses.reset();
+        if (latencies != null) {
+            for (LatencyHistogram h : latencies)
+                h.reset();
+        }
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder().append(counts()).append(" hits=").append(hits()).append(" misses=").append(misses());
+        if (latencies != null) {
+            for (Operation op : Operation.values())
+                sb.append(' ').append(op).append(": ").append(latency(op));
+        }
+        return sb.toString();
+    }
+}
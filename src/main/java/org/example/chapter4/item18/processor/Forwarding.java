@@ -0,0 +1,24 @@
+package org.example.chapter4.item18.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ 编译时由 ForwardingProcessor 生成转发类，代替 Code18 中手写的 ForwardingSet
+    1.value 是要转发的接口；为空时转发被注解的接口本身
+    2.生成的类在被注解类型所在的包中，名字是 XxxForwarder，final，所有方法（包括 default 方法和 equals / hashCode / toString）
+        都直接调用 delegate；调用点只有一个实现类，JIT 可以一直内联到 delegate，不像 java.lang.reflect.Proxy 要经过
+        InvocationHandler、Method.invoke 和参数数组
+    3.instrumented 为 true 时再生成 InstrumentedXxxForwarder：每个方法一个 LongAdder 计数
+    4.生成的类是 final 的，需要改变行为时用组合包装它，或者像 item18.InstrumentedSet 那样继承手写的转发类
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Forwarding {
+
+    Class<?>[] value() default {};
+
+    boolean instrumented() default false;
+}
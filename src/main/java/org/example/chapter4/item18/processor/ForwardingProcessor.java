@@ -0,0 +1,275 @@
+package org.example.chapter4.item18.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.MirroredTypesException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ 生成 @Forwarding 的转发类和计数装饰类
+    1.方法从接口开始按广度优先收集到所有父接口，子接口中的声明覆盖父接口中的同签名方法；静态方法和私有方法不转发
+    2.参数和返回值的类型用 Types.asMemberOf 代入接口自己的类型变量，所以 Collection 中的 add(E) 在 Set<E> 上还是 add(E)
+    3.equals / hashCode / toString 总是转发，和 Code18.ForwardingSet 相同
+ 在 pom.xml 中先单独编译这个包（proc none），再用它处理其余的源文件
+ */
+@SupportedAnnotationTypes("org.example.chapter4.item18.processor.Forwarding")
+public class ForwardingProcessor extends AbstractProcessor {
+
+    private static final String[] OBJECT_METHODS = {"equals", "hashCode", "toString"};
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element annotated : round.getElementsAnnotatedWith(Forwarding.class)) {
+            Forwarding forwarding = annotated.getAnnotation(Forwarding.class);
+            String pkg = processingEnv.getElementUtils().getPackageOf(annotated).getQualifiedName().toString();
+            for (TypeElement target : targets(annotated, forwarding)) {
+                if (target.getKind() != ElementKind.INTERFACE) {
+                    error(annotated, target.getQualifiedName() + " is not an interface");
+                    continue;
+                }
+                List<ExecutableElement> methods = methods(target);
+                write(annotated, pkg, target, methods, false);
+                if (forwarding.instrumented())
+                    write(annotated, pkg, target, methods, true);
+            }
+        }
+        return true;
+    }
+
+    private List<TypeElement> targets(Element annotated, Forwarding forwarding) {
+        List<? extends TypeMirror> mirrors;
+        try {
+            forwarding.value();
+            throw new AssertionError("Class values are not available while compiling");
+        } catch (MirroredTypesException e) {
+            // 编译时类还没有加载，只能拿到 TypeMirror
+            mirrors = e.getTypeMirrors();
+        }
+        List<TypeElement> result = new ArrayList<>();
+        if (mirrors.isEmpty())
+            result.add((TypeElement) annotated);
+        for (TypeMirror mirror : mirrors)
+            result.add((TypeElement) processingEnv.getTypeUtils().asElement(mirror));
+        return result;
+    }
+
+    private List<ExecutableElement> methods(TypeElement target) {
+        DeclaredType site = (DeclaredType) target.asType();
+        List<ExecutableElement> result = new ArrayList<>();
+        Deque<TypeElement> queue = new ArrayDeque<>();
+        Set<TypeElement> seen = new HashSet<>();
+        queue.add(target);
+        while (!queue.isEmpty()) {
+            TypeElement type = queue.poll();
+            if (!seen.add(type))
+                continue;
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                Set<Modifier> modifiers = method.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.PRIVATE)
+                        || isObjectMethod(method) || declared(result, method, site))
+                    continue;
+                result.add(method);
+            }
+            for (TypeMirror parent : type.getInterfaces())
+                queue.add((TypeElement) processingEnv.getTypeUtils().asElement(parent));
+        }
+        return result;
+    }
+
+    private boolean declared(List<ExecutableElement> methods, ExecutableElement method, DeclaredType site) {
+        ExecutableType type = memberType(site, method);
+        for (ExecutableElement m : methods) {
+            if (m.getSimpleName().equals(method.getSimpleName())
+                    && processingEnv.getTypeUtils().isSubsignature(memberType(site, m), type))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isObjectMethod(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        int params = method.getParameters().size();
+        return name.equals("equals") && params == 1
+                && method.getParameters().get(0).asType().toString().equals("java.lang.Object")
+                || (name.equals("hashCode") || name.equals("toString")) && params == 0;
+    }
+
+    private ExecutableType memberType(DeclaredType site, ExecutableElement method) {
+        return (ExecutableType) processingEnv.getTypeUtils().asMemberOf(site, method);
+    }
+
+    private void write(Element origin, String pkg, TypeElement target, List<ExecutableElement> methods,
+                       boolean instrumented) {
+        String simpleName = (instrumented ? "Instrumented" : "") + target.getSimpleName() + "Forwarder";
+        String type = target.asType().toString();
+        StringBuilder out = new StringBuilder();
+        if (!pkg.isEmpty())
+            out.append("package ").append(pkg).append(";\n\n");
+        out.append("@javax.annotation.processing.Generated(\"").append(ForwardingProcessor.class.getName()).append("\")\n");
+        out.append("public final class ").append(simpleName)
+                .append(typeParameters(target.getTypeParameters()))
+                .append(" implements ").append(type).append(" {\n\n");
+        DeclaredType site = (DeclaredType) target.asType();
+        if (instrumented) {
+            StringJoiner names = new StringJoiner(",\n            ", "java.util.List.of(\n            ", ");\n\n");
+            for (ExecutableElement method : methods)
+                names.add('"' + signature(method, memberType(site, method)) + '"');
+            for (String name : OBJECT_METHODS)
+                names.add('"' + name + (name.equals("equals") ? "(java.lang.Object)" : "()") + '"');
+            out.append("    public static final java.util.List<String> METHODS = ").append(names);
+            out.append("    private final java.util.concurrent.atomic.LongAdder[] counts =\n")
+                    .append("            new java.util.concurrent.atomic.LongAdder[METHODS.size()];\n");
+        }
+        out.append("    private final ").append(type).append(" delegate;\n\n");
+        out.append("    public ").append(simpleName).append('(').append(type).append(" delegate) {\n");
+        out.append("        this.delegate = java.util.Objects.requireNonNull(delegate);\n");
+        if (instrumented) {
+            out.append("        for (int i = 0; i < counts.length; i++)\n");
+            out.append("            counts[i] = new java.util.concurrent.atomic.LongAdder();\n");
+        }
+        out.append("    }\n");
+
+        int index = 0;
+        for (ExecutableElement method : methods)
+            writeMethod(out, method, memberType(site, method), instrumented ? index++ : -1);
+        writeObjectMethods(out, instrumented ? index : -1);
+        if (instrumented)
+            writeCounters(out);
+        out.append("}\n");
+
+        String name = pkg.isEmpty() ? simpleName : pkg + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(name, origin).openWriter()) {
+            writer.write(out.toString());
+        } catch (IOException e) {
+            error(origin, "cannot write " + name + ": " + e);
+        }
+    }
+
+    private static void writeMethod(StringBuilder out, ExecutableElement method, ExecutableType type, int counter) {
+        out.append("\n    @Override\n    public ");
+        if (!type.getTypeVariables().isEmpty()) {
+            List<TypeParameterElement> params = new ArrayList<>();
+            for (TypeVariable variable : type.getTypeVariables())
+                params.add((TypeParameterElement) variable.asElement());
+            out.append(typeParameters(params)).append(' ');
+        }
+        out.append(type.getReturnType()).append(' ').append(method.getSimpleName()).append('(');
+        StringJoiner params = new StringJoiner(", ");
+        StringJoiner args = new StringJoiner(", ");
+        List<? extends TypeMirror> paramTypes = type.getParameterTypes();
+        for (int i = 0; i < paramTypes.size(); i++) {
+            String paramType = paramTypes.get(i).toString();
+            if (method.isVarArgs() && i == paramTypes.size() - 1)
+                paramType = paramType.substring(0, paramType.length() - 2) + "...";
+            String name = method.getParameters().get(i).getSimpleName().toString();
+            params.add(paramType + " " + name);
+            args.add(name);
+        }
+        out.append(params).append(')');
+        if (!type.getThrownTypes().isEmpty()) {
+            StringJoiner thrown = new StringJoiner(", ", " throws ", "");
+            for (TypeMirror t : type.getThrownTypes())
+                thrown.add(t.toString());
+            out.append(thrown);
+        }
+        out.append(" {\n");
+        if (counter >= 0)
+            out.append("        this.counts[").append(counter).append("].increment();\n");
+        out.append("        ").append(type.getReturnType().getKind() == TypeKind.VOID ? "" : "return ")
+                .append("this.delegate.").append(method.getSimpleName()).append('(').append(args).append(");\n");
+        out.append("    }\n");
+    }
+
+    private static void writeObjectMethods(StringBuilder out, int counter) {
+        String[][] methods = {
+                {"boolean", "equals", "Object o", "o"},
+                {"int", "hashCode", "", ""},
+                {"String", "toString", "", ""}};
+        for (String[] m : methods) {
+            out.append("\n    @Override\n    public ").append(m[0]).append(' ').append(m[1])
+                    .append('(').append(m[2]).append(") {\n");
+            if (counter >= 0)
+                out.append("        this.counts[").append(counter++).append("].increment();\n");
+            out.append("        return this.delegate.").append(m[1]).append('(').append(m[3]).append(");\n    }\n");
+        }
+    }
+
+    private static void writeCounters(StringBuilder out) {
+        out.append("\n    // method 是 METHODS 中的名字\n");
+        out.append("    public long count(String method) {\n");
+        out.append("        int i = METHODS.indexOf(method);\n");
+        out.append("        if (i < 0)\n");
+        out.append("            throw new IllegalArgumentException(\"no such method: \" + method);\n");
+        out.append("        return counts[i].sum();\n");
+        out.append("    }\n\n");
+        out.append("    // 调用过的方法和次数\n");
+        out.append("    public java.util.Map<String, Long> counts() {\n");
+        out.append("        java.util.Map<String, Long> result = new java.util.LinkedHashMap<>();\n");
+        out.append("        for (int i = 0; i < counts.length; i++) {\n");
+        out.append("            long n = counts[i].sum();\n");
+        out.append("            if (n != 0)\n");
+        out.append("                result.put(METHODS.get(i), n);\n");
+        out.append("        }\n");
+        out.append("        return result;\n");
+        out.append("    }\n\n");
+        out.append("    public void reset() {\n");
+        out.append("        for (java.util.concurrent.atomic.LongAdder count : counts)\n");
+        out.append("            count.reset();\n");
+        out.append("    }\n");
+    }
+
+    // add(E)、toArray(T[]) 这样的名字，父接口的类型变量已经代入，Iterable.forEach 是 forEach(java.util.function.Consumer<? super E>)
+    private static String signature(ExecutableElement method, ExecutableType type) {
+        StringJoiner params = new StringJoiner(",", method.getSimpleName() + "(", ")");
+        type.getParameterTypes().forEach(p -> params.add(p.toString()));
+        return params.toString();
+    }
+
+    private static String typeParameters(List<? extends TypeParameterElement> params) {
+        if (params.isEmpty())
+            return "";
+        StringJoiner result = new StringJoiner(", ", "<", ">");
+        for (TypeParameterElement param : params) {
+            StringJoiner bounds = new StringJoiner(" & ", " extends ", "");
+            bounds.setEmptyValue("");
+            for (TypeMirror bound : param.getBounds()) {
+                if (!bound.toString().equals("java.lang.Object"))
+                    bounds.add(bound.toString());
+            }
+            result.add(param.getSimpleName() + bounds.toString());
+        }
+        return result.toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.chapter4.item20;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ DoubleList 的骨架实现：子类只需要实现 size、getDouble、setDouble，和 AbstractList 的用法相同
+    1.其余的方法都通过这三个方法实现；用数组实现的子类（IntArrays.asDoubleList）覆盖 sort、shuffle 等方法，直接操作数组
+    2.equals 只和 DoubleList 比较，hashCode 和 List<Double> 的 hashCode 相同
+ */
+public abstract class AbstractDoubleList implements DoubleList {
+
+    // 和 Arrays.sort(double[]) 相同：-0.0 < 0.0，NaN 最大
+    @Override public void sort() {
+        double[] a = toArray();
+        Arrays.sort(a);
+        for (int i = 0; i < a.length; i++)
+            setDouble(i, a[i]);
+    }
+
+    // Fisher-Yates，和 Collections.shuffle 相同的算法
+    @Override public void shuffle(Random random) {
+        for (int i = size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            setDouble(j, setDouble(i, getDouble(j)));
+        }
+    }
+
+    @Override public int binarySearch(double key) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            double v = getDouble(mid);
+            int c = Double.compare(v, key);
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    @Override public DoubleStream stream() {
+        return IntStream.range(0, size()).mapToDouble(this::getDouble);
+    }
+
+    @Override public double[] toArray() {
+        double[] a = new double[size()];
+        for (int i = 0; i < a.length; i++)
+            a[i] = getDouble(i);
+        return a;
+    }
+
+    @Override public List<Double> asList() {
+        return new ListView();
+    }
+
+    private final class ListView extends AbstractList<Double> implements RandomAccess {
+        @Override public Double get(int i) {
+            return getDouble(i);  // Autoboxing
+        }
+
+        @Override public Double set(int i, Double value) {
+            return setDouble(i, value);
+        }
+
+        @Override public int size() {
+            return AbstractDoubleList.this.size();
+        }
+
+        // Collections.sort(list) 和 list.sort(null) 按自然顺序排序时，直接排序 double，不装箱
+        @Override public void sort(Comparator<? super Double> c) {
+            if (c == null)
+                AbstractDoubleList.this.sort();
+            else
+                super.sort(c);
+        }
+    }
+
+    @Override public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof DoubleList))
+            return false;
+        DoubleList other = (DoubleList) o;
+        if (other.size() != size())
+            return false;
+        for (int i = 0; i < size(); i++) {
+            double v = getDouble(i);
+            double k = other.getDouble(i);
+            if (Double.compare(v, k) != 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Override public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size(); i++) {
+            double v = getDouble(i);
+            hash = 31 * hash + Double.hashCode(v);
+        }
+        return hash;
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(getDouble(i));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.chapter4.item20;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+/**
+ IntList 的骨架实现：子类只需要实现 size、getInt、setInt，和 AbstractList 的用法相同
+    1.其余的方法都通过这三个方法实现；用数组实现的子类（IntArrays.asIntList）覆盖 sort、shuffle 等方法，直接操作数组
+    2.equals 只和 IntList 比较，hashCode 和 List<Integer> 的 hashCode 相同
+ */
+public abstract class AbstractIntList implements IntList {
+
+    @Override public void sort() {
+        int[] a = toArray();
+        Arrays.sort(a);
+        for (int i = 0; i < a.length; i++)
+            setInt(i, a[i]);
+    }
+
+    // Fisher-Yates，和 Collections.shuffle 相同的算法
+    @Override public void shuffle(Random random) {
+        for (int i = size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            setInt(j, setInt(i, getInt(j)));
+        }
+    }
+
+    @Override public int binarySearch(int key) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int v = getInt(mid);
+            int c = Integer.compare(v, key);
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    @Override public IntStream stream() {
+        return IntStream.range(0, size()).map(this::getInt);
+    }
+
+    @Override public int[] toArray() {
+        int[] a = new int[size()];
+        for (int i = 0; i < a.length; i++)
+            a[i] = getInt(i);
+        return a;
+    }
+
+    @Override public List<Integer> asList() {
+        return new ListView();
+    }
+
+    private final class ListView extends AbstractList<Integer> implements RandomAccess {
+        @Override public Integer get(int i) {
+            return getInt(i);  // Autoboxing
+        }
+
+        @Override public Integer set(int i, Integer value) {
+            return setInt(i, value);
+        }
+
+        @Override public int size() {
+            return AbstractIntList.this.size();
+        }
+
+        // Collections.sort(list) 和 list.sort(null) 按自然顺序排序时，直接排序 int，不装箱
+        @Override public void sort(Comparator<? super Integer> c) {
+            if (c == null)
+                AbstractIntList.this.sort();
+            else
+                super.sort(c);
+        }
+    }
+
+    @Override public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntList))
+            return false;
+        IntList other = (IntList) o;
+        if (other.size() != size())
+            return false;
+        for (int i = 0; i < size(); i++) {
+            int v = getInt(i);
+            int k = other.getInt(i);
+            if (v != k)
+                return false;
+        }
+        return true;
+    }
+
+    @Override public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size(); i++) {
+            int v = getInt(i);
+            hash = 31 * hash + Integer.hashCode(v);
+        }
+        return hash;
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(getInt(i));
+        }
+        return sb.append(']').toString();
+    }
+}
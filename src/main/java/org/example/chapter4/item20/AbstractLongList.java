@@ -0,0 +1,123 @@
+package org.example.chapter4.item20;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ LongList 的骨架实现：子类只需要实现 size、getLong、setLong，和 AbstractList 的用法相同
+    1.其余的方法都通过这三个方法实现；用数组实现的子类（IntArrays.asLongList）覆盖 sort、shuffle 等方法，直接操作数组
+    2.equals 只和 LongList 比较，hashCode 和 List<Long> 的 hashCode 相同
+ */
+public abstract class AbstractLongList implements LongList {
+
+    @Override public void sort() {
+        long[] a = toArray();
+        Arrays.sort(a);
+        for (int i = 0; i < a.length; i++)
+            setLong(i, a[i]);
+    }
+
+    // Fisher-Yates，和 Collections.shuffle 相同的算法
+    @Override public void shuffle(Random random) {
+        for (int i = size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            setLong(j, setLong(i, getLong(j)));
+        }
+    }
+
+    @Override public int binarySearch(long key) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long v = getLong(mid);
+            int c = Long.compare(v, key);
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    @Override public LongStream stream() {
+        return IntStream.range(0, size()).mapToLong(this::getLong);
+    }
+
+    @Override public long[] toArray() {
+        long[] a = new long[size()];
+        for (int i = 0; i < a.length; i++)
+            a[i] = getLong(i);
+        return a;
+    }
+
+    @Override public List<Long> asList() {
+        return new ListView();
+    }
+
+    private final class ListView extends AbstractList<Long> implements RandomAccess {
+        @Override public Long get(int i) {
+            return getLong(i);  // Autoboxing
+        }
+
+        @Override public Long set(int i, Long value) {
+            return setLong(i, value);
+        }
+
+        @Override public int size() {
+            return AbstractLongList.this.size();
+        }
+
+        // Collections.sort(list) 和 list.sort(null) 按自然顺序排序时，直接排序 long，不装箱
+        @Override public void sort(Comparator<? super Long> c) {
+            if (c == null)
+                AbstractLongList.this.sort();
+            else
+                super.sort(c);
+        }
+    }
+
+    @Override public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongList))
+            return false;
+        LongList other = (LongList) o;
+        if (other.size() != size())
+            return false;
+        for (int i = 0; i < size(); i++) {
+            long v = getLong(i);
+            long k = other.getLong(i);
+            if (v != k)
+                return false;
+        }
+        return true;
+    }
+
+    @Override public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size(); i++) {
+            long v = getLong(i);
+            hash = 31 * hash + Long.hashCode(v);
+        }
+        return hash;
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(getLong(i));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.chapter4.item20;
+
+import java.util.Map;
+
+/**
+ MapCursor 的骨架实现：子类实现 advance、key、value，可以修改的 map 再覆盖 setValue
+    entry() 返回建立在 AbstractMapEntry 之上的 flyweight，getKey / getValue / setValue 都转给游标，
+    所以 equals、hashCode、toString 和其他 Map.Entry 的规则相同，整个遍历只有这一个对象
+ */
+public abstract class AbstractMapCursor<K, V> implements MapCursor<K, V> {
+
+    private final Map.Entry<K, V> entry = new AbstractMapEntry<K, V>() {
+        @Override public K getKey() {
+            return key();
+        }
+
+        @Override public V getValue() {
+            return value();
+        }
+
+        @Override public V setValue(V value) {
+            return AbstractMapCursor.this.setValue(value);
+        }
+    };
+
+    // 不可变的 map 不需要覆盖
+    @Override public V setValue(V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override public Map.Entry<K, V> entry() {
+        return entry;
+    }
+}
@@ -0,0 +1,277 @@
+package org.example.chapter4.item20;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ BigIntArray、BigLongArray、BigDoubleArray 共用的部分：堆外的、下标是 long 的基本类型数组
+    1.内存分成若干段（segment），每段是一个 direct ByteBuffer，最多 2^30 字节；下标 i 在第 i >>> segmentShift 段，
+        段内的下标是 i & segmentMask，和 chapter2.item01.MappedFile 的分区方式相同，总长度可以超过 2^31
+    2.数据不在堆上，GC 不扫描也不复制；close() 立即释放内存（Unsafe.invokeCleaner），不用等 GC 回收 ByteBuffer
+    3.close() 之后再访问抛出 IllegalStateException；close 不能和其他线程的访问同时进行，否则访问的可能是已经释放的内存
+    4.sort / parallelSort 是 LSD 基数排序（和 chapter3.item14.RadixSort 相同的做法），需要一份同样大小的堆外临时空间，
+        parallelSort 按块在 ForkJoinPool.commonPool 中计数和分配；double 的顺序和 Arrays.sort(double[]) 相同，NaN 的位不变
+ */
+abstract class BigArray implements AutoCloseable {
+
+    // 每段最多 2^30 字节
+    static final int MAX_SEGMENT_BYTES_SHIFT = 30;
+    // 并行操作每块的元素个数
+    static final long PARALLEL_CHUNK = 1 << 20;
+    private static final int BUCKETS = 256;
+
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    final long length;
+    final int elementShift;
+    final int segmentShift;
+    final long segmentMask;
+    private final boolean floating;
+    // close 之后是 null
+    ByteBuffer[] segments;
+
+    BigArray(long length, int elementShift, int segmentShift, boolean floating) {
+        if (length < 0)
+            throw new IllegalArgumentException("length: " + length);
+        if (segmentShift < 0 || segmentShift + elementShift > MAX_SEGMENT_BYTES_SHIFT)
+            throw new IllegalArgumentException("segmentShift: " + segmentShift);
+        this.length = length;
+        this.elementShift = elementShift;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1L << segmentShift) - 1;
+        this.floating = floating;
+        this.segments = allocateSegments();
+    }
+
+    public final long length() {
+        return length;
+    }
+
+    // 子类在段变化（构造、排序之后换成临时空间）时重新创建 IntBuffer 等视图
+    abstract void segmentsChanged();
+
+    @Override public void close() {
+        ByteBuffer[] s = segments;
+        if (s == null)
+            return;
+        segments = null;
+        segmentsChanged();
+        free(s);
+    }
+
+    public final boolean isClosed() {
+        return segments == null;
+    }
+
+    final ByteBuffer[] segments() {
+        ByteBuffer[] s = segments;
+        if (s == null)
+            throw new IllegalStateException("closed");
+        return s;
+    }
+
+    // 在 commonPool 只有一个线程时不分块
+    static long parallelChunk(long length) {
+        return ForkJoinPool.getCommonPoolParallelism() < 2 ? length : PARALLEL_CHUNK;
+    }
+
+    final int segment(long index) {
+        return (int) (index >>> segmentShift);
+    }
+
+    final int offset(long index) {
+        return (int) (index & segmentMask);
+    }
+
+    // index 所在的段从 index 开始还有多少个元素
+    final long segmentRemaining(long index) {
+        return (segmentMask + 1) - (index & segmentMask);
+    }
+
+    private ByteBuffer[] allocateSegments() {
+        int count = (int) ((length + segmentMask) >>> segmentShift);
+        ByteBuffer[] s = new ByteBuffer[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                long elements = Math.min(segmentMask + 1, length - ((long) i << segmentShift));
+                s[i] = ByteBuffer.allocateDirect((int) (elements << elementShift)).order(ByteOrder.nativeOrder());
+            }
+        } catch (OutOfMemoryError e) {
+            free(s);
+            throw e;
+        }
+        return s;
+    }
+
+    private static void free(ByteBuffer[] s) {
+        for (int i = 0; i < s.length; i++) {
+            if (s[i] != null && INVOKE_CLEANER != null) {
+                try {
+                    INVOKE_CLEANER.invokeExact(s[i]);
+                } catch (Throwable e) {
+                    // 释放失败时交给 GC
+                }
+            }
+            s[i] = null;
+        }
+    }
+
+    // JDK 没有公开的释放方法；sun.misc.Unsafe 在 jdk.unsupported 模块中，不可用时内存在 ByteBuffer 被 GC 回收时释放
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field f = unsafeClass.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(f.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ---- 批量复制 ----
+
+    // src 和 dst 是同一种数组；同一个数组中重叠的区域按 System.arraycopy 的语义复制
+    static void copy(BigArray src, long srcPos, BigArray dst, long dstPos, long length) {
+        Objects.checkFromIndexSize(srcPos, length, src.length);
+        Objects.checkFromIndexSize(dstPos, length, dst.length);
+        ByteBuffer[] s = src.segments();
+        ByteBuffer[] d = dst.segments();
+        int e = src.elementShift;
+        if (s == d && dstPos > srcPos && dstPos < srcPos + length) {
+            // 从后往前
+            while (length > 0) {
+                long srcEnd = srcPos + length;
+                long dstEnd = dstPos + length;
+                int n = (int) Math.min(length, Math.min(((srcEnd - 1) & src.segmentMask) + 1,
+                        ((dstEnd - 1) & dst.segmentMask) + 1));
+                long from = srcEnd - n;
+                long to = dstEnd - n;
+                d[dst.segment(to)].put(dst.offset(to) << e, s[src.segment(from)], src.offset(from) << e, n << e);
+                length -= n;
+            }
+        } else {
+            while (length > 0) {
+                int n = (int) Math.min(length, Math.min(src.segmentRemaining(srcPos), dst.segmentRemaining(dstPos)));
+                d[dst.segment(dstPos)].put(dst.offset(dstPos) << e, s[src.segment(srcPos)], src.offset(srcPos) << e, n << e);
+                srcPos += n;
+                dstPos += n;
+                length -= n;
+            }
+        }
+    }
+
+    // ---- 并行 ----
+
+    interface RangeAction {
+        void run(long from, long to);
+    }
+
+    // 把 [from, to) 按 chunkSize 分块；parallel 时在 commonPool 中并行处理，全部完成后返回
+    static void forEachChunk(long from, long to, long chunkSize, boolean parallel, RangeAction action) {
+        long chunks = (to - from + chunkSize - 1) / chunkSize;
+        if (!parallel || chunks <= 1) {
+            action.run(from, to);
+            return;
+        }
+        IntStream.range(0, (int) chunks).parallel().forEach(c -> {
+            long start = from + c * chunkSize;
+            action.run(start, Math.min(to, start + chunkSize));
+        });
+    }
+
+    // ---- 排序 ----
+
+    // chunkSize 小于 length 时并行；测试中直接用很小的块调用，在单核的机器上也能覆盖并行的代码
+    final void radixSort(long chunkSize) {
+        ByteBuffer[] source = segments();
+        if (length < 2)
+            return;
+        chunkSize = Math.min(chunkSize, length);
+        boolean parallel = chunkSize < length;
+        long size = chunkSize;
+        int chunks = (int) ((length + chunkSize - 1) / chunkSize);
+        ByteBuffer[] target = allocateSegments();
+        long[][] counts = new long[chunks][BUCKETS];
+        int passes = 1 << elementShift;
+        for (int pass = 0; pass < passes; pass++) {
+            final int shift = pass * 8;
+            final ByteBuffer[] from = source;
+            final ByteBuffer[] to = target;
+            for (long[] count : counts)
+                Arrays.fill(count, 0);
+            forEachChunk(0, length, chunkSize, parallel, (start, end) -> {
+                long[] count = counts[(int) (start / size)];
+                for (long i = start; i < end; i++)
+                    count[(int) (sortKey(from, i) >>> shift) & (BUCKETS - 1)]++;
+            });
+            // 这一趟所有元素的这个字节都相同，跳过
+            int first = (int) (sortKey(from, 0) >>> shift) & (BUCKETS - 1);
+            long same = 0;
+            for (long[] count : counts)
+                same += count[first];
+            if (same == length)
+                continue;
+            // 桶 d 中，前面的块排在后面的块之前，保证稳定
+            long offset = 0;
+            for (int d = 0; d < BUCKETS; d++) {
+                for (long[] count : counts) {
+                    long c = count[d];
+                    count[d] = offset;
+                    offset += c;
+                }
+            }
+            forEachChunk(0, length, chunkSize, parallel, (start, end) -> {
+                long[] next = counts[(int) (start / size)];
+                for (long i = start; i < end; i++) {
+                    long at = next[(int) (sortKey(from, i) >>> shift) & (BUCKETS - 1)]++;
+                    move(from, i, to, at);
+                }
+            });
+            source = to;
+            target = from;
+        }
+        // 结果在临时空间中时直接换过来，不再复制
+        ByteBuffer[] spare = target;
+        if (source != segments) {
+            segments = source;
+            segmentsChanged();
+        }
+        free(spare);
+    }
+
+    // 按无符号比较时顺序和元素的顺序相同：有符号数翻转符号位；double 负数所有位取反，非负数只翻转符号位
+    private long sortKey(ByteBuffer[] s, long i) {
+        ByteBuffer b = s[segment(i)];
+        int at = offset(i) << elementShift;
+        if (elementShift == 2)
+            return (b.getInt(at) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+        long bits = b.getLong(at);
+        if (!floating)
+            return bits ^ Long.MIN_VALUE;
+        // -0.0 在 0.0 前面；NaN 按 Double.NaN 的位比较，所以都排在最后，写回去的还是原来的位
+        if ((bits & Long.MAX_VALUE) > 0x7FF0000000000000L)
+            bits = 0x7FF8000000000000L;
+        return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+    }
+
+    private void move(ByteBuffer[] s, long from, ByteBuffer[] d, long to) {
+        ByteBuffer src = s[segment(from)];
+        ByteBuffer dst = d[segment(to)];
+        int fromAt = offset(from) << elementShift;
+        int toAt = offset(to) << elementShift;
+        if (elementShift == 2)
+            dst.putInt(toAt, src.getInt(fromAt));
+        else
+            dst.putLong(toAt, src.getLong(fromAt));
+    }
+}
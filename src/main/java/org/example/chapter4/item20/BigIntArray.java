@@ -0,0 +1,140 @@
+package org.example.chapter4.item20;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Objects;
+import java.util.function.LongToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ 堆外的 int 数组，下标是 long，长度可以超过 2^31，见 BigArray 的说明
+    1.allocate 单独分配，用完 close()；或者用 OffHeapArena 分配，arena 关闭时一起释放
+    2.get / set 和 int[] 的用法相同；fill、copyFrom / copyTo（和 int[] 之间）、copy（两个 BigIntArray 之间）按段批量操作
+    3.IntArrays.asIntList(BigIntArray) 返回和 asIntList(int[]) 一样的 IntList 视图，长度不能超过 Integer.MAX_VALUE
+ */
+public final class BigIntArray extends BigArray {
+
+    private static final int ELEMENT_SHIFT = 2;
+
+    // 每段一个 IntBuffer 视图，下标直接是段内的元素下标
+    private IntBuffer[] views;
+
+    BigIntArray(long length, int segmentShift) {
+        super(length, ELEMENT_SHIFT, segmentShift, false);
+        segmentsChanged();
+    }
+
+    public static BigIntArray allocate(long length) {
+        return new BigIntArray(length, MAX_SEGMENT_BYTES_SHIFT - ELEMENT_SHIFT);
+    }
+
+    @Override void segmentsChanged() {
+        ByteBuffer[] s = segments;
+        if (s == null) {
+            views = null;
+            return;
+        }
+        IntBuffer[] v = new IntBuffer[s.length];
+        for (int i = 0; i < s.length; i++)
+            v[i] = s[i].asIntBuffer();
+        views = v;
+    }
+
+    private IntBuffer[] views() {
+        IntBuffer[] v = views;
+        if (v == null)
+            throw new IllegalStateException("closed");
+        return v;
+    }
+
+    public int get(long index) {
+        Objects.checkIndex(index, length);
+        return views()[segment(index)].get(offset(index));
+    }
+
+    public void set(long index, int value) {
+        Objects.checkIndex(index, length);
+        views()[segment(index)].put(offset(index), value);
+    }
+
+    public void fill(int value) {
+        fill(0, length, value);
+    }
+
+    // 把 [from, to) 都设成 value
+    public void fill(long from, long to, int value) {
+        Objects.checkFromToIndex(from, to, length);
+        IntBuffer[] v = views();
+        while (from < to) {
+            IntBuffer segment = v[segment(from)];
+            int start = offset(from);
+            int end = start + (int) Math.min(to - from, segmentRemaining(from));
+            for (int i = start; i < end; i++)
+                segment.put(i, value);
+            from += end - start;
+        }
+    }
+
+    public void parallelFill(int value) {
+        views();
+        forEachChunk(0, length, parallelChunk(length), true, (from, to) -> fill(from, to, value));
+    }
+
+    // 和 Arrays.parallelSetAll 相同：a[i] = generator(i)
+    public void parallelSetAll(LongToIntFunction generator) {
+        Objects.requireNonNull(generator);
+        IntBuffer[] v = views();
+        forEachChunk(0, length, parallelChunk(length), true, (from, to) -> {
+            for (long i = from; i < to; i++)
+                v[segment(i)].put(offset(i), generator.applyAsInt(i));
+        });
+    }
+
+    // 从 int[] 复制到 [destPos, destPos + length)
+    public void copyFrom(int[] src, int srcPos, long destPos, int length) {
+        Objects.checkFromIndexSize(srcPos, length, src.length);
+        Objects.checkFromIndexSize(destPos, length, this.length);
+        IntBuffer[] v = views();
+        while (length > 0) {
+            int n = (int) Math.min(length, segmentRemaining(destPos));
+            v[segment(destPos)].put(offset(destPos), src, srcPos, n);
+            srcPos += n;
+            destPos += n;
+            length -= n;
+        }
+    }
+
+    // 把 [srcPos, srcPos + length) 复制到 int[]
+    public void copyTo(long srcPos, int[] dest, int destPos, int length) {
+        Objects.checkFromIndexSize(srcPos, length, this.length);
+        Objects.checkFromIndexSize(destPos, length, dest.length);
+        IntBuffer[] v = views();
+        while (length > 0) {
+            int n = (int) Math.min(length, segmentRemaining(srcPos));
+            v[segment(srcPos)].get(offset(srcPos), dest, destPos, n);
+            srcPos += n;
+            destPos += n;
+            length -= n;
+        }
+    }
+
+    // 和 System.arraycopy 相同，src 和 dest 可以是同一个数组，区域可以重叠
+    public static void copy(BigIntArray src, long srcPos, BigIntArray dest, long destPos, long length) {
+        BigArray.copy(src, srcPos, dest, destPos, length);
+    }
+
+    // 升序
+    public void sort() {
+        radixSort(length);
+    }
+
+    public void parallelSort() {
+        radixSort(parallelChunk(length));
+    }
+
+    public IntStream stream() {
+        views();
+        return LongStream.range(0, length).mapToInt(this::get);
+    }
+}
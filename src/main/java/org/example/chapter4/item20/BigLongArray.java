@@ -0,0 +1,140 @@
+package org.example.chapter4.item20;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Objects;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.LongStream;
+
+/**
+ 堆外的 long 数组，下标是 long，长度可以超过 2^31，见 BigArray 的说明
+    1.allocate 单独分配，用完 close()；或者用 OffHeapArena 分配，arena 关闭时一起释放
+    2.get / set 和 long[] 的用法相同；fill、copyFrom / copyTo（和 long[] 之间）、copy（两个 BigLongArray 之间）按段批量操作
+    3.IntArrays.asLongList(BigLongArray) 返回和 asLongList(long[]) 一样的 LongList 视图，长度不能超过 Integer.MAX_VALUE
+ */
+public final class BigLongArray extends BigArray {
+
+    private static final int ELEMENT_SHIFT = 3;
+
+    // 每段一个 LongBuffer 视图，下标直接是段内的元素下标
+    private LongBuffer[] views;
+
+    BigLongArray(long length, int segmentShift) {
+        super(length, ELEMENT_SHIFT, segmentShift, false);
+        segmentsChanged();
+    }
+
+    public static BigLongArray allocate(long length) {
+        return new BigLongArray(length, MAX_SEGMENT_BYTES_SHIFT - ELEMENT_SHIFT);
+    }
+
+    @Override void segmentsChanged() {
+        ByteBuffer[] s = segments;
+        if (s == null) {
+            views = null;
+            return;
+        }
+        LongBuffer[] v = new LongBuffer[s.length];
+        for (int i = 0; i < s.length; i++)
+            v[i] = s[i].asLongBuffer();
+        views = v;
+    }
+
+    private LongBuffer[] views() {
+        LongBuffer[] v = views;
+        if (v == null)
+            throw new IllegalStateException("closed");
+        return v;
+    }
+
+    public long get(long index) {
+        Objects.checkIndex(index, length);
+        return views()[segment(index)].get(offset(index));
+    }
+
+    public void set(long index, long value) {
+        Objects.checkIndex(index, length);
+        views()[segment(index)].put(offset(index), value);
+    }
+
+    public void fill(long value) {
+        fill(0, length, value);
+    }
+
+    // 把 [from, to) 都设成 value
+    public void fill(long from, long to, long value) {
+        Objects.checkFromToIndex(from, to, length);
+        LongBuffer[] v = views();
+        while (from < to) {
+            LongBuffer segment = v[segment(from)];
+            int start = offset(from);
+            int end = start + (int) Math.min(to - from, segmentRemaining(from));
+            for (int i = start; i < end; i++)
+                segment.put(i, value);
+            from += end - start;
+        }
+    }
+
+    public void parallelFill(long value) {
+        views();
+        forEachChunk(0, length, parallelChunk(length), true, (from, to) -> fill(from, to, value));
+    }
+
+    // 和 Arrays.parallelSetAll 相同：a[i] = generator(i)
+    public void parallelSetAll(LongUnaryOperator generator) {
+        Objects.requireNonNull(generator);
+        LongBuffer[] v = views();
+        forEachChunk(0, length, parallelChunk(length), true, (from, to) -> {
+            for (long i = from; i < to; i++)
+                v[segment(i)].put(offset(i), generator.applyAsLong(i));
+        });
+    }
+
+    // 从 long[] 复制到 [destPos, destPos + length)
+    public void copyFrom(long[] src, int srcPos, long destPos, int length) {
+        Objects.checkFromIndexSize(srcPos, length, src.length);
+        Objects.checkFromIndexSize(destPos, length, this.length);
+        LongBuffer[] v = views();
+        while (length > 0) {
+            int n = (int) Math.min(length, segmentRemaining(destPos));
+            v[segment(destPos)].put(offset(destPos), src, srcPos, n);
+            srcPos += n;
+            destPos += n;
+            length -= n;
+        }
+    }
+
+    // 把 [srcPos, srcPos + length) 复制到 long[]
+    public void copyTo(long srcPos, long[] dest, int destPos, int length) {
+        Objects.checkFromIndexSize(srcPos, length, this.length);
+        Objects.checkFromIndexSize(destPos, length, dest.length);
+        LongBuffer[] v = views();
+        while (length > 0) {
+            int n = (int) Math.min(length, segmentRemaining(srcPos));
+            v[segment(srcPos)].get(offset(srcPos), dest, destPos, n);
+            srcPos += n;
+            destPos += n;
+            length -= n;
+        }
+    }
+
+    // 和 System.arraycopy 相同，src 和 dest 可以是同一个数组，区域可以重叠
+    public static void copy(BigLongArray src, long srcPos, BigLongArray dest, long destPos, long length) {
+        BigArray.copy(src, srcPos, dest, destPos, length);
+    }
+
+    // 升序
+    public void sort() {
+        radixSort(length);
+    }
+
+    public void parallelSort() {
+        radixSort(parallelChunk(length));
+    }
+
+    public LongStream stream() {
+        views();
+        return LongStream.range(0, length).map(this::get);
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.chapter4.item20;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.DoubleStream;
+
+/**
+ 不装箱的 double 列表：getDouble / setDouble 直接读写 double，代替 List<Double>
+    1.和 List 一样，接口定义类型，骨架实现 AbstractDoubleList 只要求实现 size、getDouble、setDouble（条目 20）
+    2.sort、shuffle、binarySearch 在原地进行，不创建 Double
+    3.asList() 是 List<Double> 的视图，给只接受 List 的代码使用；通过视图访问仍然会装箱
+ */
+public interface DoubleList {
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    double getDouble(int index);
+
+    // 返回原来的值
+    double setDouble(int index, double value);
+
+    // 升序，和 Arrays.sort(double[]) 的顺序相同
+    void sort();
+
+    void shuffle(Random random);
+
+    // 列表必须是升序的，返回值和 Arrays.binarySearch 相同
+    int binarySearch(double key);
+
+    DoubleStream stream();
+
+    double[] toArray();
+
+    List<Double> asList();
+}
@@ -1,9 +1,14 @@
 package org.example.chapter4.item20;
 
 import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 // Concrete implementation built atop skeletal implementation (Page 101)
 public class IntArrays {
@@ -32,6 +37,241 @@ public class IntArrays {
         };
     }
 
+    // 补充：不装箱的版本，同样建立在骨架实现之上（Abstract{Int,Long,Double}List）
+    //     getInt / setInt 不装箱，sort、shuffle、binarySearch 直接操作数组；需要 List<Integer> 时用 asList() 的视图
+    public static IntList asIntList(int[] a) {
+        Objects.requireNonNull(a);
+        return new AbstractIntList() {
+            @Override public int getInt(int i) {
+                return a[i];
+            }
+
+            @Override public int setInt(int i, int val) {
+                int oldVal = a[i];
+                a[i] = val;
+                return oldVal;
+            }
+
+            @Override public int size() {
+                return a.length;
+            }
+
+            @Override public void sort() {
+                Arrays.sort(a);
+            }
+
+            @Override public void shuffle(Random random) {
+                for (int i = a.length - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    int t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                }
+            }
+
+            @Override public int binarySearch(int key) {
+                return Arrays.binarySearch(a, key);
+            }
+
+            @Override public IntStream stream() {
+                return Arrays.stream(a);
+            }
+
+            @Override public int[] toArray() {
+                return a.clone();
+            }
+        };
+    }
+
+    public static LongList asLongList(long[] a) {
+        Objects.requireNonNull(a);
+        return new AbstractLongList() {
+            @Override public long getLong(int i) {
+                return a[i];
+            }
+
+            @Override public long setLong(int i, long val) {
+                long oldVal = a[i];
+                a[i] = val;
+                return oldVal;
+            }
+
+            @Override public int size() {
+                return a.length;
+            }
+
+            @Override public void sort() {
+                Arrays.sort(a);
+            }
+
+            @Override public void shuffle(Random random) {
+                for (int i = a.length - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    long t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                }
+            }
+
+            @Override public int binarySearch(long key) {
+                return Arrays.binarySearch(a, key);
+            }
+
+            @Override public LongStream stream() {
+                return Arrays.stream(a);
+            }
+
+            @Override public long[] toArray() {
+                return a.clone();
+            }
+        };
+    }
+
+    public static DoubleList asDoubleList(double[] a) {
+        Objects.requireNonNull(a);
+        return new AbstractDoubleList() {
+            @Override public double getDouble(int i) {
+                return a[i];
+            }
+
+            @Override public double setDouble(int i, double val) {
+                double oldVal = a[i];
+                a[i] = val;
+                return oldVal;
+            }
+
+            @Override public int size() {
+                return a.length;
+            }
+
+            @Override public void sort() {
+                Arrays.sort(a);
+            }
+
+            @Override public void shuffle(Random random) {
+                for (int i = a.length - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    double t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                }
+            }
+
+            @Override public int binarySearch(double key) {
+                return Arrays.binarySearch(a, key);
+            }
+
+            @Override public DoubleStream stream() {
+                return Arrays.stream(a);
+            }
+
+            @Override public double[] toArray() {
+                return a.clone();
+            }
+        };
+    }
+
+    // 补充：堆外数组（BigIntArray 等）的同样的视图；长度超过 Integer.MAX_VALUE 时抛出 ArithmeticException
+
+    public static IntList asIntList(BigIntArray a) {
+        int size = Math.toIntExact(a.length());
+        return new AbstractIntList() {
+            @Override public int getInt(int i) {
+                return a.get(i);
+            }
+
+            @Override public int setInt(int i, int val) {
+                int oldVal = a.get(i);
+                a.set(i, val);
+                return oldVal;
+            }
+
+            @Override public int size() {
+                return size;
+            }
+
+            @Override public void sort() {
+                a.sort();
+            }
+
+            @Override public IntStream stream() {
+                return a.stream();
+            }
+
+            @Override public int[] toArray() {
+                int[] copy = new int[size];
+                a.copyTo(0, copy, 0, size);
+                return copy;
+            }
+        };
+    }
+
+    public static LongList asLongList(BigLongArray a) {
+        int size = Math.toIntExact(a.length());
+        return new AbstractLongList() {
+            @Override public long getLong(int i) {
+                return a.get(i);
+            }
+
+            @Override public long setLong(int i, long val) {
+                long oldVal = a.get(i);
+                a.set(i, val);
+                return oldVal;
+            }
+
+            @Override public int size() {
+                return size;
+            }
+
+            @Override public void sort() {
+                a.sort();
+            }
+
+            @Override public LongStream stream() {
+                return a.stream();
+            }
+
+            @Override public long[] toArray() {
+                long[] copy = new long[size];
+                a.copyTo(0, copy, 0, size);
+                return copy;
+            }
+        };
+    }
+
+    public static DoubleList asDoubleList(BigDoubleArray a) {
+        int size = Math.toIntExact(a.length());
+        return new AbstractDoubleList() {
+            @Override public double getDouble(int i) {
+                return a.get(i);
+            }
+
+            @Override public double setDouble(int i, double val) {
+                double oldVal = a.get(i);
+                a.set(i, val);
+                return oldVal;
+            }
+
+            @Override public int size() {
+                return size;
+            }
+
+            @Override public void sort() {
+                a.sort();
+            }
+
+            @Override public DoubleStream stream() {
+                return a.stream();
+            }
+
+            @Override public double[] toArray() {
+                double[] copy = new double[size];
+                a.copyTo(0, copy, 0, size);
+                return copy;
+            }
+        };
+    }
+
     public static void main(String[] args) {
         int[] a = new int[10];
         for (int i = 0; i < a.length; i++)
@@ -40,5 +280,12 @@ public class IntArrays {
         List<Integer> list = intArrayAsList(a);
         Collections.shuffle(list);
         System.out.println(list);
+
+        // 补充：同样的数组，不装箱
+        IntList ints = asIntList(a);
+        ints.shuffle(new Random());
+        System.out.println(ints);
+        ints.sort();
+        System.out.println(ints.binarySearch(7) + " " + ints.stream().sum());
     }
 }
@@ -0,0 +1,43 @@
+package org.example.chapter4.item20;
+
+import org.example.chapter4.item18.processor.Forwarding;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ 不装箱的 int 列表：getInt / setInt 直接读写 int，代替 List<Integer>
+    1.和 List 一样，接口定义类型，骨架实现 AbstractIntList 只要求实现 size、getInt、setInt（条目 20）
+    2.sort、shuffle、binarySearch 在原地进行，不创建 Integer
+    3.asList() 是 List<Integer> 的视图，给只接受 List 的代码使用；通过视图访问仍然会装箱
+    4.@Forwarding 在编译时生成转发类 IntListForwarder（条目 18）
+ */
+@Forwarding
+public interface IntList {
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int getInt(int index);
+
+    // 返回原来的值
+    int setInt(int index, int value);
+
+    // 升序，和 Arrays.sort(int[]) 的顺序相同
+    void sort();
+
+    void shuffle(Random random);
+
+    // 列表必须是升序的，返回值和 Arrays.binarySearch 相同
+    int binarySearch(int key);
+
+    IntStream stream();
+
+    int[] toArray();
+
+    List<Integer> asList();
+}
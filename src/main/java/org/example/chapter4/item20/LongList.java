@@ -0,0 +1,39 @@
+package org.example.chapter4.item20;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+/**
+ 不装箱的 long 列表：getLong / setLong 直接读写 long，代替 List<Long>
+    1.和 List 一样，接口定义类型，骨架实现 AbstractLongList 只要求实现 size、getLong、setLong（条目 20）
+    2.sort、shuffle、binarySearch 在原地进行，不创建 Long
+    3.asList() 是 List<Long> 的视图，给只接受 List 的代码使用；通过视图访问仍然会装箱
+ */
+public interface LongList {
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    long getLong(int index);
+
+    // 返回原来的值
+    long setLong(int index, long value);
+
+    // 升序，和 Arrays.sort(long[]) 的顺序相同
+    void sort();
+
+    void shuffle(Random random);
+
+    // 列表必须是升序的，返回值和 Arrays.binarySearch 相同
+    int binarySearch(long key);
+
+    LongStream stream();
+
+    long[] toArray();
+
+    List<Long> asList();
+}
@@ -0,0 +1,29 @@
+package org.example.chapter4.item20;
+
+import java.util.Map;
+
+/**
+ 不分配对象地遍历 Map：代替 entrySet().iterator()，遍历时不为每个元素创建 Map.Entry
+    1.先调用 advance()，返回 true 时 key()、value() 是当前的元素；返回 false 表示遍历结束
+    2.entry() 每次返回同一个 Map.Entry（flyweight），内容是当前的元素，advance() 之后就变了：
+        只能在当前这一步使用，不能保存起来，也不能放进集合
+    3.setValue 修改当前元素的 value；不可变的 map 抛出 UnsupportedOperationException
+    4.遍历时修改 map 的结构（put 新的 key、remove），结果是不确定的
+ 用法：
+    MapCursor<String, Integer> c = map.cursor();
+    while (c.advance())
+        total += c.value();
+ */
+public interface MapCursor<K, V> {
+
+    boolean advance();
+
+    K key();
+
+    V value();
+
+    // 返回原来的 value
+    V setValue(V value);
+
+    Map.Entry<K, V> entry();
+}
@@ -0,0 +1,55 @@
+package org.example.chapter4.item20;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ 一组堆外数组的生命周期：从 arena 分配的 BigIntArray / BigLongArray / BigDoubleArray 在 close() 时一起释放
+    1.用 try-with-resources，离开代码块时释放，不会忘记关闭某一个数组
+    2.分配和关闭是线程安全的；关闭时不能有其他线程还在访问这些数组（见 BigArray）
+ 用法：
+    try (OffHeapArena arena = new OffHeapArena()) {
+        BigLongArray a = arena.allocateLong(3_000_000_000L);
+        a.parallelSetAll(i -> i * 31);
+        a.parallelSort();
+    }
+ */
+public final class OffHeapArena implements AutoCloseable {
+
+    private final List<BigArray> arrays = new ArrayList<>();
+    private boolean closed;
+
+    public synchronized BigIntArray allocateInt(long length) {
+        checkOpen();
+        return add(BigIntArray.allocate(length));
+    }
+
+    public synchronized BigLongArray allocateLong(long length) {
+        checkOpen();
+        return add(BigLongArray.allocate(length));
+    }
+
+    public synchronized BigDoubleArray allocateDouble(long length) {
+        checkOpen();
+        return add(BigDoubleArray.allocate(length));
+    }
+
+    private void checkOpen() {
+        if (closed)
+            throw new IllegalStateException("arena closed");
+    }
+
+    private <A extends BigArray> A add(A array) {
+        arrays.add(array);
+        return array;
+    }
+
+    @Override public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
+        for (BigArray a : arrays)
+            a.close();
+        arrays.clear();
+    }
+}
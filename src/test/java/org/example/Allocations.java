@@ -0,0 +1,23 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ 测试中统计一段代码在当前线程分配了多少字节，不分配对象的测试都用这个
+    1.getCurrentThreadAllocatedBytes 本身可能分配一点内存，先空调用一次量出来，再从结果中减掉
+    2.要先运行一次 r 让 JIT 编译和类加载完成，否则统计到的是预热的分配
+ */
+public final class Allocations {
+
+    private Allocations() {
+    }
+
+    public static long allocatedBytes(Runnable r) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long baseline = bean.getCurrentThreadAllocatedBytes();
+        long before = bean.getCurrentThreadAllocatedBytes();
+        r.run();
+        long after = bean.getCurrentThreadAllocatedBytes();
+        return (after - before) - (before - baseline);
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.chapter2;
+
+import org.example.chapter2.item01.AppendOnlyLog;
+import org.example.chapter2.item01.PersonCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ 持久化小对象的吞吐：
+    oneFilePerObject: Code01.serializeObject 的写法，每个对象一个文件
+    appendNoSync    : AppendOnlyLog，只写到操作系统缓存，不等待结果
+    appendSync      : AppendOnlyLog，等待 force 完成；多个线程同时写时，一批记录共享一次 force
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AppendOnlyLogBenchmark {
+
+    private Path directory;
+    private AppendOnlyLog<Code01.Person> log;
+    private final Code01.Person person = new Code01.Person("John", 25);
+
+    @State(Scope.Thread)
+    public static class Counter {
+        long next;
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("append-only-log-bench");
+        log = AppendOnlyLog.builder(directory, PersonCodec.INSTANCE).open();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Object appendNoSync() {
+        return log.append(person, false);
+    }
+
+    @Benchmark
+    public Long appendSync() throws ExecutionException, InterruptedException {
+        return log.append(person, true).get();
+    }
+
+    @Benchmark
+    public Path oneFilePerObject(Counter counter) throws IOException {
+        Path file = directory.resolve(Thread.currentThread().getId() + "-" + counter.next++ + ".ser");
+        try (FileOutputStream fileOut = new FileOutputStream(file.toFile());
+             ObjectOutputStream objectOut = new ObjectOutputStream(fileOut)) {
+            objectOut.writeObject(person);
+        }
+        return file;
+    }
+}
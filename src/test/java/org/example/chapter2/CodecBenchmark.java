@@ -0,0 +1,97 @@
+package org.example.chapter2;
+
+import org.example.chapter2.item01.BinaryReader;
+import org.example.chapter2.item01.BinaryWriter;
+import org.example.chapter2.item01.PersonCodec;
+import org.example.chapter3.Code13_Clone;
+import org.example.chapter3.item13.StuCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ PersonCodec/StuCodec 和 ObjectOutputStream 的对比：单个 Person 的编解码，以及 1000 个元素的数组
+ 编码之后的大小见 PersonCodec.main
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    private Code01.Person person;
+    private byte[] personBytes;
+    private Code01.Person[] people;
+    private byte[] peopleBytes;
+    private Code13_Clone.Stu[] students;
+    private final BinaryWriter writer = new BinaryWriter(32 * 1024);
+
+    @Setup
+    public void setup() {
+        person = new Code01.Person("John", 25);
+        personBytes = PersonCodec.INSTANCE.encode(person);
+        people = new Code01.Person[1000];
+        students = new Code13_Clone.Stu[1000];
+        for (int i = 0; i < people.length; i++) {
+            people[i] = new Code01.Person("person" + i, i % 100);
+            students[i] = new Code13_Clone.Stu(i, "stu" + i);
+        }
+        peopleBytes = PersonCodec.INSTANCE.encodeArray(people);
+    }
+
+    @Benchmark
+    public int encodePerson() {
+        // 复用同一个 writer，只计算编码本身
+        PersonCodec.INSTANCE.encode(writer.reset(), person);
+        return writer.size();
+    }
+
+    @Benchmark
+    public Code01.Person decodePerson() {
+        return PersonCodec.INSTANCE.decode(personBytes);
+    }
+
+    @Benchmark
+    public byte[] serializePerson() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(person);
+        }
+        return bos.toByteArray();
+    }
+
+    @Benchmark
+    public int encodePeople() {
+        PersonCodec.INSTANCE.encodeArray(writer.reset(), people);
+        return writer.size();
+    }
+
+    @Benchmark
+    public Code01.Person[] decodePeople() {
+        return PersonCodec.INSTANCE.decodeArray(new BinaryReader(peopleBytes), Code01.Person[]::new);
+    }
+
+    @Benchmark
+    public Object serializePeopleRoundTrip() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(people);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            return ois.readObject();
+        }
+    }
+
+    @Benchmark
+    public Code13_Clone.Stu[] copyStudentsByCodec() {
+        return StuCodec.copy(students);
+    }
+
+    @Benchmark
+    public Code13_Clone.Stu[] copyStudentsBySerial() {
+        return Code13_Clone.copyBySerial(students);
+    }
+}
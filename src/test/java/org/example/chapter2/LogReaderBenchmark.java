@@ -0,0 +1,90 @@
+package org.example.chapter2;
+
+import org.example.chapter2.item01.AppendOnlyLog;
+import org.example.chapter2.item01.LogReader;
+import org.example.chapter2.item01.PersonCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ 把 count 个 Code01.Person 全部读回来，对 age 求和
+    oneFilePerObject: Code01.deserializeObject 的写法，每个文件一个 ObjectInputStream
+    sequential      : LogReader.stream()
+    parallel        : LogReader.stream().parallel()，按记录边界分割之后在多个线程上解码
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogReaderBenchmark {
+
+    @Param({"10000"})
+    int count;
+
+    private Path directory;
+    private Path files;
+    private LogReader<Code01.Person> reader;
+
+    @Setup
+    public void setup() throws IOException, ExecutionException, InterruptedException {
+        directory = Files.createTempDirectory("log-reader-bench");
+        files = Files.createDirectory(directory.resolve("files"));
+        try (AppendOnlyLog<Code01.Person> log = AppendOnlyLog.builder(directory.resolve("log"), PersonCodec.INSTANCE)
+                .segmentBytes(1024 * 1024)
+                .open()) {
+            for (int i = 0; i < count; i++) {
+                Code01.Person person = new Code01.Person("person" + i, i);
+                log.append(person);
+                try (ObjectOutputStream out = new ObjectOutputStream(
+                        new FileOutputStream(files.resolve(i + ".ser").toFile()))) {
+                    out.writeObject(person);
+                }
+            }
+            log.append(new Code01.Person("last", 0), true).get();
+        }
+        reader = LogReader.open(directory.resolve("log"), PersonCodec.INSTANCE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        try (Stream<Path> all = Files.walk(directory)) {
+            all.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long oneFilePerObject() throws IOException, ClassNotFoundException {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new FileInputStream(files.resolve(i + ".ser").toFile()))) {
+                sum += ((Code01.Person) in.readObject()).getAge();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sequential() {
+        return reader.stream().mapToLong(Code01.Person::getAge).sum();
+    }
+
+    @Benchmark
+    public long parallel() {
+        return reader.stream().parallel().mapToLong(Code01.Person::getAge).sum();
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.chapter2;
+
+import org.example.chapter2.item01.AppendOnlyLog;
+import org.example.chapter2.item01.LogReader;
+import org.example.chapter2.item01.PersonCodec;
+import org.example.chapter2.item01.PersonStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ PersonStore（内存映射 + 固定槽位）和 "先把所有记录读进来" 的对比
+    openStore       : 打开已有的 PersonStore，只建立映射
+    readLogIntoArray: 用 LogReader 把同样的记录全部解码成 Person[]，相当于启动时的反序列化
+    sumAges         : 通过 View 扫描所有记录的 age，不创建 Person
+    randomNameEquals: 随机下标上比较 name，直接比较映射内存中的字节
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersonStoreBenchmark {
+
+    @Param({"1000000"})
+    int count;
+
+    private Path directory;
+    private PersonStore store;
+
+    @State(Scope.Thread)
+    public static class ThreadView {
+        PersonStore.View view;
+
+        @Setup
+        public void setup(PersonStoreBenchmark benchmark) {
+            view = benchmark.store.view();
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException, ExecutionException, InterruptedException {
+        directory = Files.createTempDirectory("person-store-bench");
+        try (PersonStore store = PersonStore.open(directory.resolve("store"));
+             AppendOnlyLog<Code01.Person> log = AppendOnlyLog.builder(directory.resolve("log"), PersonCodec.INSTANCE).open()) {
+            for (int i = 0; i < count; i++) {
+                Code01.Person person = new Code01.Person("person" + i, i % 100);
+                store.append(person);
+                log.append(person);
+            }
+            log.append(new Code01.Person("last", 0), true).get();
+        }
+        store = PersonStore.open(directory.resolve("store"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> all = Files.walk(directory)) {
+            all.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long openStore() throws IOException {
+        try (PersonStore opened = PersonStore.open(directory.resolve("store"))) {
+            return opened.size();
+        }
+    }
+
+    @Benchmark
+    public Object[] readLogIntoArray() throws IOException {
+        try (LogReader<Code01.Person> reader = LogReader.open(directory.resolve("log"), PersonCodec.INSTANCE)) {
+            return reader.stream().toArray();
+        }
+    }
+
+    @Benchmark
+    public long sumAges(ThreadView thread) {
+        PersonStore.View view = thread.view;
+        long sum = 0;
+        for (long i = 0, n = store.size(); i < n; i++)
+            sum += view.at(i).age();
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean randomNameEquals(ThreadView thread) {
+        int i = ThreadLocalRandom.current().nextInt(count);
+        return thread.view.at(i).nameEquals("person123456");
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.chapter2.item01;
+
+import junit.framework.TestCase;
+import org.example.chapter2.Code01.Person;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+public class AppendOnlyLogTest extends TestCase {
+
+    private Path directory;
+
+    @Override protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("append-only-log");
+    }
+
+    @Override protected void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static long countRecords(Path directory) throws IOException {
+        long count = 0;
+        for (Path segment : LogFormat.segments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment)) {
+                LogFormat.checkHeader(channel, segment);
+                LogFormat.ScanResult scan = LogFormat.scan(channel);
+                assertEquals("no garbage after the last record", channel.size(), scan.validEnd);
+                count += scan.records;
+            }
+        }
+        return count;
+    }
+
+    public void testConcurrentAppendsGetUniqueSequencesAndRollSegments() throws Exception {
+        int threads = 4;
+        int perThread = 2_000;
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        try (AppendOnlyLog<Person> log = AppendOnlyLog.builder(directory, PersonCodec.INSTANCE)
+                .segmentBytes(16 * 1024)
+                .maxBatchRecords(64)
+                .queueCapacity(128)
+                .syncPolicy(AppendOnlyLog.SyncPolicy.BATCH)
+                .open()) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        CompletableFuture<Long> f = log.append(new Person("writer" + id, i));
+                        synchronized (futures) {
+                            futures.add(f);
+                        }
+                    }
+                });
+                writers.add(writer);
+                writer.start();
+            }
+            for (Thread writer : writers)
+                writer.join();
+        }
+        Set<Long> sequences = new HashSet<>();
+        for (CompletableFuture<Long> f : futures)
+            sequences.add(f.get());
+        assertEquals(threads * perThread, sequences.size());
+        assertEquals(0L, (long) sequences.stream().min(Long::compare).get());
+        assertEquals(threads * perThread - 1L, (long) sequences.stream().max(Long::compare).get());
+
+        List<Path> segments = LogFormat.segments(directory);
+        assertTrue(segments.size() > 1);
+        for (Path segment : segments)
+            assertTrue(Files.size(segment) <= 16 * 1024);
+        assertEquals(threads * perThread, countRecords(directory));
+    }
+
+    public void testReopenTruncatesTornTailAndContinuesSequence() throws Exception {
+        try (AppendOnlyLog<Person> log = AppendOnlyLog.builder(directory, PersonCodec.INSTANCE).open()) {
+            for (int i = 0; i < 10; i++)
+                log.append(new Person("p" + i, i));
+            assertEquals(Long.valueOf(10), log.append(new Person("last", 10), true).get());
+        }
+        // 模拟写到一半时崩溃：末尾只有一个记录头
+        Path last = LogFormat.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(6).putInt(100).putShort((short) 1).flip());
+        }
+        try (AppendOnlyLog<Person> log = AppendOnlyLog.builder(directory, PersonCodec.INSTANCE).open()) {
+            assertEquals(Long.valueOf(11), log.append(new Person("again", 11), true).get());
+        }
+        assertEquals(12, countRecords(directory));
+    }
+
+    private void writeEleven() throws Exception {
+        try (AppendOnlyLog<Person> log = AppendOnlyLog.builder(directory, PersonCodec.INSTANCE).open()) {
+            for (int i = 0; i < 10; i++)
+                log.append(new Person("p" + i, i));
+            assertEquals(Long.valueOf(10), log.append(new Person("last", 10), true).get());
+        }
+    }
+
+    // 中间的记录损坏时不能截掉后面完整的记录，打开失败，文件不变
+    public void testCorruptRecordInTheMiddleIsNotTruncated() throws Exception {
+        writeEleven();
+        Path last = LogFormat.segments(directory).get(0);
+        long size = Files.size(last);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), LogFormat.HEADER_SIZE + LogFormat.FRAME_OVERHEAD + 2);
+        }
+        try {
+            AppendOnlyLog.builder(directory, PersonCodec.INSTANCE).open().close();
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("crc"));
+        }
+        assertEquals(size, Files.size(last));
+    }
+
+    // 崩溃后末尾是全 0（文件系统先扩展了文件长度，数据还没写下）
+    public void testReopenTruncatesZeroFilledTail() throws Exception {
+        writeEleven();
+        Path last = LogFormat.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(4096));
+        }
+        try (AppendOnlyLog<Person> log = AppendOnlyLog.builder(directory, PersonCodec.INSTANCE).open()) {
+            assertEquals(Long.valueOf(11), log.append(new Person("again", 11), true).get());
+        }
+        assertEquals(12, countRecords(directory));
+    }
+
+    // 创建新的段文件之后、写完文件头之前崩溃：空文件或者全 0 的文件头
+    public void testReopenReinitialisesHeaderlessLastSegment() throws Exception {
+        writeEleven();
+        for (byte[] torn : new byte[][]{new byte[0], new byte[3], new byte[LogFormat.HEADER_SIZE + 16]}) {
+            long expected = countRecords(directory);
+            Path next = directory.resolve(LogFormat.segmentName(expected));
+            Files.write(next, torn);
+            // 读取时把它当作空的段
+            try (LogReader<Person> reader = LogReader.open(directory, PersonCodec.INSTANCE)) {
+                assertEquals(expected, reader.stream().count());
+            }
+            try (AppendOnlyLog<Person> log = AppendOnlyLog.builder(directory, PersonCodec.INSTANCE).open()) {
+                assertEquals(Long.valueOf(expected), log.append(new Person("after", 0), true).get());
+            }
+            assertEquals(expected + 1, countRecords(directory));
+        }
+    }
+
+    public void testAppendAfterCloseFails() throws IOException {
+        AppendOnlyLog<Person> log = AppendOnlyLog.builder(directory, PersonCodec.INSTANCE).open();
+        log.close();
+        try {
+            log.append(new Person("late", 1));
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.chapter2.item01;
+
+import junit.framework.TestCase;
+import org.example.chapter2.Code01.Person;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class BinaryCodecTest extends TestCase {
+
+    public void testVarIntsRoundTrip() {
+        int[] ints = {0, 1, -1, 63, -64, 64, 127, 128, 16383, 16384, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        long[] longs = {0, -1, Long.MAX_VALUE, Long.MIN_VALUE, 1L << 35, -(1L << 35)};
+        BinaryWriter out = new BinaryWriter();
+        for (int v : ints)
+            out.writeZigZagInt(v).writeVarInt(v).writeIntFixed(v);
+        for (long v : longs)
+            out.writeZigZagLong(v).writeVarLong(v);
+        BinaryReader in = new BinaryReader(out.toByteArray());
+        for (int v : ints) {
+            assertEquals(v, in.readZigZagInt());
+            assertEquals(v, in.readVarInt());
+            assertEquals(v, in.readIntFixed());
+        }
+        for (long v : longs) {
+            assertEquals(v, in.readZigZagLong());
+            assertEquals(v, in.readVarLong());
+        }
+        assertEquals(0, in.remaining());
+    }
+
+    public void testStringsMatchJdkUtf8() {
+        Random random = new Random(3);
+        String[] samples = {"", "John", "张三", "emoji 😀", "lone \uD800 surrogate", "\u0000"};
+        for (String s : samples)
+            assertStringRoundTrip(s);
+        for (int i = 0; i < 2000; i++) {
+            char[] chars = new char[random.nextInt(20)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = (char) random.nextInt(Character.MAX_VALUE + 1);
+            assertStringRoundTrip(new String(chars));
+        }
+        BinaryWriter out = new BinaryWriter().writeString(null);
+        assertNull(new BinaryReader(out.toByteArray()).readString());
+    }
+
+    private static void assertStringRoundTrip(String s) {
+        byte[] jdk = s.getBytes(StandardCharsets.UTF_8);
+        assertEquals(jdk.length, BinaryWriter.utf8Length(s));
+        BinaryWriter out = new BinaryWriter().writeString(s);
+        assertEquals(new String(jdk, StandardCharsets.UTF_8), new BinaryReader(out.toByteArray()).readString());
+    }
+
+    public void testPersonArrayWithNulls() {
+        Person[] people = {new Person("John", 25), null, new Person(null, -3), new Person("李四", 0)};
+        Person[] copy = PersonCodec.INSTANCE.decodeArray(PersonCodec.INSTANCE.encodeArray(people), Person[]::new);
+        assertEquals(people.length, copy.length);
+        assertNull(copy[1]);
+        for (int i : new int[]{0, 2, 3}) {
+            assertEquals(people[i].getName(), copy[i].getName());
+            assertEquals(people[i].getAge(), copy[i].getAge());
+        }
+    }
+
+    public void testRejectsUnknownVersionAndTruncatedInput() {
+        byte[] bytes = PersonCodec.INSTANCE.encode(new Person("John", 25));
+        assertEquals(7, bytes.length);
+        bytes[0] = 2;
+        try {
+            PersonCodec.INSTANCE.decode(bytes);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        bytes[0] = 1;
+        try {
+            PersonCodec.INSTANCE.decode(new BinaryReader(bytes, 0, 4));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // 5 个字节的 varint 可以编码负数长度，和其他错误数据一样抛出 IllegalArgumentException
+    public void testRejectsNegativeLengths() {
+        for (int length : new int[]{-1, -2, Integer.MIN_VALUE}) {
+            byte[] string = new BinaryWriter(8).writeVarInt(length).toByteArray();
+            try {
+                new BinaryReader(string).readString();
+                fail("string length " + length);
+            } catch (IllegalArgumentException expected) {
+            }
+            byte[] array = new BinaryWriter(8).writeByte(1).writeVarInt(length).toByteArray();
+            try {
+                PersonCodec.INSTANCE.decodeArray(array, Person[]::new);
+                fail("array length " + length);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
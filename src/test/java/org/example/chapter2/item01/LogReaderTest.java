@@ -0,0 +1,169 @@
+package org.example.chapter2.item01;
+
+import junit.framework.TestCase;
+import org.example.chapter2.Code01.Person;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class LogReaderTest extends TestCase {
+
+    private Path directory;
+
+    @Override protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("log-reader");
+    }
+
+    @Override protected void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private void write(int count, long segmentBytes) throws Exception {
+        try (AppendOnlyLog<Person> log = AppendOnlyLog.builder(directory, PersonCodec.INSTANCE)
+                .segmentBytes(segmentBytes)
+                .open()) {
+            for (int i = 0; i < count; i++)
+                log.append(new Person("person" + i, i));
+            log.append(new Person("flush", -1), true).get();
+        }
+    }
+
+    private static String describe(Person p) {
+        return p.getName() + "/" + p.getAge();
+    }
+
+    public void testReadsEverySegmentInOrder() throws Exception {
+        write(5_000, 16 * 1024);
+        assertTrue(LogFormat.segments(directory).size() > 1);
+        try (LogReader<Person> reader = LogReader.open(directory, PersonCodec.INSTANCE, 64)) {
+            Iterator<Person> it = reader.iterator();
+            for (int i = 0; i < 5_000; i++)
+                assertEquals("person" + i + "/" + i, describe(it.next()));
+            assertEquals("flush", it.next().getName());
+            assertFalse(it.hasNext());
+        }
+    }
+
+    public void testSplitsOnRecordBoundaries() throws Exception {
+        // 一个段文件，只能在文件内部分割
+        write(100_000, 64L * 1024 * 1024);
+        assertEquals(1, LogFormat.segments(directory).size());
+        try (LogReader<Person> reader = LogReader.open(directory, PersonCodec.INSTANCE)) {
+            List<String> expected = reader.stream().map(LogReaderTest::describe).collect(Collectors.toList());
+            assertEquals(100_001, expected.size());
+
+            List<Spliterator<Person>> leaves = new ArrayList<>();
+            splitAll(reader.spliterator(), leaves);
+            assertTrue(leaves.size() > 2);
+            List<String> actual = new ArrayList<>();
+            for (Spliterator<Person> leaf : leaves) {
+                // 索引中的边界足够密，每个区间都能一直分到 MIN_SPLIT_BYTES 以下
+                assertTrue(leaf.estimateSize() < LogReader.MIN_SPLIT_BYTES);
+                leaf.forEachRemaining(p -> actual.add(describe(p)));
+            }
+            assertEquals(expected, actual);
+
+            List<String> parallel = reader.stream().parallel().map(LogReaderTest::describe).collect(Collectors.toList());
+            assertEquals(expected, parallel);
+        }
+    }
+
+    private static void splitAll(Spliterator<Person> spliterator, List<Spliterator<Person>> leaves) {
+        Spliterator<Person> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            leaves.add(spliterator);
+            return;
+        }
+        splitAll(prefix, leaves);
+        splitAll(spliterator, leaves);
+    }
+
+    public void testTornTailEndsTheStream() throws Exception {
+        write(10, 64L * 1024 * 1024);
+        Path last = LogFormat.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(6).putInt(100).putShort((short) 1).flip());
+        }
+        try (LogReader<Person> reader = LogReader.open(directory, PersonCodec.INSTANCE)) {
+            assertEquals(11, reader.stream().count());
+        }
+    }
+
+    // 崩溃之后末尾可能是全 0（预分配）或者最后一条记录的 payload 没写完；AppendOnlyLog.recover 会截掉它们，读取也应该正常结束
+    public void testZeroFilledOrHalfWrittenTailEndsTheStreamLikeRecovery() throws Exception {
+        write(10, 64L * 1024 * 1024);
+        Path last = LogFormat.segments(directory).get(0);
+        long validEnd = Files.size(last);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(4096));
+        }
+        try (LogReader<Person> reader = LogReader.open(directory, PersonCodec.INSTANCE, 64)) {
+            assertEquals(11, reader.stream().count());
+        }
+
+        // 长度完整，crc 和 payload 是写到一半的内容，正好到文件末尾
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.truncate(validEnd);
+            channel.write(ByteBuffer.allocate(LogFormat.FRAME_OVERHEAD + 5).putInt(5).putInt(12345).flip(), validEnd);
+        }
+        try (LogReader<Person> reader = LogReader.open(directory, PersonCodec.INSTANCE)) {
+            assertEquals(11, reader.stream().count());
+        }
+
+        // 和恢复的结果一致：重新打开之后从第 11 条继续写
+        write(1, 64L * 1024 * 1024);
+        try (LogReader<Person> reader = LogReader.open(directory, PersonCodec.INSTANCE)) {
+            assertEquals(13, reader.stream().count());
+        }
+    }
+
+    public void testCorruptRecordFollowedByDataThrows() throws Exception {
+        write(10, 64L * 1024 * 1024);
+        Path last = LogFormat.segments(directory).get(0);
+        // 长度为 0 的记录后面还有数据，不是写到一半的末尾
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(32).put(20, (byte) 1));
+        }
+        try (LogReader<Person> reader = LogReader.open(directory, PersonCodec.INSTANCE)) {
+            reader.stream().count();
+            fail();
+        } catch (UncheckedIOException expected) {
+            assertTrue(expected.getMessage().contains("length 0"));
+        }
+    }
+
+    public void testCorruptRecordThrows() throws Exception {
+        write(10, 64L * 1024 * 1024);
+        Path last = LogFormat.segments(directory).get(0);
+        // 改掉第一条记录 payload 中的一个字节
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), LogFormat.HEADER_SIZE + LogFormat.FRAME_OVERHEAD + 2);
+        }
+        try (LogReader<Person> reader = LogReader.open(directory, PersonCodec.INSTANCE)) {
+            reader.stream().count();
+            fail();
+        } catch (UncheckedIOException expected) {
+            assertTrue(expected.getMessage().contains("crc"));
+        }
+    }
+
+    public void testEmptyDirectory() throws IOException {
+        try (LogReader<Person> reader = LogReader.open(directory.resolve("missing"), PersonCodec.INSTANCE)) {
+            assertEquals(0, reader.stream().count());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.chapter2.item01;
+
+import junit.framework.TestCase;
+import org.example.chapter2.Code01.Person;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class PersonStoreTest extends TestCase {
+
+    // 4KB 的区域：几百条记录就会用到多个区域
+    private static final int SMALL_REGION_SHIFT = 12;
+
+    private Path directory;
+
+    @Override protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("person-store");
+    }
+
+    @Override protected void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static String nameOf(int i) {
+        if (i % 97 == 0)
+            return null;
+        if (i % 89 == 0)
+            return "";
+        StringBuilder sb = new StringBuilder(i % 2 == 0 ? "person" : "人员");
+        // 长度不一，其中一些接近区域的大小
+        for (int k = 0; k < i % 300; k++)
+            sb.append((char) ('a' + k % 26));
+        if (i % 500 == 1)
+            sb.append("x".repeat(3000));
+        return sb.toString();
+    }
+
+    public void testRecordsSpanManyRegionsAndSurviveReopen() throws IOException {
+        int count = 3_000;
+        try (PersonStore store = PersonStore.open(directory, SMALL_REGION_SHIFT)) {
+            for (int i = 0; i < count; i++)
+                assertEquals(i, store.append(nameOf(i), i * 7));
+        }
+        assertTrue(Files.size(directory.resolve("persons.slots")) > 10 * (1 << SMALL_REGION_SHIFT));
+        try (PersonStore store = PersonStore.open(directory, SMALL_REGION_SHIFT)) {
+            assertEquals(count, store.size());
+            PersonStore.View view = store.view();
+            for (int i = 0; i < count; i++) {
+                view.at(i);
+                assertEquals(i * 7, view.age());
+                assertEquals(nameOf(i), view.name());
+                assertEquals(nameOf(i), store.name(i));
+                assertTrue(view.nameEquals(nameOf(i)));
+                assertFalse(view.nameEquals(nameOf(i) + "?"));
+            }
+            store.append(new Person("appended", 1));
+            assertEquals("appended", store.get(count).getName());
+        }
+    }
+
+    public void testForEachReusesOneView() throws IOException {
+        try (PersonStore store = PersonStore.open(directory, SMALL_REGION_SHIFT)) {
+            for (int i = 0; i < 100; i++)
+                store.append("p" + i, i);
+            long[] sum = new long[1];
+            PersonStore.View[] first = new PersonStore.View[1];
+            store.forEach(v -> {
+                if (first[0] == null)
+                    first[0] = v;
+                assertSame(first[0], v);
+                sum[0] += v.age();
+            });
+            assertEquals(99 * 100 / 2, sum[0]);
+        }
+    }
+
+    public void testIndexOutOfBounds() throws IOException {
+        try (PersonStore store = PersonStore.open(directory)) {
+            store.append("only", 1);
+            try {
+                store.age(1);
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+            }
+        }
+    }
+
+    public void testNameLongerThanRegionIsRejected() throws IOException {
+        try (PersonStore store = PersonStore.open(directory, SMALL_REGION_SHIFT)) {
+            try {
+                store.append("x".repeat((1 << SMALL_REGION_SHIFT) + 1), 1);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            assertEquals(0, store.size());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.chapter3;
+
+import org.example.chapter3.item10.CaseInsensitiveMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 不区分大小写查找的三种方式，查询的字符串大小写是随机的
+    wrapper    : HashMap<CaseInsensitiveString, V>，每次查找都要 new CaseInsensitiveString
+    toLowerCase: key 先转成小写放进 HashMap<String, V>，每次查找都要 toLowerCase 复制一个 String
+    folding    : CaseInsensitiveMap，直接用原来的 String 查找
+ 加上 -prof gc 看 gc.alloc.rate.norm
+ 运行：mvn -Pjmh verify -Djmh.args="CaseInsensitiveMapBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CaseInsensitiveMapBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private String[] queries;
+    private Map<CaseInsensitiveString, Integer> wrapperMap;
+    private Map<String, Integer> lowerCaseMap;
+    private CaseInsensitiveMap<Integer> foldingMap;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        wrapperMap = new HashMap<>();
+        lowerCaseMap = new HashMap<>();
+        foldingMap = new CaseInsensitiveMap<>(size);
+        String[] keys = new String[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = "User-Name-" + i;
+            wrapperMap.put(new CaseInsensitiveString(keys[i]), i);
+            lowerCaseMap.put(keys[i].toLowerCase(Locale.ROOT), i);
+            foldingMap.put(keys[i], i);
+        }
+        queries = new String[1 << 16];
+        for (int i = 0; i < queries.length; i++) {
+            char[] chars = keys[random.nextInt(size)].toCharArray();
+            for (int j = 0; j < chars.length; j++) {
+                if (random.nextBoolean())
+                    chars[j] = Character.toUpperCase(chars[j]);
+            }
+            queries[i] = new String(chars);
+        }
+    }
+
+    @Benchmark
+    public Integer wrapper() {
+        return wrapperMap.get(new CaseInsensitiveString(queries[next++ & (queries.length - 1)]));
+    }
+
+    @Benchmark
+    public Integer toLowerCase() {
+        return lowerCaseMap.get(queries[next++ & (queries.length - 1)].toLowerCase(Locale.ROOT));
+    }
+
+    @Benchmark
+    public Integer folding() {
+        return foldingMap.get(queries[next++ & (queries.length - 1)]);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.chapter3;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 深拷贝的几种方式：Stu.deepCopy 逐个拷贝、序列化拷贝，以及 HashMap 的浅拷贝 clone
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CloneBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private Code13_Clone.Stu[] students;
+    private HashMap<String, Code13_Clone.Stu> map;
+
+    @Setup
+    public void setup() {
+        students = new Code13_Clone.Stu[size];
+        map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            students[i] = new Code13_Clone.Stu(i, "stu" + i);
+            map.put(students[i].getName(), students[i]);
+        }
+    }
+
+    @Benchmark
+    public Code13_Clone.Stu[] arrayClone() {
+        return students.clone();
+    }
+
+    @Benchmark
+    public Code13_Clone.Stu[] deepCopyLoop() {
+        return Code13_Clone.deepCopy(students);
+    }
+
+    @Benchmark
+    public Code13_Clone.Stu[] deepCopySerial() {
+        return Code13_Clone.copyBySerial(students);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public HashMap<String, Code13_Clone.Stu> hashMapClone() {
+        return (HashMap<String, Code13_Clone.Stu>) map.clone();
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.chapter3;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 排序 Code14_Compara.Person 的三种比较方式，id 和 idcard 有大量重复，大部分比较要看到第二、三个 key
+    handWritten: Person.compareTo，手写的 Integer.compare / Long.compare / Double.compare
+    jdkChain   : comparingInt(...).thenComparingLong(...).thenComparingDouble(...)
+    compiled   : ComparatorCompiler 编译的同一条链
+ setup 中先用其他几条 JDK 比较链排序一次，模拟程序中别处也在用 comparingInt，让 JDK 链中共用的调用点变成 megamorphic
+ 运行：mvn -Pjmh verify -Djmh.args="ComparatorSortBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComparatorSortBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    private Code14_Compara.Person[] persons;
+    private Code14_Compara.Person[] work;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        persons = new Code14_Compara.Person[size];
+        for (int i = 0; i < size; i++)
+            persons[i] = new Code14_Compara.Person(random.nextInt(100), random.nextInt(100), random.nextFloat());
+        work = persons.clone();
+        Comparator<Code14_Compara.Person> byIdcard = Comparator.comparingInt(p -> (int) p.idcard);
+        Comparator<Code14_Compara.Person> byHash = Comparator.comparingInt(Object::hashCode);
+        Comparator<Code14_Compara.Person> byIdDesc = Comparator.comparingInt((Code14_Compara.Person p) -> -p.id)
+                .thenComparingLong(p -> -p.idcard);
+        for (Comparator<Code14_Compara.Person> c : Arrays.asList(byIdcard, byHash, byIdDesc))
+            Arrays.sort(persons.clone(), c);
+    }
+
+    @Setup(Level.Invocation)
+    public void shuffle() {
+        System.arraycopy(persons, 0, work, 0, size);
+    }
+
+    @Benchmark
+    public Object[] handWritten() {
+        Arrays.sort(work);
+        return work;
+    }
+
+    @Benchmark
+    public Object[] jdkChain() {
+        Arrays.sort(work, Code14_Compara.PERSON_CHAIN);
+        return work;
+    }
+
+    @Benchmark
+    public Object[] compiled() {
+        Arrays.sort(work, Code14_Compara.PERSON_COMPILED);
+        return work;
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.chapter3;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Code14_Compara.PhoneNumber 里两种 compareTo 的对比
+    compareTo : 手写 Short.compare
+    compareTo1: 每次调用都构造一条 Comparator 链
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompareToBenchmark {
+
+    private Code14_Compara.PhoneNumber first;
+    private Code14_Compara.PhoneNumber second;
+
+    @Setup
+    public void setup() {
+        Code14_Compara outer = new Code14_Compara();
+        first = outer.new PhoneNumber();
+        first.areaCode = 707;
+        first.prefix = 867;
+        first.lineNum = 5309;
+        second = outer.new PhoneNumber();
+        second.areaCode = 707;
+        second.prefix = 867;
+        second.lineNum = 5310;
+    }
+
+    @Benchmark
+    public int compareToHandWritten() {
+        return first.compareTo(second);
+    }
+
+    @Benchmark
+    public int compareToComparatorChain() {
+        return first.compareTo1(second);
+    }
+}
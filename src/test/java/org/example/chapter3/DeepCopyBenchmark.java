@@ -0,0 +1,75 @@
+package org.example.chapter3;
+
+import org.example.chapter3.item13.DeepCopier;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 深拷贝一棵有 nodes 个节点的树：每个节点有指向父节点的引用（环）、子节点数组和一个 List<Stu>
+    serial    : Code13_Clone.copyBySerial，序列化 + 反序列化
+    deepCopier: item13.DeepCopier，按缓存的拷贝计划逐个字段复制
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class DeepCopyBenchmark {
+
+    static final int FAN_OUT = 8;
+
+    public static class Node implements Serializable {
+        int id;
+        String label;
+        Node parent;
+        Node[] children;
+        List<Code13_Clone.Stu> students = new ArrayList<>(2);
+    }
+
+    @Param({"1000", "1000000"})
+    public int nodes;
+
+    private Node root;
+
+    @Setup
+    public void setup() {
+        List<Node> all = new ArrayList<>(nodes);
+        root = node(0, null);
+        all.add(root);
+        for (int next = 0; all.size() < nodes; next++) {
+            Node parent = all.get(next);
+            int count = Math.min(FAN_OUT, nodes - all.size());
+            parent.children = new Node[count];
+            for (int i = 0; i < count; i++) {
+                Node child = node(all.size(), parent);
+                parent.children[i] = child;
+                all.add(child);
+            }
+        }
+    }
+
+    private static Node node(int id, Node parent) {
+        Node node = new Node();
+        node.id = id;
+        node.label = "node" + id;
+        node.parent = parent;
+        node.children = new Node[0];
+        node.students.add(new Code13_Clone.Stu(id, "stu" + id));
+        return node;
+    }
+
+    @Benchmark
+    public Node serial() {
+        return Code13_Clone.copyBySerial(root);
+    }
+
+    @Benchmark
+    public Node deepCopier() {
+        return DeepCopier.standard().copy(root);
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.chapter3;
+
+import org.example.chapter3.item14.RadixSort;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 排序 Code14_Compara.PhoneNumber 数组
+    arraysSort / arraysParallelSort: 使用手写的 compareTo，每次比较都要访问两个对象，再比较三个 short
+    radixSort / radixParallelSort  : RadixSort，每个元素只调用一次 sortKey()，之后只排序 long[] 和 int[]
+ parallel 的结果取决于 CPU 核数，单核的机器上和非并行的版本相同
+ 运行：mvn -Pjmh verify -Djmh.args="PhoneNumberSortBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PhoneNumberSortBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    private Code14_Compara.PhoneNumber[] numbers;
+    private Code14_Compara.PhoneNumber[] work;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Code14_Compara outer = new Code14_Compara();
+        numbers = new Code14_Compara.PhoneNumber[size];
+        for (int i = 0; i < size; i++) {
+            Code14_Compara.PhoneNumber n = outer.new PhoneNumber();
+            n.areaCode = (short) random.nextInt(1000);
+            n.prefix = (short) random.nextInt(1000);
+            n.lineNum = (short) random.nextInt(10000);
+            numbers[i] = n;
+        }
+        work = numbers.clone();
+    }
+
+    @Setup(Level.Invocation)
+    public void shuffle() {
+        System.arraycopy(numbers, 0, work, 0, size);
+    }
+
+    @Benchmark
+    public Object[] arraysSort() {
+        Arrays.sort(work);
+        return work;
+    }
+
+    @Benchmark
+    public Object[] arraysParallelSort() {
+        Arrays.parallelSort(work);
+        return work;
+    }
+
+    @Benchmark
+    public Object[] radixSort() {
+        RadixSort.sort(work, Code14_Compara.PhoneNumber::sortKey);
+        return work;
+    }
+
+    @Benchmark
+    public Object[] radixParallelSort() {
+        RadixSort.parallelSort(work, Code14_Compara.PhoneNumber::sortKey);
+        return work;
+    }
+}
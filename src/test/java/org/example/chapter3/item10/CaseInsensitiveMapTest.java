@@ -0,0 +1,147 @@
+package org.example.chapter3.item10;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.example.Allocations.allocatedBytes;
+
+public class CaseInsensitiveMapTest extends TestCase {
+
+    private static final int CALLS = 1_000_000;
+
+    // 防止结果被优化掉
+    static int sink;
+
+    public void testFoldingAgreesWithEqualsIgnoreCase() {
+        for (char a = 0; a < 0x600; a++) {
+            for (char b = 0; b < 0x600; b++) {
+                boolean expected = String.valueOf(a).equalsIgnoreCase(String.valueOf(b));
+                assertEquals(a + " vs " + b, expected, CaseFolding.equals(String.valueOf(a), String.valueOf(b)));
+                if (expected)
+                    assertEquals(CaseFolding.hashCode(String.valueOf(a)), CaseFolding.hashCode(String.valueOf(b)));
+            }
+        }
+        // ASCII 时就是小写之后的 String.hashCode
+        assertEquals("hello world".hashCode(), CaseFolding.hashCode("HeLLo World"));
+        assertTrue(CaseFolding.equals("Straße", new StringBuilder("STRASSE").replace(4, 6, "ß")));
+    }
+
+    // 增补字符（代理对）也按码点折叠，和 JDK 17 的 equalsIgnoreCase 相同，例如 Deseret 的 U+10400 和 U+10428
+    public void testSurrogatePairsFoldLikeEqualsIgnoreCase() {
+        String upper = "\uD801\uDC00";
+        String lower = "\uD801\uDC28";
+        assertTrue(upper.equalsIgnoreCase(lower));
+        assertTrue(CaseFolding.equals(upper, lower));
+        assertEquals(CaseFolding.hashCode(upper), CaseFolding.hashCode(lower));
+        assertEquals(CaseFolding.hashCode("x" + lower + "y"), CaseFolding.hashCode("X" + upper + "Y"));
+
+        int[][] ranges = {{0x10400, 0x10500}, {0x1E900, 0x1E960}, {0x1F600, 0x1F610}};
+        for (int[] range : ranges) {
+            for (int a = range[0]; a < range[1]; a++) {
+                for (int b = range[0]; b < range[1]; b++) {
+                    String sa = "k" + Character.toString(a);
+                    String sb = "K" + Character.toString(b);
+                    boolean expected = sa.equalsIgnoreCase(sb);
+                    assertEquals(sa + " vs " + sb, expected, CaseFolding.equals(sa, sb));
+                    if (expected)
+                        assertEquals(CaseFolding.hashCode(sa), CaseFolding.hashCode(sb));
+                }
+            }
+        }
+        // 不成对的代理 char 只和它自己相等
+        assertTrue(CaseFolding.equals("\uD801", "\uD801"));
+        assertFalse(CaseFolding.equals("\uD801a", "\uD801b"));
+
+        CaseInsensitiveMap<Integer> map = new CaseInsensitiveMap<>();
+        map.put("name" + upper, 1);
+        assertEquals(Integer.valueOf(1), map.get("NAME" + lower));
+    }
+
+    public void testPutGetRemove() {
+        CaseInsensitiveMap<Integer> map = new CaseInsensitiveMap<>();
+        assertNull(map.put("Polish", 1));
+        assertEquals(Integer.valueOf(1), map.put("POLISH", 2));
+        assertEquals(1, map.size());
+        assertEquals(Integer.valueOf(2), map.get("polish"));
+        assertEquals(Integer.valueOf(2), map.get(new StringBuilder("pOlIsH")));
+        assertEquals("Polish", map.canonicalKey("POLISH"));
+        assertNull(map.get("polis"));
+        assertEquals(Integer.valueOf(-1), map.getOrDefault("Polis", -1));
+        map.put("nothing", null);
+        assertTrue(map.containsKey("NOTHING"));
+        assertNull(map.get("NOTHING"));
+        assertEquals(Integer.valueOf(2), map.remove("polish"));
+        assertFalse(map.containsKey("Polish"));
+        assertEquals(1, map.size());
+        try {
+            map.put(null, 1);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    // 随机操作，和 TreeMap(CASE_INSENSITIVE_ORDER) 的结果对比，覆盖扩容和删除时的移动
+    public void testAgreesWithTreeMap() {
+        Random random = new Random(42);
+        CaseInsensitiveMap<Integer> map = new CaseInsensitiveMap<>();
+        Map<String, Integer> expected = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < 200_000; i++) {
+            String key = randomCase(random, "key" + random.nextInt(5000));
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, i), map.put(key, i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        Map<String, Integer> actual = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+
+    public void testSet() {
+        CaseInsensitiveSet set = new CaseInsensitiveSet();
+        assertTrue(set.add("Hello"));
+        assertFalse(set.add("HELLO"));
+        assertTrue(set.contains("hello"));
+        assertEquals("[Hello]", set.toString());
+        assertTrue(set.remove("hELLO"));
+        assertTrue(set.isEmpty());
+    }
+
+    public void testLookupDoesNotAllocate() {
+        CaseInsensitiveMap<Integer> map = new CaseInsensitiveMap<>();
+        String[] queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            map.put("Key-" + i, i);
+            queries[i] = ("key-" + i).toUpperCase(Locale.ROOT);
+        }
+        Runnable lookups = () -> {
+            for (int i = 0; i < CALLS; i++)
+                sink += map.get(queries[i & (queries.length - 1)]);
+        };
+        lookups.run();
+        long bytes = allocatedBytes(lookups);
+        // 一次分配至少 16 字节，总数小于调用次数就说明每次查找都没有分配（value 是放进去时装箱的，get 只拆箱）
+        assertTrue("allocated " + bytes + " bytes for " + CALLS + " calls", bytes < CALLS);
+    }
+
+    private static String randomCase(Random random, String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (random.nextBoolean())
+                chars[i] = Character.toUpperCase(chars[i]);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.chapter3.item11;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 测量 PhoneNumber 中三种 hashCode 写法的真实差距，以及 equals 的开销
+    hashCode1: 手写的 31 * result
+    hashCode2: Objects.hash，需要创建可变参数数组并装箱
+    hashCode : 延迟初始化 + 缓存
+ Person 的两个字段：objectsHashTwoFields 是原来的 Objects.hash(id, name)，personHashCode 现在用的是 Hashing
+ 运行：mvn -Pjmh verify -Djmh.args=HashCodeBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashCodeBenchmark {
+
+    private PhoneNumber phoneNumber;
+    private PhoneNumber samePhoneNumber;
+    private PhoneNumber otherPhoneNumber;
+    private Person person;
+    private int id = 42;
+    private String name = "John";
+
+    @Setup
+    public void setup() {
+        phoneNumber = new PhoneNumber(707, 867, 5309);
+        samePhoneNumber = new PhoneNumber(707, 867, 5309);
+        otherPhoneNumber = new PhoneNumber(707, 867, 5310);
+        person = new Person();
+    }
+
+    @Benchmark
+    public int hashCodeTypical() {
+        return phoneNumber.hashCode1();
+    }
+
+    @Benchmark
+    public int hashCodeObjectsHash() {
+        return phoneNumber.hashCode2();
+    }
+
+    @Benchmark
+    public int hashCodeCached() {
+        return phoneNumber.hashCode();
+    }
+
+    @Benchmark
+    public int personHashCode() {
+        return person.hashCode();
+    }
+
+    @Benchmark
+    public int objectsHashTwoFields() {
+        return Objects.hash(id, name);
+    }
+
+    @Benchmark
+    public int hashingTwoFields() {
+        return Hashing.hash(id, Hashing.of(name));
+    }
+
+    @Benchmark
+    public boolean equalsSame() {
+        return phoneNumber.equals(samePhoneNumber);
+    }
+
+    @Benchmark
+    public boolean equalsOther() {
+        return phoneNumber.equals(otherPhoneNumber);
+    }
+}
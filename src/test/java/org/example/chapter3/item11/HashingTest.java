@@ -0,0 +1,57 @@
+package org.example.chapter3.item11;
+
+import junit.framework.TestCase;
+
+import java.util.Objects;
+import java.util.Random;
+
+import static org.example.Allocations.allocatedBytes;
+
+public class HashingTest extends TestCase {
+
+    private static final int CALLS = 1_000_000;
+
+    // 防止结果被优化掉
+    static int sink;
+
+    public void testSameResultAsObjectsHash() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            int a = random.nextInt(), b = random.nextInt(), c = random.nextInt(), d = random.nextInt();
+            short s = (short) random.nextInt();
+            long l = random.nextLong();
+            double x = random.nextDouble();
+            String str = i % 7 == 0 ? null : "s" + i;
+            assertEquals(Objects.hash(a), Hashing.hash(a));
+            assertEquals(Objects.hash(a, str), Hashing.hash(a, Hashing.of(str)));
+            assertEquals(Objects.hash(a, s, l), Hashing.hash(a, s, Hashing.of(l)));
+            assertEquals(Objects.hash(a, b, x, str), Hashing.hash(a, b, Hashing.of(x), Hashing.of(str)));
+            assertEquals(Objects.hash(a, b, c, d, s, l, x, true),
+                    Hashing.hash(a, b, c, d, s, Hashing.of(l), Hashing.of(x), Hashing.of(true)));
+        }
+        assertEquals(Objects.hash(0, null), new Person().hashCode());
+    }
+
+    public void testMixIsABijectionOnSmallRange() {
+        java.util.Set<Integer> seen = new java.util.HashSet<>();
+        for (int i = 0; i < 100_000; i++)
+            assertTrue(seen.add(Hashing.mix(i)));
+        assertEquals(0, Hashing.mix(0));
+        // 相邻的输入，高位也不同
+        assertTrue((Hashing.mix(1) >>> 16) != (Hashing.mix(2) >>> 16));
+    }
+
+    public void testHashingDoesNotAllocate() {
+        Person person = new Person();
+        String name = "name";
+        Runnable hashing = () -> {
+            for (int i = 0; i < CALLS; i++)
+                sink += Hashing.hash(i, Hashing.of(name), Hashing.of((long) i), Hashing.of(i * 0.5), (short) i)
+                        + Hashing.mix(i) + person.hashCode();
+        };
+        hashing.run();
+        long bytes = allocatedBytes(hashing);
+        // 一次分配至少 16 字节，总数小于调用次数就说明每次调用都没有分配
+        assertTrue("allocated " + bytes + " bytes for " + CALLS + " calls", bytes < CALLS);
+    }
+}
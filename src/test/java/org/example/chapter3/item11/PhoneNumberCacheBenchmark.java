@@ -0,0 +1,48 @@
+package org.example.chapter3.item11;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ new PhoneNumber 和 PhoneNumber.valueOf（有界缓存）的对比
+    查询的号码集中在 hot 个常用号码上，加上 -prof gc 看命中时 valueOf 不再分配对象
+ 运行：mvn -Pjmh verify -Djmh.args="PhoneNumberCacheBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PhoneNumberCacheBenchmark {
+
+    @Param({"10000"})
+    int hot;
+
+    private long[] packed;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        packed = new long[1 << 16];
+        for (int i = 0; i < packed.length; i++) {
+            int n = random.nextInt(hot);
+            packed[i] = PhoneNumber.pack(n % 1000, n / 1000, 1234);
+        }
+    }
+
+    @Benchmark
+    public PhoneNumber newInstance() {
+        long p = packed[next++ & (packed.length - 1)];
+        return new PhoneNumber(PhoneNumber.areaCode(p), PhoneNumber.prefix(p), PhoneNumber.lineNum(p));
+    }
+
+    @Benchmark
+    public PhoneNumber valueOf() {
+        long p = packed[next++ & (packed.length - 1)];
+        return PhoneNumber.valueOf(PhoneNumber.areaCode(p), PhoneNumber.prefix(p), PhoneNumber.lineNum(p));
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.chapter3.item11;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PhoneNumberCacheTest extends TestCase {
+
+    public void testValueOfReturnsTheCanonicalInstance() {
+        PhoneNumber a = PhoneNumber.valueOf(707, 867, 5309);
+        PhoneNumber b = PhoneNumber.valueOf(PhoneNumber.pack(707, 867, 5309));
+        assertSame(a, b);
+        assertEquals(new PhoneNumber(707, 867, 5309), a);
+        assertTrue(PhoneNumber.cache().hits() >= 1);
+        try {
+            PhoneNumber.valueOf(1000, 0, 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testCountsHitsMissesAndEvictions() {
+        PhoneNumberCache cache = new PhoneNumberCache(64);
+        assertEquals(64, cache.capacity());
+        for (int i = 0; i < 64; i++)
+            cache.intern(PhoneNumber.pack(1, 1, i));
+        assertEquals(64, cache.misses());
+        for (int i = 0; i < 64; i++)
+            cache.intern(PhoneNumber.pack(1, 1, i));
+        // 有的组会先满，第二轮不一定全部命中
+        assertEquals(128, cache.hits() + cache.misses());
+        assertTrue(cache.hits() > 0);
+        for (int i = 0; i < 1000; i++)
+            cache.intern(PhoneNumber.pack(2, 2, i));
+        assertTrue(cache.evictions() > 0);
+    }
+
+    public void testFrequentNumbersSurviveAScan() {
+        PhoneNumberCache cache = new PhoneNumberCache(1024);
+        List<PhoneNumber> hot = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            hot.add(cache.intern(PhoneNumber.pack(111, 222, i)));
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 100; i++)
+                cache.intern(PhoneNumber.pack(111, 222, i));
+        }
+        // 大量只出现一次的号码，不应该把常用的号码挤出去
+        for (int i = 0; i < 5_000; i++)
+            cache.intern(PhoneNumber.pack(333, 444, i));
+        int survived = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.intern(PhoneNumber.pack(111, 222, i)) == hot.get(i))
+                survived++;
+        }
+        assertTrue("survived: " + survived, survived >= 90);
+    }
+
+    public void testZeroSizeDisablesCaching() {
+        PhoneNumberCache cache = new PhoneNumberCache(0);
+        long packed = PhoneNumber.pack(1, 2, 3);
+        assertNotSame(cache.intern(packed), cache.intern(packed));
+        assertEquals(2, cache.misses());
+    }
+
+    public void testConcurrentInternReturnsOneInstancePerNumberAtATime() throws InterruptedException {
+        PhoneNumberCache cache = new PhoneNumberCache(4096);
+        ConcurrentHashMap<Long, PhoneNumber> first = new ConcurrentHashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 100_000; i++) {
+                        long packed = PhoneNumber.pack(5, 5, i % 1000);
+                        PhoneNumber n = cache.intern(packed);
+                        assertEquals(packed, n.toLong());
+                        first.putIfAbsent(packed, n);
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertNull(failure.get());
+        // 1000 个号码能全部放下，最后每个号码都只有一个实例
+        for (int i = 0; i < 1000; i++) {
+            long packed = PhoneNumber.pack(5, 5, i);
+            assertSame(cache.intern(packed), cache.intern(packed));
+        }
+        assertEquals(400_000 + 2000, cache.hits() + cache.misses());
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.chapter3.item11;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ HashSet<PhoneNumber> 和 PhoneNumberSet（long 编码 + 开放寻址）的对比
+    build*   : 放入 size 个号码，加上 -prof gc 看 gc.alloc.rate.norm，就是每个集合占用的内存（都提前设置了容量）
+    contains*: 随机查询，一半命中
+ 运行：mvn -Pjmh verify -Djmh.args="PhoneNumberSetBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PhoneNumberSetBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    private long[] packed;
+    private PhoneNumber[] queries;
+    private long[] packedQueries;
+    private Set<PhoneNumber> hashSet;
+    private PhoneNumberSet phoneNumberSet;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        packed = new long[size];
+        for (int i = 0; i < size; i++)
+            packed[i] = PhoneNumber.pack(random.nextInt(1000), random.nextInt(1000), random.nextInt(10000));
+        hashSet = buildHashSet();
+        phoneNumberSet = buildPacked();
+        queries = new PhoneNumber[1 << 16];
+        packedQueries = new long[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            long p = i % 2 == 0 ? packed[random.nextInt(size)]
+                    : PhoneNumber.pack(random.nextInt(1000), random.nextInt(1000), random.nextInt(10000));
+            packedQueries[i] = p;
+            queries[i] = PhoneNumber.fromLong(p);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set<PhoneNumber> buildHashSet() {
+        Set<PhoneNumber> set = new HashSet<>(size * 4 / 3 + 1);
+        for (long p : packed)
+            set.add(PhoneNumber.fromLong(p));
+        return set;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PhoneNumberSet buildPacked() {
+        PhoneNumberSet set = new PhoneNumberSet(size);
+        set.addAll(packed);
+        return set;
+    }
+
+    @Benchmark
+    public boolean containsHashSet() {
+        return hashSet.contains(queries[next++ & (queries.length - 1)]);
+    }
+
+    @Benchmark
+    public boolean containsPacked() {
+        return phoneNumberSet.contains(packedQueries[next++ & (packedQueries.length - 1)]);
+    }
+}
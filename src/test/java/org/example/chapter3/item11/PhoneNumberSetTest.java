@@ -0,0 +1,124 @@
+package org.example.chapter3.item11;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.example.Allocations.allocatedBytes;
+
+public class PhoneNumberSetTest extends TestCase {
+
+    private static long randomPacked(Random random) {
+        return PhoneNumber.pack(random.nextInt(1000), random.nextInt(1000), random.nextInt(10000));
+    }
+
+    public void testPackRoundTrip() {
+        PhoneNumber jenny = new PhoneNumber(707, 867, 5309);
+        long packed = jenny.toLong();
+        assertEquals(PhoneNumber.pack(707, 867, 5309), packed);
+        assertEquals(707, PhoneNumber.areaCode(packed));
+        assertEquals(867, PhoneNumber.prefix(packed));
+        assertEquals(5309, PhoneNumber.lineNum(packed));
+        assertEquals(jenny, PhoneNumber.fromLong(packed));
+        try {
+            PhoneNumber.checkPacked(PhoneNumber.pack(999, 999, 9999) + 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testSetAgreesWithHashSet() {
+        Random random = new Random(7);
+        PhoneNumberSet set = new PhoneNumberSet();
+        Set<Long> model = new HashSet<>();
+        // 号码只取很小的范围，让 add/remove 经常命中已有的元素，也会产生很长的探测链
+        for (int i = 0; i < 200_000; i++) {
+            long packed = PhoneNumber.pack(random.nextInt(3), random.nextInt(10), random.nextInt(1000));
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(model.add(packed), set.add(packed));
+                    break;
+                case 1:
+                    assertEquals(model.remove(packed), set.remove(packed));
+                    break;
+                default:
+                    assertEquals(model.contains(packed), set.contains(packed));
+            }
+            assertEquals(model.size(), set.size());
+        }
+        Set<Long> all = new HashSet<>();
+        set.forEach(all::add);
+        assertEquals(model, all);
+        assertFalse(set.contains(-1L));
+    }
+
+    public void testAddAll() {
+        Random random = new Random(11);
+        long[] batch = new long[10_000];
+        for (int i = 0; i < batch.length; i++)
+            batch[i] = randomPacked(random);
+        PhoneNumberSet set = new PhoneNumberSet();
+        set.add(batch[0]);
+        int added = set.addAll(batch);
+        assertEquals(set.size(), added + 1);
+        for (long p : batch)
+            assertTrue(set.contains(p));
+        try {
+            set.addAll(new long[]{batch[1], -1L});
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testMapAgreesWithHashMap() {
+        Random random = new Random(13);
+        PhoneNumberMap<String> map = new PhoneNumberMap<>();
+        Map<Long, String> model = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long packed = PhoneNumber.pack(random.nextInt(3), random.nextInt(10), random.nextInt(1000));
+            switch (random.nextInt(3)) {
+                case 0:
+                    String value = i % 10 == 0 ? null : "v" + i;
+                    assertEquals(model.put(packed, value), map.put(packed, value));
+                    break;
+                case 1:
+                    assertEquals(model.remove(packed), map.remove(packed));
+                    break;
+                default:
+                    assertEquals(model.containsKey(packed), map.containsKey(packed));
+                    assertEquals(model.get(packed), map.get(packed));
+            }
+            assertEquals(model.size(), map.size());
+        }
+        Map<Long, String> all = new HashMap<>();
+        map.forEach(all::put);
+        assertEquals(model, all);
+    }
+
+    public void testUsesFarLessMemoryThanHashSet() {
+        int n = 90_000;
+        Random random = new Random(17);
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++)
+            packed[i] = randomPacked(random);
+
+        long boxed = allocatedBytes(() -> {
+            Set<PhoneNumber> set = new HashSet<>(n * 4 / 3 + 1);
+            for (long p : packed)
+                set.add(PhoneNumber.fromLong(p));
+            sink = set;
+        });
+        long primitive = allocatedBytes(() -> {
+            PhoneNumberSet set = new PhoneNumberSet(n);
+            set.addAll(packed);
+            sink = set;
+        });
+        assertTrue("HashSet " + boxed + " bytes, PhoneNumberSet " + primitive + " bytes", boxed > 4 * primitive);
+    }
+
+    static Object sink;
+}
@@ -0,0 +1,182 @@
+package org.example.chapter3.item13;
+
+import junit.framework.TestCase;
+import org.example.chapter3.Code13_Clone;
+import org.example.chapter3.Code13_Clone.Stu;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+public class DeepCopierTest extends TestCase {
+
+    private final DeepCopier copier = DeepCopier.standard();
+
+    static class Node {
+        int id;
+        double weight;
+        String label;
+        Node parent;
+        Node[] children = new Node[0];
+        final List<Node> links = new ArrayList<>();
+    }
+
+    static final class Point {
+        final int x;
+        final int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    // 有无参构造方法，拷贝时会调用它，但字段随后都被源对象的值覆盖
+    static final class Counter {
+        static int constructed;
+        final long createdAt;
+        int[] hits = new int[4];
+
+        Counter() {
+            constructed++;
+            createdAt = constructed;
+        }
+    }
+
+    record Pair(Stu left, Point right) {
+    }
+
+    enum Color { RED, GREEN }
+
+    public void testCopiesFieldsAndKeepsCycles() {
+        Node root = new Node();
+        root.id = 1;
+        root.weight = 0.5;
+        root.label = "root";
+        Node child = new Node();
+        child.id = 2;
+        child.parent = root;
+        root.children = new Node[]{child, child};
+        root.links.add(root);
+        root.links.add(child);
+
+        Node copy = copier.copy(root);
+        assertNotSame(root, copy);
+        assertEquals(1, copy.id);
+        assertEquals(0.5, copy.weight);
+        assertSame("String 直接共享", root.label, copy.label);
+        Node copiedChild = copy.children[0];
+        assertNotSame(child, copiedChild);
+        assertSame("同一个对象只拷贝一次", copiedChild, copy.children[1]);
+        assertSame(copy, copiedChild.parent);
+        assertNotSame(root.links, copy.links);
+        assertSame(copy, copy.links.get(0));
+        assertSame(copiedChild, copy.links.get(1));
+    }
+
+    public void testLongChainDoesNotOverflowTheStack() {
+        Node head = new Node();
+        Node tail = head;
+        for (int i = 1; i < 200_000; i++) {
+            Node next = new Node();
+            next.id = i;
+            next.parent = tail;
+            tail = next;
+        }
+        Node copy = copier.copy(tail);
+        int count = 0;
+        for (Node n = copy; n != null; n = n.parent)
+            count++;
+        assertEquals(200_000, count);
+    }
+
+    public void testImmutableValuesAreShared() {
+        Point point = new Point(1, 2);
+        assertSame(point, copier.copy(point));
+        BigDecimal decimal = new BigDecimal("1.50");
+        assertSame(decimal, copier.copy(decimal));
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        assertSame(date, copier.copy(date));
+        assertSame(Color.RED, copier.copy(Color.RED));
+
+        Stu stu = new Stu(1, "a");
+        assertNotSame(stu, copier.copy(stu));
+        assertSame(stu, copier.sharing(Stu.class).copy(stu));
+    }
+
+    public void testCollectionsKeepTheirTypeAndHashing() {
+        Stu a = new Stu(1, "a");
+        HashSet<Stu> set = new HashSet<>(List.of(a, new Stu(2, "b")));
+        HashSet<Stu> setCopy = copier.copy(set);
+        assertEquals(set, setCopy);
+        assertTrue("元素拷贝完之后才放进去，hashCode 是对的", setCopy.contains(new Stu(1, "a")));
+        for (Stu s : setCopy)
+            assertNotSame(a, s);
+
+        TreeMap<String, Stu> sorted = new TreeMap<>(Comparator.reverseOrder());
+        sorted.put("a", a);
+        sorted.put("b", new Stu(2, "b"));
+        TreeMap<String, Stu> sortedCopy = copier.copy(sorted);
+        assertEquals("b", sortedCopy.firstKey());
+        assertNotSame(a, sortedCopy.get("a"));
+
+        List<Stu> unmodifiable = List.of(a);
+        List<Stu> unmodifiableCopy = copier.copy(unmodifiable);
+        assertEquals(unmodifiable, unmodifiableCopy);
+        try {
+            unmodifiableCopy.add(a);
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        EnumMap<Color, Stu> byColor = new EnumMap<>(Color.class);
+        byColor.put(Color.GREEN, a);
+        EnumMap<Color, Stu> byColorCopy = copier.copy(byColor);
+        assertEquals(a, byColorCopy.get(Color.GREEN));
+        assertNotSame(a, byColorCopy.get(Color.GREEN));
+
+        int[][] grid = {{1, 2}, {3}};
+        int[][] gridCopy = copier.copy(grid);
+        assertNotSame(grid[0], gridCopy[0]);
+        assertTrue(Arrays.deepEquals(grid, gridCopy));
+    }
+
+    public void testRecordsAreRebuiltThroughTheCanonicalConstructor() {
+        Pair pair = new Pair(new Stu(1, "a"), new Point(1, 2));
+        Pair copy = copier.copy(pair);
+        assertNotSame(pair, copy);
+        assertEquals(pair.left(), copy.left());
+        assertNotSame(pair.left(), copy.left());
+        assertSame(pair.right(), copy.right());
+    }
+
+    public void testConstructorsAreNotRunByDefault() {
+        Counter source = new Counter();
+        source.hits[2] = 7;
+        int before = Counter.constructed;
+        Counter copy = copier.copy(source);
+        assertEquals(before, Counter.constructed);
+        assertEquals(source.createdAt, copy.createdAt);
+        assertNotSame(source.hits, copy.hits);
+        assertEquals(7, copy.hits[2]);
+    }
+
+    public void testUsingConstructorsRunsNoArgConstructorAndOverwritesFields() {
+        Counter source = new Counter();
+        source.hits[2] = 7;
+        int before = Counter.constructed;
+        Counter copy = copier.usingConstructors().copy(source);
+        assertEquals(before + 1, Counter.constructed);
+        assertEquals(source.createdAt, copy.createdAt);
+        assertNotSame(source.hits, copy.hits);
+        assertEquals(7, copy.hits[2]);
+        // 没有无参构造方法的类仍然可以拷贝
+        Stu stu = copier.usingConstructors().copy(new Stu(1, "a"));
+        assertEquals("a", stu.getName());
+    }
+
+    public void testStuDeepCopyKeepsName() {
+        Stu[] copies = Code13_Clone.deepCopy(new Stu[]{new Stu(1, "Alice")});
+        assertEquals("Alice", copies[0].getName());
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.chapter3.item13;
+
+import junit.framework.TestCase;
+import org.example.chapter3.Code13_Clone.SearchWord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class IncrementalPollerTest extends TestCase {
+
+    // 同一个时间戳下有很多行，页的边界一定会落在它们中间
+    public void testPagesSplittingTiesDoNotLoseOrRepeatRows() {
+        InMemorySearchWordSource source = new InMemorySearchWordSource();
+        for (int i = 0; i < 1000; i++)
+            source.put(i / 100, "kw" + i);
+
+        List<String> seen = new ArrayList<>();
+        IncrementalPoller poller = new IncrementalPoller(source, 7);
+        poller.poll(seen, (list, page) -> {
+            for (SearchWord word : page)
+                list.add(word.getKeyword());
+            return list;
+        });
+        poller.commit();
+
+        assertEquals(1000, seen.size());
+        assertEquals(1000, seen.stream().distinct().count());
+        assertEquals(Watermark.of(9, "kw999"), poller.watermark());
+    }
+
+    public void testPollResumesFromWatermarkAndSeesUpdates() {
+        InMemorySearchWordSource source = new InMemorySearchWordSource();
+        for (int i = 0; i < 50; i++)
+            source.put(1, "kw" + i);
+
+        Map<String, Long> state = new HashMap<>();
+        IncrementalPoller poller = new IncrementalPoller(source, 10, 2, Watermark.INITIAL);
+        poller.poll(state, IncrementalPollerTest::apply);
+        poller.commit();
+        assertEquals(20, state.size());
+
+        // 已经拉取过的 keyword 被修改，会出现在 watermark 之后
+        source.put(2, "kw0");
+        // 每次最多 2 页：20 + 20 + 11
+        for (int i = 0; i < 3; i++) {
+            poller.poll(state, IncrementalPollerTest::apply);
+            poller.commit();
+        }
+        assertEquals(50, state.size());
+        assertEquals(Long.valueOf(2), state.get("kw0"));
+    }
+
+    public void testFailedPageIsRetried() {
+        InMemorySearchWordSource source = new InMemorySearchWordSource();
+        for (int i = 0; i < 30; i++)
+            source.put(i, "kw" + i);
+        IncrementalPoller poller = new IncrementalPoller(source, 10);
+        try {
+            poller.poll(null, (s, page) -> {
+                throw new IllegalStateException("consumer failed");
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(Watermark.INITIAL, poller.watermark());
+        Integer count = poller.poll(0, (n, page) -> n + page.size());
+        assertEquals(Integer.valueOf(30), count);
+    }
+
+    // 第 2 页失败时第 1 页已经处理过，但调用方没有发布，重试必须再次拿到第 1 页
+    public void testFailureAfterFirstPageDoesNotSkipIt() {
+        InMemorySearchWordSource source = new InMemorySearchWordSource();
+        for (int i = 0; i < 30; i++)
+            source.put(i, "kw" + i);
+        AtomicInteger fetches = new AtomicInteger();
+        SearchWordSource failingOnSecondPage = (after, limit) -> {
+            if (fetches.incrementAndGet() == 2)
+                throw new IllegalStateException("connection lost");
+            return source.fetchPage(after, limit);
+        };
+        IncrementalPoller poller = new IncrementalPoller(failingOnSecondPage, 10);
+        try {
+            poller.poll(new ArrayList<String>(), IncrementalPollerTest::keywords);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(Watermark.INITIAL, poller.watermark());
+
+        List<String> published = poller.poll(new ArrayList<>(), IncrementalPollerTest::keywords);
+        poller.commit();
+        assertEquals(30, published.size());
+        assertEquals("kw0", published.get(0));
+        assertEquals(Watermark.of(29, "kw29"), poller.watermark());
+    }
+
+    // 没有 commit（例如发布失败）时，下次 poll 从原来的 watermark 重新开始
+    public void testUncommittedPollIsRepeated() {
+        InMemorySearchWordSource source = new InMemorySearchWordSource();
+        for (int i = 0; i < 15; i++)
+            source.put(i, "kw" + i);
+        IncrementalPoller poller = new IncrementalPoller(source, 10);
+        assertEquals(15, poller.poll(new ArrayList<String>(), IncrementalPollerTest::keywords).size());
+        assertEquals(Watermark.INITIAL, poller.watermark());
+        assertEquals(15, poller.poll(new ArrayList<String>(), IncrementalPollerTest::keywords).size());
+        poller.commit();
+        assertEquals(0, poller.poll(new ArrayList<String>(), IncrementalPollerTest::keywords).size());
+    }
+
+    public void testStreamFetchesLazily() {
+        InMemorySearchWordSource source = new InMemorySearchWordSource();
+        for (int i = 0; i < 25; i++)
+            source.put(i, "kw" + i);
+        AtomicInteger fetches = new AtomicInteger();
+        SearchWordSource counting = (after, limit) -> {
+            fetches.incrementAndGet();
+            return source.fetchPage(after, limit);
+        };
+        Stream<SearchWord> stream = counting.stream(Watermark.INITIAL, 10);
+        assertEquals(0, fetches.get());
+        List<String> firstThree = stream
+                .limit(3)
+                .map(SearchWord::getKeyword)
+                .collect(Collectors.toList());
+        assertEquals(List.of("kw0", "kw1", "kw2"), firstThree);
+        // 前 3 个在第 1 页中，不会拉取第 2 页
+        assertEquals(1, fetches.get());
+
+        fetches.set(0);
+        assertEquals(25, counting.stream(Watermark.of(0, "kw0"), 4).count() + 1);
+        // 24 行，每页 4 行：6 页满的，再查一次才知道没有数据了
+        assertEquals(7, fetches.get());
+    }
+
+    private static List<String> keywords(List<String> state, List<SearchWord> page) {
+        for (SearchWord word : page)
+            state.add(word.getKeyword());
+        return state;
+    }
+
+    private static Map<String, Long> apply(Map<String, Long> state, List<SearchWord> page) {
+        for (SearchWord word : page)
+            state.put(word.getKeyword(), word.getLastUpdateTime());
+        return state;
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.chapter3.item13;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Code13_Clone.Demo.refresh 的两种写法：先 clone 整个 HashMap 再 put，和 PersistentHashMap 的路径拷贝
+ 每次 refresh 修改 changed 个 key，关键词总数从 10^4 到 10^7
+ 10^7 个 key 需要几个 G 的堆，所以 fork 出来的 JVM 指定了 -Xmx
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class KeywordRefreshBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Keywords {
+        @Param({"10000", "100000", "1000000", "10000000"})
+        public int size;
+
+        @Param({"100"})
+        public int changed;
+
+        String[] changedKeys;
+
+        void setupChangedKeys() {
+            changedKeys = new String[changed];
+            for (int i = 0; i < changed; i++)
+                changedKeys[i] = "keyword" + (i * (size / changed));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HashMapKeywords extends Keywords {
+        HashMap<String, Object> current;
+
+        @Setup
+        public void setup() {
+            current = new HashMap<>();
+            for (int i = 0; i < size; i++)
+                current.put("keyword" + i, i);
+            setupChangedKeys();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PersistentKeywords extends Keywords {
+        PersistentHashMap<String, Object> current;
+
+        @Setup
+        public void setup() {
+            PersistentHashMap<String, Object> map = PersistentHashMap.empty();
+            for (int i = 0; i < size; i++)
+                map = map.plus("keyword" + i, i);
+            current = map;
+            setupChangedKeys();
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public HashMap<String, Object> cloneThenPut(HashMapKeywords state) {
+        HashMap<String, Object> newKeywords = (HashMap<String, Object>) state.current.clone();
+        for (String key : state.changedKeys)
+            newKeywords.put(key, key);
+        return newKeywords;
+    }
+
+    @Benchmark
+    public PersistentHashMap<String, Object> persistentPlus(PersistentKeywords state) {
+        PersistentHashMap<String, Object> newKeywords = state.current;
+        for (String key : state.changedKeys)
+            newKeywords = newKeywords.plus(key, key);
+        return newKeywords;
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.chapter3.item13;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class PersistentHashMapTest extends TestCase {
+
+    // hashCode 只有 4 种取值，用来覆盖 CollisionNode 和多层下沉
+    private static final class BadHash {
+        final int id;
+
+        BadHash(int id) {
+            this.id = id;
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof BadHash && ((BadHash) o).id == id;
+        }
+
+        @Override public int hashCode() {
+            return id & 3;
+        }
+    }
+
+    public void testRandomOperationsMatchHashMap() {
+        Random random = new Random(7);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> actual = PersistentHashMap.empty();
+        for (int i = 0; i < 200_000; i++) {
+            Integer key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.minus(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.plus(key, i);
+            }
+            assertEquals(expected.size(), actual.size());
+        }
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        for (int key = 0; key < 5_000; key++)
+            assertEquals(expected.get(key), actual.get(key));
+    }
+
+    public void testOldVersionIsUnchanged() {
+        PersistentHashMap<String, String> v1 = PersistentHashMap.<String, String>empty()
+                .plus("java", "1").plus("python", "2");
+        PersistentHashMap<String, String> v2 = v1.plus("java", "3").minus("python").plus("go", "4");
+
+        assertEquals("1", v1.get("java"));
+        assertEquals("2", v1.get("python"));
+        assertNull(v1.get("go"));
+        assertEquals(2, v1.size());
+
+        assertEquals("3", v2.get("java"));
+        assertNull(v2.get("python"));
+        assertEquals(2, v2.size());
+    }
+
+    public void testFullHashCollisions() {
+        Map<BadHash, Integer> expected = new HashMap<>();
+        PersistentHashMap<BadHash, Integer> actual = PersistentHashMap.empty();
+        for (int i = 0; i < 100; i++) {
+            expected.put(new BadHash(i), i);
+            actual = actual.plus(new BadHash(i), i);
+        }
+        assertEquals(expected, actual);
+        for (int i = 0; i < 100; i += 2) {
+            expected.remove(new BadHash(i));
+            actual = actual.minus(new BadHash(i));
+        }
+        assertEquals(expected, actual);
+        for (int i = 1; i < 100; i += 2)
+            actual = actual.minus(new BadHash(i));
+        assertTrue(actual.isEmpty());
+    }
+
+    public void testUnchangedUpdatesReturnSameInstance() {
+        Integer value = 1;
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty().plus("a", value);
+        assertSame(map, map.plus("a", value));
+        assertSame(map, map.minus("b"));
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.chapter3.item13;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 自动补全查询的延迟分布（SampleTime 模式会输出 p99 等分位数），以及一次增量更新的耗时
+ 关键词是随机生成的小写单词，前缀长度 1~4
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PrefixIndexBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    private PrefixIndex index;
+    private String[] prefixes;
+    private String[] keywords;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        keywords = new String[size];
+        PrefixIndex idx = PrefixIndex.empty(10);
+        for (int i = 0; i < size; i++) {
+            keywords[i] = randomWord(random, 3 + random.nextInt(10));
+            idx = idx.plus(keywords[i], random.nextInt(1_000_000));
+        }
+        index = idx;
+        prefixes = new String[4096];
+        for (int i = 0; i < prefixes.length; i++)
+            prefixes[i] = keywords[random.nextInt(size)].substring(0, 1 + random.nextInt(3));
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            sb.append((char) ('a' + random.nextInt(26)));
+        return sb.toString();
+    }
+
+    @Benchmark
+    public List<String> top10() {
+        return index.top(prefixes[next++ & (prefixes.length - 1)], 10);
+    }
+
+    @Benchmark
+    public PrefixIndex updateScore() {
+        return index.plus(keywords[next++ % size], next);
+    }
+}
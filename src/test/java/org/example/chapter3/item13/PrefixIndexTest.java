@@ -0,0 +1,71 @@
+package org.example.chapter3.item13;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class PrefixIndexTest extends TestCase {
+
+    private static final int TOP_N = 5;
+
+    // 暴力计算：扫描全部关键词，作为对照
+    private static List<String> bruteForce(Map<String, Long> scores, String prefix, int n) {
+        return scores.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(prefix))
+                .sorted(Comparator.comparing((Map.Entry<String, Long> e) -> -e.getValue())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(n)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static String randomWord(Random random) {
+        // 小字母表 + 短单词，保证大量的公共前缀、边的拆分与合并
+        int length = random.nextInt(6);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++)
+            sb.append((char) ('a' + random.nextInt(3)));
+        return sb.toString();
+    }
+
+    public void testRandomOperationsMatchBruteForce() {
+        Random random = new Random(11);
+        Map<String, Long> expected = new HashMap<>();
+        PrefixIndex index = PrefixIndex.empty(TOP_N);
+        for (int i = 0; i < 20_000; i++) {
+            String word = randomWord(random);
+            if (random.nextInt(4) == 0) {
+                expected.remove(word);
+                index = index.minus(word);
+            } else {
+                long score = random.nextInt(20);
+                expected.put(word, score);
+                index = index.plus(word, score);
+            }
+            assertEquals(expected.size(), index.size());
+            String prefix = randomWord(random);
+            assertEquals(bruteForce(expected, prefix, TOP_N), index.top(prefix, TOP_N));
+        }
+        List<String> all = new ArrayList<>(index.keywords());
+        all.sort(null);
+        assertEquals(expected.keySet().stream().sorted().collect(Collectors.toList()), all);
+        for (String word : expected.keySet())
+            assertTrue(index.contains(word));
+    }
+
+    public void testOldVersionIsUnchanged() {
+        PrefixIndex v1 = PrefixIndex.empty(TOP_N).plus("java", 1).plus("javascript", 2);
+        PrefixIndex v2 = v1.plus("java", 3).minus("javascript").plus("jar", 4);
+
+        assertEquals(List.of("javascript", "java"), v1.top("ja", 2));
+        assertEquals(List.of("jar", "java"), v2.top("ja", 2));
+        assertEquals(List.of("java"), v2.top("jav", 5));
+        assertEquals(List.of(), v2.top("javas", 5));
+    }
+}
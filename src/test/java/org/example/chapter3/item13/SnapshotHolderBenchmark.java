@@ -0,0 +1,71 @@
+package org.example.chapter3.item13;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ 读线程在刷新风暴下的吞吐：readOnly 只有读线程；refreshStorm 中有一个线程不停地发布新版本
+ staleVersions 统计读线程拿到的版本比最新版本落后了多少个版本（读完之后立即计算）
+ 线程数可以通过 -tg 调整，比如 -tg 31,1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class SnapshotHolderBenchmark {
+
+    private static final int KEYS = 100_000;
+
+    private SnapshotHolder<PersistentHashMap<String, Integer>> holder;
+    private String[] keys;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ReaderMetrics {
+        public long staleVersions;
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        keys = new String[KEYS];
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "keyword" + i;
+            map = map.plus(keys[i], i);
+        }
+        holder = new SnapshotHolder<>(map);
+    }
+
+    private Integer read(ReaderMetrics metrics) {
+        SnapshotHolder.Snapshot<PersistentHashMap<String, Integer>> snapshot = holder.snapshot();
+        Integer value = snapshot.value().get(keys[metrics.next++ % KEYS]);
+        metrics.staleVersions += holder.lag(snapshot);
+        return value;
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(4)
+    public Integer readOnlyReader(ReaderMetrics metrics) {
+        return read(metrics);
+    }
+
+    @Benchmark
+    @Group("refreshStorm")
+    @GroupThreads(3)
+    public Integer stormReader(ReaderMetrics metrics) {
+        return read(metrics);
+    }
+
+    @Benchmark
+    @Group("refreshStorm")
+    @GroupThreads(1)
+    public long stormWriter(ReaderMetrics metrics) {
+        String key = keys[metrics.next++ % KEYS];
+        return holder.update(map -> map.plus(key, metrics.next)).version();
+    }
+}
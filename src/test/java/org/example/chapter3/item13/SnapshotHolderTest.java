@@ -0,0 +1,106 @@
+package org.example.chapter3.item13;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SnapshotHolderTest extends TestCase {
+
+    public void testCompareAndPublishWithStaleSnapshotFails() {
+        SnapshotHolder<String> holder = new SnapshotHolder<>("a");
+        SnapshotHolder.Snapshot<String> stale = holder.snapshot();
+        SnapshotHolder.Snapshot<String> b = holder.compareAndPublish(stale, "b");
+        assertNotNull(b);
+        assertEquals(1, b.version());
+
+        assertNull(holder.compareAndPublish(stale, "c"));
+        assertEquals(1, holder.failedPublishes());
+        assertSame(b, holder.snapshot());
+        assertEquals("b", holder.get());
+    }
+
+    public void testUpdateRetriesWhenAnotherWriterWins() {
+        SnapshotHolder<String> holder = new SnapshotHolder<>("a");
+        AtomicInteger calls = new AtomicInteger();
+        SnapshotHolder.Snapshot<String> result = holder.update(v -> {
+            // 第一次调用时，另一个写线程抢先发布了 "b"
+            if (calls.getAndIncrement() == 0)
+                assertNotNull(holder.compareAndPublish(holder.snapshot(), "b"));
+            return v + "!";
+        });
+        assertEquals(2, calls.get());
+        assertEquals("b!", result.value());
+        assertEquals(2, result.version());
+        assertEquals(1, holder.failedPublishes());
+    }
+
+    public void testUpdateReturningSameValuePublishesNothing() {
+        SnapshotHolder<String> holder = new SnapshotHolder<>("a");
+        SnapshotHolder.Snapshot<String> before = holder.snapshot();
+        assertSame(before, holder.update(v -> v));
+        assertEquals(0, holder.version());
+        assertEquals(0, holder.failedPublishes());
+    }
+
+    public void testVersionAndLag() {
+        SnapshotHolder<Integer> holder = new SnapshotHolder<>(0);
+        SnapshotHolder.Snapshot<Integer> first = holder.snapshot();
+        assertEquals(0, holder.lag(first));
+        for (int i = 1; i <= 3; i++)
+            holder.update(v -> v + 1);
+        assertEquals(3, holder.version());
+        assertEquals(3, holder.lag(first));
+        assertEquals(0, holder.lag(holder.snapshot()));
+        // 旧的快照不受之后发布的版本影响
+        assertEquals(Integer.valueOf(0), first.value());
+        assertEquals(Integer.valueOf(3), holder.get());
+    }
+
+    // 第 v 个版本的 list 正好有 v 个元素：读线程看到的版本只增不减，而且每个版本都是完整的
+    public void testReadersRacingAWriterSeeCompleteVersions() throws InterruptedException {
+        int versions = 2000;
+        SnapshotHolder<List<Integer>> holder = new SnapshotHolder<>(List.of());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    start.await();
+                    long last = -1;
+                    while (last < versions) {
+                        SnapshotHolder.Snapshot<List<Integer>> s = holder.snapshot();
+                        assertTrue(s.version() >= last);
+                        assertEquals(s.version(), s.value().size());
+                        assertTrue(holder.lag(s) >= 0);
+                        last = s.version();
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        start.countDown();
+        for (int i = 0; i < versions; i++) {
+            holder.update(list -> {
+                List<Integer> next = new ArrayList<>(list);
+                next.add(next.size());
+                return List.copyOf(next);
+            });
+        }
+        for (Thread reader : readers) {
+            reader.join(10_000);
+            assertFalse(reader.isAlive());
+        }
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+        assertEquals(versions, holder.version());
+        assertEquals(0, holder.failedPublishes());
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.chapter3.item14;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ BigDecimal 按数值去重之后查找的三种方式，查询的 scale 和放入时不同（1.5 查 1.50）
+    stripTrailingZeros: HashSet<BigDecimal>，放入和查找之前都先 stripTrailingZeros()，每次查找都创建新对象
+    treeSet           : TreeSet<BigDecimal>，按 compareTo，O(log n)
+    strategy          : StrategyHashSet + HashingStrategy.numericValue()
+ 加上 -prof gc 看 gc.alloc.rate.norm
+ 运行：mvn -Pjmh verify -Djmh.args="BigDecimalSetBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BigDecimalSetBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    private BigDecimal[] queries;
+    private Set<BigDecimal> strippedSet;
+    private TreeSet<BigDecimal> treeSet;
+    private StrategyHashSet<BigDecimal> strategySet;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        strippedSet = new HashSet<>();
+        treeSet = new TreeSet<>();
+        strategySet = new StrategyHashSet<>(HashingStrategy.numericValue(), size);
+        for (int i = 0; i < size; i++) {
+            // 价格，两位小数
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            strippedSet.add(price.stripTrailingZeros());
+            treeSet.add(price);
+            strategySet.add(price);
+        }
+        queries = new BigDecimal[1 << 16];
+        for (int i = 0; i < queries.length; i++)
+            queries[i] = BigDecimal.valueOf(random.nextInt(10_000_000), 2).setScale(4);
+    }
+
+    @Benchmark
+    public boolean stripTrailingZeros() {
+        return strippedSet.contains(queries[next++ & (queries.length - 1)].stripTrailingZeros());
+    }
+
+    @Benchmark
+    public boolean treeSet() {
+        return treeSet.contains(queries[next++ & (queries.length - 1)]);
+    }
+
+    @Benchmark
+    public boolean strategy() {
+        return strategySet.contains(queries[next++ & (queries.length - 1)]);
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.chapter3.item14;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+// 性质测试：随机生成大量对象，任意两个对象的编码按字节比较的结果都要和 Comparator 相同
+public class ByteKeyEncoderTest extends TestCase {
+
+    private static final int[] INTS = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -256, -1, 0, 1, 255, 256, Integer.MAX_VALUE};
+    private static final long[] LONGS = {Long.MIN_VALUE, -1L << 32, -1, 0, 1, 1L << 32, Long.MAX_VALUE};
+    private static final float[] FLOATS = {Float.NEGATIVE_INFINITY, -Float.MAX_VALUE, -1f, -Float.MIN_VALUE, -0f, 0f,
+            Float.MIN_VALUE, 1f, Float.MAX_VALUE, Float.POSITIVE_INFINITY, Float.NaN, Float.intBitsToFloat(0x7fc00001)};
+    private static final double[] DOUBLES = {Double.NEGATIVE_INFINITY, -1e300, -1, -Double.MIN_VALUE, -0.0, 0.0,
+            Double.MIN_VALUE, 1, 1e300, Double.POSITIVE_INFINITY, Double.NaN, Double.longBitsToDouble(0xfff8000000000001L)};
+    private static final String[] STRINGS = {"", "\0", "\0\0", "a", "a\0", "a\0b", "a\u0001", "ab", "b", "\u007f", "\u0080",
+            "\u07ff", "\u0800", "\uffff", "\uD83D\uDE00", "\uE000", "\uD800", "z\uDFFF"};
+
+    // Code14_Compara.Person 的字段，再加上一个 double 和一个字符串
+    private static final class Row {
+        final int id;
+        final long idcard;
+        final float weght;
+        final double score;
+        final String name;
+
+        Row(int id, long idcard, float weght, double score, String name) {
+            this.id = id;
+            this.idcard = idcard;
+            this.weght = weght;
+            this.score = score;
+            this.name = name;
+        }
+
+        @Override public String toString() {
+            return id + "/" + idcard + "/" + weght + "/" + score + "/" + name.codePoints().boxed().toList();
+        }
+    }
+
+    public void testPersonOrder() {
+        ByteKeyEncoder<Row> encoder = ByteKeyEncoder.comparingInt((Row r) -> r.id)
+                .thenComparingLong(r -> r.idcard)
+                .thenComparingFloat(r -> r.weght)
+                .build();
+        Comparator<Row> expected = Comparator.comparingInt((Row r) -> r.id)
+                .thenComparingLong(r -> r.idcard)
+                .thenComparingDouble(r -> r.weght);
+        checkProperty(encoder, expected, new Random(42));
+        assertEquals(16, encoder.encodedLength(randomRow(new Random(1))));
+    }
+
+    public void testAllTypesWithDescendingFields() {
+        ByteKeyEncoder<Row> encoder = ByteKeyEncoder.comparingString((Row r) -> r.name)
+                .thenComparingDouble(r -> r.score).descending()
+                .thenComparingInt(r -> r.id)
+                .thenComparingFloat(r -> r.weght).descending()
+                .thenComparingLong(r -> r.idcard)
+                .build();
+        Comparator<Row> expected = Comparator.comparing((Row r) -> r.name)
+                .thenComparing(Comparator.comparingDouble((Row r) -> r.score).reversed())
+                .thenComparingInt(r -> r.id)
+                .thenComparing(Comparator.comparingDouble((Row r) -> r.weght).reversed())
+                .thenComparingLong(r -> r.idcard);
+        checkProperty(encoder, expected, new Random(7));
+    }
+
+    public void testDescendingString() {
+        ByteKeyEncoder<Row> encoder = ByteKeyEncoder.comparingString((Row r) -> r.name).descending()
+                .thenComparingInt(r -> r.id)
+                .build();
+        Comparator<Row> expected = Comparator.comparing((Row r) -> r.name, Comparator.reverseOrder())
+                .thenComparingInt(r -> r.id);
+        checkProperty(encoder, expected, new Random(11));
+    }
+
+    public void testEncodeIntoBuffer() {
+        ByteKeyEncoder<Row> encoder = ByteKeyEncoder.comparingString((Row r) -> r.name).build();
+        Row row = new Row(0, 0, 0, 0, "h\u00e9\u4e2d\0");
+        byte[] buffer = new byte[20];
+        int end = encoder.encode(row, buffer, 3);
+        assertEquals(3 + encoder.encodedLength(row), end);
+        assertTrue(Arrays.equals(encoder.encode(row), Arrays.copyOfRange(buffer, 3, end)));
+        try {
+            encoder.encode(row, new byte[5], 0);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    private static void checkProperty(ByteKeyEncoder<Row> encoder, Comparator<Row> expected, Random random) {
+        Row[] rows = new Row[2000];
+        byte[][] keys = new byte[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = randomRow(random);
+            keys[i] = encoder.encode(rows[i]);
+        }
+        for (int n = 0; n < 200_000; n++) {
+            int i = random.nextInt(rows.length);
+            int j = random.nextInt(rows.length);
+            int want = Integer.signum(expected.compare(rows[i], rows[j]));
+            assertEquals(rows[i] + " vs " + rows[j], want, Integer.signum(ByteKeyEncoder.compare(keys[i], keys[j])));
+            assertEquals(want, Integer.signum(encoder.comparator().compare(rows[i], rows[j])));
+        }
+    }
+
+    // 字段大多取自边界值，保证有很多相等的字段，后面的字段也会被比较到
+    private static Row randomRow(Random random) {
+        int id = random.nextInt(4) == 0 ? random.nextInt() : INTS[random.nextInt(INTS.length)];
+        long idcard = random.nextInt(4) == 0 ? random.nextLong() : LONGS[random.nextInt(LONGS.length)];
+        float weght = random.nextInt(4) == 0 ? Float.intBitsToFloat(random.nextInt()) : FLOATS[random.nextInt(FLOATS.length)];
+        double score = random.nextInt(4) == 0 ? Double.longBitsToDouble(random.nextLong()) : DOUBLES[random.nextInt(DOUBLES.length)];
+        String name;
+        if (random.nextInt(4) == 0) {
+            char[] chars = new char[random.nextInt(4)];
+            for (int i = 0; i < chars.length; i++)
+                chars[i] = (char) (random.nextBoolean() ? random.nextInt(0x90) : random.nextInt(0x10000));
+            name = new String(chars);
+        } else {
+            name = STRINGS[random.nextInt(STRINGS.length)];
+        }
+        return new Row(id, idcard, weght, score, name);
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.chapter3.item14;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class ComparatorCompilerTest extends TestCase {
+
+    // 不是 public 的类型，生成的类不需要访问它
+    private static final class Row {
+        final int a;
+        final long b;
+        final double c;
+        final String d;
+
+        Row(int a, long b, double c, String d) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+        }
+    }
+
+    public void testAgreesWithJdkChain() {
+        Random random = new Random(42);
+        double[] doubles = {-0.0, 0.0, Double.NaN, 1.5, -1.5, Double.NEGATIVE_INFINITY};
+        Row[] rows = new Row[5000];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Row(random.nextInt(5) - 2, random.nextBoolean() ? Long.MIN_VALUE : random.nextInt(3),
+                    doubles[random.nextInt(doubles.length)], "s" + random.nextInt(3));
+        }
+        Comparator<Row> jdk = Comparator.comparingInt((Row r) -> r.a)
+                .thenComparingLong(r -> r.b)
+                .thenComparingDouble(r -> r.c)
+                .thenComparing(r -> r.d);
+        Comparator<Row> compiled = ComparatorCompiler.comparingInt((Row r) -> r.a)
+                .thenComparingLong(r -> r.b)
+                .thenComparingDouble(r -> r.c)
+                .thenComparing(r -> r.d)
+                .compile();
+        for (int i = 0; i < 20_000; i++) {
+            Row x = rows[random.nextInt(rows.length)];
+            Row y = rows[random.nextInt(rows.length)];
+            assertEquals(Integer.signum(jdk.compare(x, y)), Integer.signum(compiled.compare(x, y)));
+        }
+        Row[] expected = rows.clone();
+        Row[] actual = rows.clone();
+        Arrays.sort(expected, jdk);
+        Arrays.sort(actual, compiled);
+        assertTrue(Arrays.equals(expected, actual));
+    }
+
+    public void testReversedAndNestedComparator() {
+        Comparator<String> compiled = ComparatorCompiler.comparingInt(String::length)
+                .thenComparing(Comparator.<String>reverseOrder())
+                .reversed()
+                .compile();
+        String[] words = {"b", "aa", "a", "ccc", "bb"};
+        Arrays.sort(words, compiled);
+        assertEquals(Arrays.asList("ccc", "aa", "bb", "a", "b"), Arrays.asList(words));
+    }
+
+    // reversed() 只反转它之前的 key，之后 thenComparing 的 key 是正序，和 JDK 相同
+    public void testThenComparingAfterReversed() {
+        Comparator<String> jdk = Comparator.comparingInt(String::length).reversed()
+                .thenComparing(Comparator.naturalOrder());
+        Comparator<String> compiled = ComparatorCompiler.comparingInt(String::length)
+                .reversed()
+                .thenComparing(Comparator.<String>naturalOrder())
+                .compile();
+        String[] words = {"b", "aa", "a", "ccc", "bb"};
+        String[] expected = words.clone();
+        Arrays.sort(expected, jdk);
+        assertEquals(Arrays.asList("ccc", "aa", "bb", "a", "b"), Arrays.asList(expected));
+        Arrays.sort(words, compiled);
+        assertEquals(Arrays.asList(expected), Arrays.asList(words));
+
+        // 反转两次回到正序，中间加入的 key 只反转一次
+        Comparator<String> twice = ComparatorCompiler.comparingInt(String::length)
+                .reversed()
+                .thenComparing(Comparator.<String>naturalOrder())
+                .reversed()
+                .compile();
+        Comparator<String> jdkTwice = Comparator.comparingInt(String::length).reversed()
+                .thenComparing(Comparator.<String>naturalOrder()).reversed();
+        Arrays.sort(words, twice);
+        Arrays.sort(expected, jdkTwice);
+        assertEquals(Arrays.asList(expected), Arrays.asList(words));
+    }
+
+    public void testEachCompileDefinesItsOwnClass() {
+        Comparator<Row> first = ComparatorCompiler.comparingInt((Row r) -> r.a).compile();
+        Comparator<Row> second = ComparatorCompiler.comparingLong((Row r) -> r.b).compile();
+        assertNotSame(first.getClass(), second.getClass());
+        assertTrue(first.getClass().isHidden());
+        Row small = new Row(1, 2, 0, "");
+        Row large = new Row(2, 1, 0, "");
+        assertTrue(first.compare(small, large) < 0);
+        assertTrue(second.compare(small, large) > 0);
+        try {
+            ComparatorCompiler.comparingInt(null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.chapter3.item14;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 金额计算：BigDecimal 和 Decimal 的对比，加上 -prof gc 看 gc.alloc.rate.norm
+    total*    : 计算 sum(单价 * 数量)，size 个订单行
+        totalBigDecimal 每次乘法、加法都创建 BigDecimal；totalDecimal 每次创建 Decimal（结果逃逸到下一次循环）；
+        totalAccumulator 使用 Decimal.Accumulator，不分配
+    overLimit*: 单价 * 数量 + 运费 和上限比较，中间结果不逃逸，逃逸分析可以消除 Decimal
+ 运行：mvn -Pjmh verify -Djmh.args="DecimalBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecimalBenchmark {
+
+    @Param({"1000"})
+    int size;
+
+    private BigDecimal[] bigPrices;
+    private BigDecimal[] bigQuantities;
+    private Decimal[] prices;
+    private Decimal[] quantities;
+    private final BigDecimal bigShipping = new BigDecimal("12.50");
+    private final BigDecimal bigLimit = new BigDecimal("5000.00");
+    private final Decimal shipping = Decimal.parse("12.50");
+    private final Decimal limit = Decimal.parse("5000.00");
+    private final Decimal.Accumulator accumulator = new Decimal.Accumulator();
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        bigPrices = new BigDecimal[size];
+        bigQuantities = new BigDecimal[size];
+        prices = new Decimal[size];
+        quantities = new Decimal[size];
+        for (int i = 0; i < size; i++) {
+            bigPrices[i] = BigDecimal.valueOf(random.nextInt(100_000), 2);
+            bigQuantities[i] = BigDecimal.valueOf(1 + random.nextInt(99));
+            prices[i] = Decimal.valueOf(bigPrices[i]);
+            quantities[i] = Decimal.valueOf(bigQuantities[i]);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal totalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < size; i++)
+            total = total.add(bigPrices[i].multiply(bigQuantities[i]));
+        return total;
+    }
+
+    @Benchmark
+    public Decimal totalDecimal() {
+        Decimal total = Decimal.ZERO;
+        for (int i = 0; i < size; i++)
+            total = total.add(prices[i].multiply(quantities[i]));
+        return total;
+    }
+
+    @Benchmark
+    public Decimal totalAccumulator() {
+        accumulator.reset();
+        for (int i = 0; i < size; i++)
+            accumulator.addProduct(prices[i], quantities[i]);
+        return accumulator.toDecimal();
+    }
+
+    @Benchmark
+    public boolean overLimitBigDecimal() {
+        int i = next++ % size;
+        return bigPrices[i].multiply(bigQuantities[i]).add(bigShipping).compareTo(bigLimit) > 0;
+    }
+
+    @Benchmark
+    public boolean overLimitDecimal() {
+        int i = next++ % size;
+        return prices[i].multiply(quantities[i]).add(shipping).compareTo(limit) > 0;
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.chapter3.item14;
+
+import junit.framework.TestCase;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.example.Allocations.allocatedBytes;
+
+public class DecimalTest extends TestCase {
+
+    private static final int CALLS = 1_000_000;
+
+    // 防止结果被优化掉
+    static long sink;
+
+    public void testEqualsAndHashCodeAreConsistentWithCompareTo() {
+        Decimal a = Decimal.parse("1.0");
+        Decimal b = Decimal.parse("1.00");
+        assertEquals(0, a.compareTo(b));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(Decimal.ZERO, Decimal.parse("0.000"));
+        assertEquals(Decimal.ZERO.hashCode(), Decimal.parse("0E+3").hashCode());
+        assertEquals(Decimal.valueOf(100), Decimal.parse("1E+2"));
+        assertEquals("1.00", b.toString());
+
+        Set<Decimal> set = new HashSet<>();
+        set.add(a);
+        set.add(b);
+        assertEquals(1, set.size());
+    }
+
+    // 随机的加减乘、除、setScale、比较，和 BigDecimal 的结果对比，包括溢出之后改用 BigDecimal 的情况
+    public void testAgreesWithBigDecimal() {
+        Random random = new Random(42);
+        RoundingMode[] modes = {RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR,
+                RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN};
+        for (int i = 0; i < 200_000; i++) {
+            BigDecimal x = randomBigDecimal(random);
+            BigDecimal y = randomBigDecimal(random);
+            Decimal a = Decimal.valueOf(x);
+            Decimal b = Decimal.valueOf(y);
+            assertEquals(0, a.toBigDecimal().compareTo(x));
+            assertSameValue(x.add(y), a.add(b));
+            assertSameValue(x.subtract(y), a.subtract(b));
+            assertSameValue(x.multiply(y), a.multiply(b));
+            assertSameValue(x.negate(), a.negate());
+            assertEquals(Integer.signum(x.compareTo(y)), Integer.signum(a.compareTo(b)));
+            assertEquals(x.compareTo(y) == 0, a.equals(b));
+            if (a.equals(b))
+                assertEquals(a.hashCode(), b.hashCode());
+            RoundingMode mode = modes[random.nextInt(modes.length)];
+            int scale = random.nextInt(8);
+            assertSameValue(x.setScale(scale, mode), a.setScale(scale, mode));
+            if (y.signum() != 0)
+                assertSameValue(x.divide(y, scale, mode), a.divide(b, scale, mode));
+            assertEquals(x.doubleValue(), a.doubleValue());
+        }
+    }
+
+    public void testRoundingAndDivision() {
+        assertEquals("2.68", Decimal.parse("2.675").setScale(2, RoundingMode.HALF_UP).toString());
+        assertEquals("2.67", Decimal.parse("2.675").setScale(2, RoundingMode.HALF_DOWN).toString());
+        assertEquals("0.33", Decimal.ONE.divide(Decimal.valueOf(3), 2, RoundingMode.HALF_EVEN).toString());
+        try {
+            Decimal.ONE.divide(Decimal.parse("0.00"), 2, RoundingMode.HALF_UP);
+            fail();
+        } catch (ArithmeticException expected) {
+        }
+        try {
+            Decimal.parse("1.5").setScale(0, RoundingMode.UNNECESSARY);
+            fail();
+        } catch (ArithmeticException expected) {
+        }
+    }
+
+    public void testOverflowPromotesAndComesBack() {
+        Decimal max = Decimal.valueOf(Long.MAX_VALUE);
+        Decimal sum = max.add(Decimal.ONE);
+        assertEquals(new BigDecimal(Long.MAX_VALUE).add(BigDecimal.ONE), sum.toBigDecimal());
+        assertEquals(max, sum.subtract(Decimal.ONE));
+        assertEquals(max.hashCode(), sum.subtract(Decimal.ONE).hashCode());
+        assertEquals(Decimal.valueOf(Long.MIN_VALUE).toBigDecimal(), BigDecimal.valueOf(Long.MIN_VALUE));
+
+        Decimal.Accumulator accumulator = new Decimal.Accumulator();
+        BigDecimal expected = BigDecimal.ZERO;
+        for (int i = 0; i < 100; i++) {
+            Decimal price = Decimal.valueOf(Long.MAX_VALUE / 7 + i, 2);
+            accumulator.addProduct(price, Decimal.valueOf(3));
+            expected = expected.add(price.toBigDecimal().multiply(BigDecimal.valueOf(3)));
+        }
+        assertEquals(0, expected.compareTo(accumulator.toDecimal().toBigDecimal()));
+    }
+
+    public void testAccumulatorMatchesAdd() {
+        Random random = new Random(7);
+        Decimal.Accumulator accumulator = new Decimal.Accumulator();
+        Decimal sum = Decimal.ZERO;
+        for (int i = 0; i < 10_000; i++) {
+            Decimal d = Decimal.valueOf(random.nextInt(1_000_000) - 500_000, random.nextInt(5));
+            accumulator.add(d);
+            sum = sum.add(d);
+        }
+        assertEquals(sum, accumulator.toDecimal());
+        assertEquals(Decimal.ZERO, accumulator.reset().toDecimal());
+    }
+
+    public void testCompactArithmeticDoesNotAllocate() {
+        Decimal[] prices = new Decimal[1024];
+        Decimal[] quantities = new Decimal[1024];
+        Random random = new Random(42);
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = Decimal.valueOf(random.nextInt(100_000), 2);
+            quantities[i] = Decimal.valueOf(random.nextInt(100));
+        }
+        Decimal.Accumulator accumulator = new Decimal.Accumulator();
+        Runnable loop = () -> {
+            for (int i = 0; i < CALLS; i++) {
+                int j = i & (prices.length - 1);
+                accumulator.addProduct(prices[j], quantities[j]);
+                sink += prices[j].compareTo(prices[(j + 1) & (prices.length - 1)]) + prices[j].hashCode();
+            }
+        };
+        loop.run();
+        long bytes = allocatedBytes(loop);
+        // 一次分配至少 16 字节，总数小于调用次数就说明每次循环都没有分配
+        assertTrue("allocated " + bytes + " bytes for " + CALLS + " calls", bytes < CALLS);
+    }
+
+    private static void assertSameValue(BigDecimal expected, Decimal actual) {
+        assertEquals(expected + " vs " + actual, 0, expected.compareTo(actual.toBigDecimal()));
+    }
+
+    private static BigDecimal randomBigDecimal(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, random.nextInt(6));
+            case 1:
+                return BigDecimal.valueOf(random.nextLong(), random.nextInt(20));
+            case 2:
+                return BigDecimal.valueOf(random.nextLong(), random.nextInt(40) - 10).multiply(BigDecimal.valueOf(random.nextLong()));
+            default:
+                return BigDecimal.valueOf(random.nextInt(1000), random.nextInt(3)).setScale(2 + random.nextInt(23));
+        }
+    }
+}
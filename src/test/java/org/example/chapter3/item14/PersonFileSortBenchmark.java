@@ -0,0 +1,98 @@
+package org.example.chapter3.item14;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ Person 记录文件的排序：PersonFileSort 和 "全部读进堆里用比较链排序" 的对比
+    external  : PersonFileSort，memoryBudget 只有文件大小的 1/8，生成 8 个以上的顺串再合并；threads 个线程生成顺串
+    inMemory  : 读成对象数组，Arrays.sort(PERSON_CHAIN)，再写回去；需要的堆是文件大小的好几倍
+ 在多核的机器上把 threads 调大看顺串阶段的扩展性；合并阶段是单线程的，受磁盘带宽限制
+ 运行：mvn -Pjmh verify -Djmh.args="PersonFileSortBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PersonFileSortBenchmark {
+
+    private static final class Person {
+        final int id;
+        final long idcard;
+        final float weght;
+
+        Person(int id, long idcard, float weght) {
+            this.id = id;
+            this.idcard = idcard;
+            this.weght = weght;
+        }
+    }
+
+    private static final Comparator<Person> PERSON_CHAIN = Comparator.comparingInt((Person p) -> p.id)
+            .thenComparingLong(p -> p.idcard)
+            .thenComparingDouble(p -> p.weght);
+
+    @Param({"1000000"})
+    int records;
+
+    @Param({"1", "4"})
+    int threads;
+
+    private Path directory;
+    private Path input;
+    private Path output;
+    private PersonFileSort sorter;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("person-sort-bench");
+        input = directory.resolve("people.bin");
+        output = directory.resolve("sorted.bin");
+        Random random = new Random(42);
+        ByteBuffer buffer = ByteBuffer.allocate(records * PersonFileSort.RECORD_BYTES);
+        for (int i = 0; i < records; i++)
+            PersonFileSort.put(buffer, random.nextInt(records), random.nextLong(), random.nextFloat() * 100);
+        Files.write(input, buffer.array());
+        long budget = Math.max(4L * PersonFileSort.MIN_MERGE_BUFFER, (long) records * PersonFileSort.RECORD_BYTES / 8);
+        sorter = PersonFileSort.builder().memoryBudget(budget).threads(threads).tempDirectory(directory).build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path p : (Iterable<Path>) files::iterator)
+                Files.delete(p);
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public long external() throws IOException {
+        return sorter.sort(input, output);
+    }
+
+    @Benchmark
+    public long inMemory() throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(input));
+        Person[] people = new Person[in.remaining() / PersonFileSort.RECORD_BYTES];
+        for (int i = 0; i < people.length; i++)
+            people[i] = new Person(in.getInt(), in.getLong(), in.getFloat());
+        Arrays.sort(people, PERSON_CHAIN);
+        ByteBuffer out = ByteBuffer.allocate(people.length * PersonFileSort.RECORD_BYTES);
+        for (Person p : people)
+            PersonFileSort.put(out, p.id, p.idcard, p.weght);
+        Files.write(output, out.array());
+        return people.length;
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.chapter3.item14;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.example.Allocations.allocatedBytes;
+
+public class PersonFileSortTest extends TestCase {
+
+    private static final float[] WEIGHTS = {Float.NaN, -0.0f, 0.0f, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY,
+            Float.MIN_VALUE, -Float.MAX_VALUE, 60.5f, -1.0f};
+
+    // 和 Code14_Compara.Person 相同的字段，比较链也和 PERSON_CHAIN 相同
+    private static final class Person {
+        final int id;
+        final long idcard;
+        final float weght;
+
+        Person(int id, long idcard, float weght) {
+            this.id = id;
+            this.idcard = idcard;
+            this.weght = weght;
+        }
+    }
+
+    private static final Comparator<Person> PERSON_CHAIN = Comparator.comparingInt((Person p) -> p.id)
+            .thenComparingLong(p -> p.idcard)
+            .thenComparingDouble(p -> p.weght);
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("person-sort");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path p : (Iterable<Path>) files::iterator)
+                Files.delete(p);
+        }
+        Files.delete(directory);
+    }
+
+    public void testEncodingRoundTripsAndKeepsChainOrder() {
+        Random random = new Random(3);
+        Person[] people = randomPeople(random, 20_000);
+        for (Person p : people) {
+            long hi = PersonFileSort.hi(p.id, p.idcard);
+            long lo = PersonFileSort.lo(p.idcard, p.weght);
+            assertEquals(p.id, PersonFileSort.id(hi));
+            assertEquals(p.idcard, PersonFileSort.idcard(hi, lo));
+            assertEquals(Float.floatToIntBits(p.weght), Float.floatToIntBits(PersonFileSort.weight(lo)));
+        }
+        for (int i = 1; i < people.length; i++) {
+            Person a = people[i - 1], b = people[i];
+            int c = Long.compareUnsigned(PersonFileSort.hi(a.id, a.idcard), PersonFileSort.hi(b.id, b.idcard));
+            if (c == 0)
+                c = Long.compareUnsigned(PersonFileSort.lo(a.idcard, a.weght), PersonFileSort.lo(b.idcard, b.weght));
+            assertEquals(Integer.signum(PERSON_CHAIN.compare(a, b)), Integer.signum(c));
+        }
+    }
+
+    // 内存预算很小：生成很多顺串，还要经过几趟中间合并
+    public void testSortsLikeInMemorySort() throws IOException {
+        Random random = new Random(11);
+        for (int n : new int[]{0, 1, 1000, 50_000}) {
+            Person[] people = randomPeople(random, n);
+            Path input = write(people);
+            Path output = directory.resolve("sorted.bin");
+            for (int threads : new int[]{1, 3}) {
+                PersonFileSort sorter = PersonFileSort.builder()
+                        .memoryBudget(4 * PersonFileSort.MIN_MERGE_BUFFER)
+                        .threads(threads)
+                        .tempDirectory(directory)
+                        .build();
+                assertEquals(n, sorter.sort(input, output));
+                Person[] expected = people.clone();
+                Arrays.sort(expected, PERSON_CHAIN);
+                assertSamePeople(expected, read(output));
+            }
+            Files.delete(input);
+            Files.delete(output);
+        }
+        // 临时文件都删掉了
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    public void testRejectsTruncatedInput() throws IOException {
+        Path input = directory.resolve("truncated.bin");
+        Files.write(input, new byte[PersonFileSort.RECORD_BYTES + 3]);
+        try {
+            PersonFileSort.builder().tempDirectory(directory).build().sort(input, directory.resolve("out.bin"));
+            fail();
+        } catch (IOException expected) {
+        }
+        Files.delete(input);
+    }
+
+    private static final int CALLS = 1_000_000;
+
+    // 合并时只分配缓冲区和每个顺串的读取器，和记录数无关
+    public void testMergeDoesNotAllocatePerRecord() throws IOException {
+        List<Path> runs = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(CALLS / 4 * PersonFileSort.RECORD_BYTES);
+        for (int r = 0; r < 4; r++) {
+            buffer.clear();
+            for (int i = 0; i < CALLS / 4; i++)
+                buffer.putLong(i * 4L + r).putLong(r);
+            buffer.flip();
+            Path run = Files.createTempFile(directory, "run", ".bin");
+            Files.write(run, Arrays.copyOf(buffer.array(), buffer.limit()));
+            runs.add(run);
+        }
+        Path output = directory.resolve("merged.bin");
+        Runnable merge = () -> {
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                PersonFileSort.merge(runs, out, 8 * PersonFileSort.MIN_MERGE_BUFFER, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        merge.run();
+        long bytes = allocatedBytes(merge);
+        assertEquals((long) CALLS * PersonFileSort.RECORD_BYTES, Files.size(output));
+        // 缓冲区一共 512KB，每条记录分配一个对象就至少 16MB
+        assertTrue("allocated " + bytes + " bytes for " + CALLS + " records", bytes < CALLS);
+    }
+
+    private static Person[] randomPeople(Random random, int n) {
+        Person[] people = new Person[n];
+        for (int i = 0; i < n; i++) {
+            // id 和 idcard 的范围很小，让后面的字段也参与比较
+            int id = random.nextBoolean() ? random.nextInt(50) - 25 : random.nextInt();
+            long idcard = random.nextBoolean() ? random.nextInt(5) - 2 : random.nextLong();
+            float weight = random.nextInt(4) == 0 ? WEIGHTS[random.nextInt(WEIGHTS.length)] : random.nextFloat() * 200 - 100;
+            people[i] = new Person(id, idcard, weight);
+        }
+        return people;
+    }
+
+    private Path write(Person[] people) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(people.length * PersonFileSort.RECORD_BYTES);
+        for (Person p : people)
+            PersonFileSort.put(buffer, p.id, p.idcard, p.weght);
+        Path input = directory.resolve("people.bin");
+        Files.write(input, buffer.array());
+        return input;
+    }
+
+    private static Person[] read(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        Person[] people = new Person[buffer.remaining() / PersonFileSort.RECORD_BYTES];
+        for (int i = 0; i < people.length; i++)
+            people[i] = new Person(buffer.getInt(), buffer.getLong(), buffer.getFloat());
+        return people;
+    }
+
+    private static void assertSamePeople(Person[] expected, Person[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("at " + i, expected[i].id, actual[i].id);
+            assertEquals("at " + i, expected[i].idcard, actual[i].idcard);
+            assertEquals("at " + i, Float.floatToIntBits(expected[i].weght), Float.floatToIntBits(actual[i].weght));
+        }
+    }
+}
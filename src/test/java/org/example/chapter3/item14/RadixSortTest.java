@@ -0,0 +1,54 @@
+package org.example.chapter3.item14;
+
+import junit.framework.TestCase;
+import org.example.chapter3.item11.PhoneNumber;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class RadixSortTest extends TestCase {
+
+    public void testSortsPhoneNumbersLikeArraysSort() {
+        Random random = new Random(42);
+        for (int n : new int[]{0, 1, 63, 64, 1000, 100_000}) {
+            PhoneNumber[] numbers = new PhoneNumber[n];
+            for (int i = 0; i < n; i++)
+                numbers[i] = new PhoneNumber(random.nextInt(1000), random.nextInt(1000), random.nextInt(10000));
+            PhoneNumber[] expected = numbers.clone();
+            Arrays.sort(expected);
+            PhoneNumber[] actual = numbers.clone();
+            RadixSort.sort(actual, PhoneNumber::toLong);
+            assertTrue(Arrays.equals(expected, actual));
+            actual = numbers.clone();
+            RadixSort.parallelSort(actual, PhoneNumber::toLong, 7);
+            assertTrue(Arrays.equals(expected, actual));
+        }
+    }
+
+    // 和 Arrays.sort 一样稳定：key 相同的元素保持原来的顺序，比较对象的引用而不只是 equals
+    public void testStableWithNegativeAndExtremeKeys() {
+        Random random = new Random(7);
+        long[] pool = {Long.MIN_VALUE, Long.MIN_VALUE + 1, -1, 0, 1, Long.MAX_VALUE, 1L << 40, -(1L << 40)};
+        long[][] items = new long[200_000][];
+        for (int i = 0; i < items.length; i++)
+            items[i] = new long[]{random.nextBoolean() ? pool[random.nextInt(pool.length)] : random.nextLong()};
+        long[][] expected = items.clone();
+        Arrays.sort(expected, Comparator.comparingLong(x -> x[0]));
+        long[][] actual = items.clone();
+        RadixSort.sort(actual, x -> x[0]);
+        assertSameElements(expected, actual);
+        actual = items.clone();
+        RadixSort.parallelSort(actual, x -> x[0], 13);
+        assertSameElements(expected, actual);
+        actual = items.clone();
+        RadixSort.parallelSort(actual, x -> x[0]);
+        assertSameElements(expected, actual);
+    }
+
+    private static void assertSameElements(Object[] expected, Object[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++)
+            assertSame("at " + i, expected[i], actual[i]);
+    }
+}
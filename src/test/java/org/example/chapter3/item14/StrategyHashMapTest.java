@@ -0,0 +1,109 @@
+package org.example.chapter3.item14;
+
+import junit.framework.TestCase;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.example.Allocations.allocatedBytes;
+
+public class StrategyHashMapTest extends TestCase {
+
+    private static final int CALLS = 1_000_000;
+
+    // 防止结果被优化掉
+    static int sink;
+
+    public void testNumericValueAgreesWithCompareTo() {
+        HashingStrategy<BigDecimal> strategy = HashingStrategy.numericValue();
+        BigDecimal[] values = {
+                new BigDecimal("1.0"), new BigDecimal("1.00"), BigDecimal.ONE, new BigDecimal("1E+0"),
+                new BigDecimal("0"), new BigDecimal("0.000"), new BigDecimal("0E+5"),
+                new BigDecimal("-12.50"), new BigDecimal("-12.5"), new BigDecimal("-1250E-2"),
+                new BigDecimal("100"), new BigDecimal("1E+2"), new BigDecimal("100.0000000000000000000000000"),
+                new BigDecimal("123456789012345678901234567890.123"), new BigDecimal("123456789012345678901234567890.1230"),
+                new BigDecimal(new BigInteger("9007199254740993"), 0), new BigDecimal("9007199254740993.0")
+        };
+        for (BigDecimal a : values) {
+            for (BigDecimal b : values) {
+                boolean equal = a.compareTo(b) == 0;
+                assertEquals(a + " vs " + b, equal, strategy.equals(a, b));
+                if (equal)
+                    assertEquals(a + " vs " + b, strategy.hashCode(a), strategy.hashCode(b));
+            }
+        }
+    }
+
+    public void testBigDecimalSetMatchesTreeSet() {
+        StrategyHashSet<BigDecimal> set = new StrategyHashSet<>(HashingStrategy.numericValue());
+        assertTrue(set.add(new BigDecimal("1.0")));
+        assertFalse(set.add(new BigDecimal("1.00")));
+        assertTrue(set.contains(BigDecimal.ONE));
+        assertEquals(1, set.size());
+        assertEquals("[1.0]", set.toString());
+        assertTrue(set.remove(new BigDecimal("1.000")));
+        assertTrue(set.isEmpty());
+    }
+
+    public void testCaseInsensitiveAndIdentity() {
+        StrategyHashMap<CharSequence, Integer> names = new StrategyHashMap<>(HashingStrategy.caseInsensitive());
+        names.put("Polish", 1);
+        assertEquals(Integer.valueOf(1), names.get(new StringBuilder("POLISH")));
+        assertEquals("Polish", names.canonicalKey("polish"));
+
+        String a = new String("key");
+        String b = new String("key");
+        StrategyHashMap<String, Integer> identity = new StrategyHashMap<>(HashingStrategy.identity());
+        identity.put(a, 1);
+        identity.put(b, 2);
+        assertEquals(2, identity.size());
+        assertEquals(Integer.valueOf(1), identity.get(a));
+        assertEquals(Integer.valueOf(2), identity.get(b));
+        assertNull(identity.get("key".substring(0, 2) + "y"));
+    }
+
+    // 随机操作，和 TreeMap<BigDecimal>（按 compareTo）的结果对比，覆盖扩容和删除时的移动
+    public void testAgreesWithTreeMap() {
+        Random random = new Random(42);
+        StrategyHashMap<BigDecimal, Integer> map = new StrategyHashMap<>(HashingStrategy.numericValue());
+        Map<BigDecimal, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // 同一个数值随机加上末尾的 0
+            BigDecimal key = BigDecimal.valueOf(random.nextInt(5000), 2).setScale(2 + random.nextInt(3));
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, i), map.put(key, i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        Map<BigDecimal, Integer> actual = new TreeMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+
+    public void testSmallScaleLookupDoesNotAllocate() {
+        StrategyHashMap<BigDecimal, Integer> map = new StrategyHashMap<>(HashingStrategy.numericValue());
+        BigDecimal[] queries = new BigDecimal[1024];
+        for (int i = 0; i < queries.length; i++) {
+            map.put(BigDecimal.valueOf(i * 25L, 2), i);
+            queries[i] = BigDecimal.valueOf(i * 2500L, 4);
+        }
+        Runnable lookups = () -> {
+            for (int i = 0; i < CALLS; i++)
+                sink += map.get(queries[i & (queries.length - 1)]);
+        };
+        lookups.run();
+        long bytes = allocatedBytes(lookups);
+        // 一次分配至少 16 字节，总数小于调用次数就说明每次查找都没有分配（value 是放进去时装箱的，get 只拆箱）
+        assertTrue("allocated " + bytes + " bytes for " + CALLS + " calls", bytes < CALLS);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.chapter4.item18;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 通过转发类调用 HashSet.contains 的开销，加上 -prof gc 看 gc.alloc.rate.norm
+    raw         : 直接调用 HashSet
+    handWritten : 手写的 ForwardingSet（和 Code18.ForwardingSet 相同）
+    generated   : @Forwarding 生成的 SetForwarder，final 类，调用一直内联到 HashSet
+    instrumented: 生成的 InstrumentedSetForwarder，多一次 LongAdder.increment
+    proxy       : java.lang.reflect.Proxy，每次调用经过 InvocationHandler 和 Method.invoke，参数放在新建的 Object[] 中
+ 运行：mvn -Pjmh verify -Djmh.args="ForwardingBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ForwardingBenchmark {
+
+    private static final int KEYS = 1024;
+
+    private Set<Integer> raw;
+    private Set<Integer> handWritten;
+    private Set<Integer> generated;
+    private Set<Integer> instrumented;
+    private Set<Integer> proxy;
+    private Integer[] keys;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        keys = new Integer[KEYS];
+        raw = new HashSet<>();
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = i * 2;
+            if (i % 2 == 0)
+                raw.add(keys[i]);
+        }
+        handWritten = new ForwardingSet<>(raw);
+        generated = new SetForwarder<>(raw);
+        instrumented = new InstrumentedSetForwarder<>(raw);
+        Set<Integer> delegate = raw;
+        proxy = (Set<Integer>) Proxy.newProxyInstance(Set.class.getClassLoader(), new Class<?>[]{Set.class},
+                (p, method, args) -> {
+                    try {
+                        return method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private Integer nextKey() {
+        return keys[next++ & (KEYS - 1)];
+    }
+
+    @Benchmark
+    public boolean raw() {
+        return raw.contains(nextKey());
+    }
+
+    @Benchmark
+    public boolean handWritten() {
+        return handWritten.contains(nextKey());
+    }
+
+    @Benchmark
+    public boolean generated() {
+        return generated.contains(nextKey());
+    }
+
+    @Benchmark
+    public boolean instrumented() {
+        return instrumented.contains(nextKey());
+    }
+
+    @Benchmark
+    public boolean proxy() {
+        return proxy.contains(nextKey());
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.chapter4.item18;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.example.chapter4.item18.OperationStats.Operation.ADD;
+import static org.example.chapter4.item18.OperationStats.Operation.LOOKUP;
+import static org.example.chapter4.item18.OperationStats.Operation.REMOVE;
+
+public class InstrumentedCollectionsTest extends TestCase {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 50_000;
+
+    // Code18 的 int addCount 在这里会丢失计数
+    public void testConcurrentCountsAreExact() throws InterruptedException {
+        InstrumentedSet<Integer> set = new InstrumentedSet<>(ConcurrentHashMap.newKeySet(), new OperationStats(16));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int base = t * PER_THREAD;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < PER_THREAD; i++) {
+                    set.add(base + i);
+                    set.contains(base + i);
+                    set.contains(-1 - i);
+                    if (i % 2 == 0)
+                        set.remove(base + i);
+                }
+                set.addAll(Arrays.asList(1, 2, 3));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        OperationStats stats = set.stats();
+        assertEquals(THREADS * (PER_THREAD + 3L), set.getAddCount());
+        assertEquals(THREADS * (PER_THREAD / 2L), stats.count(REMOVE));
+        assertEquals(THREADS * 2L * PER_THREAD, stats.count(LOOKUP));
+        assertEquals(THREADS * (long) PER_THREAD, stats.hits());
+        assertEquals(THREADS * (long) PER_THREAD, stats.misses());
+        // 大约每 16 次操作采样一次
+        long sampled = stats.latency(ADD).count();
+        assertTrue("sampled " + sampled, sampled > 0 && sampled < set.getAddCount());
+    }
+
+    public void testMapCountsHitsExactly() {
+        InstrumentedMap<String, Integer> map = new InstrumentedMap<>(new HashMap<>());
+        map.put("a", 1);
+        map.put("n", null);
+        map.putIfAbsent("b", 2);
+        map.putAll(Map.of("c", 3, "d", 4));
+        assertEquals(5, map.stats().count(ADD));
+
+        assertEquals(Integer.valueOf(1), map.get("a"));
+        assertNull(map.get("x"));
+        // getOrDefault 能区分 "value 是 null" 和 "没有这个 key"
+        assertNull(map.getOrDefault("n", 7));
+        assertEquals(Integer.valueOf(7), map.getOrDefault("y", 7));
+        assertTrue(map.containsKey("b"));
+        assertEquals(5, map.stats().count(LOOKUP));
+        assertEquals(3, map.stats().hits());
+        assertEquals(2, map.stats().misses());
+
+        assertEquals(Integer.valueOf(1), map.remove("a"));
+        assertEquals(1, map.stats().count(REMOVE));
+        assertEquals(Integer.valueOf(3), map.merge("c", 3, (x, y) -> x));
+    }
+
+    public void testListAndSharedStats() {
+        OperationStats shared = new OperationStats();
+        InstrumentedList<String> list = new InstrumentedList<>(new ArrayList<>(), shared);
+        InstrumentedSet<String> set = new InstrumentedSet<>(Set.of("z"), shared);
+        list.add("a");
+        list.add(0, "b");
+        list.addAll(List.of("c", "d"));
+        assertTrue(list.contains("c"));
+        assertEquals(-1, list.indexOf("x"));
+        assertEquals("b", list.remove(0));
+        assertTrue(set.contains("z"));
+        assertEquals(List.of("a", "c", "d"), list);
+        assertEquals(4, shared.count(ADD));
+        assertEquals(1, shared.count(REMOVE));
+        assertEquals(3, shared.count(LOOKUP));
+        assertEquals(2, shared.hits());
+        assertNull(shared.latency(ADD));
+    }
+
+    public void testHistogramPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(99));
+        for (int i = 0; i < 99; i++)
+            h.record(100);
+        h.record(1_000_000);
+        assertEquals(100, h.count());
+        // 100 在 [64, 128) 桶中
+        assertEquals(127, h.percentile(50));
+        assertEquals(127, h.percentile(99));
+        assertEquals((1L << 20) - 1, h.percentile(100));
+        assertEquals(0, LatencyHistogram.bucket(0));
+        assertEquals(63, LatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.chapter4.item18;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ 32 个线程同时 contains / add 同一个 ConcurrentHashMap.newKeySet()，看统计的开销
+    raw        : 直接访问，不统计
+    atomic     : 每个计数一个 AtomicLong，所有线程 CAS 同一个缓存行，相当于把 Code18 的 addCount++ 改成原子的
+    instrumented: InstrumentedSet，LongAdder 计数
+    sampled    : InstrumentedSet，每 64 次操作采样一次延迟
+ 每次操作：90% contains（一半命中），10% add
+ 运行：mvn -Pjmh verify -Djmh.args="InstrumentedSetBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class InstrumentedSetBenchmark {
+
+    private static final int KEYS = 1 << 16;
+
+    // 只为了对比：和 InstrumentedSet 统计同样的东西，但用 AtomicLong
+    private static final class AtomicCountedSet<E> extends ForwardingSet<E> {
+        final AtomicLong adds = new AtomicLong();
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+
+        AtomicCountedSet(Set<E> s) {
+            super(s);
+        }
+
+        @Override public boolean add(E e) {
+            adds.incrementAndGet();
+            return super.add(e);
+        }
+
+        @Override public boolean contains(Object o) {
+            boolean found = super.contains(o);
+            (found ? hits : misses).incrementAndGet();
+            return found;
+        }
+    }
+
+    private Set<Integer> raw;
+    private Set<Integer> atomic;
+    private Set<Integer> instrumented;
+    private Set<Integer> sampled;
+    private Integer[] keys;
+
+    @Setup
+    public void setup() {
+        keys = new Integer[2 * KEYS];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = i;
+        raw = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < KEYS; i++)
+            raw.add(keys[i]);
+        atomic = new AtomicCountedSet<>(raw);
+        instrumented = new InstrumentedSet<>(raw);
+        sampled = new InstrumentedSet<>(raw, new OperationStats(64));
+    }
+
+    private boolean operate(Set<Integer> set) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int r = random.nextInt();
+        // 前一半的 key 在集合中，后一半不在；add 的都是已经存在的 key，集合的大小不变
+        if ((r & 15) < 14)
+            return set.contains(keys[(r >>> 8) & (2 * KEYS - 1)]);
+        return set.add(keys[(r >>> 8) & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public boolean raw() {
+        return operate(raw);
+    }
+
+    @Benchmark
+    public boolean atomic() {
+        return operate(atomic);
+    }
+
+    @Benchmark
+    public boolean instrumented() {
+        return operate(instrumented);
+    }
+
+    @Benchmark
+    public boolean sampled() {
+        return operate(sampled);
+    }
+}
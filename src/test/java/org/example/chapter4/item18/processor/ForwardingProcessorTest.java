@@ -0,0 +1,134 @@
+package org.example.chapter4.item18.processor;
+
+import junit.framework.TestCase;
+import org.example.chapter4.item18.InstrumentedMapForwarder;
+import org.example.chapter4.item18.SetForwarder;
+import org.example.chapter4.item20.IntArrays;
+import org.example.chapter4.item20.IntList;
+import org.example.chapter4.item20.IntListForwarder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ForwardingProcessorTest extends TestCase {
+
+    public void testGeneratedForwarderDelegatesEverything() {
+        Set<String> delegate = new HashSet<>(List.of("a", "bb", "ccc"));
+        SetForwarder<String> set = new SetForwarder<>(delegate);
+        assertTrue(Modifier.isFinal(SetForwarder.class.getModifiers()));
+        assertTrue(set.add("dddd"));
+        assertTrue(set.contains("a"));
+        // default 方法也转发，delegate 自己的实现生效
+        assertTrue(set.removeIf(s -> s.length() > 2));
+        assertEquals(Set.of("a", "bb"), delegate);
+        assertEquals(delegate, set);
+        assertEquals(delegate.hashCode(), set.hashCode());
+        assertEquals(delegate.toString(), set.toString());
+    }
+
+    public void testInstrumentedForwarderCountsEachMethod() {
+        InstrumentedMapForwarder<String, Integer> map = new InstrumentedMapForwarder<>(new HashMap<>());
+        map.put("a", 1);
+        map.put("b", 2);
+        map.merge("a", 10, Integer::sum);
+        assertEquals(Integer.valueOf(11), map.get("a"));
+        assertNull(map.get("z"));
+
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("get(java.lang.Object)", 2L);
+        expected.put("put(K,V)", 2L);
+        expected.put("merge(K,V,java.util.function.BiFunction<? super V,? super V,? extends V>)", 1L);
+        assertEquals(expected, map.counts());
+        assertEquals(2, map.count("put(K,V)"));
+        assertEquals(0, map.count("size()"));
+        try {
+            map.count("put");
+            fail();
+        } catch (IllegalArgumentException expectedException) {
+        }
+        map.reset();
+        assertTrue(map.counts().isEmpty());
+    }
+
+    public void testOwnInterface() {
+        IntList list = new IntListForwarder(IntArrays.asIntList(new int[]{5, 3, 9, 1}));
+        list.sort();
+        assertEquals(2, list.binarySearch(5));
+        assertEquals(List.of(1, 3, 5, 9), list.asList());
+        assertFalse(list.isEmpty());
+    }
+
+    // 泛型方法、有界的类型参数、可变参数、throws、静态方法、和字段同名的参数都要生成能编译的代码
+    public void testGeneratedSourceCompiles() throws IOException {
+        String source = "package p;\n"
+                + "@org.example.chapter4.item18.processor.Forwarding(instrumented = true)\n"
+                + "public interface Ranked<T extends Comparable<? super T>> extends Iterable<T> {\n"
+                + "    <R extends Number & Comparable<R>> R pick(R... values) throws java.io.IOException;\n"
+                + "    T best(java.util.List<? extends T> candidates);\n"
+                + "    default int rank(T t) { return 0; }\n"
+                + "    static int zero() { return 0; }\n"
+                + "    void rename(String delegate, int counts);\n"
+                + "}\n";
+        Path dir = Files.createTempDirectory("forwarding");
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(dir, "p/Ranked.java", source);
+        assertTrue(errors.toString(), errors.isEmpty());
+        String generated = Files.readString(dir.resolve("p/InstrumentedRankedForwarder.java"));
+        assertTrue(generated, generated.contains("R... values) throws java.io.IOException"));
+        assertTrue(generated, generated.contains("<T extends java.lang.Comparable<? super T>>"));
+        assertFalse(generated, generated.contains("zero"));
+        assertTrue(generated, generated.contains("this.delegate.rename(delegate, counts);"));
+        assertTrue(Files.exists(dir.resolve("p/RankedForwarder.class")));
+    }
+
+    public void testClassesAreRejected() throws IOException {
+        String source = "package p;\n"
+                + "@org.example.chapter4.item18.processor.Forwarding(String.class)\n"
+                + "interface Holder {}\n";
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(Files.createTempDirectory("forwarding"),
+                "p/Holder.java", source);
+        assertEquals(1, errors.size());
+        assertEquals("java.lang.String is not an interface", errors.get(0).getMessage(null));
+    }
+
+    private static List<Diagnostic<? extends JavaFileObject>> compile(Path dir, String name, String source)
+            throws IOException {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+        String classes;
+        try {
+            classes = Paths.get(Forwarding.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (java.net.URISyntaxException e) {
+            throw new AssertionError(e);
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            List<String> options = List.of("-d", dir.toString(), "-s", dir.toString(), "-classpath", classes,
+                    "-processor", ForwardingProcessor.class.getName());
+            compiler.getTask(null, files, diagnostics, options, null, files.getJavaFileObjects(file)).call();
+        }
+        List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR)
+                errors.add(d);
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.chapter4.item20;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class BigArrayTest extends TestCase {
+
+    // 每段 8 个元素，小数组上就有很多段边界
+    private static final int SHIFT = 3;
+
+    public void testGetAndSetAcrossSegmentBoundaries() {
+        try (BigIntArray a = new BigIntArray(27, SHIFT)) {
+            for (long i = 0; i < a.length(); i++)
+                a.set(i, (int) i * 10);
+            for (long i : new long[]{0, 7, 8, 15, 16, 23, 24, 26})
+                assertEquals(i * 10, a.get(i));
+            assertEquals(Arrays.stream(expected(27, i -> i * 10)).sum(), a.stream().sum());
+            for (long bad : new long[]{-1, 27, Long.MAX_VALUE, Long.MIN_VALUE}) {
+                try {
+                    a.get(bad);
+                    fail("index " + bad);
+                } catch (IndexOutOfBoundsException expected) {
+                }
+            }
+        }
+    }
+
+    public void testFillAndBulkCopyMatchArrays() {
+        Random random = new Random(9);
+        int n = 61;
+        for (int round = 0; round < 300; round++) {
+            try (BigLongArray a = new BigLongArray(n, SHIFT); BigLongArray b = new BigLongArray(n, SHIFT)) {
+                long[] x = random.longs(n).toArray();
+                long[] y = random.longs(n).toArray();
+                a.copyFrom(x, 0, 0, n);
+                b.copyFrom(y, 0, 0, n);
+                int from = random.nextInt(n);
+                int to = from + random.nextInt(n - from + 1);
+                a.fill(from, to, -round);
+                Arrays.fill(x, from, to, -round);
+                int len = random.nextInt(n + 1);
+                int srcPos = random.nextInt(n - len + 1);
+                int dstPos = random.nextInt(n - len + 1);
+                // 同一个数组中重叠的复制，两个方向都要覆盖
+                BigLongArray.copy(a, srcPos, a, dstPos, len);
+                System.arraycopy(x, srcPos, x, dstPos, len);
+                BigLongArray.copy(a, dstPos, b, srcPos, len);
+                System.arraycopy(x, dstPos, y, srcPos, len);
+                assertTrue(Arrays.equals(x, toArray(a)));
+                assertTrue(Arrays.equals(y, toArray(b)));
+                long[] part = new long[len + 2];
+                a.copyTo(srcPos, part, 1, len);
+                assertTrue(Arrays.equals(Arrays.copyOfRange(x, srcPos, srcPos + len), Arrays.copyOfRange(part, 1, len + 1)));
+            }
+        }
+    }
+
+    public void testSortMatchesArraysSort() {
+        Random random = new Random(17);
+        for (int n : new int[]{0, 1, 2, 8, 9, 100, 5000}) {
+            int[] ints = random.ints(n).map(v -> random.nextBoolean() ? v : v % 4).toArray();
+            long[] longs = random.longs(n).toArray();
+            double[] special = {Double.NaN, Double.longBitsToDouble(0xFFF8000000000001L), -0.0, 0.0,
+                    Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, -Double.MIN_VALUE, Double.MAX_VALUE};
+            double[] doubles = random.doubles(n).map(d -> random.nextInt(4) == 0 ? special[random.nextInt(special.length)] : d - 0.5).toArray();
+            // chunk = 3 时走并行的分块代码
+            for (long chunk : new long[]{Long.MAX_VALUE, 3}) {
+                try (BigIntArray a = new BigIntArray(n, SHIFT);
+                     BigLongArray b = new BigLongArray(n, SHIFT);
+                     BigDoubleArray c = new BigDoubleArray(n, SHIFT)) {
+                    a.copyFrom(ints, 0, 0, n);
+                    b.copyFrom(longs, 0, 0, n);
+                    c.copyFrom(doubles, 0, 0, n);
+                    a.radixSort(chunk);
+                    b.radixSort(chunk);
+                    c.radixSort(chunk);
+                    int[] sortedInts = ints.clone();
+                    Arrays.sort(sortedInts);
+                    long[] sortedLongs = longs.clone();
+                    Arrays.sort(sortedLongs);
+                    double[] sortedDoubles = doubles.clone();
+                    Arrays.sort(sortedDoubles);
+                    assertTrue(Arrays.equals(sortedInts, IntArrays.asIntList(a).toArray()));
+                    assertTrue(Arrays.equals(sortedLongs, toArray(b)));
+                    double[] actual = new double[n];
+                    c.copyTo(0, actual, 0, n);
+                    assertTrue(Arrays.equals(sortedDoubles, actual));
+                }
+            }
+        }
+    }
+
+    public void testParallelFillAndSetAll() {
+        try (BigDoubleArray a = new BigDoubleArray(3 * BigArray.PARALLEL_CHUNK + 5, 20)) {
+            a.parallelFill(2.5);
+            assertEquals(2.5, a.get(0));
+            assertEquals(2.5, a.get(a.length() - 1));
+            a.parallelSetAll(i -> -i);
+            assertEquals(-(double) BigArray.PARALLEL_CHUNK, a.get(BigArray.PARALLEL_CHUNK));
+            a.parallelSort();
+            assertEquals(-(double) (a.length() - 1), a.get(0));
+            assertEquals(0.0, a.get(a.length() - 1));
+        }
+    }
+
+    public void testListViews() {
+        try (BigIntArray a = new BigIntArray(20, SHIFT)) {
+            IntList list = IntArrays.asIntList(a);
+            for (int i = 0; i < 20; i++)
+                list.setInt(i, 20 - i);
+            list.sort();
+            assertEquals(0, list.binarySearch(1));
+            assertEquals(Integer.valueOf(20), list.asList().get(19));
+            assertEquals(IntArrays.asIntList(expected(20, i -> i + 1)), list);
+        }
+    }
+
+    public void testCloseReleasesAndRejectsAccess() {
+        BigIntArray single = BigIntArray.allocate(10);
+        BigLongArray fromArena;
+        try (OffHeapArena arena = new OffHeapArena()) {
+            fromArena = arena.allocateLong(100);
+            fromArena.set(99, 1);
+            single.close();
+            assertTrue(single.isClosed());
+            assertFalse(fromArena.isClosed());
+            arena.close();
+            try {
+                arena.allocateInt(1);
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+        }
+        assertTrue(fromArena.isClosed());
+        try {
+            fromArena.get(0);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            single.set(0, 1);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        // 关闭两次没有问题
+        single.close();
+    }
+
+    private interface IntOp {
+        int apply(int i);
+    }
+
+    private static int[] expected(int n, IntOp op) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++)
+            a[i] = op.apply(i);
+        return a;
+    }
+
+    private static long[] toArray(BigLongArray a) {
+        long[] copy = new long[(int) a.length()];
+        a.copyTo(0, copy, 0, copy.length);
+        return copy;
+    }
+}
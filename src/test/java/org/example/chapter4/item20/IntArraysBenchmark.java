@@ -0,0 +1,57 @@
+package org.example.chapter4.item20;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ IntArrays.intArrayAsList 的装箱开销：get 求和、shuffle，与直接访问 int[] 对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntArraysBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private int[] array;
+    private List<Integer> list;
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setup() {
+        array = new int[size];
+        for (int i = 0; i < size; i++)
+            array[i] = i;
+        list = IntArrays.intArrayAsList(array);
+    }
+
+    @Benchmark
+    public long sumArray() {
+        long sum = 0;
+        for (int v : array)
+            sum += v;
+        return sum;
+    }
+
+    @Benchmark
+    public long sumList() {
+        long sum = 0;
+        for (int i = 0; i < list.size(); i++)
+            sum += list.get(i);  // Auto-unboxing
+        return sum;
+    }
+
+    @Benchmark
+    public List<Integer> shuffleList() {
+        Collections.shuffle(list, random);
+        return list;
+    }
+}
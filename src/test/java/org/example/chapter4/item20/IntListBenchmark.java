@@ -0,0 +1,74 @@
+package org.example.chapter4.item20;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 大数组上的 shuffle 和 sort：intArrayAsList（List<Integer>）和 asIntList（IntList）的对比，加上 -prof gc 看 gc.alloc.rate.norm
+    shuffle*: Collections.shuffle 每次 get / set 都装箱，128 以外的值都会创建 Integer；IntList.shuffle 直接交换 int
+    sort*   : List.sort(null) 先 toArray 成 Integer[] 再归并排序，最后写回；IntList.sort 是 Arrays.sort(int[])，原地排序
+    每次调用之前把数组恢复成同一个乱序的内容（Level.Invocation，不计入时间）
+ size = 10^8 时 int[] 是 400MB，装箱的 sort 还需要 10^8 个 Integer（约 1.6GB），所以堆设成 4g
+ 运行：mvn -Pjmh verify -Djmh.args="IntListBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class IntListBenchmark {
+
+    @Param({"1000000", "100000000"})
+    public int size;
+
+    private int[] source;
+    private int[] array;
+    private List<Integer> boxed;
+    private IntList ints;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        source = new int[size];
+        Random r = new Random(7);
+        for (int i = 0; i < size; i++)
+            source[i] = r.nextInt();
+        array = new int[size];
+        boxed = IntArrays.intArrayAsList(array);
+        ints = IntArrays.asIntList(array);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        System.arraycopy(source, 0, array, 0, size);
+    }
+
+    @Benchmark
+    public List<Integer> shuffleBoxed() {
+        Collections.shuffle(boxed, random);
+        return boxed;
+    }
+
+    @Benchmark
+    public IntList shuffleIntList() {
+        ints.shuffle(random);
+        return ints;
+    }
+
+    @Benchmark
+    public List<Integer> sortBoxed() {
+        boxed.sort(null);
+        return boxed;
+    }
+
+    @Benchmark
+    public IntList sortIntList() {
+        ints.sort();
+        return ints;
+    }
+}
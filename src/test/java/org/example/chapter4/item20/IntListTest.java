@@ -0,0 +1,117 @@
+package org.example.chapter4.item20;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.example.Allocations.allocatedBytes;
+
+public class IntListTest extends TestCase {
+
+    // 只实现三个基本方法，测试骨架实现中的通用版本
+    private static final class SkeletalIntList extends AbstractIntList {
+        private final int[] a;
+
+        SkeletalIntList(int[] a) {
+            this.a = a;
+        }
+
+        @Override public int getInt(int i) {
+            return a[i];
+        }
+
+        @Override public int setInt(int i, int val) {
+            int oldVal = a[i];
+            a[i] = val;
+            return oldVal;
+        }
+
+        @Override public int size() {
+            return a.length;
+        }
+    }
+
+    public void testArrayAndSkeletalListsAgree() {
+        Random random = new Random(5);
+        for (int n : new int[]{0, 1, 2, 1000}) {
+            int[] values = random.ints(n, -50, 50).toArray();
+            int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (IntList list : new IntList[]{IntArrays.asIntList(values.clone()), new SkeletalIntList(values.clone())}) {
+                assertEquals(n, list.size());
+                assertEquals(Arrays.stream(values).sum(), list.stream().sum());
+                list.shuffle(random);
+                int[] shuffled = list.toArray();
+                Arrays.sort(shuffled);
+                assertTrue(Arrays.equals(sorted, shuffled));
+                list.sort();
+                assertTrue(Arrays.equals(sorted, list.toArray()));
+                for (int key = -52; key < 52; key++)
+                    assertEquals(Arrays.binarySearch(sorted, key) >= 0, list.binarySearch(key) >= 0);
+                for (int i = 0; i < n; i++)
+                    assertEquals(sorted[i], list.getInt(list.binarySearch(sorted[i])));
+                assertEquals(IntArrays.asIntList(sorted), list);
+                assertEquals(IntArrays.asIntList(sorted).hashCode(), list.hashCode());
+            }
+        }
+    }
+
+    public void testBinarySearchReturnsInsertionPoint() {
+        IntList list = IntArrays.asIntList(new int[]{1, 3, 5});
+        IntList skeletal = new SkeletalIntList(new int[]{1, 3, 5});
+        for (int key = 0; key <= 6; key++)
+            assertEquals(list.binarySearch(key), skeletal.binarySearch(key));
+        assertEquals(-1, skeletal.binarySearch(0));
+        assertEquals(-4, skeletal.binarySearch(6));
+    }
+
+    public void testListViewWritesThrough() {
+        int[] a = {3, 1, 2};
+        IntList ints = IntArrays.asIntList(a);
+        List<Integer> view = ints.asList();
+        assertEquals(Arrays.asList(3, 1, 2), view);
+        assertEquals(new ArrayList<>(view).hashCode(), ints.hashCode());
+        Collections.sort(view);
+        assertTrue(Arrays.equals(new int[]{1, 2, 3}, a));
+        view.sort(Collections.reverseOrder());
+        assertTrue(Arrays.equals(new int[]{3, 2, 1}, a));
+        assertEquals(Integer.valueOf(3), view.set(0, 7));
+        assertEquals(7, a[0]);
+        assertEquals("[7, 2, 1]", ints.toString());
+    }
+
+    public void testLongAndDoubleLists() {
+        long[] longs = {5, Long.MIN_VALUE, -1, Long.MAX_VALUE};
+        LongList longList = IntArrays.asLongList(longs);
+        longList.sort();
+        assertTrue(Arrays.equals(new long[]{Long.MIN_VALUE, -1, 5, Long.MAX_VALUE}, longs));
+        assertEquals(2, longList.binarySearch(5));
+        assertEquals(Arrays.asList(Long.MIN_VALUE, -1L, 5L, Long.MAX_VALUE), longList.asList());
+
+        double[] doubles = {Double.NaN, 0.0, -0.0, -1.5};
+        DoubleList doubleList = IntArrays.asDoubleList(doubles);
+        doubleList.sort();
+        assertTrue(Arrays.equals(new double[]{-1.5, -0.0, 0.0, Double.NaN}, doubles));
+        assertEquals(3, doubleList.binarySearch(Double.NaN));
+        assertEquals(-1.5, doubleList.stream().filter(d -> !Double.isNaN(d)).sum());
+        assertEquals(Arrays.asList(-1.5, -0.0, 0.0, Double.NaN).hashCode(), doubleList.hashCode());
+    }
+
+    private static final int CALLS = 1_000_000;
+
+    // intArrayAsList 的 shuffle 每个 128 以外的值都要装箱；IntList 不分配
+    public void testShuffleDoesNotAllocate() {
+        int[] a = new int[CALLS];
+        for (int i = 0; i < a.length; i++)
+            a[i] = i;
+        IntList list = IntArrays.asIntList(a);
+        Random random = new Random(1);
+        list.shuffle(random);
+        long bytes = allocatedBytes(() -> list.shuffle(random));
+        assertTrue("allocated " + bytes + " bytes for " + CALLS + " elements", bytes < CALLS);
+    }
+}
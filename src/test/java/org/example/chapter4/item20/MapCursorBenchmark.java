@@ -0,0 +1,121 @@
+package org.example.chapter4.item20;
+
+import org.example.chapter3.item13.PersistentHashMap;
+import org.example.chapter3.item14.HashingStrategy;
+import org.example.chapter3.item14.StrategyHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ 遍历整个 map 求 value 的和：entrySet().iterator() 和 MapCursor、forEach 的对比，加上 -prof gc 看 gc.alloc.rate.norm
+    persistentEntrySet: PersistentHashMap 的迭代器每个元素创建一个 SimpleImmutableEntry；循环很简单时逃逸分析可以消除
+    *Escaping         : Entry 传给一个没有内联的方法（相当于真实代码中多态的处理逻辑），逃逸分析不再起作用，
+        迭代器每个元素一个 Entry，游标的 entry() 始终是同一个对象
+    *Cursor           : 整个遍历只创建游标一个对象
+    *ForEach          : 不创建对象
+    hashMapEntrySet   : 参考，HashMap 的节点本身就是 Entry，迭代器不创建 Entry
+ 运行：mvn -Pjmh verify -Djmh.args="MapCursorBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapCursorBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private HashMap<Integer, Integer> hashMap;
+    private PersistentHashMap<Integer, Integer> persistent;
+    private StrategyHashMap<Integer, Integer> strategy;
+    private long sum;
+
+    @Setup
+    public void setup() {
+        hashMap = new HashMap<>();
+        strategy = new StrategyHashMap<>(HashingStrategy.natural(), size);
+        for (int i = 0; i < size; i++) {
+            hashMap.put(i, i);
+            strategy.put(i, i);
+        }
+        persistent = PersistentHashMap.copyOf(hashMap);
+    }
+
+    @Benchmark
+    public long hashMapEntrySet() {
+        long s = 0;
+        for (Iterator<Map.Entry<Integer, Integer>> it = hashMap.entrySet().iterator(); it.hasNext(); )
+            s += it.next().getValue();
+        return s;
+    }
+
+    @Benchmark
+    public long persistentEntrySet() {
+        long s = 0;
+        for (Iterator<Map.Entry<Integer, Integer>> it = persistent.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Integer> e = it.next();
+            s += e.getKey() + e.getValue();
+        }
+        return s;
+    }
+
+    @Benchmark
+    public long persistentEntrySetEscaping() {
+        long s = 0;
+        for (Iterator<Map.Entry<Integer, Integer>> it = persistent.entrySet().iterator(); it.hasNext(); )
+            s += consume(it.next());
+        return s;
+    }
+
+    @Benchmark
+    public long persistentCursorEscaping() {
+        long s = 0;
+        MapCursor<Integer, Integer> c = persistent.cursor();
+        while (c.advance())
+            s += consume(c.entry());
+        return s;
+    }
+
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static int consume(Map.Entry<Integer, Integer> e) {
+        return e.getKey() + e.getValue();
+    }
+
+    @Benchmark
+    public long persistentCursor() {
+        long s = 0;
+        MapCursor<Integer, Integer> c = persistent.cursor();
+        while (c.advance())
+            s += c.key() + c.value();
+        return s;
+    }
+
+    @Benchmark
+    public long persistentForEach() {
+        sum = 0;
+        persistent.forEach((k, v) -> sum += k + v);
+        return sum;
+    }
+
+    @Benchmark
+    public long strategyCursor() {
+        long s = 0;
+        MapCursor<Integer, Integer> c = strategy.cursor();
+        while (c.advance())
+            s += c.key() + c.value();
+        return s;
+    }
+
+    @Benchmark
+    public long strategyForEach() {
+        sum = 0;
+        strategy.forEach((k, v) -> sum += k + v);
+        return sum;
+    }
+}
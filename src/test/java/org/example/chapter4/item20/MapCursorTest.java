@@ -0,0 +1,122 @@
+package org.example.chapter4.item20;
+
+import junit.framework.TestCase;
+import org.example.chapter3.item10.CaseInsensitiveMap;
+import org.example.chapter3.item13.PersistentHashMap;
+import org.example.chapter3.item14.HashingStrategy;
+import org.example.chapter3.item14.StrategyHashMap;
+
+import java.util.AbstractMap;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.example.Allocations.allocatedBytes;
+
+public class MapCursorTest extends TestCase {
+
+    private static final int CALLS = 1_000_000;
+    private static long sink;
+
+    public void testCursorVisitsEveryEntryOnce() {
+        Map<Integer, String> expected = new HashMap<>();
+        StrategyHashMap<Integer, String> strategy = new StrategyHashMap<>(HashingStrategy.natural());
+        CaseInsensitiveMap<String> caseInsensitive = new CaseInsensitiveMap<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.put(i, "v" + i);
+            strategy.put(i, "v" + i);
+            caseInsensitive.put("K" + i, "v" + i);
+        }
+        PersistentHashMap<Integer, String> persistent = PersistentHashMap.copyOf(expected);
+
+        assertEquals(expected, drain(strategy.cursor()));
+        assertEquals(expected, drain(persistent.cursor()));
+        Map<String, String> byName = drain(caseInsensitive.cursor());
+        assertEquals(1000, byName.size());
+        for (int i = 0; i < 1000; i++)
+            assertEquals("v" + i, byName.get("K" + i));
+
+        MapCursor<Integer, String> empty = new StrategyHashMap<Integer, String>(HashingStrategy.natural()).cursor();
+        assertFalse(empty.advance());
+        assertFalse(empty.advance());
+    }
+
+    // entry() 每次是同一个对象，但 equals / hashCode 和普通的 Map.Entry 相同
+    public void testFlyweightEntryAndSetValue() {
+        StrategyHashMap<String, Integer> map = new StrategyHashMap<>(HashingStrategy.natural());
+        map.put("a", 1);
+        map.put("b", 2);
+        MapCursor<String, Integer> c = map.cursor();
+        Map.Entry<String, Integer> entry = c.entry();
+        while (c.advance()) {
+            assertSame(entry, c.entry());
+            assertEquals(new AbstractMap.SimpleImmutableEntry<>(c.key(), c.value()), entry);
+            assertEquals(new AbstractMap.SimpleImmutableEntry<>(c.key(), c.value()).hashCode(), entry.hashCode());
+            assertEquals(c.value(), entry.setValue(c.value() * 10));
+        }
+        assertEquals(Integer.valueOf(10), map.get("a"));
+        assertEquals(Integer.valueOf(20), map.get("b"));
+        try {
+            c.key();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+
+        MapCursor<String, Integer> immutable = PersistentHashMap.<String, Integer>empty().plus("a", 1).cursor();
+        assertTrue(immutable.advance());
+        try {
+            immutable.setValue(2);
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    public void testStructuralChangeIsDetected() {
+        StrategyHashMap<Integer, Integer> map = new StrategyHashMap<>(HashingStrategy.natural());
+        map.put(0, 0);
+        MapCursor<Integer, Integer> c = map.cursor();
+        assertTrue(c.advance());
+        for (int i = 1; i < 100; i++)
+            map.put(i, i);
+        try {
+            c.advance();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+    }
+
+    // 遍历一百万个元素，只创建游标本身（entrySet().iterator() 的对比见 MapCursorBenchmark）
+    public void testCursorAndForEachDoNotAllocatePerEntry() {
+        Map<Integer, Integer> source = new HashMap<>();
+        StrategyHashMap<Integer, Integer> strategy = new StrategyHashMap<>(HashingStrategy.natural(), CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            source.put(i, i);
+            strategy.put(i, i);
+        }
+        PersistentHashMap<Integer, Integer> persistent = PersistentHashMap.copyOf(source);
+
+        Runnable strategyCursor = () -> sink += sumCursor(strategy.cursor());
+        Runnable persistentCursor = () -> sink += sumCursor(persistent.cursor());
+        Runnable strategyForEach = () -> strategy.forEach((k, v) -> sink += v);
+        Runnable persistentForEach = () -> persistent.forEach((k, v) -> sink += v);
+        for (Runnable scan : new Runnable[]{strategyCursor, persistentCursor, strategyForEach, persistentForEach}) {
+            scan.run();
+            long bytes = allocatedBytes(scan);
+            assertTrue("allocated " + bytes + " bytes for " + CALLS + " entries", bytes < CALLS);
+        }
+    }
+
+    private static long sumCursor(MapCursor<Integer, Integer> c) {
+        long sum = 0;
+        while (c.advance())
+            sum += c.value();
+        return sum;
+    }
+
+    private static <K, V> Map<K, V> drain(MapCursor<K, V> c) {
+        Map<K, V> result = new HashMap<>();
+        while (c.advance())
+            assertNull("duplicate " + c.key(), result.put(c.key(), c.value()));
+        return result;
+    }
+}